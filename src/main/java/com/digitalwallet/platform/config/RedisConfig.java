@@ -1,5 +1,8 @@
 package com.digitalwallet.platform.config;
 
+import com.digitalwallet.platform.service.cache.CompactCacheValueSerializer;
+import com.digitalwallet.platform.service.cache.TwoTierCacheManager;
+import com.digitalwallet.platform.service.cache.VersionedCacheWriter;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -7,9 +10,13 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,8 +24,13 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -28,8 +40,80 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @ConditionalOnProperty(name = "spring.data.redis.host")
 public class RedisConfig {
 
+  /**
+   * The Redis cache manager, fronted by an in-process tier unless {@code
+   * app.cache.local.enabled=false}.
+   */
   @Bean(name = "redisCacheManager")
-  public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+  public CacheManager cacheManager(
+      RedisConnectionFactory connectionFactory,
+      StringRedisTemplate redisTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${app.cache.ttl-minutes:10}") long ttlMinutes,
+      @Value("${app.cache.compact-values.enabled:false}") boolean compactValues,
+      @Value("${app.cache.local.enabled:true}") boolean localEnabled,
+      @Value("${app.cache.local.maximum-size:10000}") long localMaximumSize,
+      @Value("${app.cache.local.ttl-seconds:60}") long localTtlSeconds,
+      @Value("${app.cache.local.invalidation-channel:wallet:cache:invalidation}") String channel) {
+    RedisCacheConfiguration config =
+        RedisCacheConfiguration.defaultCacheConfig()
+            .entryTtl(Duration.ofMinutes(ttlMinutes))
+            .disableCachingNullValues()
+            .serializeKeysWith(
+                RedisSerializationContext.SerializationPair.fromSerializer(
+                    new StringRedisSerializer()))
+            .serializeValuesWith(
+                RedisSerializationContext.SerializationPair.fromSerializer(
+                    cacheValueSerializer(compactValues)));
+
+    RedisCacheManager redisCacheManager =
+        RedisCacheManager.builder(connectionFactory).cacheDefaults(config).build();
+    if (!localEnabled) {
+      return redisCacheManager;
+    }
+    // Not a bean itself, so initialise it here
+    redisCacheManager.initializeCaches();
+
+    return new TwoTierCacheManager(
+        redisCacheManager,
+        redisTemplate,
+        meterRegistry,
+        channel,
+        localMaximumSize,
+        Duration.ofSeconds(localTtlSeconds));
+  }
+
+  /** Subscribes the in-process cache tier to invalidations published by other replicas. */
+  @Bean
+  public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+      RedisConnectionFactory connectionFactory,
+      @Qualifier("redisCacheManager") CacheManager cacheManager,
+      @Value("${app.cache.local.invalidation-channel:wallet:cache:invalidation}") String channel) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    if (cacheManager instanceof TwoTierCacheManager twoTier) {
+      container.addMessageListener(twoTier, new ChannelTopic(channel));
+    }
+    return container;
+  }
+
+  /**
+   * Reads and writes cache entries directly, in the cache's own key and value format, for {@link
+   * VersionedCacheWriter}.
+   */
+  @Bean
+  public RedisTemplate<String, Object> cacheRedisTemplate(
+      RedisConnectionFactory connectionFactory,
+      @Value("${app.cache.compact-values.enabled:false}") boolean compactValues) {
+    RedisTemplate<String, Object> template = new RedisTemplate<>();
+    template.setConnectionFactory(connectionFactory);
+    template.setKeySerializer(new StringRedisSerializer());
+    template.setValueSerializer(cacheValueSerializer(compactValues));
+    return template;
+  }
+
+  // Cached DTOs in the compact binary format, anything else as JSON with type information
+  private static RedisSerializer<Object> cacheValueSerializer(boolean compactValues) {
     ObjectMapper mapper = new ObjectMapper();
 
     // 1. Module Registration
@@ -47,18 +131,7 @@ public class RedisConfig {
         ptv, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
 
     // 4. Create Serializer
-    GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(mapper);
-
-    RedisCacheConfiguration config =
-        RedisCacheConfiguration.defaultCacheConfig()
-            .entryTtl(Duration.ofMinutes(10))
-            .disableCachingNullValues()
-            .serializeKeysWith(
-                RedisSerializationContext.SerializationPair.fromSerializer(
-                    new StringRedisSerializer()))
-            .serializeValuesWith(
-                RedisSerializationContext.SerializationPair.fromSerializer(serializer));
-
-    return RedisCacheManager.builder(connectionFactory).cacheDefaults(config).build();
+    return new CompactCacheValueSerializer(
+        new GenericJackson2JsonRedisSerializer(mapper), compactValues);
   }
 }
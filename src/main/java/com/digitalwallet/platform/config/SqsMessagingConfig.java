@@ -0,0 +1,41 @@
+package com.digitalwallet.platform.config;
+
+import com.digitalwallet.platform.service.messaging.TransactionEventMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.sqs.support.converter.SqsMessagingMessageConverter;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+
+/**
+ * Message converter shared by the auto-configured SqsTemplate and listener containers.
+ *
+ * <p>Transaction events marked with the binary content type are read and written by {@link
+ * TransactionEventMessageConverter}; all other payloads, including JSON transaction events, keep
+ * the default String and Jackson conversion.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.cloud.aws.sqs.enabled", havingValue = "true")
+public class SqsMessagingConfig {
+
+  @Bean
+  public SqsMessagingMessageConverter sqsMessagingMessageConverter(ObjectMapper objectMapper) {
+    MappingJackson2MessageConverter jsonConverter = new MappingJackson2MessageConverter();
+    jsonConverter.setSerializedPayloadClass(String.class);
+    jsonConverter.setStrictContentTypeMatch(false);
+    jsonConverter.setObjectMapper(objectMapper);
+
+    SqsMessagingMessageConverter converter = new SqsMessagingMessageConverter();
+    converter.setPayloadMessageConverter(
+        new CompositeMessageConverter(
+            List.of(
+                new TransactionEventMessageConverter(),
+                new StringMessageConverter(),
+                jsonConverter)));
+    return converter;
+  }
+}
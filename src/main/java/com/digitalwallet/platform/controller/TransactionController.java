@@ -3,6 +3,7 @@ package com.digitalwallet.platform.controller;
 import com.digitalwallet.platform.dto.*;
 import com.digitalwallet.platform.security.CustomUserDetails;
 import com.digitalwallet.platform.service.TransactionService;
+import com.digitalwallet.platform.service.idempotency.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,37 +21,56 @@ import org.springframework.web.bind.annotation.*;
 public class TransactionController {
 
   private final TransactionService transactionService;
+  private final IdempotencyService idempotencyService;
 
   @Operation(
       summary = "Send money to another wallet",
       description = "Transfer money from your wallet to another user's wallet")
   @PostMapping("/transfer")
-  public ResponseEntity<TransferResponse> transfer(
+  public ResponseEntity<?> transfer(
       @Valid @RequestBody TransferRequest request,
-      @AuthenticationPrincipal CustomUserDetails userDetails) {
-    TransferResponse response = transactionService.transfer(request, userDetails.getUser().getId());
-    return ResponseEntity.ok(response);
+      @AuthenticationPrincipal CustomUserDetails userDetails,
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+    Long userId = userDetails.getUser().getId();
+    return idempotencyService.execute(
+        userId,
+        idempotencyKey,
+        "transactions.transfer",
+        request,
+        () -> ResponseEntity.ok(transactionService.transfer(request, userId)));
   }
 
   @Operation(
       summary = "Deposit money to wallet",
       description = "Add money to your wallet (simulated deposit)")
   @PostMapping("/deposit")
-  public ResponseEntity<DepositResponse> deposit(
+  public ResponseEntity<?> deposit(
       @Valid @RequestBody DepositRequest request,
-      @AuthenticationPrincipal CustomUserDetails userDetails) {
-    DepositResponse response = transactionService.deposit(request, userDetails.getUser().getId());
-    return ResponseEntity.ok(response);
+      @AuthenticationPrincipal CustomUserDetails userDetails,
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+    Long userId = userDetails.getUser().getId();
+    return idempotencyService.execute(
+        userId,
+        idempotencyKey,
+        "transactions.deposit",
+        request,
+        () -> ResponseEntity.ok(transactionService.deposit(request, userId)));
   }
 
   @Operation(
       summary = "Withdraw money from wallet",
       description = "Withdraw money from your wallet")
   @PostMapping("/withdraw")
-  public ResponseEntity<WithdrawResponse> withdraw(
+  public ResponseEntity<?> withdraw(
       @Valid @RequestBody WithdrawRequest request,
-      @AuthenticationPrincipal CustomUserDetails userDetails) {
-    WithdrawResponse response = transactionService.withdraw(request, userDetails.getUser().getId());
-    return ResponseEntity.ok(response);
+      @AuthenticationPrincipal CustomUserDetails userDetails,
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+    Long userId = userDetails.getUser().getId();
+    return idempotencyService.execute(
+        userId,
+        idempotencyKey,
+        "transactions.withdraw",
+        request,
+        () -> ResponseEntity.ok(transactionService.withdraw(request, userId)));
   }
 }
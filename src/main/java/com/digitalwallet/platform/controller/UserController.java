@@ -2,6 +2,7 @@ package com.digitalwallet.platform.controller;
 
 import com.digitalwallet.platform.model.User;
 import com.digitalwallet.platform.repository.UserRepository;
+import com.digitalwallet.platform.security.CustomUserDetails;
 import com.digitalwallet.platform.service.StorageService;
 import com.digitalwallet.platform.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,6 +29,10 @@ public class UserController {
   private final UserRepository userRepository;
 
   private User getCurrentUser(Authentication authentication) {
+    // Reuse the User the JWT filter already resolved for this request
+    if (authentication.getPrincipal() instanceof CustomUserDetails customUserDetails) {
+      return customUserDetails.getUser();
+    }
     String email = authentication.getName();
     return userRepository
         .findByEmail(email)
@@ -1,10 +1,13 @@
 package com.digitalwallet.platform.controller;
 
 import com.digitalwallet.platform.dto.*;
+import com.digitalwallet.platform.model.TransactionStatus;
 import com.digitalwallet.platform.model.User;
 import com.digitalwallet.platform.repository.UserRepository;
 import com.digitalwallet.platform.security.CustomUserDetails;
+import com.digitalwallet.platform.service.BatchTransferService;
 import com.digitalwallet.platform.service.WalletService;
+import com.digitalwallet.platform.service.idempotency.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -30,6 +33,8 @@ public class WalletController {
 
   private final WalletService walletService;
   private final UserRepository userRepository;
+  private final IdempotencyService idempotencyService;
+  private final BatchTransferService batchTransferService;
 
   // Helper method to get current user
   private User getCurrentUser(Authentication authentication) {
@@ -185,15 +190,24 @@ public class WalletController {
   @Operation(summary = "Deposit money to wallet", description = "Add money to the user's wallet")
   @PostMapping("/deposit")
   public ResponseEntity<?> deposit(
-      Authentication authentication, @Valid @RequestBody TransactionRequest request) {
+      Authentication authentication,
+      @Valid @RequestBody TransactionRequest request,
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
     try {
       User user = getCurrentUser(authentication);
       log.info(
           "POST /api/wallet/deposit - User ID: {}, Amount: {}", user.getId(), request.getAmount());
 
-      TransactionResponse response =
-          walletService.deposit(user.getId(), request.getAmount(), request.getCurrency());
-      return ResponseEntity.ok(response);
+      // A retried request with the same Idempotency-Key gets the original response back
+      return idempotencyService.execute(
+          user.getId(),
+          idempotencyKey,
+          "wallet.deposit",
+          request,
+          () ->
+              ResponseEntity.ok(
+                  walletService.deposit(
+                      user.getId(), request.getAmount(), request.getCurrency())));
     } catch (Exception e) {
       log.error("Error depositing: {}", e.getMessage(), e);
       return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -205,15 +219,23 @@ public class WalletController {
       description = "Withdraw money from the user's wallet")
   @PostMapping("/withdraw")
   public ResponseEntity<?> withdraw(
-      Authentication authentication, @Valid @RequestBody TransactionRequest request) {
+      Authentication authentication,
+      @Valid @RequestBody TransactionRequest request,
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
     try {
       User user = getCurrentUser(authentication);
       log.info(
           "POST /api/wallet/withdraw - User ID: {}, Amount: {}", user.getId(), request.getAmount());
 
-      TransactionResponse response =
-          walletService.withdraw(user.getId(), request.getAmount(), request.getCurrency());
-      return ResponseEntity.ok(response);
+      return idempotencyService.execute(
+          user.getId(),
+          idempotencyKey,
+          "wallet.withdraw",
+          request,
+          () ->
+              ResponseEntity.ok(
+                  walletService.withdraw(
+                      user.getId(), request.getAmount(), request.getCurrency())));
     } catch (Exception e) {
       log.error("Error withdrawing: {}", e.getMessage(), e);
       return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -225,7 +247,9 @@ public class WalletController {
       description = "Transfer money from your wallet to another user's wallet")
   @PostMapping("/transfer")
   public ResponseEntity<?> transfer(
-      @RequestBody TransferRequest request, Authentication authentication) {
+      @RequestBody TransferRequest request,
+      Authentication authentication,
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
     try {
       User user = getCurrentUser(authentication);
       log.info(
@@ -234,14 +258,24 @@ public class WalletController {
           request.getReceiverWalletNumber(),
           request.getAmount());
 
-      TransferResponse response =
-          walletService.initiateTransfer(
-              user.getId(),
-              request.getReceiverWalletNumber(),
-              request.getAmount(),
-              request.getCurrency(),
-              request.getDescription());
-      return ResponseEntity.accepted().body(response);
+      return idempotencyService.execute(
+          user.getId(),
+          idempotencyKey,
+          "wallet.transfer",
+          request,
+          () -> {
+            TransferResponse response =
+                walletService.initiateTransfer(
+                    user.getId(),
+                    request.getReceiverWalletNumber(),
+                    request.getAmount(),
+                    request.getCurrency(),
+                    request.getDescription());
+            // Transfers completed inline are final; queued ones are still PENDING
+            return response.getStatus() == TransactionStatus.COMPLETED
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.accepted().body(response);
+          });
     } catch (RuntimeException e) {
       log.error("Error transferring: {}", e.getMessage(), e);
       return ResponseEntity.badRequest()
@@ -256,6 +290,43 @@ public class WalletController {
     }
   }
 
+  @Operation(
+      summary = "Pay many wallets at once",
+      description =
+          "Transfer from your wallet to up to 10,000 receivers in one request. Invalid lines are"
+              + " reported individually; all valid lines complete together or not at all")
+  @PostMapping("/transfers/batch")
+  public ResponseEntity<?> batchTransfer(
+      Authentication authentication,
+      @Valid @RequestBody BatchTransferRequest request,
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+    try {
+      User user = getCurrentUser(authentication);
+      log.info(
+          "POST /api/wallet/transfers/batch - User ID: {}, Lines: {}",
+          user.getId(),
+          request.getLines().size());
+
+      return idempotencyService.execute(
+          user.getId(),
+          idempotencyKey,
+          "wallet.transfers.batch",
+          request,
+          () -> ResponseEntity.ok(batchTransferService.transfer(user.getId(), request)));
+    } catch (RuntimeException e) {
+      log.error("Error in batch transfer: {}", e.getMessage(), e);
+      return ResponseEntity.badRequest()
+          .body(
+              Map.of(
+                  "error", e.getMessage(),
+                  "timestamp", LocalDateTime.now()));
+    } catch (Exception e) {
+      log.error("Unexpected error during batch transfer: {}", e.getMessage(), e);
+      return ResponseEntity.status(500)
+          .body(Map.of("error", "Internal server error", "timestamp", LocalDateTime.now()));
+    }
+  }
+
   @Operation(
       summary = "Get transaction status",
       description = "Get the status of a transaction by its reference ID")
@@ -0,0 +1,15 @@
+package com.digitalwallet.platform.dto;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Lines are checked one by one by the batch service, so a bad line fails alone
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferLine {
+  private String receiverWalletNumber;
+  private BigDecimal amount;
+}
@@ -0,0 +1,23 @@
+package com.digitalwallet.platform.dto;
+
+import com.digitalwallet.platform.model.TransactionStatus;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferLineResult {
+  // Position of the line in the request
+  private int line;
+  private String receiverWalletNumber;
+  private BigDecimal amount;
+  private TransactionStatus status;
+  private Long transactionId;
+  private String referenceId;
+  private String error;
+}
@@ -0,0 +1,17 @@
+package com.digitalwallet.platform.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class BatchTransferRequest {
+  @NotEmpty(message = "At least one transfer line is required")
+  private List<BatchTransferLine> lines;
+
+  @NotBlank(message = "Currency is required")
+  private String currency = "USD";
+
+  private String description;
+}
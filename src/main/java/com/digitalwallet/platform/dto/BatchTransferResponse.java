@@ -0,0 +1,25 @@
+package com.digitalwallet.platform.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+  private String batchId;
+  private String senderWallet;
+  private String currency;
+  private BigDecimal totalAmount;
+  private int completed;
+  private int failed;
+  private BigDecimal newBalance;
+  private List<BatchTransferLineResult> results;
+  private LocalDateTime timestamp;
+}
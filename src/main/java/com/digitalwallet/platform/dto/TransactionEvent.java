@@ -13,9 +13,19 @@ import lombok.NoArgsConstructor;
 public class TransactionEvent {
   private String transactionReferenceId;
   private Long senderId;
+  private Long senderWalletId;
   private Long transactionId; // Database ID of the PENDING transaction
   private String receiverWalletNumber;
   private BigDecimal amount;
   private String currency;
   private String description;
+
+  /**
+   * Key that orders this event with the sender's other transfers: the SQS FIFO message group and
+   * the in-process dispatcher lane. Falls back to the sender's user id (one wallet per user) for
+   * events queued before the wallet id was carried.
+   */
+  public Long partitionKey() {
+    return senderWalletId != null ? senderWalletId : senderId;
+  }
 }
@@ -25,4 +25,6 @@ public class WalletResponse implements java.io.Serializable {
   private BigDecimal totalMonthlySpent;
   private LocalDateTime createdAt;
   private LocalDateTime updatedAt;
+  // wallets.version plus the wallet's ledger legs at read time; the cache keeps the highest one
+  private Long version;
 }
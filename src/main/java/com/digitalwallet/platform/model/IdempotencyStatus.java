@@ -0,0 +1,6 @@
+package com.digitalwallet.platform.model;
+
+public enum IdempotencyStatus {
+  IN_PROGRESS,
+  COMPLETED
+}
@@ -0,0 +1,7 @@
+package com.digitalwallet.platform.model;
+
+public enum LedgerAccount {
+  WALLET,
+  // Money entering or leaving the platform (deposits, withdrawals)
+  EXTERNAL
+}
@@ -0,0 +1,6 @@
+package com.digitalwallet.platform.model;
+
+public enum LedgerDirection {
+  DEBIT,
+  CREDIT
+}
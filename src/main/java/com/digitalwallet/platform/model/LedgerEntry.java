@@ -0,0 +1,53 @@
+package com.digitalwallet.platform.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "ledger_entries")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+  @SequenceGenerator(
+      name = "ledger_entries_seq",
+      sequenceName = "ledger_entries_seq",
+      allocationSize = 50)
+  private Long id;
+
+  // An association rather than a bare id, so ordered batch inserts keep it after its transaction
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "transaction_id", nullable = false, updatable = false)
+  private Transaction transaction;
+
+  // Null for the EXTERNAL account
+  @Column(name = "wallet_id", updatable = false)
+  private Long walletId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20, updatable = false)
+  private LedgerAccount account;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 6, updatable = false)
+  private LedgerDirection direction;
+
+  @Column(nullable = false, precision = 19, scale = 2, updatable = false)
+  private BigDecimal amount;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  // Set once the leg is part of wallets.balance; null while it is in the unmaterialized tail
+  @Column(name = "materialized_at")
+  private LocalDateTime materializedAt;
+}
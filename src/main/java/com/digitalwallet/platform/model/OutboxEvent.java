@@ -0,0 +1,48 @@
+package com.digitalwallet.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "outbox_events")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "event_type", nullable = false, length = 50)
+  private OutboxEventType eventType;
+
+  // Id of the row the event is about, e.g. the transaction
+  @Column(name = "aggregate_id", nullable = false)
+  private Long aggregateId;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  @Builder.Default
+  @Column(nullable = false)
+  private Integer attempts = 0;
+
+  @Column(name = "last_error", length = 500)
+  private String lastError;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "available_at", nullable = false)
+  private LocalDateTime availableAt;
+
+  @Column(name = "sent_at")
+  private LocalDateTime sentAt;
+}
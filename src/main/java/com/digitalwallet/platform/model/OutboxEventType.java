@@ -0,0 +1,6 @@
+package com.digitalwallet.platform.model;
+
+public enum OutboxEventType {
+  // A PENDING transfer to be executed by the transaction-queue consumer
+  TRANSFER_INITIATED
+}
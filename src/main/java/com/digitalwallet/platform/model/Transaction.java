@@ -17,8 +17,13 @@ import org.hibernate.annotations.CreationTimestamp;
 @AllArgsConstructor
 public class Transaction {
 
+  // Pooled sequence (see V9) so inserts can be JDBC-batched; IDENTITY disables batching
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+  @SequenceGenerator(
+      name = "transactions_seq",
+      sequenceName = "transactions_seq",
+      allocationSize = 50)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
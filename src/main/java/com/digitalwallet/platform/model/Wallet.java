@@ -72,6 +72,12 @@ public class Wallet {
   @Builder.Default
   private BigDecimal totalMonthlySpent = BigDecimal.ZERO;
 
+  // Hot wallets keep part of their balance in wallet_balance_slots (0 = all in this row).
+  // Only changed through WalletRepository.updateBalanceSlots, never by entity flushes.
+  @Column(name = "balance_slots", nullable = false, updatable = false)
+  @Builder.Default
+  private Integer balanceSlots = 0;
+
   // Reset method for daily limits
   public void resetDailySpent() {
     this.totalDailySpent = BigDecimal.ZERO;
@@ -81,4 +87,8 @@ public class Wallet {
   public void resetMonthlySpent() {
     this.totalMonthlySpent = BigDecimal.ZERO;
   }
+
+  public boolean hasBalanceSlots() {
+    return balanceSlots != null && balanceSlots > 0;
+  }
 }
@@ -0,0 +1,37 @@
+package com.digitalwallet.platform.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+@Entity
+@Table(name = "wallet_balance_slots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceSlot {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "wallet_id", nullable = false)
+  private Long walletId;
+
+  @Column(nullable = false)
+  private Integer slot;
+
+  @Column(nullable = false, precision = 19, scale = 2)
+  @Builder.Default
+  private BigDecimal balance = BigDecimal.ZERO;
+
+  @UpdateTimestamp
+  @Column(name = "updated_at")
+  private LocalDateTime updatedAt;
+}
@@ -0,0 +1,84 @@
+package com.digitalwallet.platform.repository;
+
+import com.digitalwallet.platform.model.IdempotencyRecord;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+  Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+  // Claim a key for execution: 1 if this caller now owns it (new, the old claim's lease ran out or
+  // the key expired), 0 if someone else holds it
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "INSERT INTO idempotency_keys "
+              + "(user_id, idempotency_key, fingerprint, status, created_at, expires_at, "
+              + "lease_until) "
+              + "VALUES (:userId, :key, :fingerprint, 'IN_PROGRESS', "
+              + "CURRENT_TIMESTAMP, :expiresAt, :leaseUntil) "
+              + "ON CONFLICT (user_id, idempotency_key) DO UPDATE SET "
+              + "fingerprint = EXCLUDED.fingerprint, status = 'IN_PROGRESS', "
+              + "response_status = NULL, response_body = NULL, "
+              + "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at, "
+              + "lease_until = EXCLUDED.lease_until "
+              + "WHERE idempotency_keys.expires_at < CURRENT_TIMESTAMP "
+              + "OR (idempotency_keys.status = 'IN_PROGRESS' "
+              + "AND idempotency_keys.lease_until < CURRENT_TIMESTAMP)",
+      nativeQuery = true)
+  int claim(
+      @Param("userId") Long userId,
+      @Param("key") String key,
+      @Param("fingerprint") String fingerprint,
+      @Param("expiresAt") LocalDateTime expiresAt,
+      @Param("leaseUntil") LocalDateTime leaseUntil);
+
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE idempotency_keys SET status = 'COMPLETED', "
+              + "response_status = :responseStatus, response_body = :responseBody "
+              + "WHERE user_id = :userId AND idempotency_key = :key AND status = 'IN_PROGRESS'",
+      nativeQuery = true)
+  int complete(
+      @Param("userId") Long userId,
+      @Param("key") String key,
+      @Param("responseStatus") int responseStatus,
+      @Param("responseBody") String responseBody);
+
+  // Give up a claim whose request failed without moving money, so a retry can run it again
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "DELETE FROM idempotency_keys "
+              + "WHERE user_id = :userId AND idempotency_key = :key AND status = 'IN_PROGRESS'",
+      nativeQuery = true)
+  int release(@Param("userId") Long userId, @Param("key") String key);
+
+  // Keep a claim whose request may have moved money until the key expires, so that no retry
+  // runs it again
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE idempotency_keys SET lease_until = expires_at "
+              + "WHERE user_id = :userId AND idempotency_key = :key AND status = 'IN_PROGRESS'",
+      nativeQuery = true)
+  int hold(@Param("userId") Long userId, @Param("key") String key);
+
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < :now", nativeQuery = true)
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
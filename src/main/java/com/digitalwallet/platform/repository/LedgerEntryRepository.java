@@ -0,0 +1,43 @@
+package com.digitalwallet.platform.repository;
+
+import com.digitalwallet.platform.model.LedgerEntry;
+import java.math.BigDecimal;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+  // Wallets with legs not yet folded into wallets.balance, oldest first
+  @Query(
+      value =
+          "SELECT wallet_id FROM ledger_entries WHERE materialized_at IS NULL "
+              + "GROUP BY wallet_id ORDER BY MIN(id) LIMIT :limit",
+      nativeQuery = true)
+  List<Long> findWalletsWithUnmaterializedEntries(@Param("limit") int limit);
+
+  // Fold the wallet's unmaterialized legs into wallets.balance in one statement (legs first, then
+  // the wallet row). Legs locked by another materializer are skipped, so each is folded only once
+  // and this never waits on a concurrent materialization.
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "WITH tail AS (SELECT id, direction, amount FROM ledger_entries "
+              + "WHERE wallet_id = :walletId AND materialized_at IS NULL "
+              + "ORDER BY id FOR UPDATE SKIP LOCKED), "
+              + "folded AS (UPDATE ledger_entries e SET materialized_at = CURRENT_TIMESTAMP "
+              + "FROM tail WHERE e.id = tail.id "
+              + "RETURNING CASE WHEN tail.direction = 'CREDIT' THEN tail.amount "
+              + "ELSE -tail.amount END AS delta) "
+              + "UPDATE wallets SET balance = balance + "
+              + "(SELECT COALESCE(SUM(delta), 0) FROM folded), "
+              + "version = COALESCE(version, 0) + 1, updated_at = CURRENT_TIMESTAMP "
+              + "WHERE id = :walletId RETURNING balance",
+      nativeQuery = true)
+  BigDecimal materializeWallet(@Param("walletId") Long walletId);
+}
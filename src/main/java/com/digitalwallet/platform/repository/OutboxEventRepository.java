@@ -0,0 +1,65 @@
+package com.digitalwallet.platform.repository;
+
+import com.digitalwallet.platform.model.OutboxEvent;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  // Lock the oldest publishable rows until commit; rows locked by another relay are skipped
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "SELECT * FROM outbox_events "
+              + "WHERE sent_at IS NULL AND available_at <= CURRENT_TIMESTAMP "
+              + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<OutboxEvent> claimBatch(@Param("limit") int limit);
+
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value = "UPDATE outbox_events SET sent_at = CURRENT_TIMESTAMP WHERE id IN (:ids)",
+      nativeQuery = true)
+  int markSent(@Param("ids") Collection<Long> ids);
+
+  // Back off a row that could not be published; it is retried once available_at has passed
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "UPDATE outbox_events SET attempts = attempts + 1, last_error = :error, "
+              + "available_at = :availableAt WHERE id IN (:ids)",
+      nativeQuery = true)
+  int markFailed(
+      @Param("ids") Collection<Long> ids,
+      @Param("error") String error,
+      @Param("availableAt") LocalDateTime availableAt);
+
+  boolean existsByAggregateIdAndSentAtIsNull(Long aggregateId);
+
+  @Query(
+      "SELECT DISTINCT e.aggregateId FROM OutboxEvent e "
+          + "WHERE e.aggregateId IN :aggregateIds AND e.sentAt IS NULL")
+  List<Long> findUnsentAggregateIds(@Param("aggregateIds") Collection<Long> aggregateIds);
+
+  // Creation time of the oldest unsent row, or null when the outbox is drained
+  @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.sentAt IS NULL")
+  LocalDateTime findOldestUnsentCreatedAt();
+
+  @Modifying
+  @Transactional
+  @Query(
+      value = "DELETE FROM outbox_events WHERE sent_at IS NOT NULL AND sent_at < :before",
+      nativeQuery = true)
+  int deleteSentBefore(@Param("before") LocalDateTime before);
+}
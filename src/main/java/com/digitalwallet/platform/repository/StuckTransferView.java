@@ -0,0 +1,29 @@
+package com.digitalwallet.platform.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * A stuck PENDING transfer claimed by {@link TransactionRepository#claimStuckTransfers}, with
+ * everything needed to re-queue it.
+ */
+public interface StuckTransferView {
+
+  Long getId();
+
+  String getReferenceId();
+
+  Long getSenderId();
+
+  Long getSenderWalletId();
+
+  // Null if the receiver wallet is gone
+  String getReceiverWalletNumber();
+
+  BigDecimal getAmount();
+
+  String getCurrency();
+
+  String getDescription();
+
+  Integer getRecoveryAttempts();
+}
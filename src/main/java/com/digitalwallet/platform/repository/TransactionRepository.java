@@ -3,14 +3,18 @@ package com.digitalwallet.platform.repository;
 import com.digitalwallet.platform.model.Transaction;
 import com.digitalwallet.platform.model.TransactionStatus;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -51,7 +55,86 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
       @Param("status") String status,
       Pageable pageable);
 
+  // Load transactions locked until commit, lowest id first. Their status is read under the lock,
+  // so two consumers holding the same transfer (one past its claim lease) apply it at most once.
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value = "SELECT * FROM transactions WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+      nativeQuery = true)
+  List<Transaction> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+  long countByStatusIn(Collection<TransactionStatus> statuses);
+
   @Query("SELECT t FROM Transaction t WHERE t.status = :status AND t.createdAt < :timestamp")
   List<Transaction> findByStatusAndCreatedAtBefore(
       @Param("status") TransactionStatus status, @Param("timestamp") LocalDateTime timestamp);
+
+  // Next chunk of stuck transfers after :afterId, locked until commit; rows another replica has
+  // locked are skipped. Sender and receiver come from the same query, so nothing loads per row.
+  // A transfer whose consumer claimed it and then vanished counts once its lease has expired.
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "SELECT t.id, t.reference_id AS \"referenceId\", fw.user_id AS \"senderId\", "
+              + "t.from_wallet_id AS \"senderWalletId\", "
+              + "tw.wallet_number AS \"receiverWalletNumber\", t.amount, t.currency, "
+              + "t.description, t.recovery_attempts AS \"recoveryAttempts\" "
+              + "FROM transactions t "
+              + "JOIN wallets fw ON fw.id = t.from_wallet_id "
+              + "LEFT JOIN wallets tw ON tw.id = t.to_wallet_id "
+              + "WHERE (t.status = 'PENDING' "
+              + "OR (t.status = 'PROCESSING' AND t.claimed_until < CURRENT_TIMESTAMP)) "
+              + "AND t.id > :afterId AND t.created_at < :cutoff "
+              + "AND (t.next_attempt_at IS NULL OR t.next_attempt_at <= CURRENT_TIMESTAMP) "
+              + "ORDER BY t.id LIMIT :limit FOR UPDATE OF t SKIP LOCKED",
+      nativeQuery = true)
+  List<StuckTransferView> claimStuckTransfers(
+      @Param("afterId") long afterId,
+      @Param("cutoff") LocalDateTime cutoff,
+      @Param("limit") int limit);
+
+  // Count a re-queue and hold the next one off for backoffSeconds * 2^attempts (capped)
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "UPDATE transactions SET recovery_attempts = recovery_attempts + 1, "
+              + "next_attempt_at = CURRENT_TIMESTAMP "
+              + "+ make_interval(secs => :backoffSeconds * power(2, LEAST(recovery_attempts, 10))) "
+              + "WHERE id IN (:ids)",
+      nativeQuery = true)
+  int markRecoveryAttempted(
+      @Param("ids") Collection<Long> ids, @Param("backoffSeconds") long backoffSeconds);
+
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "UPDATE transactions SET status = 'FAILED', failure_reason = :reason "
+              + "WHERE id IN (:ids) AND status IN ('PENDING', 'PROCESSING')",
+      nativeQuery = true)
+  int abandon(@Param("ids") Collection<Long> ids, @Param("reason") String reason);
+
+  // Moves queued transfers to PROCESSING for one consumer, taking over claims whose lease has
+  // expired, and returns the ids it claimed. Concurrent claims of one row serialize on its lock.
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "UPDATE transactions SET status = 'PROCESSING', "
+              + "claimed_until = CURRENT_TIMESTAMP + make_interval(secs => :leaseSeconds) "
+              + "WHERE id IN (:ids) AND (status = 'PENDING' "
+              + "OR (status = 'PROCESSING' AND claimed_until < CURRENT_TIMESTAMP)) "
+              + "RETURNING id",
+      nativeQuery = true)
+  List<Long> claimForProcessing(
+      @Param("ids") Collection<Long> ids, @Param("leaseSeconds") long leaseSeconds);
+
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "UPDATE transactions SET status = 'PENDING', claimed_until = NULL "
+              + "WHERE id IN (:ids) AND status = 'PROCESSING'",
+      nativeQuery = true)
+  int releaseClaims(@Param("ids") Collection<Long> ids);
 }
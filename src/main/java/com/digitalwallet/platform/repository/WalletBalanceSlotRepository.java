@@ -0,0 +1,64 @@
+package com.digitalwallet.platform.repository;
+
+import com.digitalwallet.platform.model.WalletBalanceSlot;
+import java.math.BigDecimal;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface WalletBalanceSlotRepository extends JpaRepository<WalletBalanceSlot, Long> {
+
+  // Credit one slot of a hot wallet; the wallets row itself is neither updated nor locked.
+  // Balance is returned as NULL because the wallet total is not read on this path.
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "UPDATE wallet_balance_slots s SET balance = s.balance + :amount, "
+              + "updated_at = CURRENT_TIMESTAMP FROM wallets w "
+              + "WHERE s.wallet_id = :walletId AND s.slot = :slot AND w.id = s.wallet_id "
+              + "RETURNING w.id, w.wallet_number AS \"walletNumber\", "
+              + "CAST(NULL AS NUMERIC) AS balance",
+      nativeQuery = true)
+  Optional<WalletBalanceView> creditSlot(
+      @Param("walletId") Long walletId,
+      @Param("slot") int slot,
+      @Param("amount") BigDecimal amount);
+
+  // Fold every slot back into wallets.balance in one statement (slot rows first, then wallet row)
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "WITH old AS (SELECT slot, balance FROM wallet_balance_slots "
+              + "WHERE wallet_id = :walletId FOR UPDATE), "
+              + "drained AS (UPDATE wallet_balance_slots s SET balance = 0, "
+              + "updated_at = CURRENT_TIMESTAMP FROM old "
+              + "WHERE s.wallet_id = :walletId AND s.slot = old.slot AND old.balance > 0 "
+              + "RETURNING old.balance) "
+              + "UPDATE wallets SET balance = balance + "
+              + "(SELECT COALESCE(SUM(balance), 0) FROM drained), "
+              + "version = COALESCE(version, 0) + 1, updated_at = CURRENT_TIMESTAMP "
+              + "WHERE id = :walletId RETURNING balance",
+      nativeQuery = true)
+  BigDecimal consolidateIntoWallet(@Param("walletId") Long walletId);
+
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "INSERT INTO wallet_balance_slots (wallet_id, slot, balance) "
+              + "SELECT :walletId, g, 0 FROM generate_series(0, :slots - 1) g "
+              + "ON CONFLICT (wallet_id, slot) DO NOTHING",
+      nativeQuery = true)
+  int createSlots(@Param("walletId") Long walletId, @Param("slots") int slots);
+
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(value = "DELETE FROM wallet_balance_slots WHERE wallet_id = :walletId", nativeQuery = true)
+  int deleteSlots(@Param("walletId") Long walletId);
+}
@@ -0,0 +1,15 @@
+package com.digitalwallet.platform.repository;
+
+import java.math.BigDecimal;
+
+/** Wallet total and ledger leg count read in one snapshot, for stamping cached wallets. */
+public interface WalletBalanceStamp {
+
+  Long getId();
+
+  // Row balance plus balance slots and the unmaterialized ledger tail
+  BigDecimal getBalance();
+
+  // Every balance change appends a leg, including slot and deferred credits
+  Long getLedgerLegs();
+}
@@ -0,0 +1,14 @@
+package com.digitalwallet.platform.repository;
+
+import java.math.BigDecimal;
+
+/** Wallet state returned by the conditional balance updates in {@link WalletRepository}. */
+public interface WalletBalanceView {
+
+  Long getId();
+
+  String getWalletNumber();
+
+  // Null when a transfer credit landed in a balance slot of a hot wallet
+  BigDecimal getBalance();
+}
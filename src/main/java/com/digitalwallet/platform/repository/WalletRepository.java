@@ -1,19 +1,196 @@
 package com.digitalwallet.platform.repository;
 
 import com.digitalwallet.platform.model.Wallet;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
 
+  // Debit only if the wallet is active, funded and within its per-transaction and daily limits.
+  // Balance check, limit check and update happen in one statement, so no read-modify-write race.
+  String CONDITIONAL_DEBIT =
+      "UPDATE wallets SET balance = balance - :amount, "
+          + "total_daily_spent = COALESCE(total_daily_spent, 0) + :amount, "
+          + "total_monthly_spent = COALESCE(total_monthly_spent, 0) + :amount, "
+          + "version = COALESCE(version, 0) + 1, updated_at = CURRENT_TIMESTAMP "
+          + "WHERE status = 'ACTIVE' AND balance >= :amount "
+          + "AND (transaction_limit IS NULL OR transaction_limit >= :amount) "
+          + "AND (daily_limit IS NULL OR COALESCE(total_daily_spent, 0) + :amount <= daily_limit) ";
+
+  // Batch payout debit: the total must be funded and fit the daily limit, while the
+  // per-transaction limit applies to the largest single line rather than the total
+  String BATCH_DEBIT =
+      "UPDATE wallets SET balance = balance - :amount, "
+          + "total_daily_spent = COALESCE(total_daily_spent, 0) + :amount, "
+          + "total_monthly_spent = COALESCE(total_monthly_spent, 0) + :amount, "
+          + "version = COALESCE(version, 0) + 1, updated_at = CURRENT_TIMESTAMP "
+          + "WHERE status = 'ACTIVE' AND balance >= :amount "
+          + "AND (transaction_limit IS NULL OR transaction_limit >= :largestLine) "
+          + "AND (daily_limit IS NULL OR COALESCE(total_daily_spent, 0) + :amount <= daily_limit) ";
+
+  String CREDIT =
+      "UPDATE wallets SET balance = balance + :amount, "
+          + "version = COALESCE(version, 0) + 1, updated_at = CURRENT_TIMESTAMP ";
+
+  String RETURNING_BALANCE = " RETURNING id, wallet_number AS \"walletNumber\", balance";
+
+  // Balance held outside wallets.balance: hot wallet slots plus ledger legs not yet materialized
+  String PENDING_BALANCE =
+      "COALESCE((SELECT SUM(s.balance) FROM wallet_balance_slots s WHERE s.wallet_id = w.id), 0) "
+          + "+ COALESCE((SELECT SUM(CASE WHEN e.direction = 'CREDIT' THEN e.amount "
+          + "ELSE -e.amount END) FROM ledger_entries e "
+          + "WHERE e.wallet_id = w.id AND e.materialized_at IS NULL), 0)";
+
+  // Deferred credit: only the wallet is looked up, the ledger leg carries the amount
+  String DEFERRED_CREDIT =
+      "SELECT w.id, w.wallet_number AS \"walletNumber\", "
+          + "w.balance + "
+          + PENDING_BALANCE
+          + " + :amount AS balance FROM wallets w ";
+
   // Find wallet by user ID
   Optional<Wallet> findByUserId(Long userId);
 
   // Find wallet by wallet number
   Optional<Wallet> findByWalletNumber(String walletNumber);
 
+  // Resolve many receivers in one IN query
+  List<Wallet> findByWalletNumberIn(Collection<String> walletNumbers);
+
+  // Load many wallets with their owners in one IN query (receipts need the owner's email)
+  @Query("SELECT w FROM Wallet w JOIN FETCH w.user WHERE w.id IN :ids")
+  List<Wallet> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
   // Check if wallet exists for user
   boolean existsByUserId(Long userId);
+
+  // Wallets currently sharded over wallet_balance_slots
+  List<Wallet> findByBalanceSlotsGreaterThan(Integer slots);
+
+  // Wallet total: the materialized balance plus slots and the unmaterialized ledger tail
+  @Query(
+      value = "SELECT w.balance + " + PENDING_BALANCE + " FROM wallets w WHERE w.id = :id",
+      nativeQuery = true)
+  BigDecimal findTotalBalanceById(@Param("id") Long id);
+
+  // Total balance and ledger leg count in one statement, so the count never runs ahead of the
+  // balance it stamps. The count is an index-only scan of idx_ledger_wallet.
+  @Query(
+      value =
+          "SELECT w.id, w.balance + "
+              + PENDING_BALANCE
+              + " AS balance, (SELECT COUNT(*) FROM ledger_entries e "
+              + "WHERE e.wallet_id = w.id) AS \"ledgerLegs\" FROM wallets w WHERE w.id IN (:ids)",
+      nativeQuery = true)
+  List<WalletBalanceStamp> findBalanceStampsByIdIn(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "UPDATE wallets SET balance_slots = :slots, version = COALESCE(version, 0) + 1 "
+              + "WHERE id = :id",
+      nativeQuery = true)
+  int updateBalanceSlots(@Param("id") Long id, @Param("slots") int slots);
+
+  // Lock wallet rows until commit, lowest id first (SELECT ... ORDER BY id FOR UPDATE)
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value = "SELECT id FROM wallets WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+      nativeQuery = true)
+  List<Long> lockByIdsInOrder(@Param("ids") Collection<Long> ids);
+
+  // Bound how long the current transaction may wait on row locks (PostgreSQL lock_timeout)
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(value = "SELECT set_config('lock_timeout', :timeout, true)", nativeQuery = true)
+  String setLocalLockTimeout(@Param("timeout") String timeout);
+
+  // Journal a net change computed by the in-memory ledger; refused (0 rows) if it would overdraw
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value =
+          "UPDATE wallets SET balance = balance + :balanceDelta, "
+              + "total_daily_spent = COALESCE(total_daily_spent, 0) + :spentDelta, "
+              + "total_monthly_spent = COALESCE(total_monthly_spent, 0) + :spentDelta, "
+              + "version = COALESCE(version, 0) + 1, updated_at = CURRENT_TIMESTAMP "
+              + "WHERE id = :id AND balance + :balanceDelta >= 0",
+      nativeQuery = true)
+  int applyLedgerDelta(
+      @Param("id") Long id,
+      @Param("balanceDelta") BigDecimal balanceDelta,
+      @Param("spentDelta") BigDecimal spentDelta);
+
+  // === SINGLE-STATEMENT BALANCE UPDATES (empty result = rejected, nothing changed) ===
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(value = CONDITIONAL_DEBIT + "AND id = :id" + RETURNING_BALANCE, nativeQuery = true)
+  Optional<WalletBalanceView> debitById(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value = CONDITIONAL_DEBIT + "AND user_id = :userId" + RETURNING_BALANCE,
+      nativeQuery = true)
+  Optional<WalletBalanceView> debitByUserId(
+      @Param("userId") Long userId, @Param("amount") BigDecimal amount);
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(value = BATCH_DEBIT + "AND id = :id" + RETURNING_BALANCE, nativeQuery = true)
+  Optional<WalletBalanceView> debitBatchById(
+      @Param("id") Long id,
+      @Param("amount") BigDecimal amount,
+      @Param("largestLine") BigDecimal largestLine);
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(value = BATCH_DEBIT + "AND user_id = :userId" + RETURNING_BALANCE, nativeQuery = true)
+  Optional<WalletBalanceView> debitBatchByUserId(
+      @Param("userId") Long userId,
+      @Param("amount") BigDecimal amount,
+      @Param("largestLine") BigDecimal largestLine);
+
+  // Deposits only land in active wallets
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value = CREDIT + "WHERE user_id = :userId AND status = 'ACTIVE'" + RETURNING_BALANCE,
+      nativeQuery = true)
+  Optional<WalletBalanceView> creditByUserId(
+      @Param("userId") Long userId, @Param("amount") BigDecimal amount);
+
+  // Transfer credits, like before, do not depend on the receiver's status
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(value = CREDIT + "WHERE id = :id" + RETURNING_BALANCE, nativeQuery = true)
+  Optional<WalletBalanceView> creditById(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query(
+      value = CREDIT + "WHERE wallet_number = :walletNumber" + RETURNING_BALANCE,
+      nativeQuery = true)
+  Optional<WalletBalanceView> creditByWalletNumber(
+      @Param("walletNumber") String walletNumber, @Param("amount") BigDecimal amount);
+
+  // === DEFERRED CREDITS (same rules as above, but wallets.balance is left to the materializer) ===
+
+  @Query(
+      value = DEFERRED_CREDIT + "WHERE w.user_id = :userId AND w.status = 'ACTIVE'",
+      nativeQuery = true)
+  Optional<WalletBalanceView> findDeferredCreditByUserId(
+      @Param("userId") Long userId, @Param("amount") BigDecimal amount);
+
+  @Query(value = DEFERRED_CREDIT + "WHERE w.id = :id", nativeQuery = true)
+  Optional<WalletBalanceView> findDeferredCreditById(
+      @Param("id") Long id, @Param("amount") BigDecimal amount);
+
+  @Query(value = DEFERRED_CREDIT + "WHERE w.wallet_number = :walletNumber", nativeQuery = true)
+  Optional<WalletBalanceView> findDeferredCreditByWalletNumber(
+      @Param("walletNumber") String walletNumber, @Param("amount") BigDecimal amount);
 }
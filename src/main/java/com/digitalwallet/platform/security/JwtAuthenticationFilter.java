@@ -1,6 +1,7 @@
 package com.digitalwallet.platform.security;
 
 import com.digitalwallet.platform.util.JwtUtil;
+import com.digitalwallet.platform.util.VerifiedToken;
 import io.jsonwebtoken.io.IOException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -24,6 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private final JwtUtil jwtUtil;
   private final UserDetailsService userDetailsService;
+  private final PrincipalCache principalCache;
 
   @Override
   protected void doFilterInternal(
@@ -50,20 +52,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     final String userEmail;
 
     try {
-      // 4. Extract email from token
-      userEmail = jwtUtil.extractUsername(jwt);
+      // 4. Verify the token once and take the email from its claims
+      final VerifiedToken token = jwtUtil.verify(jwt);
+      userEmail = token == null ? null : token.subject();
       log.debug("Extracted email from token: {}", userEmail); // Add this
 
       // 5. If email is present and user is not already authenticated
       if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
         log.debug("Loading user details for email: {}", userEmail);
 
-        // 6. Load user details from database
-        UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+        // 6. Load user details, from the database only when not cached
+        UserDetails userDetails =
+            principalCache.get(userEmail, userDetailsService::loadUserByUsername);
         log.debug("User details loaded successfully: {}", userDetails.getUsername());
 
         // 7. Validate token
-        if (jwtUtil.validateToken(jwt, userDetails)) {
+        if (jwtUtil.validateToken(token, userDetails)) {
           log.debug("JWT token validated successfully");
 
           // 8. Create authentication object
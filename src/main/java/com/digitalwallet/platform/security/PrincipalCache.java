@@ -0,0 +1,48 @@
+package com.digitalwallet.platform.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the principals that {@link JwtAuthenticationFilter} resolved for recent tokens, keyed by
+ * email, so an authenticated request does not load its user from the database every time.
+ *
+ * <p>Code that changes a user's status, role or profile calls {@link #evict(String)}; that is
+ * immediate on this instance only, so other replicas can serve the previous principal until it
+ * expires after {@code ttl}. Lookups that fail (unknown user) are not cached.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+  private final Cache<String, UserDetails> principals;
+
+  public PrincipalCache(
+      @Value("${app.security.principal-cache.maximum-size:10000}") long maximumSize,
+      @Value("${app.security.principal-cache.ttl-seconds:30}") long ttlSeconds) {
+    this.principals =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build();
+  }
+
+  /** Returns the cached principal for {@code email}, calling {@code loader} on a miss. */
+  public UserDetails get(String email, Function<String, UserDetails> loader) {
+    return principals.get(email, loader);
+  }
+
+  /** Drops the principal of {@code email} so the next request loads it again. */
+  public void evict(String email) {
+    if (email != null) {
+      log.debug("Evicting cached principal for {}", email);
+      principals.invalidate(email);
+    }
+  }
+}
@@ -9,9 +9,9 @@ import com.digitalwallet.platform.model.UserStatus;
 import com.digitalwallet.platform.model.Wallet;
 import com.digitalwallet.platform.repository.UserRepository;
 import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.id.IdGenerator;
 import com.digitalwallet.platform.util.JwtUtil;
 import java.math.BigDecimal;
-import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
@@ -31,6 +31,7 @@ public class AuthService {
   private final WalletRepository walletRepository;
   private final PasswordEncoder passwordEncoder;
   private final JwtUtil jwtUtil;
+  private final IdGenerator idGenerator;
 
   @Transactional
   public AuthResponse register(RegisterRequest request) {
@@ -55,7 +56,7 @@ public class AuthService {
 
       Wallet wallet = new Wallet();
       wallet.setUser(savedUser);
-      wallet.setWalletNumber(generateWalletNumber());
+      wallet.setWalletNumber(idGenerator.nextWalletNumber());
       wallet.setBalance(BigDecimal.ZERO);
       wallet.setStatus(com.digitalwallet.platform.model.WalletStatus.ACTIVE);
 
@@ -109,16 +110,6 @@ public class AuthService {
     return AuthResponse.builder().token(token).user(mapToUserResponse(user)).build();
   }
 
-  private String generateWalletNumber() {
-    // Generate shorter wallet number (max 20 chars)
-    String randomPart = UUID.randomUUID().toString().replace("-", "").substring(0, 8).toUpperCase();
-
-    String timestamp = String.valueOf(System.currentTimeMillis());
-    String timePart = timestamp.substring(timestamp.length() - 6); // Last 6 digits
-
-    return "WAL" + timePart + randomPart; // Total: 3 + 6 + 8 = 17 characters
-  }
-
   private UserResponse mapToUserResponse(User user) {
     return UserResponse.builder()
         .id(user.getId())
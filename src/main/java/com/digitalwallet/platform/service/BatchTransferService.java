@@ -0,0 +1,257 @@
+package com.digitalwallet.platform.service;
+
+import com.digitalwallet.platform.dto.BatchTransferLine;
+import com.digitalwallet.platform.dto.BatchTransferLineResult;
+import com.digitalwallet.platform.dto.BatchTransferRequest;
+import com.digitalwallet.platform.dto.BatchTransferResponse;
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.TransactionType;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.cache.WalletCacheWriter;
+import com.digitalwallet.platform.service.id.IdGenerator;
+import com.digitalwallet.platform.service.ledger.LedgerEngine;
+import com.digitalwallet.platform.service.ledger.LedgerEntryWriter;
+import com.digitalwallet.platform.service.transfer.WalletBalanceOperations;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Pays many receivers from one sender in a single database transaction.
+ *
+ * <p>Receivers are resolved with one {@code IN} query and invalid lines are reported back instead
+ * of failing the batch. The sender is then debited once for the total of the valid lines, every
+ * receiver is credited by one JDBC batch of updates, and the {@code Transaction} rows go out as
+ * JDBC batches at flush. Either every valid line completes or, if the debit is refused, none do.
+ */
+@Service
+@Slf4j
+public class BatchTransferService {
+
+  private final WalletRepository walletRepository;
+  private final TransactionRepository transactionRepository;
+  private final WalletBalanceOperations walletBalanceOperations;
+  private final LedgerEntryWriter ledgerEntryWriter;
+  private final IdGenerator idGenerator;
+  private final WalletCacheWriter walletCacheWriter;
+  private final int maxLines;
+
+  // Balances live in the engine's memory when it is enabled, so SQL updates would bypass it
+  @Autowired(required = false)
+  private LedgerEngine ledgerEngine;
+
+  public BatchTransferService(
+      WalletRepository walletRepository,
+      TransactionRepository transactionRepository,
+      WalletBalanceOperations walletBalanceOperations,
+      LedgerEntryWriter ledgerEntryWriter,
+      IdGenerator idGenerator,
+      WalletCacheWriter walletCacheWriter,
+      @Value("${app.transfer.batch.max-lines:10000}") int maxLines) {
+    this.walletRepository = walletRepository;
+    this.transactionRepository = transactionRepository;
+    this.walletBalanceOperations = walletBalanceOperations;
+    this.ledgerEntryWriter = ledgerEntryWriter;
+    this.idGenerator = idGenerator;
+    this.walletCacheWriter = walletCacheWriter;
+    this.maxLines = maxLines;
+  }
+
+  @Transactional
+  public BatchTransferResponse transfer(Long senderUserId, BatchTransferRequest request) {
+    if (ledgerEngine != null) {
+      throw new RuntimeException("Batch transfers are not available while the ledger engine is on");
+    }
+    List<BatchTransferLine> lines = request.getLines();
+    if (lines == null || lines.isEmpty()) {
+      throw new RuntimeException("At least one transfer line is required");
+    }
+    if (lines.size() > maxLines) {
+      throw new RuntimeException("A batch can contain at most " + maxLines + " lines");
+    }
+
+    Wallet sender =
+        walletRepository
+            .findByUserId(senderUserId)
+            .orElseThrow(
+                () -> new RuntimeException("Sender wallet not found for user ID: " + senderUserId));
+
+    // 1. Resolve every receiver with a single IN query
+    Set<String> walletNumbers =
+        lines.stream()
+            .map(BatchTransferLine::getReceiverWalletNumber)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    Map<String, Wallet> receivers =
+        walletRepository.findByWalletNumberIn(walletNumbers).stream()
+            .collect(Collectors.toMap(Wallet::getWalletNumber, Function.identity()));
+
+    // 2. Reject bad lines individually; the rest are paid together
+    BatchTransferLineResult[] results = new BatchTransferLineResult[lines.size()];
+    List<Integer> accepted = new ArrayList<>(lines.size());
+    BigDecimal total = BigDecimal.ZERO;
+    BigDecimal largestLine = BigDecimal.ZERO;
+    for (int i = 0; i < lines.size(); i++) {
+      BatchTransferLine line = lines.get(i);
+      String error = validate(line, receivers.get(line.getReceiverWalletNumber()), sender);
+      if (error != null) {
+        results[i] = result(i, line, TransactionStatus.FAILED).error(error).build();
+        continue;
+      }
+      accepted.add(i);
+      total = total.add(line.getAmount());
+      largestLine = largestLine.max(line.getAmount());
+    }
+
+    String batchId = idGenerator.nextBatchId();
+    BigDecimal rowBalance = sender.getBalance();
+    if (!accepted.isEmpty()) {
+      // 3. Debit the sender once for the whole batch
+      WalletUpdateResult debit =
+          walletBalanceOperations.debitBatchByUserId(senderUserId, total, largestLine);
+      if (!debit.isApplied()) {
+        throw new RuntimeException(
+            debit.getRejection() == WalletUpdateResult.Rejection.WALLET_NOT_FOUND
+                ? "Sender wallet not found"
+                : debit.getRejectionMessage());
+      }
+      rowBalance = debit.getWallet().getBalance();
+
+      // 4. Credit receivers: one update per wallet, sent as one JDBC batch in id order
+      SortedMap<Long, BigDecimal> credits = new TreeMap<>();
+      for (int i : accepted) {
+        BatchTransferLine line = lines.get(i);
+        credits.merge(
+            receivers.get(line.getReceiverWalletNumber()).getId(),
+            line.getAmount(),
+            BigDecimal::add);
+      }
+      boolean creditsApplied = walletBalanceOperations.creditAllById(credits);
+
+      // 5. Transaction rows and their ledger legs, inserted as JDBC batches at flush
+      LocalDateTime now = LocalDateTime.now();
+      List<Transaction> transactions = new ArrayList<>(accepted.size());
+      for (int i : accepted) {
+        BatchTransferLine line = lines.get(i);
+        transactions.add(
+            Transaction.builder()
+                .fromWallet(sender)
+                .toWallet(receivers.get(line.getReceiverWalletNumber()))
+                .amount(line.getAmount())
+                .currency(request.getCurrency())
+                .type(TransactionType.TRANSFER)
+                .status(TransactionStatus.COMPLETED)
+                .referenceId(idGenerator.nextReferenceId())
+                .description(
+                    request.getDescription() != null ? request.getDescription() : "Batch payout")
+                .metadata("batch:" + batchId)
+                .createdAt(now)
+                .completedAt(now)
+                .build());
+      }
+      List<Transaction> saved = transactionRepository.saveAll(transactions);
+      saved.forEach(transaction -> ledgerEntryWriter.record(transaction, !creditsApplied));
+
+      for (int n = 0; n < accepted.size(); n++) {
+        int i = accepted.get(n);
+        Transaction transaction = saved.get(n);
+        results[i] =
+            result(i, lines.get(i), TransactionStatus.COMPLETED)
+                .transactionId(transaction.getId())
+                .referenceId(transaction.getReferenceId())
+                .build();
+      }
+
+      Set<Long> walletIds = new HashSet<>();
+      walletIds.add(sender.getId());
+      for (int i : accepted) {
+        walletIds.add(receivers.get(lines.get(i).getReceiverWalletNumber()).getId());
+      }
+      walletCacheWriter.refreshAfterCommit(walletIds);
+    }
+
+    BigDecimal newBalance = totalBalance(sender, rowBalance);
+    log.info(
+        "Batch payout {} from {}: {} of {} lines paid, total {} {}",
+        batchId,
+        sender.getWalletNumber(),
+        accepted.size(),
+        lines.size(),
+        total,
+        request.getCurrency());
+
+    return BatchTransferResponse.builder()
+        .batchId(batchId)
+        .senderWallet(sender.getWalletNumber())
+        .currency(request.getCurrency())
+        .totalAmount(total)
+        .completed(accepted.size())
+        .failed(lines.size() - accepted.size())
+        .newBalance(newBalance)
+        .results(Arrays.asList(results))
+        .timestamp(LocalDateTime.now())
+        .build();
+  }
+
+  // Same total WalletService reports: slots and the deferred ledger tail hold part of the balance,
+  // otherwise the row balance is the whole balance and no extra query is needed
+  private BigDecimal totalBalance(Wallet sender, BigDecimal rowBalance) {
+    return sender.hasBalanceSlots() || walletBalanceOperations.defersCredits()
+        ? walletRepository.findTotalBalanceById(sender.getId())
+        : rowBalance;
+  }
+
+  // Null when the line can be paid
+  private String validate(BatchTransferLine line, Wallet receiver, Wallet sender) {
+    if (line.getReceiverWalletNumber() == null || line.getReceiverWalletNumber().isBlank()) {
+      return "Receiver wallet number is required";
+    }
+    if (line.getAmount() == null || line.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+      return "Transfer amount must be greater than zero";
+    }
+    if (receiver == null) {
+      return "Receiver wallet not found";
+    }
+    if (receiver.getId().equals(sender.getId())) {
+      return "Cannot transfer to your own wallet";
+    }
+    // BATCH_CREDIT only credits active wallets, so a status change after this check rolls back
+    if (receiver.getStatus() != WalletStatus.ACTIVE) {
+      return "Receiver wallet is not active. Current status: " + receiver.getStatus();
+    }
+    if (sender.getTransactionLimit() != null
+        && line.getAmount().compareTo(sender.getTransactionLimit()) > 0) {
+      return "Amount exceeds transaction limit. Limit: " + sender.getTransactionLimit();
+    }
+    return null;
+  }
+
+  private BatchTransferLineResult.BatchTransferLineResultBuilder result(
+      int index, BatchTransferLine line, TransactionStatus status) {
+    return BatchTransferLineResult.builder()
+        .line(index)
+        .receiverWalletNumber(line.getReceiverWalletNumber())
+        .amount(line.getAmount())
+        .status(status);
+  }
+}
@@ -19,7 +19,7 @@ public class CustomUserDetailsService implements UserDetailsService {
 
   @Override
   public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-    log.info("Loading user by email: {}", email);
+    log.debug("Loading user by email: {}", email);
 
     User user =
         userRepository
@@ -30,7 +30,7 @@ public class CustomUserDetailsService implements UserDetailsService {
                   return new UsernameNotFoundException("User not found with email: " + email);
                 });
 
-    log.info("User found: {} (ID: {})", user.getEmail(), user.getId());
+    log.debug("User found: {} (ID: {})", user.getEmail(), user.getId());
     return new CustomUserDetails(user);
   }
 }
@@ -0,0 +1,12 @@
+package com.digitalwallet.platform.service;
+
+/**
+ * Thrown by an operation whose changes may have been committed, or may still be. Callers must not
+ * retry it blindly; {@code IdempotencyService} holds the request's key instead.
+ */
+public class OutcomeUnknownException extends RuntimeException {
+
+  public OutcomeUnknownException(String message) {
+    super(message);
+  }
+}
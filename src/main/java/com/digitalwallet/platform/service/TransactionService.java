@@ -3,14 +3,20 @@ package com.digitalwallet.platform.service;
 import com.digitalwallet.platform.dto.*;
 import com.digitalwallet.platform.model.*;
 import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.WalletBalanceView;
 import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.id.IdGenerator;
+import com.digitalwallet.platform.service.ledger.LedgerEngine;
+import com.digitalwallet.platform.service.ledger.LedgerEntryWriter;
+import com.digitalwallet.platform.service.transfer.GroupCommitWriter;
+import com.digitalwallet.platform.service.transfer.WalletBalanceOperations;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -19,57 +25,58 @@ public class TransactionService {
 
   private final TransactionRepository transactionRepository;
   private final WalletRepository walletRepository;
+  private final WalletBalanceOperations walletBalanceOperations;
+  private final GroupCommitWriter groupCommitWriter;
+  private final IdGenerator idGenerator;
+  private final LedgerEntryWriter ledgerEntryWriter;
+
+  // Balances live in the engine's memory when it is enabled, so SQL updates would bypass it
+  @Autowired(required = false)
+  private LedgerEngine ledgerEngine;
 
-  @Transactional
   public TransferResponse transfer(TransferRequest request, Long senderUserId) {
+    requireNoLedgerEngine();
     // Convert amount to BigDecimal (handles both Integer and BigDecimal from DTO)
     BigDecimal amount = convertToBigDecimal(request.getAmount());
 
-    // 1. Validate sender has sufficient balance
-    Wallet senderWallet =
-        walletRepository
-            .findByUserId(senderUserId)
-            .orElseThrow(() -> new RuntimeException("Sender wallet not found"));
+    // Runs in the group-commit writer's transaction, hence no @Transactional here
+    return groupCommitWriter.execute(() -> executeTransfer(request, senderUserId, amount));
+  }
 
-    if (senderWallet.getBalance().compareTo(amount) < 0) {
-      throw new RuntimeException("Insufficient balance");
+  private TransferResponse executeTransfer(
+      TransferRequest request, Long senderUserId, BigDecimal amount) {
+    // 1. Debit sender: balance and limit checks run inside the UPDATE itself
+    WalletUpdateResult debit = walletBalanceOperations.debitByUserId(senderUserId, amount);
+    if (!debit.isApplied()) {
+      throw new GroupCommitWriter.Rejected(rejectionMessage(debit, "Sender wallet not found"));
     }
 
-    // 2. Find receiver wallet
-    Wallet receiverWallet =
-        walletRepository
-            .findByWalletNumber(request.getReceiverWalletNumber())
-            .orElseThrow(() -> new RuntimeException("Receiver wallet not found"));
+    // 2. Credit receiver; a missing receiver rolls the debit back with the transaction
+    WalletUpdateResult credit =
+        walletBalanceOperations.creditByWalletNumber(request.getReceiverWalletNumber(), amount);
+    if (!credit.isApplied()) {
+      throw new RuntimeException(rejectionMessage(credit, "Receiver wallet not found"));
+    }
 
-    // 3. Check transaction limits
-    validateTransactionLimits(senderWallet, amount);
+    WalletBalanceView senderWallet = debit.getWallet();
+    WalletBalanceView receiverWallet = credit.getWallet();
 
-    // 4. Create transaction record
+    // 3. Create transaction record
     Transaction transaction =
         Transaction.builder()
-            .fromWallet(senderWallet)
-            .toWallet(receiverWallet)
+            .fromWallet(walletRepository.getReferenceById(senderWallet.getId()))
+            .toWallet(walletRepository.getReferenceById(receiverWallet.getId()))
             .amount(amount)
             .currency(request.getCurrency())
             .type(TransactionType.TRANSFER)
-            .status(TransactionStatus.PROCESSING)
-            .referenceId(generateReferenceId())
+            .status(TransactionStatus.COMPLETED)
+            .referenceId(idGenerator.nextReferenceId())
             .description(request.getDescription())
+            .completedAt(LocalDateTime.now())
             .build();
 
-    // 5. Update balances
-    senderWallet.setBalance(senderWallet.getBalance().subtract(amount));
-    receiverWallet.setBalance(receiverWallet.getBalance().add(amount));
-
-    // 6. Update daily/monthly limits
-    updateSpendingLimits(senderWallet, amount);
-
-    // 7. Save everything
-    walletRepository.save(senderWallet);
-    walletRepository.save(receiverWallet);
-    transaction.setStatus(TransactionStatus.COMPLETED);
-    transaction.setCompletedAt(LocalDateTime.now());
     Transaction savedTransaction = transactionRepository.save(transaction);
+    ledgerEntryWriter.record(savedTransaction, credit.isDeferred());
 
     log.info(
         "P2P Transfer completed: {} {} from {} to {}",
@@ -90,89 +97,92 @@ public class TransactionService {
         .build();
   }
 
-  @Transactional
   public DepositResponse deposit(DepositRequest request, Long userId) {
+    requireNoLedgerEngine();
     // Convert amount to BigDecimal
     BigDecimal amount = convertToBigDecimal(request.getAmount());
 
-    Wallet wallet =
-        walletRepository
-            .findByUserId(userId)
-            .orElseThrow(() -> new RuntimeException("Wallet not found"));
+    return groupCommitWriter.execute(() -> executeDeposit(request, userId, amount));
+  }
+
+  private DepositResponse executeDeposit(DepositRequest request, Long userId, BigDecimal amount) {
+    WalletUpdateResult credit = walletBalanceOperations.creditByUserId(userId, amount);
+    if (!credit.isApplied()) {
+      throw new GroupCommitWriter.Rejected(rejectionMessage(credit, "Wallet not found"));
+    }
 
     Transaction transaction =
         Transaction.builder()
-            .toWallet(wallet)
+            .toWallet(walletRepository.getReferenceById(credit.getWallet().getId()))
             .amount(amount)
             .currency(request.getCurrency())
             .type(TransactionType.DEPOSIT)
             .status(TransactionStatus.COMPLETED)
-            .referenceId(generateReferenceId())
+            .referenceId(idGenerator.nextReferenceId())
             .description(request.getDescription())
             .completedAt(LocalDateTime.now())
             .build();
 
-    // Update wallet balance
-    wallet.setBalance(wallet.getBalance().add(amount));
-
-    walletRepository.save(wallet);
     Transaction savedTransaction = transactionRepository.save(transaction);
+    ledgerEntryWriter.record(savedTransaction, credit.isDeferred());
 
     return DepositResponse.builder()
         .transactionId(savedTransaction.getId())
         .referenceId(savedTransaction.getReferenceId())
         .amount(savedTransaction.getAmount())
         .currency(savedTransaction.getCurrency())
-        .newBalance(wallet.getBalance())
+        .newBalance(credit.getWallet().getBalance())
         .timestamp(LocalDateTime.now())
         .build();
   }
 
-  @Transactional
   public WithdrawResponse withdraw(WithdrawRequest request, Long userId) {
+    requireNoLedgerEngine();
     // Convert amount to BigDecimal
     BigDecimal amount = convertToBigDecimal(request.getAmount());
 
-    Wallet wallet =
-        walletRepository
-            .findByUserId(userId)
-            .orElseThrow(() -> new RuntimeException("Wallet not found"));
+    return groupCommitWriter.execute(() -> executeWithdraw(request, userId, amount));
+  }
 
-    if (wallet.getBalance().compareTo(amount) < 0) {
-      throw new RuntimeException("Insufficient balance");
+  private WithdrawResponse executeWithdraw(
+      WithdrawRequest request, Long userId, BigDecimal amount) {
+    WalletUpdateResult debit = walletBalanceOperations.debitByUserId(userId, amount);
+    if (!debit.isApplied()) {
+      throw new GroupCommitWriter.Rejected(rejectionMessage(debit, "Wallet not found"));
     }
 
-    validateTransactionLimits(wallet, amount);
-
     Transaction transaction =
         Transaction.builder()
-            .fromWallet(wallet)
+            .fromWallet(walletRepository.getReferenceById(debit.getWallet().getId()))
             .amount(amount)
             .currency(request.getCurrency())
             .type(TransactionType.WITHDRAWAL)
             .status(TransactionStatus.COMPLETED)
-            .referenceId(generateReferenceId())
+            .referenceId(idGenerator.nextReferenceId())
             .description(request.getDescription())
             .completedAt(LocalDateTime.now())
             .build();
 
-    // Update wallet balance
-    wallet.setBalance(wallet.getBalance().subtract(amount));
-    updateSpendingLimits(wallet, amount);
-
-    walletRepository.save(wallet);
     Transaction savedTransaction = transactionRepository.save(transaction);
+    ledgerEntryWriter.record(savedTransaction, false);
 
     return WithdrawResponse.builder()
         .transactionId(savedTransaction.getId())
         .referenceId(savedTransaction.getReferenceId())
         .amount(savedTransaction.getAmount())
         .currency(savedTransaction.getCurrency())
-        .newBalance(wallet.getBalance())
+        .newBalance(debit.getWallet().getBalance())
         .timestamp(LocalDateTime.now())
         .build();
   }
 
+  private void requireNoLedgerEngine() {
+    if (ledgerEngine != null) {
+      throw new RuntimeException(
+          "Use the /api/wallet endpoints while the ledger engine is on; this one is not available");
+    }
+  }
+
   // Helper method to convert any number to BigDecimal
   private BigDecimal convertToBigDecimal(Object amount) {
     if (amount == null) {
@@ -194,30 +204,14 @@ public class TransactionService {
     }
   }
 
-  private void validateTransactionLimits(Wallet wallet, BigDecimal amount) {
-    // Check daily limit
-    if (wallet.getDailyLimit() != null
-        && wallet.getTotalDailySpent().add(amount).compareTo(wallet.getDailyLimit()) > 0) {
-      throw new RuntimeException("Exceeds daily transaction limit");
-    }
-
-    // Check transaction limit
-    if (wallet.getTransactionLimit() != null
-        && amount.compareTo(wallet.getTransactionLimit()) > 0) {
-      throw new RuntimeException("Exceeds per-transaction limit");
-    }
-  }
-
-  private void updateSpendingLimits(Wallet wallet, BigDecimal amount) {
-    // Update daily spent
-    wallet.setTotalDailySpent(wallet.getTotalDailySpent().add(amount));
-    // Update monthly spent
-    wallet.setTotalMonthlySpent(wallet.getTotalMonthlySpent().add(amount));
-  }
-
-  private String generateReferenceId() {
-    return "TX"
-        + System.currentTimeMillis()
-        + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+  private String rejectionMessage(WalletUpdateResult result, String notFoundMessage) {
+    return switch (result.getRejection()) {
+      case WALLET_NOT_FOUND -> notFoundMessage;
+      case WALLET_INACTIVE -> "Wallet is not active";
+      case INSUFFICIENT_BALANCE -> "Insufficient balance";
+      case TRANSACTION_LIMIT_EXCEEDED -> "Exceeds per-transaction limit";
+      case DAILY_LIMIT_EXCEEDED -> "Exceeds daily transaction limit";
+      case CONCURRENT_UPDATE -> "Wallet was updated concurrently, please retry";
+    };
   }
 }
@@ -2,6 +2,7 @@ package com.digitalwallet.platform.service;
 
 import com.digitalwallet.platform.model.User;
 import com.digitalwallet.platform.repository.UserRepository;
+import com.digitalwallet.platform.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserService {
 
   private final UserRepository userRepository;
+  private final PrincipalCache principalCache;
 
   @Transactional
   public void updateUserProfilePic(Long userId, String key) {
@@ -21,6 +23,7 @@ public class UserService {
         userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
     user.setProfilePicKey(key);
     userRepository.save(user);
+    principalCache.evict(user.getEmail());
   }
 
   @Transactional
@@ -30,6 +33,7 @@ public class UserService {
         userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
     user.setKycDocumentKey(key);
     userRepository.save(user);
+    principalCache.evict(user.getEmail());
   }
 
   public User getUserById(Long userId) {
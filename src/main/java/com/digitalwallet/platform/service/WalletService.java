@@ -5,6 +5,17 @@ import com.digitalwallet.platform.model.*;
 import com.digitalwallet.platform.repository.TransactionRepository;
 import com.digitalwallet.platform.repository.UserRepository;
 import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.cache.WalletCacheWriter;
+import com.digitalwallet.platform.service.ledger.LedgerEngine;
+import com.digitalwallet.platform.service.id.IdGenerator;
+import com.digitalwallet.platform.service.ledger.LedgerEntryWriter;
+import com.digitalwallet.platform.service.ledger.LedgerReceipt;
+import com.digitalwallet.platform.service.outbox.OutboxWriter;
+import com.digitalwallet.platform.service.transfer.GroupCommitWriter;
+import com.digitalwallet.platform.service.transfer.TransferRouter;
+import com.digitalwallet.platform.service.transfer.WalletBalanceOperations;
+import com.digitalwallet.platform.service.transfer.WalletLockManager;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -12,10 +23,18 @@ import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -25,10 +44,29 @@ public class WalletService {
   private final WalletRepository walletRepository;
   private final UserRepository userRepository;
   private final TransactionRepository transactionRepository;
-
+  private final WalletLockManager walletLockManager;
+  private final WalletBalanceOperations walletBalanceOperations;
+  private final GroupCommitWriter groupCommitWriter;
+  private final IdGenerator idGenerator;
+  private final LedgerEntryWriter ledgerEntryWriter;
+  private final TransferRouter transferRouter;
+  private final OutboxWriter outboxWriter;
+  private final WalletCacheWriter walletCacheWriter;
+  private final TransactionTemplate transactionTemplate;
+
+  @Qualifier("redisCacheManager")
+  private final CacheManager cacheManager;
+
+  /**
+   * Reads through the wallets cache. A miss is filled with {@link WalletCacheWriter#putIfNewer},
+   * so a slow read cannot replace the newer entry a transfer's commit wrote in the meantime.
+   */
   @Transactional(readOnly = true)
-  @Cacheable(value = "wallets", key = "#userId", cacheManager = "redisCacheManager")
   public WalletResponse getWalletInfo(Long userId) {
+    WalletResponse cached = cachedWallet(userId);
+    if (cached != null) {
+      return cached;
+    }
     log.info("Getting wallet info for user ID: {}", userId);
 
     Wallet wallet =
@@ -40,23 +78,38 @@ public class WalletService {
                   return new RuntimeException("Wallet not found for user ID: " + userId);
                 });
 
-    log.info("Found wallet: {} with balance: {}", wallet.getWalletNumber(), wallet.getBalance());
+    WalletResponse response = walletCacheWriter.snapshot(wallet);
+    log.info("Found wallet: {} with balance: {}", wallet.getWalletNumber(), response.getBalance());
+    walletCacheWriter.putIfNewer(userId, response);
+    return response;
+  }
 
-    return WalletResponse.builder()
-        .walletId(wallet.getId())
-        .walletNumber(wallet.getWalletNumber())
-        .balance(wallet.getBalance())
-        .currency(wallet.getCurrency())
-        .status(wallet.getStatus())
-        .dailyLimit(wallet.getDailyLimit())
-        .transactionLimit(wallet.getTransactionLimit())
-        .totalDailySpent(
-            wallet.getTotalDailySpent() != null ? wallet.getTotalDailySpent() : BigDecimal.ZERO)
-        .totalMonthlySpent(
-            wallet.getTotalMonthlySpent() != null ? wallet.getTotalMonthlySpent() : BigDecimal.ZERO)
-        .createdAt(wallet.getCreatedAt())
-        .updatedAt(wallet.getUpdatedAt())
-        .build();
+  // Null on a miss, or when the cache cannot be read
+  private WalletResponse cachedWallet(Long userId) {
+    try {
+      Cache cache = cacheManager.getCache("wallets");
+      Cache.ValueWrapper cached = cache != null ? cache.get(userId) : null;
+      return cached != null && cached.get() instanceof WalletResponse response ? response : null;
+    } catch (RuntimeException e) {
+      log.warn("Could not read cached wallet of user {}: {}", userId, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Writes the wallets changed by committed async transfers into the wallets cache instead of
+   * evicting them, so the owners' next page load is still a cache hit. Call after commit; never
+   * throws.
+   */
+  public void refreshCachedWallets(List<Transaction> transactions) {
+    Set<Long> walletIds = new TreeSet<>();
+    for (Transaction transaction : transactions) {
+      if (transaction.getStatus() == TransactionStatus.COMPLETED) {
+        walletIds.add(transaction.getFromWallet().getId());
+        walletIds.add(transaction.getToWallet().getId());
+      }
+    }
+    walletCacheWriter.refresh(walletIds);
   }
 
   @Transactional(readOnly = true)
@@ -73,8 +126,9 @@ public class WalletService {
             .findByUserId(user.getId())
             .orElseThrow(() -> new RuntimeException("Wallet not found for user: " + email));
 
-    log.info("Balance for user {}: {}", email, wallet.getBalance());
-    return wallet.getBalance();
+    BigDecimal balance = totalBalance(wallet);
+    log.info("Balance for user {}: {}", email, balance);
+    return balance;
   }
 
   @Transactional(readOnly = true)
@@ -86,10 +140,11 @@ public class WalletService {
             .findByUserId(userId)
             .orElseThrow(() -> new RuntimeException("Wallet not found for user ID: " + userId));
 
-    log.info("Balance for user ID {}: {}", userId, wallet.getBalance());
+    BigDecimal balance = totalBalance(wallet);
+    log.info("Balance for user ID {}: {}", userId, balance);
 
     return BalanceResponse.builder()
-        .balance(wallet.getBalance())
+        .balance(balance)
         .currency(wallet.getCurrency())
         .walletNumber(wallet.getWalletNumber())
         .walletStatus(wallet.getStatus().name())
@@ -123,7 +178,7 @@ public class WalletService {
 
     return Map.ofEntries(
         Map.entry("walletNumber", wallet.getWalletNumber()),
-        Map.entry("balance", wallet.getBalance()),
+        Map.entry("balance", totalBalance(wallet)),
         Map.entry("currency", wallet.getCurrency()),
         Map.entry("status", wallet.getStatus()),
         Map.entry("dailyLimit", wallet.getDailyLimit()),
@@ -233,12 +288,13 @@ public class WalletService {
             .map(Transaction::getAmount)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-    BigDecimal openingBalance = wallet.getBalance().add(totalWithdrawals).subtract(totalDeposits);
+    BigDecimal closingBalance = totalBalance(wallet);
+    BigDecimal openingBalance = closingBalance.add(totalWithdrawals).subtract(totalDeposits);
 
     log.info(
         "Statement summary - Opening: {}, Closing: {}, Deposits: {}, Withdrawals: {}",
         openingBalance,
-        wallet.getBalance(),
+        closingBalance,
         totalDeposits,
         totalWithdrawals);
 
@@ -247,7 +303,7 @@ public class WalletService {
         .periodStart(statementStartDate)
         .periodEnd(statementEndDate)
         .openingBalance(openingBalance)
-        .closingBalance(wallet.getBalance())
+        .closingBalance(closingBalance)
         .totalCredits(totalDeposits)
         .totalDebits(totalWithdrawals)
         .totalTransfers(totalTransfers)
@@ -279,12 +335,15 @@ public class WalletService {
     }
 
     Wallet updatedWallet = walletRepository.save(wallet);
+    if (ledgerEngine != null) {
+      afterCommit(() -> ledgerEngine.refreshLimits(updatedWallet));
+    }
     log.info("Wallet limits updated successfully");
 
     return WalletResponse.builder()
         .walletId(updatedWallet.getId())
         .walletNumber(updatedWallet.getWalletNumber())
-        .balance(updatedWallet.getBalance())
+        .balance(totalBalance(updatedWallet))
         .currency(updatedWallet.getCurrency())
         .status(updatedWallet.getStatus())
         .dailyLimit(updatedWallet.getDailyLimit())
@@ -322,6 +381,9 @@ public class WalletService {
     }
 
     walletRepository.save(wallet);
+    if (ledgerEngine != null) {
+      afterCommit(() -> ledgerEngine.resetDailySpent(wallet));
+    }
     log.info("Spending limits reset successfully");
 
     return Map.of(
@@ -337,7 +399,6 @@ public class WalletService {
 
   // === TRANSACTION METHODS ===
 
-  @Transactional
   @CacheEvict(value = "wallets", key = "#userId", cacheManager = "redisCacheManager")
   public TransactionResponse deposit(Long userId, BigDecimal amount, String currency) {
     log.info(
@@ -347,44 +408,48 @@ public class WalletService {
       throw new RuntimeException("Deposit amount must be greater than zero");
     }
 
-    Wallet wallet =
-        walletRepository
-            .findByUserId(userId)
-            .orElseThrow(() -> new RuntimeException("Wallet not found for user ID: " + userId));
-
-    if (wallet.getStatus() != WalletStatus.ACTIVE) {
-      throw new RuntimeException("Wallet is not active. Current status: " + wallet.getStatus());
+    if (ledgerEngine != null) {
+      LedgerReceipt receipt =
+          ledgerEngine.deposit(userId, amount, currency, idGenerator.nextReferenceId());
+      return mapToTransactionResponse(
+          receipt.getTransaction(),
+          receipt.getSenderWalletNumber(),
+          receipt.getReceiverWalletNumber());
     }
 
-    Transaction transaction =
-        Transaction.builder()
-            .referenceId(generateReferenceId())
-            .amount(amount)
-            .currency(currency)
-            .type(TransactionType.DEPOSIT)
-            .status(TransactionStatus.PENDING)
-            .description("Wallet deposit")
-            .toWallet(wallet)
-            .fromWallet(null)
-            .createdAt(LocalDateTime.now())
-            .build();
-
-    BigDecimal newBalance = wallet.getBalance().add(amount);
-    wallet.setBalance(newBalance);
-    wallet.setUpdatedAt(LocalDateTime.now());
-
-    transaction.setStatus(TransactionStatus.COMPLETED);
-    transaction.setCompletedAt(LocalDateTime.now());
-
-    walletRepository.save(wallet);
-    transactionRepository.save(transaction);
-
-    log.info("Deposit successful. New balance: {}", newBalance);
-
-    return mapToTransactionResponse(transaction);
+    // The transaction comes from the group-commit writer, so no @Transactional on this method
+    return groupCommitWriter.execute(
+        () -> {
+          // Status check and balance update in one statement
+          WalletUpdateResult credit = walletBalanceOperations.creditByUserId(userId, amount);
+          if (!credit.isApplied()) {
+            throw new GroupCommitWriter.Rejected(rejectionMessage(credit, userId));
+          }
+
+          Transaction transaction =
+              Transaction.builder()
+                  .referenceId(idGenerator.nextReferenceId())
+                  .amount(amount)
+                  .currency(currency)
+                  .type(TransactionType.DEPOSIT)
+                  .status(TransactionStatus.COMPLETED)
+                  .description("Wallet deposit")
+                  .toWallet(walletRepository.getReferenceById(credit.getWallet().getId()))
+                  .fromWallet(null)
+                  .createdAt(LocalDateTime.now())
+                  .completedAt(LocalDateTime.now())
+                  .build();
+
+          transactionRepository.save(transaction);
+          ledgerEntryWriter.record(transaction, credit.isDeferred());
+
+          log.info("Deposit successful. New balance: {}", credit.getWallet().getBalance());
+
+          return mapToTransactionResponse(
+              transaction, "SYSTEM", credit.getWallet().getWalletNumber());
+        });
   }
 
-  @Transactional
   @CacheEvict(value = "wallets", key = "#userId", cacheManager = "redisCacheManager")
   public TransactionResponse withdraw(Long userId, BigDecimal amount, String currency) {
     log.info(
@@ -397,72 +462,53 @@ public class WalletService {
       throw new RuntimeException("Withdrawal amount must be greater than zero");
     }
 
-    Wallet wallet =
-        walletRepository
-            .findByUserId(userId)
-            .orElseThrow(() -> new RuntimeException("Wallet not found for user ID: " + userId));
-
-    if (wallet.getStatus() != WalletStatus.ACTIVE) {
-      throw new RuntimeException("Wallet is not active. Current status: " + wallet.getStatus());
-    }
-
-    if (wallet.getBalance().compareTo(amount) < 0) {
-      throw new RuntimeException(
-          "Insufficient balance. Available: " + wallet.getBalance() + ", Required: " + amount);
+    if (ledgerEngine != null) {
+      LedgerReceipt receipt =
+          ledgerEngine.withdraw(userId, amount, currency, idGenerator.nextReferenceId());
+      return mapToTransactionResponse(
+          receipt.getTransaction(),
+          receipt.getSenderWalletNumber(),
+          receipt.getReceiverWalletNumber());
     }
 
-    if (wallet.getTransactionLimit() != null
-        && amount.compareTo(wallet.getTransactionLimit()) > 0) {
-      throw new RuntimeException(
-          "Amount exceeds transaction limit. Limit: " + wallet.getTransactionLimit());
-    }
-
-    BigDecimal dailySpent =
-        wallet.getTotalDailySpent() != null ? wallet.getTotalDailySpent() : BigDecimal.ZERO;
-    BigDecimal potentialDailyTotal = dailySpent.add(amount);
-    if (wallet.getDailyLimit() != null
-        && potentialDailyTotal.compareTo(wallet.getDailyLimit()) > 0) {
-      throw new RuntimeException(
-          "Amount exceeds daily spending limit. Daily limit: "
-              + wallet.getDailyLimit()
-              + ", Already spent: "
-              + dailySpent);
-    }
-
-    Transaction transaction =
-        Transaction.builder()
-            .referenceId(generateReferenceId())
-            .amount(amount)
-            .currency(currency)
-            .type(TransactionType.WITHDRAWAL)
-            .status(TransactionStatus.PENDING)
-            .description("Wallet withdrawal")
-            .fromWallet(wallet)
-            .toWallet(null)
-            .createdAt(LocalDateTime.now())
-            .build();
-
-    BigDecimal newBalance = wallet.getBalance().subtract(amount);
-    wallet.setBalance(newBalance);
-    wallet.setTotalDailySpent(potentialDailyTotal);
-    wallet.setUpdatedAt(LocalDateTime.now());
-
-    transaction.setStatus(TransactionStatus.COMPLETED);
-    transaction.setCompletedAt(LocalDateTime.now());
-
-    walletRepository.save(wallet);
-    transactionRepository.save(transaction);
-
-    log.info("Withdrawal successful. New balance: {}", newBalance);
-
-    return mapToTransactionResponse(transaction);
+    return groupCommitWriter.execute(
+        () -> {
+          // Status, balance and limit checks plus the update in one statement
+          WalletUpdateResult debit = walletBalanceOperations.debitByUserId(userId, amount);
+          if (!debit.isApplied()) {
+            throw new GroupCommitWriter.Rejected(rejectionMessage(debit, userId));
+          }
+
+          Transaction transaction =
+              Transaction.builder()
+                  .referenceId(idGenerator.nextReferenceId())
+                  .amount(amount)
+                  .currency(currency)
+                  .type(TransactionType.WITHDRAWAL)
+                  .status(TransactionStatus.COMPLETED)
+                  .description("Wallet withdrawal")
+                  .fromWallet(walletRepository.getReferenceById(debit.getWallet().getId()))
+                  .toWallet(null)
+                  .createdAt(LocalDateTime.now())
+                  .completedAt(LocalDateTime.now())
+                  .build();
+
+          transactionRepository.save(transaction);
+          ledgerEntryWriter.record(transaction, false);
+
+          log.info("Withdrawal successful. New balance: {}", debit.getWallet().getBalance());
+
+          return mapToTransactionResponse(
+              transaction, debit.getWallet().getWalletNumber(), "SYSTEM");
+        });
   }
 
-  // Injected Producer (optional - do not fail if bean is absent)
+  // In-memory execution engine, present only when app.ledger.engine.enabled=true
   @Autowired(required = false)
-  private com.digitalwallet.platform.service.messaging.TransactionProducer transactionProducer;
+  private LedgerEngine ledgerEngine;
 
-  @Transactional
+  // No @Transactional: the engine branch waits for its journal, which needs a pooled connection of
+  // its own, so only the database branch runs in a transaction (see transferInTransaction)
   public TransferResponse initiateTransfer(
       Long userId,
       String receiverWalletNumber,
@@ -483,6 +529,40 @@ public class WalletService {
       throw new RuntimeException("Receiver wallet number is required");
     }
 
+    // The engine settles the transfer in memory and journals it, so it completes synchronously
+    if (ledgerEngine != null) {
+      LedgerReceipt receipt =
+          ledgerEngine.transfer(
+              userId,
+              receiverWalletNumber,
+              amount,
+              currency,
+              description != null ? description : "Wallet transfer",
+              idGenerator.nextReferenceId());
+      return TransferResponse.builder()
+          .transactionId(receipt.getTransaction().getId())
+          .referenceId(receipt.getTransaction().getReferenceId())
+          .status(TransactionStatus.COMPLETED)
+          .amount(amount)
+          .currency(currency)
+          .senderWallet(receipt.getSenderWalletNumber())
+          .receiverWallet(receiverWalletNumber)
+          .timestamp(LocalDateTime.now())
+          .build();
+    }
+
+    return transactionTemplate.execute(
+        status ->
+            transferInTransaction(userId, receiverWalletNumber, amount, currency, description));
+  }
+
+  // Completes the transfer inline or queues it through the outbox
+  private TransferResponse transferInTransaction(
+      Long userId,
+      String receiverWalletNumber,
+      BigDecimal amount,
+      String currency,
+      String description) {
     Wallet senderWallet =
         walletRepository
             .findByUserId(userId)
@@ -499,14 +579,30 @@ public class WalletService {
     }
 
     // Preliminary check (balance validation) happen here to fail fast
-    // Note: The actual concurrent check happens in executeAsyncTransfer with
-    // Optimistic Locking
-    if (senderWallet.getBalance().compareTo(amount) < 0) {
-      throw new RuntimeException("Insufficient balance. Available: " + senderWallet.getBalance());
+    // Note: The authoritative check is the conditional debit in executeAsyncTransfers
+    BigDecimal available = totalBalance(senderWallet);
+    if (available.compareTo(amount) < 0) {
+      throw new RuntimeException("Insufficient balance. Available: " + available);
     }
 
+    Wallet receiverWallet =
+        walletRepository
+            .findByWalletNumber(receiverWalletNumber)
+            .orElseThrow(() -> new RuntimeException("Receiver wallet not found"));
+
     // Reference ID generated here
-    String referenceId = generateReferenceId();
+    String referenceId = idGenerator.nextReferenceId();
+
+    // Idle wallets complete right here; contended or large transfers go through the queue
+    TransferRouter.Reason route = transferRouter.route(senderWallet, receiverWallet, amount);
+    if (route.getRoute() == TransferRouter.Route.INLINE) {
+      Optional<TransferResponse> completed =
+          executeInlineTransfer(
+              senderWallet, receiverWallet, amount, currency, description, referenceId);
+      if (completed.isPresent()) {
+        return completed.get();
+      }
+    }
 
     // Create PENDING Transaction (Outbox Pattern)
     Transaction transaction =
@@ -518,20 +614,18 @@ public class WalletService {
             .status(TransactionStatus.PENDING)
             .description(description != null ? description : "Wallet transfer")
             .fromWallet(senderWallet)
-            .toWallet(
-                walletRepository
-                    .findByWalletNumber(receiverWalletNumber)
-                    .orElseThrow(() -> new RuntimeException("Receiver wallet not found")))
+            .toWallet(receiverWallet)
             .createdAt(LocalDateTime.now())
             .build();
 
     transactionRepository.save(transaction);
 
-    // Send to SQS (Async) — only if producer bean exists
+    // Queued for SQS through the outbox: committed with the PENDING row, published by the relay
     TransactionEvent event =
         TransactionEvent.builder()
             .transactionReferenceId(referenceId)
             .senderId(userId)
+            .senderWalletId(senderWallet.getId())
             .transactionId(transaction.getId())
             .receiverWalletNumber(receiverWalletNumber)
             .amount(amount)
@@ -539,13 +633,7 @@ public class WalletService {
             .description(description)
             .build();
 
-    if (transactionProducer != null) {
-      transactionProducer.sendTransactionEvent(event);
-    } else {
-      log.debug(
-          "TransactionProducer bean not available — skipping async send for transaction {}",
-          referenceId);
-    }
+    outboxWriter.enqueue(OutboxEventType.TRANSFER_INITIATED, transaction.getId(), event);
 
     log.info("Transfer initiated. Reference: {}", referenceId);
 
@@ -561,69 +649,253 @@ public class WalletService {
         .build();
   }
 
-  @Transactional
-  @CacheEvict(value = "wallets", allEntries = true, cacheManager = "redisCacheManager")
-  public Transaction executeAsyncTransfer(TransactionEvent event) {
-    log.info("Executing async transfer for reference: {}", event.getTransactionReferenceId());
+  /**
+   * Completes a transfer in the caller's transaction, the same way executeAsyncTransfers would.
+   *
+   * @return empty if the debit lost a race with a concurrent update, so the transfer should be
+   *     queued instead
+   */
+  private Optional<TransferResponse> executeInlineTransfer(
+      Wallet senderWallet,
+      Wallet receiverWallet,
+      BigDecimal amount,
+      String currency,
+      String description,
+      String referenceId) {
+    Long senderWalletId = senderWallet.getId();
+    Long receiverWalletId = receiverWallet.getId();
+    long started = System.nanoTime();
+    WalletUpdateResult credit;
+    try {
+      if (walletLockManager.isPessimistic()) {
+        walletLockManager.lockInOrder(List.of(senderWalletId, receiverWalletId));
+      }
+      WalletUpdateResult debit = walletBalanceOperations.debitById(senderWalletId, amount);
+      if (!debit.isApplied()) {
+        if (debit.getRejection() == WalletUpdateResult.Rejection.CONCURRENT_UPDATE) {
+          transferRouter.recordContention(senderWalletId);
+          transferRouter.fellBack(TransferRouter.Reason.LOST_RACE);
+          return Optional.empty();
+        }
+        throw new RuntimeException(debit.getRejectionMessage());
+      }
+      credit = walletBalanceOperations.creditById(receiverWalletId, amount);
+      if (!credit.isApplied()) {
+        throw new IllegalStateException("Receiver wallet " + receiverWalletId + " not credited");
+      }
+    } catch (ConcurrencyFailureException e) {
+      // The transaction is lost; the client's retry will be queued behind the contention
+      transferRouter.recordContention(senderWalletId, receiverWalletId);
+      throw e;
+    }
+    transferRouter.recordInline(System.nanoTime() - started, senderWalletId, receiverWalletId);
 
+    LocalDateTime now = LocalDateTime.now();
     Transaction transaction =
-        transactionRepository
-            .findById(event.getTransactionId())
-            .orElseThrow(
-                () -> new RuntimeException("Transaction not found: " + event.getTransactionId()));
+        Transaction.builder()
+            .referenceId(referenceId)
+            .amount(amount)
+            .currency(currency)
+            .type(TransactionType.TRANSFER)
+            .status(TransactionStatus.COMPLETED)
+            .description(description != null ? description : "Wallet transfer")
+            .fromWallet(senderWallet)
+            .toWallet(receiverWallet)
+            .createdAt(now)
+            .completedAt(now)
+            .build();
+    transactionRepository.save(transaction);
+    ledgerEntryWriter.record(transaction, credit.isDeferred());
+    walletCacheWriter.refreshAfterCommit(List.of(senderWallet.getId(), receiverWallet.getId()));
 
-    // Idempotency Check
-    if (transaction.getStatus() == TransactionStatus.COMPLETED
-        || transaction.getStatus() == TransactionStatus.FAILED) {
-      log.warn("Transaction {} already processed. Skipping.", event.getTransactionReferenceId());
-      return transaction;
+    log.info("Transfer completed inline. Reference: {}", referenceId);
+
+    return Optional.of(
+        TransferResponse.builder()
+            .transactionId(transaction.getId())
+            .referenceId(referenceId)
+            .status(TransactionStatus.COMPLETED)
+            .amount(amount)
+            .currency(currency)
+            .senderWallet(senderWallet.getWalletNumber())
+            .receiverWallet(receiverWallet.getWalletNumber())
+            .timestamp(now)
+            .build());
+  }
+
+  // How long a consumer's claim on a queued transfer holds before others may take it over
+  @Value("${app.transfer.claim.lease-seconds:120}")
+  private long claimLeaseSeconds;
+
+  /**
+   * Claims queued transfers for the calling consumer, moving them from PENDING to PROCESSING in a
+   * transaction of their own that commits before any transfer is applied.
+   *
+   * <p>A redelivered event whose transfer another consumer holds, or that already finished, is
+   * dropped here at the cost of one UPDATE instead of being applied in parallel with the first
+   * delivery. A claim lasts {@code app.transfer.claim.lease-seconds}; a crashed claimer's
+   * transfers can be claimed again once it has expired, and recovery re-queues them. The claim
+   * only avoids duplicate work; {@link #executeAsyncTransfers} re-checks each transfer's status
+   * under a row lock, so a consumer that outlives its lease still cannot apply it twice.
+   *
+   * @return the events whose transfers the caller now owns, in the given order
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public List<TransactionEvent> claimAsyncTransfers(List<TransactionEvent> events) {
+    requireNoLedgerEngine();
+    Set<Long> claimed =
+        new HashSet<>(
+            transactionRepository.claimForProcessing(
+                events.stream().map(TransactionEvent::getTransactionId).toList(),
+                claimLeaseSeconds));
+    if (claimed.size() < events.size()) {
+      log.info(
+          "Skipping {} of {} queued transfers already claimed or processed",
+          events.size() - claimed.size(),
+          events.size());
     }
+    return events.stream().filter(event -> claimed.contains(event.getTransactionId())).toList();
+  }
 
-    try {
-      Wallet senderWallet = transaction.getFromWallet();
-      Wallet receiverWallet = transaction.getToWallet();
+  /** Returns claimed transfers to PENDING after their apply failed, so redeliveries can claim. */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public void releaseAsyncTransfers(List<TransactionEvent> events) {
+    transactionRepository.releaseClaims(
+        events.stream().map(TransactionEvent::getTransactionId).toList());
+  }
 
-      // Re-validate Balance (Optimistic Locking will handle race conditions on save)
-      if (senderWallet.getBalance().compareTo(event.getAmount()) < 0) {
-        throw new RuntimeException("Insufficient balance during async execution");
+  /**
+   * Executes a batch of queued transfers in one database transaction.
+   *
+   * <p>All referenced transactions are loaded and locked with one IN query and their wallets, with
+   * owners, with another, so the returned transactions can be rendered as receipts after commit.
+   * Transfers already completed or failed under that lock are skipped, which is what keeps a
+   * consumer whose claim expired from applying a transfer a second consumer applied. Transfers
+   * are applied grouped by sender wallet. Any exception rolls the whole batch back; the caller
+   * then retries the events one at a time to isolate the faulty one.
+   *
+   * @return the transactions in event order
+   */
+  @Transactional
+  public List<Transaction> executeAsyncTransfers(List<TransactionEvent> events) {
+    log.info("Executing batch of {} async transfers", events.size());
+    requireNoLedgerEngine();
+
+    // Locked, so a transfer another consumer took over after this claim expired is seen as
+    // processed here once that consumer commits, rather than applied a second time
+    Map<Long, Transaction> transactions =
+        transactionRepository
+            .findAllByIdForUpdate(events.stream().map(TransactionEvent::getTransactionId).toList())
+            .stream()
+            .collect(Collectors.toMap(Transaction::getId, transaction -> transaction));
+    for (TransactionEvent event : events) {
+      if (!transactions.containsKey(event.getTransactionId())) {
+        throw new RuntimeException("Transaction not found: " + event.getTransactionId());
       }
+    }
+
+    // Ids come straight from the FK columns; wallets and owners are then loaded in one query
+    Set<Long> walletIds = new TreeSet<>();
+    transactions
+        .values()
+        .forEach(
+            transaction -> {
+              walletIds.add(transaction.getFromWallet().getId());
+              walletIds.add(transaction.getToWallet().getId());
+            });
+    walletRepository.findWithUserByIdIn(walletIds);
+
+    // Every wallet of the batch is locked up front, lowest id first, so batches cannot deadlock
+    if (walletLockManager.isPessimistic()) {
+      walletLockManager.lockInOrder(walletIds);
+    }
 
-      // Spending Limit Check
-      BigDecimal dailySpent =
-          senderWallet.getTotalDailySpent() != null
-              ? senderWallet.getTotalDailySpent()
-              : BigDecimal.ZERO;
-      BigDecimal potentialDailyTotal = dailySpent.add(event.getAmount());
-      if (senderWallet.getDailyLimit() != null
-          && potentialDailyTotal.compareTo(senderWallet.getDailyLimit()) > 0) {
-        throw new RuntimeException("Daily limit exceeded during async execution");
+    // One sender's transfers run back to back, in the order they were initiated
+    List<TransactionEvent> bySender = new ArrayList<>(events);
+    bySender.sort(
+        Comparator.comparing(
+                (TransactionEvent event) ->
+                    transactions.get(event.getTransactionId()).getFromWallet().getId())
+            .thenComparing(TransactionEvent::getTransactionId));
+    for (TransactionEvent event : bySender) {
+      Transaction transaction = transactions.get(event.getTransactionId());
+      if (isProcessed(transaction)) {
+        log.warn("Transaction {} already processed. Skipping.", event.getTransactionReferenceId());
+        continue;
       }
+      applyAsyncTransfer(transaction, event);
+    }
+
+    return events.stream().map(event -> transactions.get(event.getTransactionId())).toList();
+  }
+
+  // The engine must never hold limits the database rolled back; outside a transaction, run now
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  // The engine owns the balances while it is on; it refuses to start with transfers still queued
+  private void requireNoLedgerEngine() {
+    if (ledgerEngine != null) {
+      throw new IllegalStateException(
+          "Queued transfers are not applied while the ledger engine is on");
+    }
+  }
 
-      // Update Sender
-      BigDecimal senderNewBalance = senderWallet.getBalance().subtract(event.getAmount());
-      senderWallet.setBalance(senderNewBalance);
-      senderWallet.setTotalDailySpent(potentialDailyTotal);
-      senderWallet.setUpdatedAt(LocalDateTime.now());
+  private boolean isProcessed(Transaction transaction) {
+    return transaction.getStatus() == TransactionStatus.COMPLETED
+        || transaction.getStatus() == TransactionStatus.FAILED;
+  }
 
-      // Update Receiver
-      BigDecimal receiverNewBalance = receiverWallet.getBalance().add(event.getAmount());
-      receiverWallet.setBalance(receiverNewBalance);
-      receiverWallet.setUpdatedAt(LocalDateTime.now());
+  private Transaction applyAsyncTransfer(Transaction transaction, TransactionEvent event) {
+    // Ids come straight from the FK columns; neither wallet is loaded
+    Long senderWalletId = transaction.getFromWallet().getId();
+    Long receiverWalletId = transaction.getToWallet().getId();
 
-      // Save Wallets (Will throw ObjectOptimisticLockingFailureException if version
-      // mismatch)
-      walletRepository.save(senderWallet);
-      walletRepository.save(receiverWallet);
+    boolean debited = false;
+    try {
+      // Balance and spending limits are re-validated by the conditional debit itself
+      WalletUpdateResult debit =
+          walletBalanceOperations.debitById(senderWalletId, event.getAmount());
+      if (!debit.isApplied()) {
+        throw new RuntimeException(debit.getRejectionMessage() + " (during async execution)");
+      }
+      debited = true;
+
+      WalletUpdateResult credit =
+          walletBalanceOperations.creditById(receiverWalletId, event.getAmount());
+      if (!credit.isApplied()) {
+        throw new IllegalStateException("Receiver wallet " + receiverWalletId + " not credited");
+      }
 
       // Update Transaction
       transaction.setStatus(TransactionStatus.COMPLETED);
       transaction.setCompletedAt(LocalDateTime.now());
       transactionRepository.save(transaction);
+      ledgerEntryWriter.record(transaction, credit.isDeferred());
 
       log.info("Async transfer completed successfully.");
       return transaction;
 
-    } catch (Exception e) {
+    } catch (ConcurrencyFailureException e) {
+      // Lock timeouts and deadlocks are transient; the listener retries the whole event
+      transferRouter.recordContention(senderWalletId, receiverWalletId);
+      throw e;
+    } catch (RuntimeException e) {
+      if (debited) {
+        // Never commit half a transfer: roll back and let the event be redelivered
+        throw e;
+      }
       log.error("Transfer failed for reference: {}", event.getTransactionReferenceId(), e);
       transaction.setStatus(TransactionStatus.FAILED);
       transaction.setFailureReason(e.getMessage());
@@ -633,7 +905,33 @@ public class WalletService {
 
   // === HELPER METHODS ===
 
+  // Hot wallets hold part of their balance in wallet_balance_slots and deferred credits sit in the
+  // ledger tail; otherwise the row balance is the whole balance and no extra query is needed
+  private BigDecimal totalBalance(Wallet wallet) {
+    return wallet.hasBalanceSlots() || walletBalanceOperations.defersCredits()
+        ? walletRepository.findTotalBalanceById(wallet.getId())
+        : wallet.getBalance();
+  }
+
+  private String rejectionMessage(WalletUpdateResult result, Long userId) {
+    if (result.getRejection() == WalletUpdateResult.Rejection.WALLET_NOT_FOUND) {
+      return "Wallet not found for user ID: " + userId;
+    }
+    return result.getRejectionMessage();
+  }
+
   private TransactionResponse mapToTransactionResponse(Transaction transaction) {
+    return mapToTransactionResponse(
+        transaction,
+        transaction.getFromWallet() != null
+            ? transaction.getFromWallet().getWalletNumber()
+            : "SYSTEM",
+        transaction.getToWallet() != null ? transaction.getToWallet().getWalletNumber() : "SYSTEM");
+  }
+
+  // Variant for callers that already know the wallet numbers, so lazy wallets stay unloaded
+  private TransactionResponse mapToTransactionResponse(
+      Transaction transaction, String senderWallet, String receiverWallet) {
     return TransactionResponse.builder()
         .transactionId(transaction.getId())
         .referenceId(transaction.getReferenceId())
@@ -642,14 +940,8 @@ public class WalletService {
         .type(transaction.getType())
         .status(transaction.getStatus())
         .description(transaction.getDescription())
-        .senderWallet(
-            transaction.getFromWallet() != null
-                ? transaction.getFromWallet().getWalletNumber()
-                : "SYSTEM")
-        .receiverWallet(
-            transaction.getToWallet() != null
-                ? transaction.getToWallet().getWalletNumber()
-                : "SYSTEM")
+        .senderWallet(senderWallet)
+        .receiverWallet(receiverWallet)
         .createdAt(transaction.getCreatedAt())
         .completedAt(transaction.getCompletedAt())
         .build();
@@ -676,10 +968,4 @@ public class WalletService {
 
     return mapToTransactionResponse(transaction);
   }
-
-  private String generateReferenceId() {
-    return "TXN"
-        + System.currentTimeMillis()
-        + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-  }
 }
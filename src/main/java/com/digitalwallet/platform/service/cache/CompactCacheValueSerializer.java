@@ -0,0 +1,338 @@
+package com.digitalwallet.platform.service.cache;
+
+import com.digitalwallet.platform.dto.BalanceResponse;
+import com.digitalwallet.platform.dto.TransactionResponse;
+import com.digitalwallet.platform.dto.WalletResponse;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.TransactionType;
+import com.digitalwallet.platform.model.WalletStatus;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Redis value format for the cached DTOs: a fixed binary layout per type instead of JSON with
+ * embedded class names. Values of any other type are written by {@code fallback}.
+ *
+ * <p>Layout: a version byte, a type tag byte, a 2-byte presence mask, then the fields that are set,
+ * in schema order. Longs are 8 bytes, amounts an unscaled long and a scale byte, timestamps UTC
+ * epoch microseconds, and strings and enum names UTF-8 with a 2-byte length. A {@link
+ * WalletResponse} takes about a quarter of its JSON size, and decoding needs no reflection.
+ *
+ * <p>Fields may be appended to a schema without a new version; entries written before read the
+ * new field as null. Anything else, such as reordering fields or changing a field's type, needs a
+ * new version. Entries of a version or type this code does not know read as a cache miss, and
+ * entries starting like JSON (written before this format, or by {@code fallback}) are read by
+ * {@code fallback}.
+ */
+@Slf4j
+public class CompactCacheValueSerializer implements RedisSerializer<Object> {
+
+  public static final byte VERSION = 1;
+
+  private static final int MAX_STRING_BYTES = 0xFFFF;
+
+  private interface Codec<V> {
+    void write(DataOutputStream out, V value) throws IOException;
+
+    V read(DataInputStream in) throws IOException;
+  }
+
+  private static final Codec<Long> LONG =
+      new Codec<>() {
+        @Override
+        public void write(DataOutputStream out, Long value) throws IOException {
+          out.writeLong(value);
+        }
+
+        @Override
+        public Long read(DataInputStream in) throws IOException {
+          return in.readLong();
+        }
+      };
+
+  private static final Codec<BigDecimal> DECIMAL =
+      new Codec<>() {
+        @Override
+        public void write(DataOutputStream out, BigDecimal value) throws IOException {
+          BigInteger unscaled = value.unscaledValue();
+          if (unscaled.bitLength() > 63 || value.scale() != (byte) value.scale()) {
+            throw new IllegalArgumentException("Amount does not fit the compact format: " + value);
+          }
+          out.writeLong(unscaled.longValue());
+          out.writeByte(value.scale());
+        }
+
+        @Override
+        public BigDecimal read(DataInputStream in) throws IOException {
+          long unscaled = in.readLong();
+          return BigDecimal.valueOf(unscaled, in.readByte());
+        }
+      };
+
+  private static final Codec<String> STRING =
+      new Codec<>() {
+        @Override
+        public void write(DataOutputStream out, String value) throws IOException {
+          byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+          if (utf8.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException(
+                "Field of " + utf8.length + " bytes exceeds the compact format limit");
+          }
+          out.writeShort(utf8.length);
+          out.write(utf8);
+        }
+
+        @Override
+        public String read(DataInputStream in) throws IOException {
+          byte[] utf8 = new byte[in.readUnsignedShort()];
+          in.readFully(utf8);
+          return new String(utf8, StandardCharsets.UTF_8);
+        }
+      };
+
+  // Epoch microseconds of the wall-clock time read as UTC; sub-microsecond digits are dropped
+  private static final Codec<LocalDateTime> TIMESTAMP =
+      new Codec<>() {
+        @Override
+        public void write(DataOutputStream out, LocalDateTime value) throws IOException {
+          out.writeLong(value.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + value.getNano() / 1_000);
+        }
+
+        @Override
+        public LocalDateTime read(DataInputStream in) throws IOException {
+          long micros = in.readLong();
+          return LocalDateTime.ofEpochSecond(
+              Math.floorDiv(micros, 1_000_000),
+              (int) Math.floorMod(micros, 1_000_000) * 1_000,
+              ZoneOffset.UTC);
+        }
+      };
+
+  // By name, so reordering the enum does not change stored values
+  private static <E extends Enum<E>> Codec<E> enumCodec(Class<E> type) {
+    return new Codec<>() {
+      @Override
+      public void write(DataOutputStream out, E value) throws IOException {
+        STRING.write(out, value.name());
+      }
+
+      @Override
+      public E read(DataInputStream in) throws IOException {
+        return Enum.valueOf(type, STRING.read(in));
+      }
+    };
+  }
+
+  // Tags are stored in Redis: never reuse or renumber them, and only append fields
+  private static final List<Schema<?>> SCHEMAS =
+      List.of(walletSchema(), balanceSchema(), transactionSchema());
+
+  private static final Map<Class<?>, Schema<?>> BY_TYPE =
+      SCHEMAS.stream().collect(Collectors.toMap(Schema::type, schema -> schema));
+  private static final Map<Integer, Schema<?>> BY_TAG =
+      SCHEMAS.stream().collect(Collectors.toMap(Schema::tag, schema -> schema));
+
+  private final RedisSerializer<Object> fallback;
+  private final boolean writeCompact;
+
+  /**
+   * @param writeCompact false to keep writing {@code fallback}'s format while reading both, until
+   *     every replica reads the compact one
+   */
+  public CompactCacheValueSerializer(RedisSerializer<Object> fallback, boolean writeCompact) {
+    this.fallback = fallback;
+    this.writeCompact = writeCompact;
+  }
+
+  @Override
+  public byte[] serialize(Object value) throws SerializationException {
+    Schema<?> schema = value == null || !writeCompact ? null : BY_TYPE.get(value.getClass());
+    if (schema == null) {
+      return fallback.serialize(value);
+    }
+    try {
+      return schema.encode(value);
+    } catch (IllegalArgumentException e) {
+      // A value outside the layout's ranges, e.g. an amount beyond a scaled long
+      log.debug("Writing {} as JSON: {}", schema.type().getSimpleName(), e.getMessage());
+      return fallback.serialize(value);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    // JSON text never starts with a control byte
+    if (bytes[0] >= 0x20) {
+      return fallback.deserialize(bytes);
+    }
+    Schema<?> schema =
+        bytes[0] == VERSION && bytes.length > 1 ? BY_TAG.get(bytes[1] & 0xFF) : null;
+    if (schema == null) {
+      // Written by a newer release: a miss, so the value is recomputed
+      log.debug("Unknown cache value format {}, ignoring entry", bytes[0]);
+      return null;
+    }
+    try {
+      return schema.decode(bytes);
+    } catch (SerializationException e) {
+      log.warn("Ignoring unreadable cache entry: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private record Field<T, V>(Codec<V> codec, Function<T, V> getter, BiConsumer<T, V> setter) {}
+
+  private static <T, V> Field<T, V> field(
+      Codec<V> codec, Function<T, V> getter, BiConsumer<T, V> setter) {
+    return new Field<>(codec, getter, setter);
+  }
+
+  private record Schema<T>(
+      int tag, Class<T> type, Supplier<T> factory, List<Field<T, ?>> fields) {
+
+    byte[] encode(Object value) {
+      T target = type.cast(value);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+      DataOutputStream out = new DataOutputStream(bytes);
+      try {
+        out.writeByte(VERSION);
+        out.writeByte(tag);
+        int mask = 0;
+        for (int i = 0; i < fields.size(); i++) {
+          if (fields.get(i).getter().apply(target) != null) {
+            mask |= 1 << i;
+          }
+        }
+        out.writeShort(mask);
+        for (Field<T, ?> field : fields) {
+          writeField(out, field, target);
+        }
+      } catch (IOException e) {
+        throw new SerializationException("Could not write " + type.getSimpleName(), e);
+      }
+      return bytes.toByteArray();
+    }
+
+    T decode(byte[] bytes) {
+      DataInputStream in =
+          new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2));
+      T target = factory.get();
+      try {
+        int mask = in.readUnsignedShort();
+        for (int i = 0; i < fields.size(); i++) {
+          if ((mask & 1 << i) != 0) {
+            readField(in, fields.get(i), target);
+          }
+        }
+        if (in.available() > 0) {
+          throw new SerializationException(
+              in.available() + " trailing bytes after " + type.getSimpleName());
+        }
+        return target;
+      } catch (IOException | IllegalArgumentException | DateTimeException e) {
+        throw new SerializationException("Truncated or corrupt " + type.getSimpleName(), e);
+      }
+    }
+
+    private static <T, V> void writeField(DataOutputStream out, Field<T, V> field, T target)
+        throws IOException {
+      V value = field.getter().apply(target);
+      if (value != null) {
+        field.codec().write(out, value);
+      }
+    }
+
+    private static <T, V> void readField(DataInputStream in, Field<T, V> field, T target)
+        throws IOException {
+      field.setter().accept(target, field.codec().read(in));
+    }
+  }
+
+  private static Schema<WalletResponse> walletSchema() {
+    List<Field<WalletResponse, ?>> fields =
+        List.of(
+            field(LONG, WalletResponse::getWalletId, WalletResponse::setWalletId),
+            field(STRING, WalletResponse::getWalletNumber, WalletResponse::setWalletNumber),
+            field(DECIMAL, WalletResponse::getBalance, WalletResponse::setBalance),
+            field(STRING, WalletResponse::getCurrency, WalletResponse::setCurrency),
+            field(
+                enumCodec(WalletStatus.class),
+                WalletResponse::getStatus,
+                WalletResponse::setStatus),
+            field(DECIMAL, WalletResponse::getDailyLimit, WalletResponse::setDailyLimit),
+            field(
+                DECIMAL, WalletResponse::getTransactionLimit, WalletResponse::setTransactionLimit),
+            field(DECIMAL, WalletResponse::getTotalDailySpent, WalletResponse::setTotalDailySpent),
+            field(
+                DECIMAL,
+                WalletResponse::getTotalMonthlySpent,
+                WalletResponse::setTotalMonthlySpent),
+            field(TIMESTAMP, WalletResponse::getCreatedAt, WalletResponse::setCreatedAt),
+            field(TIMESTAMP, WalletResponse::getUpdatedAt, WalletResponse::setUpdatedAt),
+            field(LONG, WalletResponse::getVersion, WalletResponse::setVersion));
+    return new Schema<>(1, WalletResponse.class, WalletResponse::new, fields);
+  }
+
+  private static Schema<BalanceResponse> balanceSchema() {
+    List<Field<BalanceResponse, ?>> fields =
+        List.of(
+            field(DECIMAL, BalanceResponse::getBalance, BalanceResponse::setBalance),
+            field(STRING, BalanceResponse::getCurrency, BalanceResponse::setCurrency),
+            field(STRING, BalanceResponse::getWalletNumber, BalanceResponse::setWalletNumber),
+            field(STRING, BalanceResponse::getWalletStatus, BalanceResponse::setWalletStatus),
+            field(TIMESTAMP, BalanceResponse::getLastUpdated, BalanceResponse::setLastUpdated));
+    return new Schema<>(2, BalanceResponse.class, BalanceResponse::new, fields);
+  }
+
+  private static Schema<TransactionResponse> transactionSchema() {
+    List<Field<TransactionResponse, ?>> fields =
+        List.of(
+            field(
+                LONG, TransactionResponse::getTransactionId, TransactionResponse::setTransactionId),
+            field(STRING, TransactionResponse::getReferenceId, TransactionResponse::setReferenceId),
+            field(DECIMAL, TransactionResponse::getAmount, TransactionResponse::setAmount),
+            field(STRING, TransactionResponse::getCurrency, TransactionResponse::setCurrency),
+            field(
+                enumCodec(TransactionType.class),
+                TransactionResponse::getType,
+                TransactionResponse::setType),
+            field(
+                enumCodec(TransactionStatus.class),
+                TransactionResponse::getStatus,
+                TransactionResponse::setStatus),
+            field(STRING, TransactionResponse::getDescription, TransactionResponse::setDescription),
+            field(
+                STRING, TransactionResponse::getSenderWallet, TransactionResponse::setSenderWallet),
+            field(
+                STRING,
+                TransactionResponse::getReceiverWallet,
+                TransactionResponse::setReceiverWallet),
+            field(TIMESTAMP, TransactionResponse::getCreatedAt, TransactionResponse::setCreatedAt),
+            field(
+                TIMESTAMP,
+                TransactionResponse::getCompletedAt,
+                TransactionResponse::setCompletedAt));
+    return new Schema<>(3, TransactionResponse.class, TransactionResponse::new, fields);
+  }
+}
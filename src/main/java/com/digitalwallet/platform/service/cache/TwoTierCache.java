@@ -0,0 +1,183 @@
+package com.digitalwallet.platform.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * One named cache of {@link TwoTierCacheManager}: a bounded in-process map (L1) in front of the
+ * shared Redis cache (L2).
+ *
+ * <p>Reads try L1, then L2, and keep what L2 returns in L1. Writes and evictions go to both tiers
+ * and are then announced through {@code invalidation}, so other replicas drop their L1 copy. L1
+ * keys are the key's string form, as in Redis, so an announced key matches the local entry.
+ */
+class TwoTierCache implements Cache {
+
+  private final Cache remote;
+  private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+  private final Consumer<String> invalidation;
+  private final Counter localHits;
+  private final Counter localMisses;
+  private final Counter remoteHits;
+  private final Counter remoteMisses;
+
+  /**
+   * @param invalidation announces a changed key to other replicas; {@code null} means all keys
+   */
+  TwoTierCache(
+      Cache remote,
+      com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+      Consumer<String> invalidation,
+      MeterRegistry meterRegistry) {
+    this.remote = remote;
+    this.local = local;
+    this.invalidation = invalidation;
+    this.localHits = requests(meterRegistry, "l1", "hit");
+    this.localMisses = requests(meterRegistry, "l1", "miss");
+    this.remoteHits = requests(meterRegistry, "l2", "hit");
+    this.remoteMisses = requests(meterRegistry, "l2", "miss");
+    hitRatio(meterRegistry, "l1", localHits, localMisses);
+    hitRatio(meterRegistry, "l2", remoteHits, remoteMisses);
+  }
+
+  @Override
+  public String getName() {
+    return remote.getName();
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return remote.getNativeCache();
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    String localKey = localKey(key);
+    Object value = local.getIfPresent(localKey);
+    if (value != null) {
+      localHits.increment();
+      return new SimpleValueWrapper(value);
+    }
+    localMisses.increment();
+
+    ValueWrapper wrapper = remote.get(key);
+    if (wrapper == null || wrapper.get() == null) {
+      remoteMisses.increment();
+      return wrapper;
+    }
+    remoteHits.increment();
+    local.put(localKey, wrapper.get());
+    return wrapper;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Class<T> type) {
+    ValueWrapper wrapper = get(key);
+    Object value = wrapper == null ? null : wrapper.get();
+    if (value != null && type != null && !type.isInstance(value)) {
+      throw new IllegalStateException(
+          "Cached value is not of required type [" + type.getName() + "]: " + value);
+    }
+    return (T) value;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    ValueWrapper wrapper = get(key);
+    if (wrapper != null) {
+      return (T) wrapper.get();
+    }
+    T value = remote.get(key, valueLoader);
+    if (value != null) {
+      local.put(localKey(key), value);
+    }
+    return value;
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    remote.put(key, value);
+    String localKey = localKey(key);
+    if (value == null) {
+      local.invalidate(localKey);
+    } else {
+      local.put(localKey, value);
+    }
+    invalidation.accept(localKey);
+  }
+
+  @Override
+  public void evict(Object key) {
+    remote.evict(key);
+    String localKey = localKey(key);
+    local.invalidate(localKey);
+    invalidation.accept(localKey);
+  }
+
+  @Override
+  public boolean evictIfPresent(Object key) {
+    boolean present = remote.evictIfPresent(key);
+    String localKey = localKey(key);
+    local.invalidate(localKey);
+    invalidation.accept(localKey);
+    return present;
+  }
+
+  @Override
+  public void clear() {
+    remote.clear();
+    local.invalidateAll();
+    invalidation.accept(null);
+  }
+
+  @Override
+  public boolean invalidate() {
+    boolean present = remote.invalidate();
+    local.invalidateAll();
+    invalidation.accept(null);
+    return present;
+  }
+
+  /** Drops a key another replica changed, from L1 only. */
+  void evictLocal(String key) {
+    local.invalidate(key);
+  }
+
+  /** Drops everything from L1 after another replica cleared the cache. */
+  void clearLocal() {
+    local.invalidateAll();
+  }
+
+  private static String localKey(Object key) {
+    return String.valueOf(key);
+  }
+
+  private Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+    return Counter.builder("wallet.cache.requests")
+        .description("Two-tier cache lookups, by tier and result")
+        .tag("cache", remote.getName())
+        .tag("tier", tier)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private void hitRatio(MeterRegistry meterRegistry, String tier, Counter hits, Counter misses) {
+    Gauge.builder(
+            "wallet.cache.hit.ratio",
+            () -> {
+              double total = hits.count() + misses.count();
+              return total == 0 ? 0 : hits.count() / total;
+            })
+        .description("Share of lookups reaching a tier that it answered, since startup")
+        .tag("cache", remote.getName())
+        .tag("tier", tier)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,133 @@
+package com.digitalwallet.platform.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Puts a size-bounded in-process cache (L1, Caffeine's W-TinyLFU) in front of each cache of the
+ * Redis cache manager (L2), so repeated reads such as wallet page loads skip the Redis round trip
+ * and JSON decode.
+ *
+ * <p>Every write or eviction is published on {@code channel} as {@code
+ * <instance>|<cache>|<key>}, an empty key meaning the whole cache. Each replica subscribes to the
+ * channel and drops the named entry from its own L1, ignoring its own messages. Pub/sub is not
+ * durable, so L1 entries also expire after {@code ttl}: that bounds how long a replica can serve
+ * a value it missed the invalidation for, or one it read from Redis just before another replica
+ * changed it.
+ *
+ * <p>Lookups are counted in {@code wallet.cache.requests{cache,tier,result}}, and {@code
+ * wallet.cache.hit.ratio{cache,tier}} gives each tier's hit ratio since startup.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+  private static final char SEPARATOR = '|';
+
+  private final CacheManager remote;
+  private final StringRedisTemplate redisTemplate;
+  private final MeterRegistry meterRegistry;
+  private final String channel;
+  private final long maximumSize;
+  private final Duration ttl;
+  private final String instanceId = UUID.randomUUID().toString();
+  private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+  public TwoTierCacheManager(
+      CacheManager remote,
+      StringRedisTemplate redisTemplate,
+      MeterRegistry meterRegistry,
+      String channel,
+      long maximumSize,
+      Duration ttl) {
+    this.remote = remote;
+    this.redisTemplate = redisTemplate;
+    this.meterRegistry = meterRegistry;
+    this.channel = channel;
+    this.maximumSize = maximumSize;
+    this.ttl = ttl;
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    TwoTierCache cache = caches.get(name);
+    if (cache != null) {
+      return cache;
+    }
+    Cache remoteCache = remote.getCache(name);
+    if (remoteCache == null) {
+      return null;
+    }
+    return caches.computeIfAbsent(
+        name,
+        n ->
+            new TwoTierCache(
+                remoteCache,
+                Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).build(),
+                key -> publish(n, key),
+                meterRegistry));
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return remote.getCacheNames();
+  }
+
+  /** Drops keys that were written to Redis directly from the local tier of every replica. */
+  public void evictLocal(String cacheName, Collection<?> keys) {
+    TwoTierCache cache = caches.get(cacheName);
+    for (Object key : keys) {
+      String localKey = String.valueOf(key);
+      if (cache != null) {
+        cache.evictLocal(localKey);
+      }
+      publish(cacheName, localKey);
+    }
+  }
+
+  /** Applies another replica's invalidation to the local tier. */
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    String body = new String(message.getBody(), StandardCharsets.UTF_8);
+    int first = body.indexOf(SEPARATOR);
+    int second = first < 0 ? -1 : body.indexOf(SEPARATOR, first + 1);
+    if (second < 0) {
+      log.warn("Ignoring malformed cache invalidation: {}", body);
+      return;
+    }
+    if (body.substring(0, first).equals(instanceId)) {
+      return;
+    }
+    TwoTierCache cache = caches.get(body.substring(first + 1, second));
+    if (cache == null) {
+      return;
+    }
+    String key = body.substring(second + 1);
+    if (key.isEmpty()) {
+      cache.clearLocal();
+    } else {
+      cache.evictLocal(key);
+    }
+  }
+
+  private void publish(String cacheName, String key) {
+    String body = instanceId + SEPARATOR + cacheName + SEPARATOR + (key == null ? "" : key);
+    try {
+      redisTemplate.convertAndSend(channel, body);
+    } catch (RuntimeException e) {
+      // Other replicas fall back to L1 expiry for this key
+      log.warn("Could not publish cache invalidation for {}: {}", cacheName, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.digitalwallet.platform.service.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes fresh values into a cache of {@code redisCacheManager} in place of evicting them, and
+ * never lets a value replace one with a higher version.
+ *
+ * <p>With Redis, all entries of a call take one round trip to read ({@code WATCH} + {@code MGET})
+ * and one {@code MULTI}/{@code EXEC} to write those that are newer. If another writer changes one
+ * of the keys in between, {@code EXEC} is refused and the keys are evicted instead, which can never
+ * leave an older value behind. Replicas' in-process tiers drop the written keys.
+ */
+@Component
+@Slf4j
+public class VersionedCacheWriter {
+
+  private final CacheManager cacheManager;
+  private final Duration ttl;
+
+  // Present when Redis backs the cache manager, see RedisConfig
+  @Autowired(required = false)
+  @Qualifier("cacheRedisTemplate")
+  private RedisTemplate<String, Object> redisTemplate;
+
+  public VersionedCacheWriter(
+      @Qualifier("redisCacheManager") CacheManager cacheManager,
+      @Value("${app.cache.ttl-minutes:10}") long ttlMinutes) {
+    this.cacheManager = cacheManager;
+    this.ttl = Duration.ofMinutes(ttlMinutes);
+  }
+
+  /**
+   * Caches each of {@code entries} unless the cached value has the same or a higher version.
+   * Failures are logged, not thrown: the affected keys are evicted, or left to expire.
+   */
+  public <V> void putIfNewer(String cacheName, Map<?, V> entries, ToLongFunction<V> version) {
+    Cache cache = cacheManager.getCache(cacheName);
+    if (cache == null || entries.isEmpty()) {
+      return;
+    }
+    try {
+      if (redisTemplate == null) {
+        // No shared store to race on
+        entries.forEach(
+            (key, value) -> {
+              if (isNewer(value, cache.get(key), version)) {
+                cache.put(key, value);
+              }
+            });
+      } else if (writeToRedis(cacheName, entries, version)) {
+        if (cacheManager instanceof TwoTierCacheManager twoTier) {
+          twoTier.evictLocal(cacheName, entries.keySet());
+        }
+      } else {
+        log.debug("Concurrent write to {} entries, evicting them instead", cacheName);
+        entries.keySet().forEach(cache::evict);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not update {} cache entries: {}", cacheName, e.getMessage());
+      try {
+        entries.keySet().forEach(cache::evict);
+      } catch (RuntimeException evictFailure) {
+        // The entries expire after the cache TTL
+        log.warn("Could not evict {} cache entries: {}", cacheName, evictFailure.getMessage());
+      }
+    }
+  }
+
+  /**
+   * @return false if another client changed one of the keys and nothing was written
+   */
+  private <V> boolean writeToRedis(
+      String cacheName, Map<?, V> entries, ToLongFunction<V> version) {
+    String prefix = CacheKeyPrefix.simple().compute(cacheName);
+    List<Object> keys = new ArrayList<>(entries.keySet());
+    List<String> redisKeys = keys.stream().map(key -> prefix + key).toList();
+
+    Boolean written =
+        redisTemplate.execute(
+            new SessionCallback<Boolean>() {
+              @Override
+              @SuppressWarnings("unchecked")
+              public <K, T> Boolean execute(RedisOperations<K, T> operations)
+                  throws DataAccessException {
+                RedisOperations<String, Object> redis =
+                    (RedisOperations<String, Object>) operations;
+                redis.watch(redisKeys);
+                List<Object> cached = redis.opsForValue().multiGet(redisKeys);
+                redis.multi();
+                int queued = 0;
+                for (int i = 0; i < keys.size(); i++) {
+                  V value = entries.get(keys.get(i));
+                  if (isNewer(value, cached == null ? null : cached.get(i), version)) {
+                    redis.opsForValue().set(redisKeys.get(i), value, ttl);
+                    queued++;
+                  }
+                }
+                List<Object> results = redis.exec();
+                // An EXEC refused because of WATCH returns no results
+                return queued == 0 || (results != null && !results.isEmpty());
+              }
+            });
+    return Boolean.TRUE.equals(written);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> boolean isNewer(V value, Object cached, ToLongFunction<V> version) {
+    if (cached instanceof Cache.ValueWrapper wrapper) {
+      cached = wrapper.get();
+    }
+    if (cached == null || !value.getClass().isInstance(cached)) {
+      return true;
+    }
+    return version.applyAsLong(value) > version.applyAsLong((V) cached);
+  }
+}
@@ -0,0 +1,144 @@
+package com.digitalwallet.platform.service.cache;
+
+import com.digitalwallet.platform.dto.WalletResponse;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.WalletBalanceStamp;
+import com.digitalwallet.platform.repository.WalletRepository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes wallets into the {@code wallets} cache, keyed by owner, through {@link
+ * VersionedCacheWriter#putIfNewer}.
+ *
+ * <p>Entries are stamped with {@code wallets.version} plus the wallet's ledger leg count. Slot and
+ * deferred credits leave the version alone but still append a leg, so the stamp moves on every
+ * balance change. Transfers write their wallets through after commit instead of evicting them: an
+ * eviction lets a read that started before the commit fill the cache with the old balance.
+ */
+@Component
+@Slf4j
+public class WalletCacheWriter {
+
+  private static final String CACHE = "wallets";
+
+  private final WalletRepository walletRepository;
+  private final VersionedCacheWriter versionedCacheWriter;
+  private final TransactionTemplate readTransaction;
+
+  public WalletCacheWriter(
+      WalletRepository walletRepository,
+      VersionedCacheWriter versionedCacheWriter,
+      PlatformTransactionManager transactionManager) {
+    this.walletRepository = walletRepository;
+    this.versionedCacheWriter = versionedCacheWriter;
+    // After commit the finished transaction's resources are still bound, so read in a new one
+    this.readTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.readTransaction.setReadOnly(true);
+  }
+
+  /**
+   * Snapshot of a wallet for the cache. The entity must have been read before this call, so the
+   * entry never claims a newer stamp than its fields.
+   */
+  public WalletResponse snapshot(Wallet wallet) {
+    List<WalletBalanceStamp> stamps =
+        walletRepository.findBalanceStampsByIdIn(List.of(wallet.getId()));
+    if (stamps.isEmpty()) {
+      throw new RuntimeException("Wallet not found: " + wallet.getId());
+    }
+    return toWalletResponse(wallet, stamps.get(0));
+  }
+
+  /** Caches {@code response} for {@code userId} unless the cache holds a newer one. */
+  public void putIfNewer(Long userId, WalletResponse response) {
+    versionedCacheWriter.putIfNewer(CACHE, Map.of(userId, response), WalletCacheWriter::stamp);
+  }
+
+  /**
+   * Writes the wallets through once the current transaction commits, or right away outside one.
+   * Never throws: the money has already moved.
+   */
+  public void refreshAfterCommit(Collection<Long> walletIds) {
+    Set<Long> ids = new TreeSet<>(walletIds);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              refresh(ids);
+            }
+          });
+    } else {
+      refresh(ids);
+    }
+  }
+
+  /** Reads the wallets in a read-only transaction of their own and writes them through. */
+  public void refresh(Collection<Long> walletIds) {
+    if (walletIds.isEmpty()) {
+      return;
+    }
+    try {
+      Map<Long, WalletResponse> byUserId = readTransaction.execute(status -> load(walletIds));
+      if (byUserId != null) {
+        versionedCacheWriter.putIfNewer(CACHE, byUserId, WalletCacheWriter::stamp);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not refresh {} cached wallets: {}", walletIds.size(), e.getMessage());
+    }
+  }
+
+  private Map<Long, WalletResponse> load(Collection<Long> walletIds) {
+    List<Wallet> wallets = walletRepository.findWithUserByIdIn(walletIds);
+    Map<Long, WalletBalanceStamp> stamps = new HashMap<>();
+    for (WalletBalanceStamp stamp : walletRepository.findBalanceStampsByIdIn(walletIds)) {
+      stamps.put(stamp.getId(), stamp);
+    }
+    Map<Long, WalletResponse> byUserId = new HashMap<>();
+    for (Wallet wallet : wallets) {
+      WalletBalanceStamp stamp = stamps.get(wallet.getId());
+      if (stamp != null) {
+        byUserId.put(wallet.getUser().getId(), toWalletResponse(wallet, stamp));
+      }
+    }
+    return byUserId;
+  }
+
+  private static long stamp(WalletResponse response) {
+    return response.getVersion() != null ? response.getVersion() : 0L;
+  }
+
+  private static WalletResponse toWalletResponse(Wallet wallet, WalletBalanceStamp stamp) {
+    long version = wallet.getVersion() != null ? wallet.getVersion() : 0L;
+    return WalletResponse.builder()
+        .walletId(wallet.getId())
+        .walletNumber(wallet.getWalletNumber())
+        .balance(stamp.getBalance())
+        .currency(wallet.getCurrency())
+        .status(wallet.getStatus())
+        .dailyLimit(wallet.getDailyLimit())
+        .transactionLimit(wallet.getTransactionLimit())
+        .totalDailySpent(
+            wallet.getTotalDailySpent() != null ? wallet.getTotalDailySpent() : BigDecimal.ZERO)
+        .totalMonthlySpent(
+            wallet.getTotalMonthlySpent() != null ? wallet.getTotalMonthlySpent() : BigDecimal.ZERO)
+        .createdAt(wallet.getCreatedAt())
+        .updatedAt(wallet.getUpdatedAt())
+        .version(version + stamp.getLedgerLegs())
+        .build();
+  }
+}
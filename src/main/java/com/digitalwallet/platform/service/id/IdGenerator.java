@@ -0,0 +1,21 @@
+package com.digitalwallet.platform.service.id;
+
+/**
+ * Source of unique identifiers for transactions and wallets.
+ *
+ * <p>Ids from one generator increase over time, so the strings built from them also sort in
+ * creation order and append to the right edge of their unique indexes.
+ */
+public interface IdGenerator {
+
+  long nextId();
+
+  /** Transaction reference, e.g. {@code TX01HV4Q7K2M3NP}. */
+  String nextReferenceId();
+
+  /** Batch payout id, e.g. {@code BT01HV4Q7K2M3NP}. */
+  String nextBatchId();
+
+  /** Wallet number, e.g. {@code WAL01HV4Q7K2M3NP}; fits {@code wallets.wallet_number}. */
+  String nextWalletNumber();
+}
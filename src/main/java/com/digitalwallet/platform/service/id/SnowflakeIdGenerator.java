@@ -0,0 +1,107 @@
+package com.digitalwallet.platform.service.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time-ordered 63-bit ids: 41 bits of milliseconds since 2024-01-01, a 10-bit node number and a
+ * 12-bit sequence within the millisecond.
+ *
+ * <p>The millisecond and sequence live in one {@link AtomicLong}, advanced by a compare-and-set
+ * loop: no lock, no {@code SecureRandom} and no allocation per id. When 4096 ids are taken in one
+ * millisecond, or the clock steps back, the generator simply runs ahead of the clock, so ids never
+ * repeat or go backwards.
+ *
+ * <p>Each instance gets its own block of the id space through its node number. Unless {@code
+ * app.ids.node-id} is set, the number is leased from the {@code id_generator_node_seq} sequence on
+ * startup, so instances never need to be configured one by one.
+ *
+ * <p>Ids are rendered as 13 Crockford base32 characters, fixed width, so string order matches id
+ * order.
+ */
+@Component
+@Slf4j
+public class SnowflakeIdGenerator implements IdGenerator {
+
+  static final long EPOCH_MS = 1704067200000L; // 2024-01-01T00:00:00Z
+  static final int NODE_BITS = 10;
+  static final int SEQUENCE_BITS = 12;
+  static final long MAX_NODE = (1L << NODE_BITS) - 1;
+
+  private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+  private static final int ENCODED_LENGTH = 13;
+
+  private final long nodeBits;
+  private final LongSupplier clock;
+  // (milliseconds since EPOCH_MS << SEQUENCE_BITS) | sequence of the last id handed out
+  private final AtomicLong state = new AtomicLong();
+
+  @Autowired
+  public SnowflakeIdGenerator(
+      JdbcTemplate jdbcTemplate, @Value("${app.ids.node-id:-1}") long configuredNodeId) {
+    this(
+        configuredNodeId >= 0 ? configuredNodeId : leaseNodeId(jdbcTemplate),
+        System::currentTimeMillis);
+  }
+
+  SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+    if (nodeId < 0 || nodeId > MAX_NODE) {
+      throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE);
+    }
+    this.nodeBits = nodeId << SEQUENCE_BITS;
+    this.clock = clock;
+    log.info("Id generator using node {}", nodeId);
+  }
+
+  @Override
+  public long nextId() {
+    long floor = (clock.getAsLong() - EPOCH_MS) << SEQUENCE_BITS;
+    long previous;
+    long next;
+    do {
+      previous = state.get();
+      next = Math.max(previous + 1, floor);
+    } while (!state.compareAndSet(previous, next));
+
+    long millis = next >>> SEQUENCE_BITS;
+    long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+    return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+  }
+
+  @Override
+  public String nextReferenceId() {
+    return encode("TX", nextId());
+  }
+
+  @Override
+  public String nextBatchId() {
+    return encode("BT", nextId());
+  }
+
+  @Override
+  public String nextWalletNumber() {
+    return encode("WAL", nextId());
+  }
+
+  static String encode(String prefix, long id) {
+    char[] chars = new char[prefix.length() + ENCODED_LENGTH];
+    prefix.getChars(0, prefix.length(), chars, 0);
+    long remaining = id;
+    for (int i = chars.length - 1; i >= prefix.length(); i--) {
+      chars[i] = ALPHABET[(int) (remaining & 31)];
+      remaining >>>= 5;
+    }
+    return new String(chars);
+  }
+
+  // Every startup takes the next node number, wrapping after 1024
+  private static long leaseNodeId(JdbcTemplate jdbcTemplate) {
+    Long value = jdbcTemplate.queryForObject("SELECT nextval('id_generator_node_seq')", Long.class);
+    return value % (MAX_NODE + 1);
+  }
+}
@@ -0,0 +1,340 @@
+package com.digitalwallet.platform.service.idempotency;
+
+import com.digitalwallet.platform.model.IdempotencyRecord;
+import com.digitalwallet.platform.model.IdempotencyStatus;
+import com.digitalwallet.platform.repository.IdempotencyRecordRepository;
+import com.digitalwallet.platform.service.OutcomeUnknownException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionSystemException;
+
+/**
+ * Makes money-movement endpoints safe to retry with an {@code Idempotency-Key} header.
+ *
+ * <p>The first request with a key claims it in {@code idempotency_keys} and runs; a successful
+ * (2xx) response is stored there and in a bounded in-process cache. Later requests with the same
+ * key and body get that response back, marked with {@code Idempotent-Replayed: true}, without the
+ * wallets being touched. A request that fails in a way known to have rolled back (a rejection, or a
+ * non-2xx response) releases the key, so the client's retry runs for real.
+ *
+ * <p>A failure after which money may have moved, such as {@link OutcomeUnknownException}, a
+ * failed commit or a lost connection, holds the key instead until it expires: the request and its
+ * retries are answered with 409 and nothing runs again. An unfinished claim is leased for {@code
+ * lease-seconds} only, so a key whose instance died mid-request becomes free well before its
+ * stored response would expire.
+ *
+ * <p>Concurrent duplicates wait for the first execution: on the same instance they wait on its
+ * result directly, on other instances they poll the claim for up to {@code wait-timeout-ms} and
+ * otherwise get 409. Reusing a key with a different body is answered with 422.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+  public static final String HEADER = "Idempotency-Key";
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  private static final int MAX_KEY_LENGTH = 255;
+  private static final long POLL_INTERVAL_MS = 50;
+
+  /** A stored 2xx response, as replayed to duplicates. */
+  private record StoredResponse(
+      String fingerprint, int status, String body, LocalDateTime expiresAt) {}
+
+  private final IdempotencyRecordRepository idempotencyRecordRepository;
+  private final ObjectMapper objectMapper;
+  private final Duration ttl;
+  private final Duration lease;
+  private final long waitTimeoutMs;
+  private final Map<String, StoredResponse> completed;
+  private final Map<String, CompletableFuture<Optional<StoredResponse>>> inFlight =
+      new ConcurrentHashMap<>();
+  private final Counter replayCounter;
+
+  public IdempotencyService(
+      IdempotencyRecordRepository idempotencyRecordRepository,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+      @Value("${app.idempotency.local-cache-size:10000}") int localCacheSize,
+      @Value("${app.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+      @Value("${app.idempotency.lease-seconds:60}") long leaseSeconds) {
+    this.idempotencyRecordRepository = idempotencyRecordRepository;
+    this.objectMapper = objectMapper;
+    this.ttl = Duration.ofHours(ttlHours);
+    this.lease = Duration.ofSeconds(leaseSeconds);
+    this.waitTimeoutMs = waitTimeoutMs;
+    this.completed =
+        Collections.synchronizedMap(
+            new LinkedHashMap<String, StoredResponse>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > localCacheSize;
+              }
+            });
+    this.replayCounter =
+        Counter.builder("wallet.idempotency.replays")
+            .description("Requests answered from a stored Idempotency-Key response")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Runs {@code action} at most once per user and key. Without a key the action simply runs.
+   *
+   * @param operation names the endpoint, so one key cannot be replayed against another endpoint
+   */
+  public ResponseEntity<?> execute(
+      Long userId,
+      String key,
+      String operation,
+      Object request,
+      Supplier<ResponseEntity<?>> action) {
+    if (key == null || key.isBlank()) {
+      return action.get();
+    }
+    if (key.length() > MAX_KEY_LENGTH) {
+      return error(HttpStatus.BAD_REQUEST, HEADER + " must be at most 255 characters");
+    }
+    String fingerprint = fingerprint(operation, request);
+    String scopedKey = userId + ":" + key;
+
+    while (true) {
+      StoredResponse stored = completed.get(scopedKey);
+      if (stored != null && stored.expiresAt().isAfter(LocalDateTime.now())) {
+        return replay(stored, fingerprint);
+      }
+
+      CompletableFuture<Optional<StoredResponse>> mine = new CompletableFuture<>();
+      CompletableFuture<Optional<StoredResponse>> first = inFlight.putIfAbsent(scopedKey, mine);
+      if (first != null) {
+        // Same key already running on this instance: wait for it, then start over
+        Optional<StoredResponse> result = await(first);
+        if (result == null) {
+          return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is in progress");
+        }
+        if (result.isPresent()) {
+          return replay(result.get(), fingerprint);
+        }
+        continue;
+      }
+
+      try {
+        return executeClaimed(userId, key, scopedKey, fingerprint, action, mine);
+      } finally {
+        mine.complete(Optional.empty());
+        inFlight.remove(scopedKey, mine);
+      }
+    }
+  }
+
+  private ResponseEntity<?> executeClaimed(
+      Long userId,
+      String key,
+      String scopedKey,
+      String fingerprint,
+      Supplier<ResponseEntity<?>> action,
+      CompletableFuture<Optional<StoredResponse>> mine) {
+    long deadline = System.currentTimeMillis() + waitTimeoutMs;
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime expiresAt = now.plus(ttl);
+    LocalDateTime leaseUntil = now.plus(lease);
+
+    while (idempotencyRecordRepository.claim(userId, key, fingerprint, expiresAt, leaseUntil)
+        == 0) {
+      // Claimed elsewhere: replay it once it completes, or run it ourselves if it was released
+      Optional<IdempotencyRecord> existing =
+          idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, key);
+      if (existing.isPresent() && existing.get().getStatus() == IdempotencyStatus.COMPLETED) {
+        StoredResponse stored = remember(scopedKey, existing.get());
+        mine.complete(Optional.of(stored));
+        return replay(stored, fingerprint);
+      }
+      if (existing.isPresent() && !existing.get().getFingerprint().equals(fingerprint)) {
+        return mismatch();
+      }
+      if (existing.isPresent() && isHeld(existing.get())) {
+        return unknownOutcome();
+      }
+      if (System.currentTimeMillis() >= deadline) {
+        return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is in progress");
+      }
+      sleep();
+    }
+
+    ResponseEntity<?> response;
+    try {
+      response = action.get();
+    } catch (RuntimeException e) {
+      if (!rolledBack(e)) {
+        log.warn("Holding {} {} of user {}: {}", HEADER, key, userId, e.getMessage());
+        idempotencyRecordRepository.hold(userId, key);
+        return error(HttpStatus.CONFLICT, e.getMessage());
+      }
+      idempotencyRecordRepository.release(userId, key);
+      throw e;
+    }
+    if (!response.getStatusCode().is2xxSuccessful()) {
+      idempotencyRecordRepository.release(userId, key);
+      return response;
+    }
+
+    StoredResponse stored;
+    try {
+      String body = serialize(response.getBody());
+      int status = response.getStatusCode().value();
+      idempotencyRecordRepository.complete(userId, key, status, body);
+      stored = new StoredResponse(fingerprint, status, body, expiresAt);
+    } catch (RuntimeException e) {
+      // The action succeeded but its response was not stored; a retry must not run it again
+      log.warn("Holding {} {} of user {}: {}", HEADER, key, userId, e.getMessage());
+      holdQuietly(userId, key);
+      mine.complete(Optional.empty());
+      return unknownOutcome();
+    }
+    completed.put(scopedKey, stored);
+    mine.complete(Optional.of(stored));
+    return response;
+  }
+
+  // Best effort: if even this fails, the claim's lease still keeps retries out for a while
+  private void holdQuietly(Long userId, String key) {
+    try {
+      idempotencyRecordRepository.hold(userId, key);
+    } catch (RuntimeException e) {
+      log.error("Could not hold {} {} of user {}: {}", HEADER, key, userId, e.getMessage());
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+  public void deleteExpired() {
+    int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+    if (deleted > 0) {
+      log.info("Deleted {} expired idempotency keys", deleted);
+    }
+  }
+
+  private StoredResponse remember(String scopedKey, IdempotencyRecord record) {
+    StoredResponse stored =
+        new StoredResponse(
+            record.getFingerprint(),
+            record.getResponseStatus(),
+            record.getResponseBody(),
+            record.getExpiresAt());
+    completed.put(scopedKey, stored);
+    return stored;
+  }
+
+  private ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+    if (!stored.fingerprint().equals(fingerprint)) {
+      return mismatch();
+    }
+    replayCounter.increment();
+    return ResponseEntity.status(stored.status())
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(REPLAYED_HEADER, "true")
+        .body(stored.body());
+  }
+
+  // Failures that may have left money moved: the commit itself failed or its result never came
+  // back, or the action said so. Anything else escaped its transaction, which rolled back
+  private static boolean rolledBack(RuntimeException e) {
+    return !(e instanceof OutcomeUnknownException
+        || e instanceof TransactionSystemException
+        || e instanceof DataAccessResourceFailureException);
+  }
+
+  // A held claim's lease was stretched to the key's expiry
+  private static boolean isHeld(IdempotencyRecord record) {
+    return record.getStatus() == IdempotencyStatus.IN_PROGRESS
+        && !record.getLeaseUntil().isBefore(record.getExpiresAt());
+  }
+
+  private ResponseEntity<?> unknownOutcome() {
+    return error(
+        HttpStatus.CONFLICT,
+        "The outcome of the earlier request with this "
+            + HEADER
+            + " is unknown; check your transactions before retrying with a new key");
+  }
+
+  private ResponseEntity<?> mismatch() {
+    return error(
+        HttpStatus.UNPROCESSABLE_ENTITY,
+        HEADER + " was already used with a different request");
+  }
+
+  private ResponseEntity<?> error(HttpStatus status, String message) {
+    return ResponseEntity.status(status)
+        .body(Map.of("error", message, "timestamp", LocalDateTime.now()));
+  }
+
+  // Null when the first execution did not finish within the wait timeout
+  private Optional<StoredResponse> await(CompletableFuture<Optional<StoredResponse>> first) {
+    try {
+      return first.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      return Optional.empty();
+    }
+  }
+
+  private void sleep() {
+    try {
+      Thread.sleep(POLL_INTERVAL_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for " + HEADER, e);
+    }
+  }
+
+  // Package-private for tests
+  String fingerprint(String operation, Object request) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(operation.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(serialize(request).getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private String serialize(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Could not serialize idempotent response", e);
+    }
+  }
+}
@@ -0,0 +1,420 @@
+package com.digitalwallet.platform.service.ledger;
+
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.TransactionType;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.WalletBalanceSlotRepository;
+import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.OutcomeUnknownException;
+import com.digitalwallet.platform.service.cache.WalletCacheWriter;
+import com.digitalwallet.platform.service.ledger.LedgerJournal.Entry;
+import com.digitalwallet.platform.service.ledger.LedgerJournal.Movement;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult.Rejection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Optional in-memory execution engine for WalletService deposits, withdrawals and transfers.
+ *
+ * <p>Wallet balances, limits and daily spend are held in memory, split over {@code partitions}
+ * shards by wallet id. Each shard has a single writer thread, so a debit is validated and applied
+ * in microseconds without any database row lock on the request path. Results are then written by
+ * the batched {@link LedgerJournal}; a call returns only once its entry is committed, and an entry
+ * that cannot be written is undone in memory and reported as failed.
+ *
+ * <p>A transfer between shards is two steps: debit on the sender's shard, then credit on the
+ * receiver's. If the credit cannot be queued the debit is reversed on the sender's shard.
+ *
+ * <p>State is rebuilt from Postgres on startup, and wallets created later are loaded on first use.
+ * The engine assumes it is the only writer of balances for the wallets it serves, so run a single
+ * instance per database. While it is enabled, TransactionService and batch transfers are refused
+ * and queued transfers are never applied; startup fails if any are still unfinished, so drain the
+ * queue with the engine off first.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.ledger.engine.enabled", havingValue = "true")
+public class LedgerEngine {
+
+  private static final int LOAD_PAGE_SIZE = 1000;
+
+  private final WalletRepository walletRepository;
+  private final TransactionRepository transactionRepository;
+  private final WalletCacheWriter walletCacheWriter;
+  private final LedgerPartition[] partitions;
+  private final LedgerJournal journal;
+  private final long journalTimeoutMs;
+  private final Timer commandTimer;
+  private final Map<Long, Long> walletIdByUserId = new ConcurrentHashMap<>();
+  private final Map<String, Long> walletIdByNumber = new ConcurrentHashMap<>();
+
+  public LedgerEngine(
+      WalletRepository walletRepository,
+      TransactionRepository transactionRepository,
+      WalletBalanceSlotRepository walletBalanceSlotRepository,
+      LedgerEntryWriter ledgerEntryWriter,
+      PlatformTransactionManager transactionManager,
+      WalletCacheWriter walletCacheWriter,
+      MeterRegistry meterRegistry,
+      @Value("${app.ledger.engine.partitions:8}") int partitionCount,
+      @Value("${app.ledger.engine.ring-capacity:4096}") int ringCapacity,
+      @Value("${app.ledger.engine.journal-batch-size:256}") int journalBatchSize,
+      @Value("${app.ledger.engine.journal-timeout-ms:5000}") long journalTimeoutMs) {
+    this.walletRepository = walletRepository;
+    this.transactionRepository = transactionRepository;
+    this.walletCacheWriter = walletCacheWriter;
+    this.journalTimeoutMs = journalTimeoutMs;
+    this.partitions = new LedgerPartition[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      LedgerPartition partition = new LedgerPartition(i, ringCapacity);
+      partitions[i] = partition;
+      meterRegistry.gauge(
+          "ledger.engine.partition.depth",
+          List.of(Tag.of("partition", String.valueOf(i))),
+          partition,
+          LedgerPartition::depth);
+    }
+    this.journal =
+        new LedgerJournal(
+            new TransactionTemplate(transactionManager),
+            transactionRepository,
+            walletRepository,
+            walletBalanceSlotRepository,
+            ledgerEntryWriter,
+            this::undoEntry,
+            journalBatchSize);
+    meterRegistry.gauge("ledger.engine.journal.depth", journal, LedgerJournal::depth);
+    this.commandTimer =
+        Timer.builder("ledger.engine.command")
+            .description("Time from accepting a ledger command to its journal commit")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    // Queued transfers would move balances with SQL behind the engine's back
+    long unfinished =
+        transactionRepository.countByStatusIn(
+            List.of(TransactionStatus.PENDING, TransactionStatus.PROCESSING));
+    if (unfinished > 0) {
+      throw new IllegalStateException(
+          unfinished
+              + " queued transfers are unfinished; let the consumers apply them with"
+              + " app.ledger.engine.enabled=false before enabling the ledger engine");
+    }
+
+    long loaded = 0;
+    Page<Wallet> page;
+    int pageNumber = 0;
+    do {
+      page = walletRepository.findAll(PageRequest.of(pageNumber++, LOAD_PAGE_SIZE, Sort.by("id")));
+      for (Wallet wallet : page) {
+        LedgerWallet state = load(wallet);
+        partitionOf(state.getId()).preload(state);
+        index(state);
+        loaded++;
+      }
+    } while (page.hasNext());
+
+    for (LedgerPartition partition : partitions) {
+      partition.start();
+    }
+    journal.start();
+    log.info("Ledger engine started: {} wallets over {} partitions", loaded, partitions.length);
+  }
+
+  @PreDestroy
+  void stop() {
+    for (LedgerPartition partition : partitions) {
+      partition.stop();
+    }
+    journal.stop();
+  }
+
+  public LedgerReceipt deposit(
+      Long userId, BigDecimal amount, String currency, String referenceId) {
+    Long walletId = walletIdForUser(userId);
+    LedgerWallet wallet =
+        await(
+            partitionOf(walletId)
+                .submit(
+                    wallets -> {
+                      LedgerWallet state = wallets.get(walletId);
+                      if (state.getStatus() != WalletStatus.ACTIVE) {
+                        throw rejection(Rejection.WALLET_INACTIVE, state, amount);
+                      }
+                      state.apply(amount, BigDecimal.ZERO);
+                      return state;
+                    }));
+
+    Transaction transaction =
+        completed(referenceId, amount, currency, TransactionType.DEPOSIT, "Wallet deposit");
+    journalAndWait(
+        new Entry(
+            transaction,
+            null,
+            walletId,
+            List.of(new Movement(walletId, wallet.getUserId(), amount, BigDecimal.ZERO))));
+    return new LedgerReceipt(transaction, "SYSTEM", wallet.getWalletNumber());
+  }
+
+  public LedgerReceipt withdraw(
+      Long userId, BigDecimal amount, String currency, String referenceId) {
+    Long walletId = walletIdForUser(userId);
+    LedgerWallet wallet =
+        await(partitionOf(walletId).submit(wallets -> debit(wallets, walletId, amount)));
+
+    Transaction transaction =
+        completed(referenceId, amount, currency, TransactionType.WITHDRAWAL, "Wallet withdrawal");
+    journalAndWait(
+        new Entry(
+            transaction,
+            walletId,
+            null,
+            List.of(new Movement(walletId, wallet.getUserId(), amount.negate(), amount))));
+    return new LedgerReceipt(transaction, wallet.getWalletNumber(), "SYSTEM");
+  }
+
+  public LedgerReceipt transfer(
+      Long senderUserId,
+      String receiverWalletNumber,
+      BigDecimal amount,
+      String currency,
+      String description,
+      String referenceId) {
+    Long senderId = walletIdForUser(senderUserId);
+    Long receiverId = walletIdForNumber(receiverWalletNumber);
+    if (senderId.equals(receiverId)) {
+      throw new RuntimeException("Cannot transfer to your own wallet");
+    }
+
+    // Step 1: debit on the sender's partition
+    LedgerWallet sender =
+        await(partitionOf(senderId).submit(wallets -> debit(wallets, senderId, amount)));
+    Movement debit = new Movement(senderId, sender.getUserId(), amount.negate(), amount);
+
+    // Step 2: credit on the receiver's partition; transfers never checked the receiver's status
+    LedgerWallet receiver;
+    try {
+      receiver =
+          await(
+              partitionOf(receiverId)
+                  .submit(
+                      wallets -> {
+                        LedgerWallet state = wallets.get(receiverId);
+                        state.apply(amount, BigDecimal.ZERO);
+                        return state;
+                      }));
+    } catch (RuntimeException e) {
+      undo(debit);
+      throw e;
+    }
+
+    Transaction transaction =
+        completed(referenceId, amount, currency, TransactionType.TRANSFER, description);
+    journalAndWait(
+        new Entry(
+            transaction,
+            senderId,
+            receiverId,
+            List.of(
+                debit,
+                new Movement(receiverId, receiver.getUserId(), amount, BigDecimal.ZERO))));
+    return new LedgerReceipt(transaction, sender.getWalletNumber(), receiverWalletNumber);
+  }
+
+  /** Picks up limits and status that were just changed on the wallet entity. */
+  public void refreshLimits(Wallet wallet) {
+    update(wallet, state -> state.refreshLimits(wallet));
+  }
+
+  /** Zeroes the in-memory daily spend after it was reset on the wallet entity. */
+  public void resetDailySpent(Wallet wallet) {
+    update(wallet, LedgerWallet::resetDailySpent);
+  }
+
+  private void update(Wallet wallet, Consumer<LedgerWallet> change) {
+    Long walletId = wallet.getId();
+    if (!walletIdByNumber.containsKey(wallet.getWalletNumber())) {
+      return;
+    }
+    await(
+        partitionOf(walletId)
+            .submitBlocking(
+                wallets -> {
+                  change.accept(wallets.get(walletId));
+                  return walletId;
+                }));
+  }
+
+  private LedgerWallet debit(Map<Long, LedgerWallet> wallets, Long walletId, BigDecimal amount) {
+    LedgerWallet state = wallets.get(walletId);
+    Rejection rejection = state.debitRejection(amount);
+    if (rejection != null) {
+      throw rejection(rejection, state, amount);
+    }
+    state.apply(amount.negate(), amount);
+    return state;
+  }
+
+  private RuntimeException rejection(Rejection rejection, LedgerWallet state, BigDecimal amount) {
+    return new RuntimeException(
+        WalletUpdateResult.rejected(rejection, state.snapshot(), amount).getRejectionMessage());
+  }
+
+  private Transaction completed(
+      String referenceId,
+      BigDecimal amount,
+      String currency,
+      TransactionType type,
+      String description) {
+    return Transaction.builder()
+        .referenceId(referenceId)
+        .amount(amount)
+        .currency(currency)
+        .type(type)
+        .status(TransactionStatus.COMPLETED)
+        .description(description)
+        .createdAt(LocalDateTime.now())
+        .completedAt(LocalDateTime.now())
+        .build();
+  }
+
+  private void journalAndWait(Entry entry) {
+    long start = System.nanoTime();
+    try {
+      journal.append(entry).get(journalTimeoutMs, TimeUnit.MILLISECONDS);
+      // Written through rather than evicted, so a read that started earlier cannot refill the cache
+      // with the balances from before the entry
+      walletCacheWriter.refresh(
+          entry.getMovements().stream().map(Movement::getWalletId).collect(Collectors.toSet()));
+    } catch (TimeoutException e) {
+      // The entry stays queued and may still be journaled
+      throw new OutcomeUnknownException(
+          "Transaction "
+              + entry.getTransaction().getReferenceId()
+              + " is still being recorded, check its status before retrying");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OutcomeUnknownException(
+          "Interrupted while recording transaction "
+              + entry.getTransaction().getReferenceId()
+              + ", check its status before retrying");
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to record transaction: " + e.getCause().getMessage());
+    } finally {
+      commandTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  // Journal failures: put every wallet of the entry back as it was
+  private void undoEntry(Entry entry) {
+    entry.getMovements().forEach(this::undo);
+  }
+
+  private void undo(Movement movement) {
+    Movement reversed = movement.reversed();
+    partitionOf(movement.getWalletId())
+        .submitBlocking(
+            wallets -> {
+              wallets
+                  .get(reversed.getWalletId())
+                  .apply(reversed.getBalanceDelta(), reversed.getSpentDelta());
+              return reversed;
+            });
+  }
+
+  private Long walletIdForUser(Long userId) {
+    Long walletId = walletIdByUserId.get(userId);
+    if (walletId != null) {
+      return walletId;
+    }
+    Wallet wallet =
+        walletRepository
+            .findByUserId(userId)
+            .orElseThrow(() -> new RuntimeException("Wallet not found for user ID: " + userId));
+    return loadLate(wallet);
+  }
+
+  private Long walletIdForNumber(String walletNumber) {
+    Long walletId = walletIdByNumber.get(walletNumber);
+    if (walletId != null) {
+      return walletId;
+    }
+    Wallet wallet =
+        walletRepository
+            .findByWalletNumber(walletNumber)
+            .orElseThrow(() -> new RuntimeException("Receiver wallet not found"));
+    return loadLate(wallet);
+  }
+
+  // Wallets created after startup join their partition on first use. The index is only updated
+  // once the wallet is in its partition, so no command can reach the partition ahead of it.
+  private Long loadLate(Wallet wallet) {
+    LedgerWallet state = load(wallet);
+    await(
+        partitionOf(state.getId())
+            .submitBlocking(wallets -> wallets.putIfAbsent(state.getId(), state)));
+    index(state);
+    return state.getId();
+  }
+
+  private LedgerWallet load(Wallet wallet) {
+    BigDecimal balance =
+        wallet.hasBalanceSlots()
+            ? walletRepository.findTotalBalanceById(wallet.getId())
+            : wallet.getBalance();
+    return new LedgerWallet(wallet, balance);
+  }
+
+  private void index(LedgerWallet state) {
+    if (state.getUserId() != null) {
+      walletIdByUserId.put(state.getUserId(), state.getId());
+    }
+    walletIdByNumber.put(state.getWalletNumber(), state.getId());
+  }
+
+  private LedgerPartition partitionOf(Long walletId) {
+    return partitions[Math.floorMod(Long.hashCode(walletId), partitions.length)];
+  }
+
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.digitalwallet.platform.service.ledger;
+
+import com.digitalwallet.platform.model.LedgerAccount;
+import com.digitalwallet.platform.model.LedgerDirection;
+import com.digitalwallet.platform.model.LedgerEntry;
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.LedgerEntryRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appends the two legs of a completed transaction to {@code ledger_entries}.
+ *
+ * <p>The DEBIT leg comes off the sender wallet (or the EXTERNAL account for deposits) and the
+ * CREDIT leg goes to the receiver wallet (or EXTERNAL for withdrawals). A leg that has already been
+ * applied to {@code wallets.balance} is stamped as materialized; a deferred credit leg is left in
+ * the tail for {@link LedgerMaterializer}. Must run in the transaction that moved the money.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerEntryWriter {
+
+  private final LedgerEntryRepository ledgerEntryRepository;
+
+  public List<LedgerEntry> record(Transaction transaction, boolean creditDeferred) {
+    LocalDateTime now = LocalDateTime.now();
+    LedgerEntry debit = leg(transaction, transaction.getFromWallet(), LedgerDirection.DEBIT, now);
+    LedgerEntry credit = leg(transaction, transaction.getToWallet(), LedgerDirection.CREDIT, now);
+    if (creditDeferred) {
+      credit.setMaterializedAt(null);
+    }
+    return ledgerEntryRepository.saveAll(List.of(debit, credit));
+  }
+
+  private LedgerEntry leg(
+      Transaction transaction, Wallet wallet, LedgerDirection direction, LocalDateTime now) {
+    return LedgerEntry.builder()
+        .transaction(transaction)
+        .walletId(wallet != null ? wallet.getId() : null)
+        .account(wallet != null ? LedgerAccount.WALLET : LedgerAccount.EXTERNAL)
+        .direction(direction)
+        .amount(transaction.getAmount())
+        .createdAt(now)
+        .materializedAt(now)
+        .build();
+  }
+}
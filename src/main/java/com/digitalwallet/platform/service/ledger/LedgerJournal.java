@@ -0,0 +1,182 @@
+package com.digitalwallet.platform.service.ledger;
+
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.WalletBalanceSlotRepository;
+import com.digitalwallet.platform.repository.WalletRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes ledger results to {@code transactions}, {@code ledger_entries} and {@code wallets} in
+ * batches, on its own thread.
+ *
+ * <p>Each batch is one database transaction: every journal entry's {@link Transaction} row and its
+ * two ledger legs are inserted and the balance changes are summed per wallet, so a wallet touched
+ * by a hundred entries in a batch gets one {@code UPDATE}. Wallet rows are updated in id order. If
+ * a batch fails, its entries are retried one at a time and any entry that still fails is handed
+ * back to the engine to be undone in memory.
+ */
+@Slf4j
+final class LedgerJournal implements Runnable {
+
+  /** A change to one wallet: the balance delta and what it adds to the spent counters. */
+  @Getter
+  @RequiredArgsConstructor
+  static final class Movement {
+    private final Long walletId;
+    private final Long userId;
+    private final BigDecimal balanceDelta;
+    private final BigDecimal spentDelta;
+
+    Movement reversed() {
+      return new Movement(walletId, userId, balanceDelta.negate(), spentDelta.negate());
+    }
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  static final class Entry {
+    private final Transaction transaction;
+    private final Long fromWalletId;
+    private final Long toWalletId;
+    private final List<Movement> movements;
+    private final CompletableFuture<Transaction> written = new CompletableFuture<>();
+  }
+
+  private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionRepository transactionRepository;
+  private final WalletRepository walletRepository;
+  private final WalletBalanceSlotRepository walletBalanceSlotRepository;
+  private final LedgerEntryWriter ledgerEntryWriter;
+  private final Consumer<Entry> onWriteFailure;
+  private final int batchSize;
+  private final Thread writer;
+  private volatile boolean running = true;
+
+  LedgerJournal(
+      TransactionTemplate transactionTemplate,
+      TransactionRepository transactionRepository,
+      WalletRepository walletRepository,
+      WalletBalanceSlotRepository walletBalanceSlotRepository,
+      LedgerEntryWriter ledgerEntryWriter,
+      Consumer<Entry> onWriteFailure,
+      int batchSize) {
+    this.transactionTemplate = transactionTemplate;
+    this.transactionRepository = transactionRepository;
+    this.walletRepository = walletRepository;
+    this.walletBalanceSlotRepository = walletBalanceSlotRepository;
+    this.ledgerEntryWriter = ledgerEntryWriter;
+    this.onWriteFailure = onWriteFailure;
+    this.batchSize = batchSize;
+    this.writer = new Thread(this, "ledger-journal");
+    this.writer.setDaemon(true);
+  }
+
+  void start() {
+    writer.start();
+  }
+
+  // Entries already queued are still written before the thread exits
+  void stop() {
+    running = false;
+    writer.interrupt();
+  }
+
+  int depth() {
+    return queue.size();
+  }
+
+  CompletableFuture<Transaction> append(Entry entry) {
+    queue.add(entry);
+    return entry.getWritten();
+  }
+
+  @Override
+  public void run() {
+    List<Entry> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        if (!running) {
+          queue.drainTo(batch);
+        }
+      }
+      queue.drainTo(batch, batchSize - batch.size());
+      if (!batch.isEmpty()) {
+        flush(batch);
+      }
+      batch.clear();
+    }
+    log.info("Ledger journal stopped");
+  }
+
+  private void flush(List<Entry> batch) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> write(batch));
+      batch.forEach(entry -> entry.getWritten().complete(entry.getTransaction()));
+    } catch (RuntimeException e) {
+      if (batch.size() > 1) {
+        log.warn("Ledger journal batch of {} failed, retrying one by one", batch.size(), e);
+        batch.forEach(entry -> flush(List.of(entry)));
+        return;
+      }
+      Entry entry = batch.get(0);
+      log.error("Ledger journal could not write {}", entry.getTransaction().getReferenceId(), e);
+      onWriteFailure.accept(entry);
+      entry.getWritten().completeExceptionally(e);
+    }
+  }
+
+  private void write(List<Entry> batch) {
+    Map<Long, BigDecimal[]> deltas = new TreeMap<>();
+    for (Entry entry : batch) {
+      Transaction transaction = entry.getTransaction();
+      // A rolled back attempt may have left a generated id behind
+      transaction.setId(null);
+      transaction.setFromWallet(reference(entry.getFromWalletId()));
+      transaction.setToWallet(reference(entry.getToWalletId()));
+      transactionRepository.save(transaction);
+      // The wallet deltas below are applied in this same transaction, so both legs are materialized
+      ledgerEntryWriter.record(transaction, false);
+
+      for (Movement movement : entry.getMovements()) {
+        BigDecimal[] delta =
+            deltas.computeIfAbsent(
+                movement.getWalletId(), id -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+        delta[0] = delta[0].add(movement.getBalanceDelta());
+        delta[1] = delta[1].add(movement.getSpentDelta());
+      }
+    }
+
+    deltas.forEach(
+        (walletId, delta) -> {
+          if (walletRepository.applyLedgerDelta(walletId, delta[0], delta[1]) == 1) {
+            return;
+          }
+          // The row alone cannot absorb a net debit: fold in any balance slots and try again
+          walletBalanceSlotRepository.consolidateIntoWallet(walletId);
+          if (walletRepository.applyLedgerDelta(walletId, delta[0], delta[1]) != 1) {
+            throw new IllegalStateException("Ledger out of sync with wallet " + walletId);
+          }
+        });
+  }
+
+  private Wallet reference(Long walletId) {
+    return walletId != null ? walletRepository.getReferenceById(walletId) : null;
+  }
+}
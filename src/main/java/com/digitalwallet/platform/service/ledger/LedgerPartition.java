@@ -0,0 +1,108 @@
+package com.digitalwallet.platform.service.ledger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One shard of the ledger: a map of wallets plus the only thread allowed to touch it.
+ *
+ * <p>Commands are queued in a bounded array-backed ring and run one after another on the writer
+ * thread, so validation and balance changes need no locks at all. A full ring rejects new work
+ * instead of letting latency grow without bound.
+ */
+@Slf4j
+final class LedgerPartition implements Runnable {
+
+  private static final int MAX_DRAIN = 256;
+
+  private final int index;
+  private final BlockingQueue<Runnable> ring;
+  private final Map<Long, LedgerWallet> wallets = new HashMap<>();
+  private final Thread writer;
+  private volatile boolean running = true;
+
+  LedgerPartition(int index, int capacity) {
+    this.index = index;
+    this.ring = new ArrayBlockingQueue<>(capacity);
+    this.writer = new Thread(this, "ledger-partition-" + index);
+    this.writer.setDaemon(true);
+  }
+
+  // Only called while loading, before start(); Thread.start() publishes the map to the writer
+  void preload(LedgerWallet wallet) {
+    wallets.put(wallet.getId(), wallet);
+  }
+
+  void start() {
+    writer.start();
+  }
+
+  void stop() {
+    running = false;
+    writer.interrupt();
+  }
+
+  int depth() {
+    return ring.size();
+  }
+
+  /** Runs {@code command} on the writer thread; fails fast when the ring is full. */
+  <T> CompletableFuture<T> submit(Function<Map<Long, LedgerWallet>, T> command) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    if (!ring.offer(task(command, result))) {
+      result.completeExceptionally(
+          new RuntimeException("Ledger partition " + index + " is saturated, please retry"));
+    }
+    return result;
+  }
+
+  /** Like {@link #submit} but waits for room; used for compensations that must not be lost. */
+  <T> CompletableFuture<T> submitBlocking(Function<Map<Long, LedgerWallet>, T> command) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    try {
+      ring.put(task(command, result));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  private <T> Runnable task(
+      Function<Map<Long, LedgerWallet>, T> command, CompletableFuture<T> result) {
+    return () -> {
+      try {
+        result.complete(command.apply(wallets));
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    };
+  }
+
+  @Override
+  public void run() {
+    List<Runnable> batch = new ArrayList<>(MAX_DRAIN);
+    while (running || !ring.isEmpty()) {
+      try {
+        batch.add(ring.take());
+      } catch (InterruptedException e) {
+        if (!running) {
+          ring.drainTo(batch);
+        }
+      }
+      ring.drainTo(batch, MAX_DRAIN);
+      for (Runnable task : batch) {
+        task.run();
+      }
+      batch.clear();
+    }
+    log.info("Ledger partition {} stopped", index);
+  }
+}
@@ -0,0 +1,17 @@
+package com.digitalwallet.platform.service.ledger;
+
+import com.digitalwallet.platform.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** A money movement executed by the {@link LedgerEngine} and written to the database. */
+@Getter
+@AllArgsConstructor
+public class LedgerReceipt {
+
+  private final Transaction transaction;
+
+  // "SYSTEM" for the side of a deposit or withdrawal that has no wallet
+  private final String senderWalletNumber;
+  private final String receiverWalletNumber;
+}
@@ -0,0 +1,81 @@
+package com.digitalwallet.platform.service.ledger;
+
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult.Rejection;
+import java.math.BigDecimal;
+import lombok.Getter;
+
+/**
+ * In-memory copy of one wallet's money state. Owned by exactly one {@link LedgerPartition} writer
+ * thread, so it is deliberately not thread-safe.
+ */
+@Getter
+final class LedgerWallet {
+
+  private final Long id;
+  private final Long userId;
+  private final String walletNumber;
+  private WalletStatus status;
+  private BigDecimal balance;
+  private BigDecimal dailyLimit;
+  private BigDecimal transactionLimit;
+  private BigDecimal dailySpent;
+
+  LedgerWallet(Wallet wallet, BigDecimal totalBalance) {
+    this.id = wallet.getId();
+    this.userId = wallet.getUser() != null ? wallet.getUser().getId() : null;
+    this.walletNumber = wallet.getWalletNumber();
+    this.balance = totalBalance;
+    this.dailySpent =
+        wallet.getTotalDailySpent() != null ? wallet.getTotalDailySpent() : BigDecimal.ZERO;
+    refreshLimits(wallet);
+  }
+
+  // Same rules, same order as WalletRepository.CONDITIONAL_DEBIT; null means the debit is allowed
+  Rejection debitRejection(BigDecimal amount) {
+    if (status != WalletStatus.ACTIVE) {
+      return Rejection.WALLET_INACTIVE;
+    }
+    if (balance.compareTo(amount) < 0) {
+      return Rejection.INSUFFICIENT_BALANCE;
+    }
+    if (transactionLimit != null && amount.compareTo(transactionLimit) > 0) {
+      return Rejection.TRANSACTION_LIMIT_EXCEEDED;
+    }
+    if (dailyLimit != null && dailySpent.add(amount).compareTo(dailyLimit) > 0) {
+      return Rejection.DAILY_LIMIT_EXCEEDED;
+    }
+    return null;
+  }
+
+  void apply(BigDecimal balanceDelta, BigDecimal spentDelta) {
+    balance = balance.add(balanceDelta);
+    dailySpent = dailySpent.add(spentDelta);
+  }
+
+  // Limits and status are edited outside the engine. The spent counter is not taken from the
+  // entity: its database value lags the journal, so only an explicit reset replaces it.
+  void refreshLimits(Wallet wallet) {
+    this.status = wallet.getStatus();
+    this.dailyLimit = wallet.getDailyLimit();
+    this.transactionLimit = wallet.getTransactionLimit();
+  }
+
+  void resetDailySpent() {
+    this.dailySpent = BigDecimal.ZERO;
+  }
+
+  // Detached view used to build the same rejection messages as the database path
+  Wallet snapshot() {
+    return Wallet.builder()
+        .id(id)
+        .walletNumber(walletNumber)
+        .status(status)
+        .balance(balance)
+        .dailyLimit(dailyLimit)
+        .transactionLimit(transactionLimit)
+        .totalDailySpent(dailySpent)
+        .build();
+  }
+}
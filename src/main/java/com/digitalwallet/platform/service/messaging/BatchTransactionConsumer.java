@@ -0,0 +1,194 @@
+package com.digitalwallet.platform.service.messaging;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.service.WalletService;
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies queued transfers a batch of messages at a time.
+ *
+ * <p>Enabled with {@code app.messaging.consumer.batch.enabled=true} in place of {@link
+ * TransactionConsumer}. Each poll delivers up to {@code app.messaging.consumer.batch.size}
+ * events. They are split by {@link PartitionedDispatcher} lane, so one sender's events are never
+ * applied by two threads at once, and each lane's part is applied by {@link
+ * WalletService#executeAsyncTransfers} in one database transaction, with two IN queries for all its
+ * transactions and wallets. The parts run in parallel within the {@link
+ * ConsumerConcurrencyGovernor} limit: the listener thread takes a slot for each part before
+ * handing it to its lane, and the lane releases it when the part is done. Each part claims its
+ * transfers with {@link WalletService#claimAsyncTransfers}, so redelivered events whose transfer
+ * is claimed or done are acknowledged without being applied. After commit the changed wallets are
+ * written to the cache with {@link WalletService#refreshCachedWallets} and receipts are handed to
+ * {@link TransactionReceiptSender}.
+ *
+ * <p>Messages are acknowledged individually. If the batch transaction fails, its events are
+ * retried one per transaction: those that commit are acknowledged, and only the ones that still
+ * fail are left for SQS to redeliver.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "app.messaging.consumer.batch.enabled", havingValue = "true")
+public class BatchTransactionConsumer {
+
+  private final WalletService walletService;
+  private final TransactionReceiptSender transactionReceiptSender;
+  private final PartitionedDispatcher partitionedDispatcher;
+  private final ConsumerConcurrencyGovernor concurrencyGovernor;
+  private final DistributionSummary batchSizes;
+  private final Counter fallbackCounter;
+  private final Timer transactionHold;
+
+  public BatchTransactionConsumer(
+      WalletService walletService,
+      TransactionReceiptSender transactionReceiptSender,
+      PartitionedDispatcher partitionedDispatcher,
+      ConsumerConcurrencyGovernor concurrencyGovernor,
+      MeterRegistry meterRegistry) {
+    this.walletService = walletService;
+    this.transactionReceiptSender = transactionReceiptSender;
+    this.partitionedDispatcher = partitionedDispatcher;
+    this.concurrencyGovernor = concurrencyGovernor;
+    this.batchSizes =
+        DistributionSummary.builder("wallet.consumer.batch.size")
+            .description("Transaction events applied per consumer batch")
+            .register(meterRegistry);
+    this.fallbackCounter =
+        Counter.builder("wallet.consumer.batch.fallbacks")
+            .description("Consumer batches retried one event at a time after a failure")
+            .register(meterRegistry);
+    this.transactionHold = TransactionConsumer.transactionHoldTimer(meterRegistry);
+  }
+
+  @SqsListener(
+      value = "${app.messaging.queue:transaction-queue}",
+      maxMessagesPerPoll = "${app.messaging.consumer.batch.size:10}",
+      maxConcurrentMessages = "${app.messaging.consumer.batch.max-concurrent-messages:50}",
+      acknowledgementMode = "MANUAL")
+  public void receiveTransactionEvents(
+      List<Message<TransactionEvent>> messages,
+      BatchAcknowledgement<TransactionEvent> acknowledgement) {
+    log.info("Received batch of {} transaction events", messages.size());
+
+    // Split by dispatcher lane: each lane applies its part serially, the parts run in parallel
+    Map<Integer, List<Message<TransactionEvent>>> byLane =
+        messages.stream()
+            .collect(
+                Collectors.groupingBy(
+                    message -> partitionedDispatcher.laneOf(message.getPayload().partitionKey()),
+                    LinkedHashMap::new,
+                    Collectors.toList()));
+    List<CompletableFuture<List<Transaction>>> parts = new ArrayList<>(byLane.size());
+    for (List<Message<TransactionEvent>> part : byLane.values()) {
+      // Waited for here, so a lane's thread never blocks its other senders on the limit
+      ConsumerConcurrencyGovernor.Slot slot = concurrencyGovernor.acquire();
+      try {
+        parts.add(
+            partitionedDispatcher.submit(
+                part.get(0).getPayload().partitionKey(),
+                () -> {
+                  try {
+                    return apply(part, acknowledgement, slot);
+                  } finally {
+                    slot.release();
+                  }
+                }));
+      } catch (RuntimeException e) {
+        slot.release();
+        throw e;
+      }
+    }
+
+    List<Transaction> processed = new ArrayList<>();
+    for (CompletableFuture<List<Transaction>> part : parts) {
+      processed.addAll(part.join());
+    }
+    // One pipelined cache write for every wallet the batch changed
+    walletService.refreshCachedWallets(processed);
+    processed.forEach(transactionReceiptSender::send);
+  }
+
+  private List<Transaction> apply(
+      List<Message<TransactionEvent>> messages,
+      BatchAcknowledgement<TransactionEvent> acknowledgement,
+      ConsumerConcurrencyGovernor.Slot slot) {
+    batchSizes.record(messages.size());
+    try {
+      List<Transaction> processed =
+          applyTransaction(messages.stream().map(Message::getPayload).toList(), slot);
+      acknowledgement.acknowledge(messages);
+      return processed;
+    } catch (RuntimeException e) {
+      log.warn(
+          "Batch of {} transaction events failed ({}). Retrying one by one.",
+          messages.size(),
+          e.getMessage());
+      fallbackCounter.increment();
+      return processIndividually(messages, acknowledgement, slot);
+    }
+  }
+
+  private List<Transaction> processIndividually(
+      List<Message<TransactionEvent>> messages,
+      BatchAcknowledgement<TransactionEvent> acknowledgement,
+      ConsumerConcurrencyGovernor.Slot slot) {
+    List<Transaction> processed = new ArrayList<>(messages.size());
+    for (Message<TransactionEvent> message : messages) {
+      TransactionEvent event = message.getPayload();
+      try {
+        // Still the batch method, so the wallets and owners the receipt needs are loaded
+        processed.addAll(applyTransaction(List.of(event), slot));
+        acknowledgement.acknowledge(List.of(message));
+      } catch (ConcurrencyFailureException e) {
+        log.warn(
+            "Concurrency conflict processing transaction event. Ref: {}. Leaving for redelivery.",
+            event.getTransactionReferenceId());
+      } catch (RuntimeException e) {
+        log.error(
+            "Error processing transaction event. Ref: {}. Error: {}",
+            event.getTransactionReferenceId(),
+            e.getMessage());
+      }
+    }
+    return processed;
+  }
+
+  // Claims the events' transfers and applies the claimed ones; a failed apply releases the claims
+  private List<Transaction> applyTransaction(
+      List<TransactionEvent> events, ConsumerConcurrencyGovernor.Slot slot) {
+    // Claimed only once a slot is held, so the lease does not run out while waiting for one
+    return slot.call(
+        () -> {
+          List<TransactionEvent> claimed = walletService.claimAsyncTransfers(events);
+          if (claimed.isEmpty()) {
+            return List.of();
+          }
+          try {
+            return transactionHold.record(() -> walletService.executeAsyncTransfers(claimed));
+          } catch (RuntimeException e) {
+            try {
+              walletService.releaseAsyncTransfers(claimed);
+            } catch (RuntimeException releaseFailure) {
+              // The lease expires on its own
+              e.addSuppressed(releaseFailure);
+            }
+            throw e;
+          }
+        });
+  }
+}
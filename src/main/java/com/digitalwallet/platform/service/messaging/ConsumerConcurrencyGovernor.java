@@ -0,0 +1,284 @@
+package com.digitalwallet.platform.service.messaging;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits how many transfer applies the consumers run at once, and adapts that limit to the
+ * database (AIMD).
+ *
+ * <p>A consumer takes a {@link Slot} with {@link #acquire} on its listener thread, which waits
+ * while {@code limit} slots are taken, before handing the work to its {@link PartitionedDispatcher}
+ * lane; lane threads therefore never block on the limit. Each apply transaction then runs through
+ * {@link Slot#call}, and the slot is released once the lane is done. Every {@code interval-ms} the
+ * limit is revised from what happened since the last revision:
+ *
+ * <ul>
+ *   <li>it is cut by a quarter when threads wait for a Hikari connection, when more than {@code
+ *       max-conflict-rate} of the applies failed on a lock conflict, or when their average time
+ *       rose above {@code latency-tolerance} times its long-run average;
+ *   <li>otherwise it grows by one if applies were held back by the limit and fewer than {@code
+ *       pool-high-water} of the pool's connections are in use, so growth stops before the pool is
+ *       exhausted rather than after.
+ * </ul>
+ *
+ * <p>At most one apply per lane runs at a time, so {@code max-limit} is capped at {@code
+ * app.messaging.consumer.partitions}; it should not exceed the SQS listener's own
+ * max-concurrent-messages either. Meters: {@code wallet.consumer.concurrency.limit}, {@code
+ * wallet.consumer.concurrency.in-flight} and {@code
+ * wallet.consumer.concurrency.decisions{decision,reason}}. With {@code enabled=false} applies run
+ * unlimited, as before.
+ */
+@Component
+@Slf4j
+public class ConsumerConcurrencyGovernor {
+
+  /** Connection pool state sampled at each revision; null when the pool cannot be read. */
+  record PoolUsage(int active, int maximum, int waiting) {}
+
+  // Long-run average latency: weight of each new window
+  private static final double BASELINE_WEIGHT = 0.05;
+
+  private final Supplier<PoolUsage> poolUsage;
+  private final MeterRegistry meterRegistry;
+  private final boolean enabled;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double maxConflictRate;
+  private final double latencyTolerance;
+  private final double poolHighWater;
+  private final Object lock = new Object();
+  private volatile int limit;
+  private volatile int inFlight;
+
+  // Current window, guarded by lock
+  private int peakInFlight;
+  private long completed;
+  private long conflicts;
+  private long latencyNanos;
+  private double baselineNanos = -1;
+
+  @Autowired
+  public ConsumerConcurrencyGovernor(
+      DataSource dataSource,
+      MeterRegistry meterRegistry,
+      @Value("${app.messaging.consumer.governor.enabled:true}") boolean enabled,
+      @Value("${app.messaging.consumer.governor.initial-limit:10}") int initialLimit,
+      @Value("${app.messaging.consumer.governor.min-limit:2}") int minLimit,
+      @Value("${app.messaging.consumer.governor.max-limit:16}") int maxLimit,
+      @Value("${app.messaging.consumer.governor.max-conflict-rate:0.05}") double maxConflictRate,
+      @Value("${app.messaging.consumer.governor.latency-tolerance:2.0}") double latencyTolerance,
+      @Value("${app.messaging.consumer.governor.pool-high-water:0.8}") double poolHighWater,
+      @Value("${app.messaging.consumer.partitions:16}") int partitions) {
+    this(
+        hikariUsage(dataSource),
+        meterRegistry,
+        enabled,
+        initialLimit,
+        minLimit,
+        Math.min(maxLimit, partitions),
+        maxConflictRate,
+        latencyTolerance,
+        poolHighWater);
+  }
+
+  ConsumerConcurrencyGovernor(
+      Supplier<PoolUsage> poolUsage,
+      MeterRegistry meterRegistry,
+      boolean enabled,
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      double maxConflictRate,
+      double latencyTolerance,
+      double poolHighWater) {
+    this.poolUsage = poolUsage;
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    this.maxConflictRate = maxConflictRate;
+    this.latencyTolerance = latencyTolerance;
+    this.poolHighWater = poolHighWater;
+    meterRegistry.gauge("wallet.consumer.concurrency.limit", this, governor -> governor.limit);
+    meterRegistry.gauge(
+        "wallet.consumer.concurrency.in-flight", this, governor -> governor.inFlight);
+  }
+
+  /** Runs one apply once the limit allows it, on the calling thread. */
+  public <T> T call(Supplier<T> work) {
+    Slot slot = acquire();
+    try {
+      return slot.call(work);
+    } finally {
+      slot.release();
+    }
+  }
+
+  /** Waits until the limit allows one more slot and takes it. */
+  public Slot acquire() {
+    if (!enabled) {
+      return new Slot(false);
+    }
+    synchronized (lock) {
+      while (inFlight >= limit) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted waiting for a consumer slot", e);
+        }
+      }
+      inFlight++;
+      peakInFlight = Math.max(peakInFlight, inFlight);
+    }
+    return new Slot(true);
+  }
+
+  /** One taken unit of the limit. May be used from another thread than the one that took it. */
+  public final class Slot {
+
+    private final AtomicBoolean held;
+
+    private Slot(boolean held) {
+      this.held = new AtomicBoolean(held);
+    }
+
+    /** Runs one apply in this slot and records its latency and lock conflicts. */
+    public <T> T call(Supplier<T> work) {
+      if (!enabled) {
+        return work.get();
+      }
+      long start = System.nanoTime();
+      boolean conflict = false;
+      try {
+        return work.get();
+      } catch (ConcurrencyFailureException e) {
+        conflict = true;
+        throw e;
+      } finally {
+        record(System.nanoTime() - start, conflict);
+      }
+    }
+
+    /** Gives the slot back; later calls do nothing. */
+    public void release() {
+      if (held.getAndSet(false)) {
+        synchronized (lock) {
+          inFlight--;
+          lock.notify();
+        }
+      }
+    }
+  }
+
+  public int limit() {
+    return limit;
+  }
+
+  /** Revises the limit from the window since the previous call, then starts a new window. */
+  @Scheduled(fixedDelayString = "${app.messaging.consumer.governor.interval-ms:1000}")
+  public void adjust() {
+    if (!enabled) {
+      return;
+    }
+    PoolUsage pool = poolUsage.get();
+    synchronized (lock) {
+      double averageNanos = completed == 0 ? 0 : (double) latencyNanos / completed;
+      if (pool != null && pool.waiting() > 0) {
+        decrease("pool");
+      } else if (completed > 0 && (double) conflicts / completed > maxConflictRate) {
+        decrease("conflicts");
+      } else if (completed > 0
+          && baselineNanos > 0
+          && averageNanos > baselineNanos * latencyTolerance) {
+        decrease("latency");
+      } else if (peakInFlight >= limit
+          && (pool == null || pool.active() < pool.maximum() * poolHighWater)) {
+        increase();
+      }
+
+      if (completed > 0) {
+        baselineNanos =
+            baselineNanos < 0
+                ? averageNanos
+                : baselineNanos * (1 - BASELINE_WEIGHT) + averageNanos * BASELINE_WEIGHT;
+      }
+      peakInFlight = inFlight;
+      completed = 0;
+      conflicts = 0;
+      latencyNanos = 0;
+      lock.notifyAll();
+    }
+  }
+
+  private void record(long nanos, boolean conflict) {
+    synchronized (lock) {
+      completed++;
+      latencyNanos += nanos;
+      if (conflict) {
+        conflicts++;
+      }
+    }
+  }
+
+  // Both run under lock
+  private void decrease(String reason) {
+    int previous = limit;
+    limit = Math.max(minLimit, previous * 3 / 4);
+    record("decrease", reason, previous);
+  }
+
+  private void increase() {
+    int previous = limit;
+    limit = Math.min(maxLimit, previous + 1);
+    record("increase", "headroom", previous);
+  }
+
+  private void record(String decision, String reason, int previous) {
+    if (limit == previous) {
+      return;
+    }
+    Counter.builder("wallet.consumer.concurrency.decisions")
+        .description("Consumer concurrency limit changes, by direction and cause")
+        .tag("decision", decision)
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+    log.debug("Consumer concurrency limit {} -> {} ({})", previous, limit, reason);
+  }
+
+  private static Supplier<PoolUsage> hikariUsage(DataSource dataSource) {
+    return () -> {
+      try {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+          return null;
+        }
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return pool == null
+            ? null
+            : new PoolUsage(
+                pool.getActiveConnections(),
+                hikari.getMaximumPoolSize(),
+                pool.getThreadsAwaitingConnection());
+      } catch (SQLException e) {
+        log.debug("Could not read connection pool usage: {}", e.getMessage());
+        return null;
+      }
+    };
+  }
+}
@@ -0,0 +1,85 @@
+package com.digitalwallet.platform.service.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs consumer work on a fixed set of single-threaded lanes picked by partition key.
+ *
+ * <p>Every event of one sender wallet hashes to the same lane, so a sender's transfers are applied
+ * one at a time in arrival order and never race each other for the sender's {@code wallets} row.
+ * Other senders' events run in parallel on the other lanes. This gives the standard queue what
+ * FIFO message groups give a {@code .fifo} queue; on a FIFO queue it is redundant but harmless.
+ *
+ * <p>Lane threads are only created once work arrives. {@code wallet.consumer.partition.queued} is
+ * the number of tasks waiting for their lane.
+ */
+@Component
+@Slf4j
+public class PartitionedDispatcher {
+
+  private final ExecutorService[] lanes;
+  private final AtomicInteger queued = new AtomicInteger();
+
+  public PartitionedDispatcher(
+      MeterRegistry meterRegistry,
+      @Value("${app.messaging.consumer.partitions:16}") int partitions) {
+    this.lanes = new ExecutorService[partitions];
+    for (int i = 0; i < partitions; i++) {
+      String name = "transfer-lane-" + i;
+      lanes[i] =
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    meterRegistry.gauge("wallet.consumer.partition.queued", queued);
+  }
+
+  /** The lane a key maps to; equal lanes mean the tasks run serially. */
+  public int laneOf(Long key) {
+    // Wallet ids are sequential, so spread them before taking the remainder
+    return Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), lanes.length);
+  }
+
+  /** Queues a task behind the other tasks of its key's lane. */
+  public <T> CompletableFuture<T> submit(Long key, Supplier<T> task) {
+    queued.incrementAndGet();
+    return CompletableFuture.supplyAsync(
+        () -> {
+          queued.decrementAndGet();
+          return task.get();
+        },
+        lanes[laneOf(key)]);
+  }
+
+  /** Runs a task on its key's lane and waits for it, rethrowing the task's own exception. */
+  public <T> T execute(Long key, Supplier<T> task) {
+    try {
+      return submit(key, task).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    for (ExecutorService lane : lanes) {
+      lane.shutdown();
+    }
+  }
+}
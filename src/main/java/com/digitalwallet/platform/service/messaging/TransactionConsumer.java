@@ -2,67 +2,137 @@ package com.digitalwallet.platform.service.messaging;
 
 import com.digitalwallet.platform.dto.TransactionEvent;
 import com.digitalwallet.platform.model.Transaction;
-import com.digitalwallet.platform.model.TransactionStatus;
-import com.digitalwallet.platform.service.EmailService;
-import com.digitalwallet.platform.service.PdfReceiptService;
 import com.digitalwallet.platform.service.WalletService;
 import io.awspring.cloud.sqs.annotation.SqsListener;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Applies queued transfers one message at a time; see {@link BatchTransactionConsumer}.
+ *
+ * <p>Each transfer runs on its sender's {@link PartitionedDispatcher} lane, in its own
+ * transaction, so listener threads never apply two transfers of one sender concurrently. The
+ * listener thread waits for a {@link ConsumerConcurrencyGovernor} slot before handing the transfer
+ * to the lane; there it is claimed with {@link WalletService#claimAsyncTransfers}, which drops
+ * duplicate deliveries, and applied. After
+ * that transaction commits, both wallets are refreshed in the cache and the receipt is handed to
+ * {@link TransactionReceiptSender}. {@code wallet.consumer.transaction.hold} times the
+ * transaction.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
+@ConditionalOnProperty(
+    name = "app.messaging.consumer.batch.enabled",
+    havingValue = "false",
+    matchIfMissing = true)
 public class TransactionConsumer {
 
   private final WalletService walletService;
-  private final PdfReceiptService pdfReceiptService;
-  private final EmailService emailService;
+  private final TransactionReceiptSender transactionReceiptSender;
+  private final PartitionedDispatcher partitionedDispatcher;
+  private final ConsumerConcurrencyGovernor concurrencyGovernor;
+  private final Timer transactionHold;
+
+  public TransactionConsumer(
+      WalletService walletService,
+      TransactionReceiptSender transactionReceiptSender,
+      PartitionedDispatcher partitionedDispatcher,
+      ConsumerConcurrencyGovernor concurrencyGovernor,
+      MeterRegistry meterRegistry) {
+    this.walletService = walletService;
+    this.transactionReceiptSender = transactionReceiptSender;
+    this.partitionedDispatcher = partitionedDispatcher;
+    this.concurrencyGovernor = concurrencyGovernor;
+    this.transactionHold = transactionHoldTimer(meterRegistry);
+  }
+
+  /** Time a consumer holds a database transaction (and its pooled connection) per apply. */
+  static Timer transactionHoldTimer(MeterRegistry meterRegistry) {
+    return Timer.builder("wallet.consumer.transaction.hold")
+        .description("Time consumers hold a database transaction applying transfers")
+        .register(meterRegistry);
+  }
 
   @Retryable(
-      retryFor = {OptimisticLockingFailureException.class},
+      retryFor = {
+        OptimisticLockingFailureException.class,
+        PessimisticLockingFailureException.class
+      },
       maxAttempts = 3,
       backoff = @Backoff(delay = 100))
-  @SqsListener("transaction-queue")
-  @Transactional
+  @SqsListener("${app.messaging.queue:transaction-queue}")
   public void receiveTransactionEvent(TransactionEvent event) {
     log.info("Received transaction event. Ref: {}", event.getTransactionReferenceId());
     try {
-      Transaction transaction = walletService.executeAsyncTransfer(event);
-
-      if (transaction.getStatus() == TransactionStatus.COMPLETED) {
-        log.info("Transaction {} completed. Generating receipt...", transaction.getReferenceId());
-        byte[] pdf = pdfReceiptService.generateTransactionReceipt(transaction);
-
-        String userEmail = transaction.getFromWallet().getUser().getEmail();
-        emailService.sendTransactionEmail(
-            userEmail,
-            "Transaction Receipt - " + transaction.getReferenceId(),
-            "Hello, your transaction has been processed successfully. Attached is your receipt.",
-            pdf,
-            "Receipt-" + transaction.getReferenceId() + ".pdf");
+      // Waited for here, so the lane's thread never blocks its other senders on the limit
+      ConsumerConcurrencyGovernor.Slot slot = concurrencyGovernor.acquire();
+      List<Transaction> processed;
+      try {
+        // The batch method loads the wallets and owners the receipt needs after commit
+        processed =
+            partitionedDispatcher.execute(event.partitionKey(), () -> claimAndApply(event, slot));
+      } finally {
+        slot.release();
+      }
+      if (processed.isEmpty()) {
+        log.info(
+            "Duplicate transaction event. Ref: {} is claimed or processed already",
+            event.getTransactionReferenceId());
+        return;
       }
+      walletService.refreshCachedWallets(processed);
+      transactionReceiptSender.send(processed.get(0));
 
       log.info(
           "Successfully processed transaction event. Ref: {}", event.getTransactionReferenceId());
-    } catch (Exception e) {
+    } catch (ConcurrencyFailureException e) {
+      // Lock conflicts and lock timeouts are transient: let @Retryable / SQS redeliver.
+      log.warn(
+          "Concurrency conflict processing transaction event. Ref: {}. Retrying.",
+          event.getTransactionReferenceId());
+      throw e;
+    } catch (RuntimeException e) {
+      // Business rejections are marked FAILED and committed inside executeAsyncTransfers, so
+      // anything that reaches here rolled back: rethrow so the message is not acknowledged and
+      // SQS redelivers it once the visibility timeout lapses
       log.error(
-          "Error processing transaction event. Ref: {}. Error: {}",
+          "Error processing transaction event. Ref: {}. Leaving for redelivery. Error: {}",
           event.getTransactionReferenceId(),
           e.getMessage());
-      // Depending on error type, we might want to throw to DLQ or just log if it's a
-      // "business" failure (which is handled inside executeAsyncTransfer to mark TX
-      // as FAILED)
-      // If executeAsyncTransfer swallowed the exception and marked TX as failed, we
-      // shouldn't throw here,
-      // unless we want SQS to retry (e.g. DB connection issues).
-      // For now, WalletService catches generic exceptions and marks FAILED, so we
-      // don't re-throw.
+      throw e;
     }
   }
+
+  // Claims the transfer before applying it; a failed apply releases the claim for the retry
+  private List<Transaction> claimAndApply(
+      TransactionEvent event, ConsumerConcurrencyGovernor.Slot slot) {
+    // Claimed only once a slot is held, so the lease does not run out while waiting for one
+    return slot.call(
+        () -> {
+          List<TransactionEvent> claimed = walletService.claimAsyncTransfers(List.of(event));
+          if (claimed.isEmpty()) {
+            return List.of();
+          }
+          try {
+            return transactionHold.record(() -> walletService.executeAsyncTransfers(claimed));
+          } catch (RuntimeException e) {
+            try {
+              walletService.releaseAsyncTransfers(claimed);
+            } catch (RuntimeException releaseFailure) {
+              // The lease expires on its own
+              e.addSuppressed(releaseFailure);
+            }
+            throw e;
+          }
+        });
+  }
 }
@@ -0,0 +1,204 @@
+package com.digitalwallet.platform.service.messaging;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Versioned binary form of {@link TransactionEvent}, used instead of JSON when {@code
+ * app.messaging.binary-codec.enabled=true}.
+ *
+ * <p>Version 1 layout, big-endian: a version byte, a byte of presence bits, then only the fields
+ * that are set. The transaction, sender and sender wallet ids are 8-byte longs and the amount an
+ * unscaled long followed by a scale byte. The currency is a one-byte index into {@link
+ * #CURRENCIES}, or 0 followed by the code for any other currency. The reference id, receiver
+ * wallet number and description are UTF-8 with a 2-byte length. A typical event takes about a
+ * third of its JSON size.
+ *
+ * <p>The version byte is never {@code '{'}, so {@link #isBinary} tells encoded events from JSON
+ * ones. Decoding rejects versions it does not know; a new layout gets a new version, and
+ * consumers must accept it before producers write it.
+ */
+public final class TransactionEventCodec {
+
+  public static final byte VERSION = 1;
+
+  /** Content type of an encoded event, Base64-encoded where the transport needs text. */
+  public static final String MIME_TYPE = "application/vnd.wallet.transaction-event.v1+base64";
+
+  // Index + 1 is the wire code; never reorder, only append
+  static final List<String> CURRENCIES =
+      List.of("USD", "EUR", "GBP", "INR", "JPY", "CAD", "AUD", "CHF", "CNY", "SGD", "AED");
+
+  private static final int TRANSACTION_ID = 1;
+  private static final int SENDER_ID = 1 << 1;
+  private static final int SENDER_WALLET_ID = 1 << 2;
+  private static final int AMOUNT = 1 << 3;
+  private static final int CURRENCY = 1 << 4;
+  private static final int REFERENCE_ID = 1 << 5;
+  private static final int RECEIVER_WALLET_NUMBER = 1 << 6;
+  private static final int DESCRIPTION = 1 << 7;
+
+  private static final int MAX_STRING_BYTES = 0xFFFF;
+
+  private TransactionEventCodec() {}
+
+  public static byte[] encode(TransactionEvent event) {
+    byte[] referenceId = utf8(event.getTransactionReferenceId());
+    byte[] receiverWalletNumber = utf8(event.getReceiverWalletNumber());
+    byte[] description = utf8(event.getDescription());
+    // 0 when not in the table; List.of rejects null lookups
+    int currencyCode =
+        event.getCurrency() == null ? 0 : CURRENCIES.indexOf(event.getCurrency()) + 1;
+    byte[] inlineCurrency =
+        event.getCurrency() != null && currencyCode == 0 ? utf8(event.getCurrency()) : null;
+
+    int flags = 0;
+    int size = 2;
+    if (event.getTransactionId() != null) {
+      flags |= TRANSACTION_ID;
+      size += Long.BYTES;
+    }
+    if (event.getSenderId() != null) {
+      flags |= SENDER_ID;
+      size += Long.BYTES;
+    }
+    if (event.getSenderWalletId() != null) {
+      flags |= SENDER_WALLET_ID;
+      size += Long.BYTES;
+    }
+    if (event.getAmount() != null) {
+      flags |= AMOUNT;
+      size += Long.BYTES + 1;
+    }
+    if (event.getCurrency() != null) {
+      flags |= CURRENCY;
+      size += 1 + (inlineCurrency == null ? 0 : Short.BYTES + inlineCurrency.length);
+    }
+    if (referenceId != null) {
+      flags |= REFERENCE_ID;
+      size += Short.BYTES + referenceId.length;
+    }
+    if (receiverWalletNumber != null) {
+      flags |= RECEIVER_WALLET_NUMBER;
+      size += Short.BYTES + receiverWalletNumber.length;
+    }
+    if (description != null) {
+      flags |= DESCRIPTION;
+      size += Short.BYTES + description.length;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size).put(VERSION).put((byte) flags);
+    if (event.getTransactionId() != null) {
+      buffer.putLong(event.getTransactionId());
+    }
+    if (event.getSenderId() != null) {
+      buffer.putLong(event.getSenderId());
+    }
+    if (event.getSenderWalletId() != null) {
+      buffer.putLong(event.getSenderWalletId());
+    }
+    if (event.getAmount() != null) {
+      putAmount(buffer, event.getAmount());
+    }
+    if (event.getCurrency() != null) {
+      buffer.put((byte) currencyCode);
+      if (inlineCurrency != null) {
+        putString(buffer, inlineCurrency);
+      }
+    }
+    putString(buffer, referenceId);
+    putString(buffer, receiverWalletNumber);
+    putString(buffer, description);
+    return buffer.array();
+  }
+
+  public static TransactionEvent decode(byte[] bytes) {
+    if (!isBinary(bytes)) {
+      throw new IllegalArgumentException(
+          "Unsupported transaction event encoding version: "
+              + (bytes.length == 0 ? "empty" : String.valueOf(bytes[0])));
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+      int flags = buffer.get() & 0xFF;
+      TransactionEvent.TransactionEventBuilder event = TransactionEvent.builder();
+      if ((flags & TRANSACTION_ID) != 0) {
+        event.transactionId(buffer.getLong());
+      }
+      if ((flags & SENDER_ID) != 0) {
+        event.senderId(buffer.getLong());
+      }
+      if ((flags & SENDER_WALLET_ID) != 0) {
+        event.senderWalletId(buffer.getLong());
+      }
+      if ((flags & AMOUNT) != 0) {
+        long unscaled = buffer.getLong();
+        event.amount(BigDecimal.valueOf(unscaled, buffer.get()));
+      }
+      if ((flags & CURRENCY) != 0) {
+        int code = buffer.get() & 0xFF;
+        event.currency(code == 0 ? getString(buffer) : CURRENCIES.get(code - 1));
+      }
+      if ((flags & REFERENCE_ID) != 0) {
+        event.transactionReferenceId(getString(buffer));
+      }
+      if ((flags & RECEIVER_WALLET_NUMBER) != 0) {
+        event.receiverWalletNumber(getString(buffer));
+      }
+      if ((flags & DESCRIPTION) != 0) {
+        event.description(getString(buffer));
+      }
+      if (buffer.hasRemaining()) {
+        throw new IllegalArgumentException(
+            buffer.remaining() + " trailing bytes after transaction event");
+      }
+      return event.build();
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated or corrupt transaction event", e);
+    }
+  }
+
+  /** Whether {@code bytes} start with a version this codec reads; JSON starts with '{'. */
+  public static boolean isBinary(byte[] bytes) {
+    return bytes.length > 0 && bytes[0] == VERSION;
+  }
+
+  private static void putAmount(ByteBuffer buffer, BigDecimal amount) {
+    BigInteger unscaled = amount.unscaledValue();
+    if (unscaled.bitLength() > 63 || amount.scale() != (byte) amount.scale()) {
+      throw new IllegalArgumentException("Amount does not fit the binary encoding: " + amount);
+    }
+    buffer.putLong(unscaled.longValue()).put((byte) amount.scale());
+  }
+
+  private static void putString(ByteBuffer buffer, byte[] value) {
+    if (value != null) {
+      buffer.putShort((short) value.length).put(value);
+    }
+  }
+
+  // Buffers here always wrap a whole array, so position is an array index
+  private static String getString(ByteBuffer buffer) {
+    int length = buffer.getShort() & 0xFFFF;
+    String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  private static byte[] utf8(String value) {
+    if (value == null) {
+      return null;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_STRING_BYTES) {
+      throw new IllegalArgumentException(
+          "Field of " + bytes.length + " bytes exceeds the binary encoding limit");
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,47 @@
+package com.digitalwallet.platform.service.messaging;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import java.util.Base64;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+/**
+ * Converts {@link TransactionEvent} payloads with {@link TransactionEventCodec}, Base64-encoded
+ * because SQS message bodies are text.
+ *
+ * <p>It only applies to messages whose {@code contentType} is {@link
+ * TransactionEventCodec#MIME_TYPE}. The producer sets that header, and SQS carries it as a message
+ * attribute. Anything else falls through to the JSON converter, so JSON messages from producers
+ * that have not switched yet are still consumed.
+ */
+public class TransactionEventMessageConverter extends AbstractMessageConverter {
+
+  public TransactionEventMessageConverter() {
+    super(MimeType.valueOf(TransactionEventCodec.MIME_TYPE));
+    setStrictContentTypeMatch(true);
+    setSerializedPayloadClass(String.class);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return TransactionEvent.class.equals(clazz);
+  }
+
+  @Override
+  protected Object convertFromInternal(
+      Message<?> message, Class<?> targetClass, Object conversionHint) {
+    Object payload = message.getPayload();
+    byte[] bytes =
+        payload instanceof byte[] raw ? raw : Base64.getDecoder().decode(payload.toString());
+    return TransactionEventCodec.decode(bytes);
+  }
+
+  @Override
+  protected Object convertToInternal(
+      Object payload, MessageHeaders headers, Object conversionHint) {
+    return Base64.getEncoder()
+        .encodeToString(TransactionEventCodec.encode((TransactionEvent) payload));
+  }
+}
@@ -0,0 +1,18 @@
+package com.digitalwallet.platform.service.messaging;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The queue that carries PENDING transfers to the consumers: SQS ({@link TransactionProducer}) or
+ * the local on-disk queue when SQS is disabled.
+ */
+public interface TransactionEventPublisher {
+
+  /**
+   * Hands an event to the queue.
+   *
+   * @return completes once the queue has accepted the event, and fails if it could not
+   */
+  CompletableFuture<Void> sendTransactionEventAsync(TransactionEvent event);
+}
@@ -1,35 +1,254 @@
 package com.digitalwallet.platform.service.messaging;
 
 import com.digitalwallet.platform.dto.TransactionEvent;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.operations.SendBatchOperationFailedException;
+import io.awspring.cloud.sqs.operations.SendResult;
 import io.awspring.cloud.sqs.operations.SqsTemplate;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
+/**
+ * Sends transaction events to SQS in micro-batches.
+ *
+ * <p>{@link #sendTransactionEventAsync} only places the event in a bounded buffer. Sender threads
+ * take events from it for up to {@code window-ms} (or until 10 are waiting, the SendMessageBatch
+ * limit) and send them with one batch request, completing each caller's future with that event's
+ * own outcome. When the buffer is full the {@code overflow-policy} applies: {@code BLOCK} waits up
+ * to {@code block-timeout-ms} for room and {@code SHED} fails the event at once. Events come from
+ * the outbox relay, which backs a failed event off and publishes it again later.
+ *
+ * <p>If {@code app.messaging.queue} is a {@code .fifo} queue, each event's message group is its
+ * sender wallet, so SQS delivers one sender's transfers one at a time while other senders' groups
+ * are consumed in parallel. The transaction reference is the deduplication id.
+ *
+ * <p>With {@code app.messaging.binary-codec.enabled=true} events are sent in the {@link
+ * TransactionEventCodec} format, marked by their {@code contentType} attribute. Turn it on only
+ * once every consumer runs a version that reads that format; consumers read JSON either way.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "spring.cloud.aws.sqs.enabled", havingValue = "true")
-public class TransactionProducer {
+public class TransactionProducer implements TransactionEventPublisher {
+
+  public enum OverflowPolicy {
+    BLOCK,
+    SHED
+  }
+
+  // SendMessageBatch accepts at most 10 entries
+  private static final int MAX_BATCH_SIZE = 10;
 
   private final SqsTemplate sqsTemplate;
-  private static final String QUEUE_NAME = "transaction-queue";
+  private final String queue;
+  private final boolean fifo;
+  private final boolean binaryCodec;
+  private final BlockingQueue<Pending> buffer;
+  private final long windowNanos;
+  private final OverflowPolicy overflowPolicy;
+  private final long blockTimeoutMs;
+  private final int senderCount;
+  private final List<Thread> senders = new ArrayList<>();
+  private final DistributionSummary batchFill;
+  private final Timer sendLatency;
+  private final Counter overflowCounter;
+  private volatile boolean running = true;
 
-  public void sendTransactionEvent(TransactionEvent event) {
-    log.info("Sending transaction event to SQS. Ref: {}", event.getTransactionReferenceId());
+  public TransactionProducer(
+      SqsTemplate sqsTemplate,
+      @Value("${app.messaging.queue:transaction-queue}") String queue,
+      MeterRegistry meterRegistry,
+      @Value("${app.messaging.producer.buffer-capacity:10000}") int bufferCapacity,
+      @Value("${app.messaging.producer.window-ms:5}") long windowMs,
+      @Value("${app.messaging.producer.senders:4}") int senderCount,
+      @Value("${app.messaging.producer.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+      @Value("${app.messaging.producer.block-timeout-ms:1000}") long blockTimeoutMs,
+      @Value("${app.messaging.binary-codec.enabled:false}") boolean binaryCodec) {
+    this.sqsTemplate = sqsTemplate;
+    this.queue = queue;
+    this.fifo = queue.endsWith(".fifo");
+    this.binaryCodec = binaryCodec;
+    this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    this.senderCount = senderCount;
+    this.overflowPolicy = overflowPolicy;
+    this.blockTimeoutMs = blockTimeoutMs;
+    this.batchFill =
+        DistributionSummary.builder("wallet.producer.batch.fill")
+            .description("SQS batch sends as a fraction of the 10-message limit")
+            .register(meterRegistry);
+    this.sendLatency =
+        Timer.builder("wallet.producer.send.latency")
+            .description("Time from enqueueing a transaction event to its batch send completing")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    this.overflowCounter =
+        Counter.builder("wallet.producer.overflow")
+            .description("Transaction events that found the producer buffer full")
+            .tag("policy", overflowPolicy.name())
+            .register(meterRegistry);
+    meterRegistry.gauge("wallet.producer.buffer.size", buffer, BlockingQueue::size);
+  }
+
+  @PostConstruct
+  public void start() {
+    for (int i = 0; i < senderCount; i++) {
+      Thread sender = new Thread(this::drain, "sqs-producer-" + i);
+      sender.setDaemon(true);
+      sender.start();
+      senders.add(sender);
+    }
+    log.info(
+        "SQS producer started for {}: {} senders, {} us window, overflow policy {}",
+        queue,
+        senderCount,
+        TimeUnit.NANOSECONDS.toMicros(windowNanos),
+        overflowPolicy);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    senders.forEach(Thread::interrupt);
+  }
+
+  /**
+   * Queues an event for the next batch send.
+   *
+   * @return completes once SQS accepted the event, and fails if it could not be sent
+   */
+  @Override
+  public CompletableFuture<Void> sendTransactionEventAsync(TransactionEvent event) {
+    Pending pending = new Pending(event, new CompletableFuture<>(), System.nanoTime());
+    if (running && buffer.offer(pending)) {
+      return pending.result();
+    }
+    overflowCounter.increment();
+    switch (overflowPolicy) {
+      case BLOCK -> {
+        try {
+          if (buffer.offer(pending, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+            return pending.result();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        pending
+            .result()
+            .completeExceptionally(new RejectedExecutionException("SQS producer buffer full"));
+      }
+      case SHED -> pending
+          .result()
+          .completeExceptionally(
+              new RejectedExecutionException("SQS producer buffer full, event shed"));
+    }
+    return pending.result();
+  }
+
+  private void drain() {
+    List<Pending> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (running || !buffer.isEmpty()) {
+      try {
+        batch.add(buffer.take());
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < MAX_BATCH_SIZE) {
+          long remaining = deadline - System.nanoTime();
+          Pending next =
+              remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : buffer.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (InterruptedException e) {
+        if (!running) {
+          buffer.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+        }
+      }
+      if (!batch.isEmpty()) {
+        send(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  // Package-private for tests
+  void send(List<Pending> batch) {
+    batchFill.record((double) batch.size() / MAX_BATCH_SIZE);
+    List<Message<TransactionEvent>> messages =
+        batch.stream().map(pending -> toMessage(pending.event())).toList();
+
+    Map<Long, String> failures = new HashMap<>();
     try {
-      sqsTemplate.send(to -> to.queue(QUEUE_NAME).payload(event));
-      log.info(
-          "Successfully sent transaction event for ref: {}", event.getTransactionReferenceId());
-    } catch (Exception e) {
-      log.error(
-          "Failed to send transaction event to SQS for ref: {}",
-          event.getTransactionReferenceId(),
-          e);
-      // In a real outbox pattern, we might mark the DB record as 'FAILED_SEND' here,
-      // but for now we rely on the scheduler to pick up 'PENDING' ones.
-      throw new RuntimeException("Failed to send SQS message", e);
+      SendResult.Batch<TransactionEvent> result;
+      try {
+        result = sqsTemplate.sendMany(queue, messages);
+      } catch (SendBatchOperationFailedException e) {
+        result = e.getSendBatchResult(TransactionEvent.class);
+      }
+      for (SendResult.Failed<TransactionEvent> failure : result.failed()) {
+        failures.put(failure.message().getPayload().getTransactionId(), failure.errorMessage());
+      }
+    } catch (RuntimeException e) {
+      log.error("Failed to send batch of {} transaction events to SQS", batch.size(), e);
+      batch.forEach(pending -> pending.result().completeExceptionally(e));
+      return;
+    }
+
+    long now = System.nanoTime();
+    for (Pending pending : batch) {
+      sendLatency.record(now - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+      String error = failures.get(pending.event().getTransactionId());
+      if (error == null) {
+        pending.result().complete(null);
+      } else {
+        log.warn(
+            "SQS rejected transaction event for ref: {}: {}",
+            pending.event().getTransactionReferenceId(),
+            error);
+        pending.result().completeExceptionally(new RuntimeException(error));
+      }
+    }
+  }
+
+  private Message<TransactionEvent> toMessage(TransactionEvent event) {
+    MessageBuilder<TransactionEvent> message = MessageBuilder.withPayload(event);
+    if (binaryCodec) {
+      message.setHeader(MessageHeaders.CONTENT_TYPE, TransactionEventCodec.MIME_TYPE);
+    }
+    if (fifo) {
+      // One message group per sender wallet: SQS hands a group's messages out one at a time
+      message
+          .setHeader(
+              SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER,
+              String.valueOf(event.partitionKey()))
+          .setHeader(
+              SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER,
+              event.getTransactionReferenceId());
     }
+    return message.build();
   }
+
+  // Package-private for tests
+  record Pending(TransactionEvent event, CompletableFuture<Void> result, long enqueuedNanos) {}
 }
@@ -0,0 +1,166 @@
+package com.digitalwallet.platform.service.messaging;
+
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.service.EmailService;
+import com.digitalwallet.platform.service.PdfReceiptService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Renders the PDF receipt of a completed transfer and emails it to the sender.
+ *
+ * <p>Consumers call {@link #send} once the transfer has committed. The receipt is then rendered
+ * and emailed on this stage's own {@code threads}, so listener threads and lanes go back to
+ * applying transfers instead of waiting on PDF rendering and SMTP. Up to {@code queue-capacity}
+ * receipts wait for a thread; beyond that they are dropped and counted, because a receipt is
+ * not worth slowing settlement for. A failed receipt is retried up to {@code max-attempts} times
+ * with a doubling backoff. With {@code async=false} receipts are sent on the caller's thread, as
+ * before, which gives a baseline for {@code wallet.consumer.transaction.hold}.
+ *
+ * <p>Meters: {@code wallet.notification.receipts{outcome=sent|failed|dropped}}, {@code
+ * wallet.notification.latency} from {@link #send} to the email, and {@code
+ * wallet.notification.queued}.
+ */
+@Component
+@Slf4j
+public class TransactionReceiptSender {
+
+  private final PdfReceiptService pdfReceiptService;
+  private final EmailService emailService;
+  private final boolean async;
+  private final ThreadPoolExecutor executor;
+  private final RetryTemplate retryTemplate;
+  private final Timer latency;
+  private final Counter sentCounter;
+  private final Counter failedCounter;
+  private final Counter droppedCounter;
+
+  public TransactionReceiptSender(
+      PdfReceiptService pdfReceiptService,
+      EmailService emailService,
+      MeterRegistry meterRegistry,
+      @Value("${app.notification.async:true}") boolean async,
+      @Value("${app.notification.threads:2}") int threads,
+      @Value("${app.notification.queue-capacity:1000}") int queueCapacity,
+      @Value("${app.notification.max-attempts:3}") int maxAttempts,
+      @Value("${app.notification.retry-backoff-ms:500}") long retryBackoffMs) {
+    this.pdfReceiptService = pdfReceiptService;
+    this.emailService = emailService;
+    this.async = async;
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "receipt-sender-" + threadNumber.getAndIncrement());
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.retryTemplate =
+        RetryTemplate.builder()
+            .maxAttempts(maxAttempts)
+            .exponentialBackoff(retryBackoffMs, 2, retryBackoffMs * 8)
+            .build();
+    this.latency =
+        Timer.builder("wallet.notification.latency")
+            .description("Time from a committed transfer to its receipt being emailed")
+            .register(meterRegistry);
+    this.sentCounter = outcomeCounter(meterRegistry, "sent");
+    this.failedCounter = outcomeCounter(meterRegistry, "failed");
+    this.droppedCounter = outcomeCounter(meterRegistry, "dropped");
+    meterRegistry.gauge("wallet.notification.queued", executor, pool -> pool.getQueue().size());
+  }
+
+  /**
+   * Queues the receipt if the transaction completed. Call it after commit, with the sender
+   * wallet's user loaded, and do not modify the transaction afterwards; never throws.
+   */
+  public void send(Transaction transaction) {
+    if (transaction.getStatus() != TransactionStatus.COMPLETED) {
+      return;
+    }
+    long queuedAt = System.nanoTime();
+    if (!async) {
+      deliver(transaction, queuedAt);
+      return;
+    }
+    try {
+      executor.execute(() -> deliver(transaction, queuedAt));
+    } catch (RejectedExecutionException e) {
+      droppedCounter.increment();
+      log.warn(
+          "Receipt queue full; dropping receipt for transaction {}", transaction.getReferenceId());
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    // Let queued receipts go out before shutdown
+    executor.shutdown();
+    if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+      log.warn("{} receipts not sent before shutdown", executor.shutdownNow().size());
+    }
+  }
+
+  private void deliver(Transaction transaction, long queuedAt) {
+    try {
+      retryTemplate.execute(
+          context -> {
+            if (context.getRetryCount() > 0) {
+              log.info(
+                  "Retrying receipt for transaction {} (attempt {})",
+                  transaction.getReferenceId(),
+                  context.getRetryCount() + 1);
+            }
+            email(transaction);
+            return null;
+          });
+      sentCounter.increment();
+    } catch (RuntimeException e) {
+      failedCounter.increment();
+      log.error(
+          "Could not send receipt for transaction {}: {}",
+          transaction.getReferenceId(),
+          e.getMessage());
+    } finally {
+      latency.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void email(Transaction transaction) {
+    log.info("Transaction {} completed. Generating receipt...", transaction.getReferenceId());
+    byte[] pdf = pdfReceiptService.generateTransactionReceipt(transaction);
+
+    String userEmail = transaction.getFromWallet().getUser().getEmail();
+    emailService.sendTransactionEmail(
+        userEmail,
+        "Transaction Receipt - " + transaction.getReferenceId(),
+        "Hello, your transaction has been processed successfully. Attached is your receipt.",
+        pdf,
+        "Receipt-" + transaction.getReferenceId() + ".pdf");
+  }
+
+  private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("wallet.notification.receipts")
+        .description("Transfer receipts by outcome")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
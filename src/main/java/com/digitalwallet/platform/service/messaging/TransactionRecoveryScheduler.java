@@ -1,81 +1,175 @@
 package com.digitalwallet.platform.service.messaging;
 
 import com.digitalwallet.platform.dto.TransactionEvent;
-import com.digitalwallet.platform.model.Transaction;
-import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.OutboxEventType;
+import com.digitalwallet.platform.repository.OutboxEventRepository;
+import com.digitalwallet.platform.repository.StuckTransferView;
 import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.service.outbox.OutboxWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Re-queues transfers that have been PENDING for longer than {@code stuck-after-minutes}, and
+ * PROCESSING ones whose consumer's claim lease has run out.
+ *
+ * <p>Stuck rows are walked in id order, {@code chunk-size} at a time, and each chunk is claimed
+ * with {@code FOR UPDATE SKIP LOCKED} in its own short transaction, so replicas running the
+ * scheduler split the backlog instead of each re-sending all of it. A transfer whose message is
+ * still in the outbox is skipped. Any other is re-queued through the outbox and held off for
+ * {@code backoff-seconds}, doubled per earlier attempt, so after an outage each transfer is re-sent
+ * once per backoff window rather than on every run. After {@code max-attempts} re-queues, or if
+ * its receiver wallet is gone, it is marked FAILED.
+ *
+ * <p>Outcomes are counted in {@code wallet.recovery.transfers}, tagged {@code recovered}, {@code
+ * skipped} or {@code abandoned}.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
-@ConditionalOnProperty(name = "spring.cloud.aws.sqs.enabled", havingValue = "true")
+@ConditionalOnExpression(
+    "${spring.cloud.aws.sqs.enabled:false} or ${app.messaging.local-queue.enabled:false}")
 public class TransactionRecoveryScheduler {
 
   private final TransactionRepository transactionRepository;
-  private final TransactionProducer transactionProducer;
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxWriter outboxWriter;
+  private final TransactionTemplate transactionTemplate;
+  private final long stuckAfterMinutes;
+  private final int chunkSize;
+  private final int maxAttempts;
+  private final long backoffSeconds;
+  private final Counter recoveredCounter;
+  private final Counter skippedCounter;
+  private final Counter abandonedCounter;
 
-  @Scheduled(fixedDelay = 60000) // Run every minute
-  @Transactional
+  public TransactionRecoveryScheduler(
+      TransactionRepository transactionRepository,
+      OutboxEventRepository outboxEventRepository,
+      OutboxWriter outboxWriter,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.recovery.stuck-after-minutes:5}") long stuckAfterMinutes,
+      @Value("${app.recovery.chunk-size:500}") int chunkSize,
+      @Value("${app.recovery.max-attempts:10}") int maxAttempts,
+      @Value("${app.recovery.backoff-seconds:60}") long backoffSeconds) {
+    this.transactionRepository = transactionRepository;
+    this.outboxEventRepository = outboxEventRepository;
+    this.outboxWriter = outboxWriter;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.stuckAfterMinutes = stuckAfterMinutes;
+    this.chunkSize = chunkSize;
+    this.maxAttempts = maxAttempts;
+    this.backoffSeconds = backoffSeconds;
+    this.recoveredCounter = outcomeCounter(meterRegistry, "recovered");
+    this.skippedCounter = outcomeCounter(meterRegistry, "skipped");
+    this.abandonedCounter = outcomeCounter(meterRegistry, "abandoned");
+  }
+
+  @Scheduled(fixedDelayString = "${app.recovery.interval-ms:60000}")
   public void recoverStuckTransactions() {
     log.debug("Checking for stuck PENDING transactions...");
 
-    LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(5);
-    List<Transaction> stuckTransactions =
-        transactionRepository.findByStatusAndCreatedAtBefore(TransactionStatus.PENDING, cutoffTime);
+    LocalDateTime cutoff = LocalDateTime.now().minusMinutes(stuckAfterMinutes);
+    long afterId = 0;
+    while (true) {
+      long from = afterId;
+      Long lastId = transactionTemplate.execute(status -> recoverChunk(from, cutoff));
+      if (lastId == null) {
+        return;
+      }
+      afterId = lastId;
+    }
+  }
 
-    if (stuckTransactions.isEmpty()) {
-      return;
+  /**
+   * Claims and handles the next chunk of stuck transfers after {@code afterId}.
+   *
+   * @return the id of the last claimed transfer, or null once no stuck transfers are left
+   */
+  // Package-private for tests
+  Long recoverChunk(long afterId, LocalDateTime cutoff) {
+    List<StuckTransferView> stuck =
+        transactionRepository.claimStuckTransfers(afterId, cutoff, chunkSize);
+    if (stuck.isEmpty()) {
+      return null;
     }
 
-    log.info(
-        "Found {} stuck PENDING transactions. Attempting recovery...", stuckTransactions.size());
+    // Still waiting in the outbox: the relay will publish it, nothing to recover
+    Set<Long> inOutbox =
+        new HashSet<>(
+            outboxEventRepository.findUnsentAggregateIds(
+                stuck.stream().map(StuckTransferView::getId).toList()));
 
-    for (Transaction transaction : stuckTransactions) {
-      try {
-        // Re-construct event
-        // Note: We need to be careful. In a real system, we'd check if the message is
-        // actually in DLQ or lost.
-        // Here we just re-submit blindly, trusting the consumer's idempotency check.
+    List<Long> requeued = new ArrayList<>();
+    List<Long> exhausted = new ArrayList<>();
+    List<Long> orphaned = new ArrayList<>();
+    for (StuckTransferView transfer : stuck) {
+      if (inOutbox.contains(transfer.getId())) {
+        skippedCounter.increment();
+      } else if (transfer.getReceiverWalletNumber() == null) {
+        log.error(
+            "Cannot recover transaction {}: Receiver wallet missing", transfer.getReferenceId());
+        orphaned.add(transfer.getId());
+      } else if (transfer.getRecoveryAttempts() >= maxAttempts) {
+        log.error(
+            "Giving up on transaction {} after {} recovery attempts",
+            transfer.getReferenceId(),
+            transfer.getRecoveryAttempts());
+        exhausted.add(transfer.getId());
+      } else {
+        // Consumers skip transfers that completed meanwhile, so a duplicate is harmless
+        outboxWriter.enqueue(
+            OutboxEventType.TRANSFER_INITIATED, transfer.getId(), toEvent(transfer));
+        requeued.add(transfer.getId());
+      }
+    }
 
-        String receiverWallet =
-            transaction.getToWallet() != null ? transaction.getToWallet().getWalletNumber() : null;
-        if (receiverWallet == null) {
-          log.error(
-              "Cannot recover transaction {}: Receiver wallet missing",
-              transaction.getReferenceId());
-          continue;
-        }
+    if (!requeued.isEmpty()) {
+      transactionRepository.markRecoveryAttempted(requeued, backoffSeconds);
+      recoveredCounter.increment(requeued.size());
+      log.info("Re-queued {} stuck transactions through the outbox", requeued.size());
+    }
+    if (!exhausted.isEmpty()) {
+      transactionRepository.abandon(
+          exhausted, "Not processed after " + maxAttempts + " recovery attempts");
+    }
+    if (!orphaned.isEmpty()) {
+      transactionRepository.abandon(orphaned, "Receiver wallet missing");
+    }
+    abandonedCounter.increment(exhausted.size() + orphaned.size());
 
-        TransactionEvent event =
-            TransactionEvent.builder()
-                .transactionReferenceId(transaction.getReferenceId())
-                .senderId(
-                    transaction
-                        .getFromWallet()
-                        .getUser()
-                        .getId()) // Assuming fetch join or lazy load
-                // works
-                .transactionId(transaction.getId())
-                .receiverWalletNumber(receiverWallet)
-                .amount(transaction.getAmount())
-                .currency(transaction.getCurrency())
-                .description(transaction.getDescription())
-                .build();
+    return stuck.get(stuck.size() - 1).getId();
+  }
 
-        transactionProducer.sendTransactionEvent(event);
-        log.info("Re-submitted transaction {} to SQS", transaction.getReferenceId());
+  private TransactionEvent toEvent(StuckTransferView transfer) {
+    return TransactionEvent.builder()
+        .transactionReferenceId(transfer.getReferenceId())
+        .senderId(transfer.getSenderId())
+        .senderWalletId(transfer.getSenderWalletId())
+        .transactionId(transfer.getId())
+        .receiverWalletNumber(transfer.getReceiverWalletNumber())
+        .amount(transfer.getAmount())
+        .currency(transfer.getCurrency())
+        .description(transfer.getDescription())
+        .build();
+  }
 
-      } catch (Exception e) {
-        log.error("Failed to recover transaction {}", transaction.getReferenceId(), e);
-      }
-    }
+  private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("wallet.recovery.transfers")
+        .description("Stuck PENDING transfers handled by recovery, by outcome")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
   }
 }
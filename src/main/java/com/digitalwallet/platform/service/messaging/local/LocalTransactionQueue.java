@@ -0,0 +1,247 @@
+package com.digitalwallet.platform.service.messaging.local;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.service.messaging.BatchTransactionConsumer;
+import com.digitalwallet.platform.service.messaging.TransactionConsumer;
+import com.digitalwallet.platform.service.messaging.TransactionEventCodec;
+import com.digitalwallet.platform.service.messaging.TransactionEventPublisher;
+import com.digitalwallet.platform.service.messaging.TransactionRecoveryScheduler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transaction queue on local disk, used in place of SQS when SQS is disabled.
+ *
+ * <p>{@link #sendTransactionEventAsync} appends the event to a {@link MappedSegmentLog}, which is
+ * forced to disk before the future completes, so the outbox relay only marks a row sent once the
+ * event survives a crash. One consumer thread reads up to {@code batch-size} events at a time and
+ * hands them to the same consumer the SQS listener uses: {@link BatchTransactionConsumer} when
+ * batch consumption is enabled, otherwise {@link TransactionConsumer} for each event, on {@code
+ * listener-threads} threads.
+ *
+ * <p>The consumer offset is committed once the consumer returns. As with SQS, events it did not
+ * acknowledge stay PENDING and {@link TransactionRecoveryScheduler} re-queues them; a crash before
+ * the commit redelivers the batch, which the consumers' idempotency check absorbs. Each replica
+ * consumes its own log, and a replica that never comes back is covered by the same recovery.
+ *
+ * <p>Records are JSON, or {@link TransactionEventCodec} binary with {@code
+ * app.messaging.binary-codec.enabled=true}. Both are read back whatever the setting, so a log
+ * written before a switch in either direction still drains.
+ */
+@Component
+@Slf4j
+@ConditionalOnExpression(
+    "${app.messaging.local-queue.enabled:false} and !${spring.cloud.aws.sqs.enabled:false}")
+public class LocalTransactionQueue implements TransactionEventPublisher {
+
+  private static final long POLL_TIMEOUT_MS = 500;
+
+  private final MappedSegmentLog segmentLog;
+  private final ObjectMapper objectMapper;
+  private final boolean binaryCodec;
+  private final int batchSize;
+  private final ExecutorService listeners;
+  private final Counter appendedCounter;
+  private final Counter unacknowledgedCounter;
+  private Thread consumer;
+  private volatile boolean running = true;
+
+  // Exactly one of the two exists, depending on app.messaging.consumer.batch.enabled
+  @Autowired(required = false)
+  private BatchTransactionConsumer batchTransactionConsumer;
+
+  @Autowired(required = false)
+  private TransactionConsumer transactionConsumer;
+
+  public LocalTransactionQueue(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${app.messaging.local-queue.directory:./data/transfer-queue}") String directory,
+      @Value("${app.messaging.local-queue.segment-bytes:67108864}") int segmentBytes,
+      @Value("${app.messaging.consumer.batch.size:10}") int batchSize,
+      @Value("${app.messaging.local-queue.listener-threads:8}") int listenerThreads,
+      @Value("${app.messaging.binary-codec.enabled:false}") boolean binaryCodec) {
+    this.segmentLog = new MappedSegmentLog(Path.of(directory), segmentBytes);
+    this.objectMapper = objectMapper;
+    this.binaryCodec = binaryCodec;
+    this.batchSize = batchSize;
+    this.listeners = Executors.newFixedThreadPool(listenerThreads);
+    this.appendedCounter =
+        Counter.builder("wallet.localqueue.appended")
+            .description("Transaction events appended to the local queue")
+            .register(meterRegistry);
+    this.unacknowledgedCounter =
+        Counter.builder("wallet.localqueue.unacknowledged")
+            .description("Local queue events the consumer left for recovery")
+            .register(meterRegistry);
+    meterRegistry.gauge(
+        "wallet.localqueue.lag.bytes",
+        segmentLog,
+        queue -> queue.endOffset() - queue.committedOffset());
+  }
+
+  @PostConstruct
+  public void start() {
+    consumer = new Thread(this::consume, "local-queue-consumer");
+    consumer.setDaemon(true);
+    consumer.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (consumer != null) {
+      consumer.interrupt();
+      consumer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    listeners.shutdown();
+    segmentLog.close();
+  }
+
+  @Override
+  public CompletableFuture<Void> sendTransactionEventAsync(TransactionEvent event) {
+    try {
+      segmentLog.append(
+          binaryCodec
+              ? TransactionEventCodec.encode(event)
+              : objectMapper.writeValueAsBytes(event));
+      appendedCounter.increment();
+      return CompletableFuture.completedFuture(null);
+    } catch (IOException | RuntimeException e) {
+      log.error(
+          "Failed to append transaction event to the local queue for ref: {}",
+          event.getTransactionReferenceId(),
+          e);
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private void consume() {
+    long position = segmentLog.committedOffset();
+    while (running) {
+      try {
+        if (!segmentLog.awaitData(position, POLL_TIMEOUT_MS)) {
+          continue;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      List<MappedSegmentLog.Entry> entries = segmentLog.read(position, batchSize);
+      if (entries.isEmpty()) {
+        continue;
+      }
+      try {
+        deliver(entries);
+      } catch (RuntimeException e) {
+        log.error("Local queue batch of {} events failed: {}", entries.size(), e.getMessage());
+      }
+      position = entries.get(entries.size() - 1).nextOffset();
+      segmentLog.commit(position);
+    }
+  }
+
+  // Package-private for tests
+  void deliver(List<MappedSegmentLog.Entry> entries) {
+    List<Message<TransactionEvent>> messages = new ArrayList<>(entries.size());
+    for (MappedSegmentLog.Entry entry : entries) {
+      try {
+        byte[] payload = entry.payload();
+        TransactionEvent event =
+            TransactionEventCodec.isBinary(payload)
+                ? TransactionEventCodec.decode(payload)
+                : objectMapper.readValue(payload, TransactionEvent.class);
+        messages.add(MessageBuilder.withPayload(event).build());
+      } catch (IOException | IllegalArgumentException e) {
+        log.error("Skipping unreadable local queue record at {}", entry.offset(), e);
+      }
+    }
+    if (messages.isEmpty()) {
+      return;
+    }
+
+    int unacknowledged;
+    if (batchTransactionConsumer != null) {
+      LocalAcknowledgement acknowledgement = new LocalAcknowledgement(messages);
+      batchTransactionConsumer.receiveTransactionEvents(messages, acknowledgement);
+      unacknowledged = messages.size() - acknowledgement.acknowledged.size();
+    } else {
+      List<CompletableFuture<Void>> received =
+          messages.stream()
+              .map(
+                  message ->
+                      CompletableFuture.runAsync(
+                          () -> transactionConsumer.receiveTransactionEvent(message.getPayload()),
+                          listeners))
+              .toList();
+      unacknowledged = 0;
+      for (CompletableFuture<Void> future : received) {
+        try {
+          future.join();
+        } catch (RuntimeException e) {
+          unacknowledged++;
+        }
+      }
+    }
+    if (unacknowledged > 0) {
+      unacknowledgedCounter.increment(unacknowledged);
+      log.warn("{} local queue events not processed; left PENDING for recovery", unacknowledged);
+    }
+  }
+
+  /** Collects what the batch consumer acknowledges; lanes acknowledge concurrently. */
+  private static class LocalAcknowledgement implements BatchAcknowledgement<TransactionEvent> {
+
+    private final Collection<Message<TransactionEvent>> messages;
+    private final Set<Message<TransactionEvent>> acknowledged = ConcurrentHashMap.newKeySet();
+
+    LocalAcknowledgement(Collection<Message<TransactionEvent>> messages) {
+      this.messages = messages;
+    }
+
+    @Override
+    public void acknowledge() {
+      acknowledged.addAll(messages);
+    }
+
+    @Override
+    public CompletableFuture<Void> acknowledgeAsync() {
+      acknowledge();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void acknowledge(Collection<Message<TransactionEvent>> messagesToAcknowledge) {
+      acknowledged.addAll(messagesToAcknowledge);
+    }
+
+    @Override
+    public CompletableFuture<Void> acknowledgeAsync(
+        Collection<Message<TransactionEvent>> messagesToAcknowledge) {
+      acknowledge(messagesToAcknowledge);
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package com.digitalwallet.platform.service.messaging.local;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only record log in memory-mapped segment files, with one consumer offset.
+ *
+ * <p>Each segment is a file of {@code segmentBytes} named after its base offset. A record is
+ * stored as {@code [int length][int crc32c][payload]}, and an offset is the segment base plus the
+ * record's position, so offsets only grow. Appends write the payload and checksum before the
+ * length and force the written range to disk before returning; a zero length marks the end of a
+ * segment. When a record does not fit, a new segment starts at the next multiple of
+ * {@code segmentBytes}.
+ *
+ * <p>The consumer offset is kept in {@code consumer.offset} and forced on every {@link #commit}.
+ * Segments wholly below it are deleted. On open the last segment is scanned and everything after
+ * the last record with a valid checksum, such as a record torn by a crash, is zeroed, so the log
+ * resumes at the last complete record and the consumer at its last committed offset. The segment
+ * size must not shrink between runs.
+ */
+@Slf4j
+public class MappedSegmentLog implements AutoCloseable {
+
+  private static final int HEADER_BYTES = 8;
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String OFFSET_FILE = "consumer.offset";
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+  private final FileChannel offsetChannel;
+  private long activeBase;
+  private MappedByteBuffer active;
+  private int writePosition;
+  private long committedOffset;
+
+  /** A record and the offset right after it, which is where the next read starts. */
+  public record Entry(long offset, long nextOffset, byte[] payload) {}
+
+  public MappedSegmentLog(Path directory, int segmentBytes) {
+    if (segmentBytes <= HEADER_BYTES) {
+      throw new IllegalArgumentException("Segment size must exceed " + HEADER_BYTES + " bytes");
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    try {
+      Files.createDirectories(directory);
+      try (Stream<Path> files = Files.list(directory)) {
+        for (Path file : files.filter(f -> f.toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+          String name = file.getFileName().toString();
+          long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+          segments.put(base, map(file));
+        }
+      }
+      this.offsetChannel =
+          FileChannel.open(
+              directory.resolve(OFFSET_FILE),
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      this.committedOffset = readCommittedOffset();
+      if (segments.isEmpty()) {
+        // Start at the first segment boundary the consumer has not passed
+        long base = (committedOffset + segmentBytes - 1) / segmentBytes * segmentBytes;
+        segments.put(base, map(segmentPath(base)));
+      }
+      this.activeBase = segments.lastKey();
+      this.active = segments.lastEntry().getValue();
+      this.writePosition = recover(active);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not open transfer log in " + directory, e);
+    }
+    log.info(
+        "Opened transfer log in {}: {} segments, end offset {}, committed offset {}",
+        directory,
+        segments.size(),
+        endOffset(),
+        committedOffset);
+  }
+
+  /**
+   * Appends a record and forces it to disk.
+   *
+   * @return the offset right after the record
+   */
+  public synchronized long append(byte[] payload) {
+    int recordBytes = HEADER_BYTES + payload.length;
+    if (payload.length == 0) {
+      throw new IllegalArgumentException("Empty records cannot be told from the end of a segment");
+    }
+    if (recordBytes > segmentBytes) {
+      throw new IllegalArgumentException(
+          "Record of " + payload.length + " bytes exceeds the " + segmentBytes + " byte segment");
+    }
+    if (writePosition + recordBytes > segmentBytes) {
+      roll();
+    }
+    int position = writePosition;
+    active.putInt(position + 4, checksum(payload));
+    active.put(position + HEADER_BYTES, payload);
+    // The length goes last: a reader or a recovery scan never sees a record it cannot read whole
+    active.putInt(position, payload.length);
+    active.force(position, recordBytes);
+    writePosition += recordBytes;
+    notifyAll();
+    return endOffset();
+  }
+
+  /** Reads up to {@code maxRecords} records starting at {@code offset}. */
+  public synchronized List<Entry> read(long offset, int maxRecords) {
+    List<Entry> entries = new ArrayList<>(Math.min(maxRecords, 64));
+    long end = endOffset();
+    while (entries.size() < maxRecords && offset < end) {
+      Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(offset);
+      if (segment == null) {
+        // Deleted already: resume at the oldest segment left
+        offset = segments.firstKey();
+        continue;
+      }
+      MappedByteBuffer buffer = segment.getValue();
+      int position = (int) (offset - segment.getKey());
+      int length = position + HEADER_BYTES <= segmentBytes ? buffer.getInt(position) : 0;
+      if (length == 0) {
+        Long next = segments.higherKey(segment.getKey());
+        if (next == null) {
+          break;
+        }
+        offset = next;
+        continue;
+      }
+      byte[] payload = new byte[length];
+      buffer.get(position + HEADER_BYTES, payload);
+      long nextOffset = offset + HEADER_BYTES + length;
+      entries.add(new Entry(offset, nextOffset, payload));
+      offset = nextOffset;
+    }
+    return entries;
+  }
+
+  /** Waits until a record exists at or after {@code offset}, or the timeout passes. */
+  public synchronized boolean awaitData(long offset, long timeoutMs) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    while (offset >= endOffset()) {
+      long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if (remainingMs <= 0) {
+        return false;
+      }
+      wait(remainingMs);
+    }
+    return true;
+  }
+
+  /** Persists the consumer offset and deletes the segments that lie wholly below it. */
+  public synchronized void commit(long offset) {
+    if (offset <= committedOffset) {
+      return;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+      offsetChannel.write(buffer, 0);
+      offsetChannel.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not persist transfer log offset " + offset, e);
+    }
+    committedOffset = offset;
+
+    Long floor = segments.floorKey(offset);
+    for (Long base : List.copyOf(segments.headMap(floor == null ? offset : floor).keySet())) {
+      segments.remove(base);
+      try {
+        Files.deleteIfExists(segmentPath(base));
+      } catch (IOException e) {
+        log.warn("Could not delete consumed transfer log segment {}: {}", base, e.getMessage());
+      }
+    }
+  }
+
+  public synchronized long committedOffset() {
+    return committedOffset;
+  }
+
+  public synchronized long endOffset() {
+    return activeBase + writePosition;
+  }
+
+  public synchronized int segmentCount() {
+    return segments.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    active.force();
+    try {
+      offsetChannel.close();
+    } catch (IOException e) {
+      log.warn("Could not close transfer log offset file: {}", e.getMessage());
+    }
+  }
+
+  private void roll() {
+    try {
+      long base = activeBase + segmentBytes;
+      MappedByteBuffer segment = map(segmentPath(base));
+      active.force();
+      segments.put(base, segment);
+      activeBase = base;
+      active = segment;
+      writePosition = 0;
+      log.debug("Transfer log rolled to segment {}", base);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not create transfer log segment", e);
+    }
+  }
+
+  // Finds the end of the last complete record and zeroes whatever follows it
+  private int recover(MappedByteBuffer segment) {
+    int position = 0;
+    while (position + HEADER_BYTES <= segmentBytes) {
+      int length = segment.getInt(position);
+      if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      segment.get(position + HEADER_BYTES, payload);
+      if (checksum(payload) != segment.getInt(position + 4)) {
+        log.warn("Discarding torn transfer log record at {}", activeBase + position);
+        break;
+      }
+      position += HEADER_BYTES + length;
+    }
+    for (int i = position; i < segmentBytes; i++) {
+      if (segment.get(i) != 0) {
+        segment.put(i, (byte) 0);
+      }
+    }
+    segment.force();
+    return position;
+  }
+
+  private long readCommittedOffset() throws IOException {
+    if (offsetChannel.size() < Long.BYTES) {
+      return 0;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+    offsetChannel.read(buffer, 0);
+    return buffer.getLong(0);
+  }
+
+  private MappedByteBuffer map(Path file) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // Mapping past the end grows the file; the new bytes read as zero
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+  }
+
+  private Path segmentPath(long base) {
+    return directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+  }
+
+  private static int checksum(byte[] payload) {
+    CRC32C crc = new CRC32C();
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+}
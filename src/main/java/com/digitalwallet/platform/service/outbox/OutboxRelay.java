@@ -0,0 +1,184 @@
+package com.digitalwallet.platform.service.outbox;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.model.OutboxEvent;
+import com.digitalwallet.platform.repository.OutboxEventRepository;
+import com.digitalwallet.platform.service.messaging.TransactionEventPublisher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Publishes {@code outbox_events} rows to the transaction queue: SQS, or the local queue when SQS
+ * is disabled.
+ *
+ * <p>Each run claims up to {@code batch-size} unsent rows with {@code FOR UPDATE SKIP LOCKED},
+ * hands them to the {@link TransactionEventPublisher} and marks the ones the queue accepted as
+ * sent in the same transaction, repeating while full batches come back. Replicas running the relay
+ * concurrently skip each other's rows instead of publishing them twice. A row the queue rejects,
+ * or has not accepted within {@code send-timeout-ms}, is retried after an exponential backoff, so
+ * a stalled queue cannot hold the batch's row locks open; a crash between sending and committing
+ * republishes the batch, which consumers already tolerate.
+ *
+ * <p>{@code wallet.outbox.lag.seconds} is the age of the oldest unsent row as of the last run.
+ */
+@Component
+@Slf4j
+@ConditionalOnExpression(
+    "${spring.cloud.aws.sqs.enabled:false} or ${app.messaging.local-queue.enabled:false}")
+public class OutboxRelay {
+
+  private static final int MAX_ERROR_LENGTH = 500;
+  private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final TransactionEventPublisher transactionEventPublisher;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final long retryBackoffMs;
+  private final long sendTimeoutMs;
+  private final Duration retention;
+  private final Counter publishedCounter;
+  private final Counter failureCounter;
+  private volatile double lagSeconds;
+
+  public OutboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      TransactionEventPublisher transactionEventPublisher,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.outbox.relay.batch-size:100}") int batchSize,
+      @Value("${app.outbox.relay.retry-backoff-ms:1000}") long retryBackoffMs,
+      @Value("${app.outbox.relay.send-timeout-ms:5000}") long sendTimeoutMs,
+      @Value("${app.outbox.retention-hours:24}") long retentionHours) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.transactionEventPublisher = transactionEventPublisher;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.retryBackoffMs = retryBackoffMs;
+    this.sendTimeoutMs = sendTimeoutMs;
+    this.retention = Duration.ofHours(retentionHours);
+    this.publishedCounter =
+        Counter.builder("wallet.outbox.published")
+            .description("Outbox events published to the transaction queue")
+            .register(meterRegistry);
+    this.failureCounter =
+        Counter.builder("wallet.outbox.publish.failures")
+            .description("Outbox events that could not be published and were backed off")
+            .register(meterRegistry);
+    meterRegistry.gauge("wallet.outbox.lag.seconds", this, relay -> relay.lagSeconds);
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:200}")
+  public void relay() {
+    try {
+      Integer claimed;
+      do {
+        claimed = transactionTemplate.execute(status -> publishBatch());
+      } while (claimed != null && claimed == batchSize);
+      updateLag();
+    } catch (RuntimeException e) {
+      log.error("Outbox relay run failed: {}", e.getMessage(), e);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:3600000}")
+  public void deletePublished() {
+    int deleted = outboxEventRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+    if (deleted > 0) {
+      log.info("Deleted {} published outbox events", deleted);
+    }
+  }
+
+  // Package-private for tests; must run inside a transaction
+  int publishBatch() {
+    List<OutboxEvent> rows = outboxEventRepository.claimBatch(batchSize);
+    if (rows.isEmpty()) {
+      return 0;
+    }
+
+    // Hand every row to the producer first, so its senders fill and send batches in parallel
+    Map<OutboxEvent, CompletableFuture<Void>> sends = new LinkedHashMap<>();
+    for (OutboxEvent row : rows) {
+      switch (row.getEventType()) {
+        case TRANSFER_INITIATED -> {
+          try {
+            TransactionEvent event =
+                objectMapper.readValue(row.getPayload(), TransactionEvent.class);
+            // All rows' timeouts run at once, so the batch waits send-timeout-ms at most
+            sends.put(
+                row,
+                transactionEventPublisher
+                    .sendTransactionEventAsync(event)
+                    .orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS));
+          } catch (JsonProcessingException e) {
+            backOff(row, "Unreadable payload: " + e.getOriginalMessage());
+          }
+        }
+      }
+    }
+
+    List<Long> sent = new ArrayList<>(sends.size());
+    sends.forEach(
+        (row, send) -> {
+          try {
+            send.join();
+            sent.add(row.getId());
+          } catch (CompletionException e) {
+            backOff(
+                row,
+                e.getCause() instanceof TimeoutException
+                    ? "Not accepted by the queue within " + sendTimeoutMs + " ms"
+                    : String.valueOf(e.getCause().getMessage()));
+          }
+        });
+    if (!sent.isEmpty()) {
+      outboxEventRepository.markSent(sent);
+      publishedCounter.increment(sent.size());
+    }
+    return rows.size();
+  }
+
+  private void backOff(OutboxEvent row, String error) {
+    long delayMs = retryBackoffMs << Math.min(row.getAttempts(), MAX_BACKOFF_DOUBLINGS);
+    outboxEventRepository.markFailed(
+        List.of(row.getId()),
+        error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+        LocalDateTime.now().plus(Duration.ofMillis(delayMs)));
+    failureCounter.increment();
+    log.warn(
+        "Outbox event {} ({} {}) not published, retrying in {} ms: {}",
+        row.getId(),
+        row.getEventType(),
+        row.getAggregateId(),
+        delayMs,
+        error);
+  }
+
+  private void updateLag() {
+    LocalDateTime oldest = outboxEventRepository.findOldestUnsentCreatedAt();
+    lagSeconds =
+        oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+  }
+}
@@ -0,0 +1,71 @@
+package com.digitalwallet.platform.service.outbox;
+
+import com.digitalwallet.platform.model.OutboxEvent;
+import com.digitalwallet.platform.model.OutboxEventType;
+import com.digitalwallet.platform.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records messages in {@code outbox_events} as part of the caller's transaction.
+ *
+ * <p>The message exists exactly when the rows it describes commit, and {@link OutboxRelay}
+ * publishes it afterwards, so requests no longer wait on SQS and a consumer can never see a
+ * message before its transaction is visible. Disabled (a no-op) unless SQS or the local queue is
+ * on, as nothing would relay the rows.
+ */
+@Component
+@Slf4j
+public class OutboxWriter {
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+
+  public OutboxWriter(
+      OutboxEventRepository outboxEventRepository,
+      ObjectMapper objectMapper,
+      @Value(
+              "${app.outbox.enabled:#{${spring.cloud.aws.sqs.enabled:false}"
+                  + " or ${app.messaging.local-queue.enabled:false}}}")
+          boolean enabled) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.objectMapper = objectMapper;
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void enqueue(OutboxEventType type, Long aggregateId, Object payload) {
+    if (!enabled) {
+      log.debug("Outbox disabled — {} for {} not recorded", type, aggregateId);
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    outboxEventRepository.save(
+        OutboxEvent.builder()
+            .eventType(type)
+            .aggregateId(aggregateId)
+            .payload(serialize(payload))
+            .createdAt(now)
+            .availableAt(now)
+            .build());
+  }
+
+  private String serialize(Object payload) {
+    try {
+      return objectMapper.writeValueAsString(payload);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Could not serialize outbox event", e);
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package com.digitalwallet.platform.service.transfer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs money movements in a database transaction, optionally committing many at once.
+ *
+ * <p>With {@code app.persistence.group-commit.enabled=false} (the default) every unit of work gets
+ * its own transaction on the calling thread, exactly like {@code @Transactional}. When enabled,
+ * units of work from concurrent requests are collected for up to {@code window-ms} (or until
+ * {@code max-batch} are waiting) and executed back to back by a writer thread inside one
+ * transaction. Their {@code Transaction} inserts are flushed together at commit as one JDBC batch,
+ * and each caller gets its result only after that commit.
+ *
+ * <p>A unit of work that refuses to proceed before writing anything should throw {@link Rejected}:
+ * only its caller fails and the rest of the group still commits. Any other exception rolls the
+ * group back, and its members are then re-run one transaction each so that only the faulty one
+ * fails.
+ */
+@Component
+@Slf4j
+public class GroupCommitWriter {
+
+  /** Thrown by a unit of work that made no changes; fails only that caller. */
+  public static class Rejected extends RuntimeException {
+    public Rejected(String message) {
+      super(message);
+    }
+  }
+
+  private final TransactionTemplate transactionTemplate;
+  private final EntityManager entityManager;
+  private final boolean enabled;
+  private final long windowNanos;
+  private final int maxBatch;
+  private final int writerCount;
+  private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+  private final List<Thread> writers = new ArrayList<>();
+  private final DistributionSummary batchSizes;
+  private volatile boolean running = true;
+
+  public GroupCommitWriter(
+      PlatformTransactionManager transactionManager,
+      EntityManager entityManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.persistence.group-commit.enabled:false}") boolean enabled,
+      @Value("${app.persistence.group-commit.window-ms:2}") long windowMs,
+      @Value("${app.persistence.group-commit.max-batch:128}") int maxBatch,
+      @Value("${app.persistence.group-commit.writers:2}") int writerCount) {
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.entityManager = entityManager;
+    this.enabled = enabled;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    this.maxBatch = maxBatch;
+    this.writerCount = writerCount;
+    this.batchSizes =
+        DistributionSummary.builder("wallet.persistence.group_commit.size")
+            .description("Units of work committed per database transaction")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    for (int i = 0; i < writerCount; i++) {
+      Thread writer = new Thread(this::drain, "group-commit-" + i);
+      writer.setDaemon(true);
+      writer.start();
+      writers.add(writer);
+    }
+    log.info(
+        "Group commit enabled: {} writers, {} us window, up to {} per commit",
+        writerCount,
+        TimeUnit.NANOSECONDS.toMicros(windowNanos),
+        maxBatch);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    writers.forEach(Thread::interrupt);
+  }
+
+  /** Runs {@code work} in a transaction and returns its result once that transaction commits. */
+  public <T> T execute(Supplier<T> work) {
+    if (!enabled || !running) {
+      return transactionTemplate.execute(status -> work.get());
+    }
+    Pending<T> pending = new Pending<>(work);
+    queue.add(pending);
+    try {
+      return pending.result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private void drain() {
+    List<Pending<?>> batch = new ArrayList<>(maxBatch);
+    while (running || !queue.isEmpty()) {
+      try {
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatch) {
+          long remaining = deadline - System.nanoTime();
+          Pending<?> next =
+              remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (InterruptedException e) {
+        if (!running) {
+          queue.drainTo(batch);
+        }
+      }
+      if (!batch.isEmpty()) {
+        commit(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void commit(List<Pending<?>> batch) {
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            // Defer every insert to commit time so they go out as one JDBC batch
+            entityManager.setFlushMode(FlushModeType.COMMIT);
+            batch.forEach(Pending::run);
+          });
+      batchSizes.record(batch.size());
+      batch.forEach(Pending::acknowledge);
+    } catch (RuntimeException e) {
+      if (batch.size() > 1) {
+        log.warn(
+            "Group commit of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+        batch.forEach(pending -> commit(List.of(pending)));
+        return;
+      }
+      batch.get(0).result.completeExceptionally(e);
+    }
+  }
+
+  private static final class Pending<T> {
+    private final Supplier<T> work;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private T value;
+    private Rejected rejected;
+
+    private Pending(Supplier<T> work) {
+      this.work = work;
+    }
+
+    private void run() {
+      value = null;
+      rejected = null;
+      try {
+        value = work.get();
+      } catch (Rejected e) {
+        rejected = e;
+      }
+    }
+
+    private void acknowledge() {
+      if (rejected != null) {
+        result.completeExceptionally(rejected);
+      } else {
+        result.complete(value);
+      }
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.digitalwallet.platform.service.transfer;
+
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.WalletBalanceSlotRepository;
+import com.digitalwallet.platform.repository.WalletRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Spreads transfer credits to hot receiver wallets over {@code wallet_balance_slots} rows.
+ *
+ * <p>A wallet that receives more than {@code promote-credits-per-window} transfer credits in one
+ * window on this instance is promoted: its slot rows are created and {@code
+ * wallets.balance_slots} is set. From then on each credit lands in a random slot, so concurrent
+ * payers no longer queue on the one {@code wallets} row. When traffic drops below {@code
+ * demote-credits-per-window} the slots are folded back into the wallet and removed.
+ *
+ * <p>The wallet total is always {@code wallets.balance} plus the sum of its slots, so crediting the
+ * main row is correct at any time; instances that have not yet seen a promotion simply keep doing
+ * so. Debits still go through the main row (it carries the spending limits) and consolidate the
+ * slots first when the main row alone cannot cover the amount.
+ */
+@Component
+@Slf4j
+public class HotWalletManager {
+
+  private final WalletRepository walletRepository;
+  private final WalletBalanceSlotRepository walletBalanceSlotRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int slotCount;
+  private final long promoteThreshold;
+  private final long demoteThreshold;
+  private final Counter promotionCounter;
+  private final Counter demotionCounter;
+
+  private final AtomicReference<Map<Long, LongAdder>> creditsInWindow =
+      new AtomicReference<>(new ConcurrentHashMap<>());
+  private final Set<Long> promotedHere = ConcurrentHashMap.newKeySet();
+  private volatile Map<Long, Integer> slotsByWalletId = Map.of();
+  private volatile Map<String, Long> walletIdByNumber = Map.of();
+
+  public HotWalletManager(
+      WalletRepository walletRepository,
+      WalletBalanceSlotRepository walletBalanceSlotRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.transfer.hot-wallets.enabled:false}") boolean enabled,
+      @Value("${app.transfer.hot-wallets.slots:8}") int slotCount,
+      @Value("${app.transfer.hot-wallets.promote-credits-per-window:200}") long promoteThreshold,
+      @Value("${app.transfer.hot-wallets.demote-credits-per-window:20}") long demoteThreshold) {
+    this.walletRepository = walletRepository;
+    this.walletBalanceSlotRepository = walletBalanceSlotRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.slotCount = slotCount;
+    this.promoteThreshold = promoteThreshold;
+    this.demoteThreshold = demoteThreshold;
+    this.promotionCounter =
+        Counter.builder("wallet.hot.promotions")
+            .description("Wallets promoted to sharded balance slots")
+            .register(meterRegistry);
+    this.demotionCounter =
+        Counter.builder("wallet.hot.demotions")
+            .description("Wallets whose balance slots were folded back into the wallet")
+            .register(meterRegistry);
+    meterRegistry.gauge("wallet.hot.count", this, manager -> manager.slotsByWalletId.size());
+  }
+
+  /** Picks a balance slot for a transfer credit, or empty if the wallet is not sharded. */
+  public OptionalInt slotFor(Long walletId) {
+    Integer slots = enabled ? slotsByWalletId.get(walletId) : null;
+    if (slots == null || slots <= 0) {
+      return OptionalInt.empty();
+    }
+    return OptionalInt.of(ThreadLocalRandom.current().nextInt(slots));
+  }
+
+  public Optional<Long> hotWalletIdFor(String walletNumber) {
+    return enabled ? Optional.ofNullable(walletIdByNumber.get(walletNumber)) : Optional.empty();
+  }
+
+  public void recordCredit(Long walletId) {
+    if (enabled && walletId != null) {
+      creditsInWindow.get().computeIfAbsent(walletId, id -> new LongAdder()).increment();
+    }
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.transfer.hot-wallets.window-ms:10000}",
+      initialDelayString = "${app.transfer.hot-wallets.window-ms:10000}")
+  public void rebalance() {
+    if (!enabled) {
+      return;
+    }
+    Map<Long, LongAdder> window = creditsInWindow.getAndSet(new ConcurrentHashMap<>());
+    try {
+      // Pick up promotions and demotions made by other instances first
+      refreshHotWallets();
+
+      window.forEach(
+          (walletId, credits) -> {
+            if (!slotsByWalletId.containsKey(walletId) && credits.sum() >= promoteThreshold) {
+              promote(walletId, credits.sum());
+            }
+          });
+
+      // Only demote what this instance promoted; other instances judge their own traffic
+      for (Long walletId : Set.copyOf(promotedHere)) {
+        LongAdder credits = window.get(walletId);
+        if (credits == null || credits.sum() <= demoteThreshold) {
+          demote(walletId);
+        }
+      }
+
+      refreshHotWallets();
+    } catch (RuntimeException e) {
+      log.error("Hot wallet rebalance failed: {}", e.getMessage(), e);
+    }
+  }
+
+  private void promote(Long walletId, long credits) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          walletBalanceSlotRepository.createSlots(walletId, slotCount);
+          walletRepository.updateBalanceSlots(walletId, slotCount);
+        });
+    promotedHere.add(walletId);
+    promotionCounter.increment();
+    log.info(
+        "Wallet {} promoted to {} balance slots after {} credits in one window",
+        walletId,
+        slotCount,
+        credits);
+  }
+
+  private void demote(Long walletId) {
+    // Slot rows are locked before the wallet row, the same order a consolidating debit uses
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          walletBalanceSlotRepository.consolidateIntoWallet(walletId);
+          walletRepository.updateBalanceSlots(walletId, 0);
+          walletBalanceSlotRepository.deleteSlots(walletId);
+        });
+    promotedHere.remove(walletId);
+    demotionCounter.increment();
+    log.info("Wallet {} balance slots folded back into the wallet", walletId);
+  }
+
+  private void refreshHotWallets() {
+    Map<Long, Integer> slots = new HashMap<>();
+    Map<String, Long> ids = new HashMap<>();
+    for (Wallet wallet : walletRepository.findByBalanceSlotsGreaterThan(0)) {
+      slots.put(wallet.getId(), wallet.getBalanceSlots());
+      ids.put(wallet.getWalletNumber(), wallet.getId());
+    }
+    slotsByWalletId = Map.copyOf(slots);
+    walletIdByNumber = Map.copyOf(ids);
+    promotedHere.retainAll(slots.keySet());
+  }
+}
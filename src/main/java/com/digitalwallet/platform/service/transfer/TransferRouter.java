@@ -0,0 +1,157 @@
+package com.digitalwallet.platform.service.transfer;
+
+import com.digitalwallet.platform.model.Wallet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether a wallet transfer runs inline in the request or goes through the async queue.
+ *
+ * <p>Most transfers touch idle wallets and can complete in the request's own transaction, like
+ * {@code TransactionService.transfer}, instead of coming back PENDING. A transfer is queued when
+ * inline execution is disabled, its amount exceeds {@code inline-max-amount}, either wallet is
+ * sharded into balance slots, or either wallet saw contention on this instance within the last
+ * {@code contention-window-ms}. Contention is a lock timeout or deadlock, a conditional debit that
+ * lost a race, or a balance update that took longer than {@code slow-update-ms}; it is reported by
+ * the inline path and by the queue consumer.
+ *
+ * <p>Every decision is counted in {@code wallet.transfer.route}, tagged with the route and reason.
+ */
+@Component
+@Slf4j
+public class TransferRouter {
+
+  public enum Route {
+    INLINE,
+    QUEUED
+  }
+
+  public enum Reason {
+    IDLE(Route.INLINE),
+    DISABLED(Route.QUEUED),
+    LARGE_AMOUNT(Route.QUEUED),
+    HOT_WALLET(Route.QUEUED),
+    RECENT_CONTENTION(Route.QUEUED),
+    // Chosen inline, but the conditional debit lost a race, so it was handed to the queue
+    LOST_RACE(Route.QUEUED);
+
+    private final Route route;
+
+    Reason(Route route) {
+      this.route = route;
+    }
+
+    public Route getRoute() {
+      return route;
+    }
+  }
+
+  private final boolean inlineEnabled;
+  private final BigDecimal inlineMaxAmount;
+  private final long contentionWindowNanos;
+  private final long slowUpdateNanos;
+  // Wallet id -> System.nanoTime() until which the wallet counts as contended
+  private final Map<Long, Long> contendedUntil = new ConcurrentHashMap<>();
+  private final Map<Reason, Counter> decisions = new EnumMap<>(Reason.class);
+  private final Timer inlineTimer;
+
+  public TransferRouter(
+      MeterRegistry meterRegistry,
+      @Value("${app.transfer.routing.inline-enabled:true}") boolean inlineEnabled,
+      @Value("${app.transfer.routing.inline-max-amount:10000}") BigDecimal inlineMaxAmount,
+      @Value("${app.transfer.routing.contention-window-ms:30000}") long contentionWindowMs,
+      @Value("${app.transfer.routing.slow-update-ms:50}") long slowUpdateMs) {
+    this.inlineEnabled = inlineEnabled;
+    this.inlineMaxAmount = inlineMaxAmount;
+    this.contentionWindowNanos = TimeUnit.MILLISECONDS.toNanos(contentionWindowMs);
+    this.slowUpdateNanos = TimeUnit.MILLISECONDS.toNanos(slowUpdateMs);
+    for (Reason reason : Reason.values()) {
+      decisions.put(
+          reason,
+          Counter.builder("wallet.transfer.route")
+              .description("Transfers by execution route and the reason it was chosen")
+              .tag("route", reason.getRoute().name())
+              .tag("reason", reason.name())
+              .register(meterRegistry));
+    }
+    this.inlineTimer =
+        Timer.builder("wallet.transfer.inline")
+            .description("Balance updates of transfers executed inline in the request")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    meterRegistry.gauge("wallet.transfer.contended", contendedUntil, Map::size);
+  }
+
+  /** Picks the route for a transfer and counts the decision. */
+  public Reason route(Wallet sender, Wallet receiver, BigDecimal amount) {
+    Reason reason = decide(sender, receiver, amount);
+    decisions.get(reason).increment();
+    log.debug(
+        "Transfer {} -> {} routed {} ({})",
+        sender.getId(),
+        receiver.getId(),
+        reason.getRoute(),
+        reason);
+    return reason;
+  }
+
+  /** Counts an inline transfer that had to fall back to the queue. */
+  public void fellBack(Reason reason) {
+    decisions.get(reason).increment();
+  }
+
+  /** Records the duration of an inline balance update, marking the wallets if it was slow. */
+  public void recordInline(long elapsedNanos, Long... walletIds) {
+    inlineTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    if (elapsedNanos > slowUpdateNanos) {
+      recordContention(walletIds);
+    }
+  }
+
+  /** Marks wallets as contended, so their transfers are queued for the next window. */
+  public void recordContention(Long... walletIds) {
+    long until = System.nanoTime() + contentionWindowNanos;
+    for (Long walletId : walletIds) {
+      if (walletId != null) {
+        contendedUntil.put(walletId, until);
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.transfer.routing.contention-window-ms:30000}")
+  public void expireContention() {
+    long now = System.nanoTime();
+    contendedUntil.values().removeIf(until -> until - now <= 0);
+  }
+
+  private Reason decide(Wallet sender, Wallet receiver, BigDecimal amount) {
+    if (!inlineEnabled) {
+      return Reason.DISABLED;
+    }
+    if (amount.compareTo(inlineMaxAmount) > 0) {
+      return Reason.LARGE_AMOUNT;
+    }
+    if (sender.hasBalanceSlots() || receiver.hasBalanceSlots()) {
+      return Reason.HOT_WALLET;
+    }
+    if (isContended(sender.getId()) || isContended(receiver.getId())) {
+      return Reason.RECENT_CONTENTION;
+    }
+    return Reason.IDLE;
+  }
+
+  private boolean isContended(Long walletId) {
+    Long until = contendedUntil.get(walletId);
+    return until != null && until - System.nanoTime() > 0;
+  }
+}
@@ -0,0 +1,284 @@
+package com.digitalwallet.platform.service.transfer;
+
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.repository.LedgerEntryRepository;
+import com.digitalwallet.platform.repository.WalletBalanceSlotRepository;
+import com.digitalwallet.platform.repository.WalletBalanceView;
+import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult.Rejection;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves money with the single-statement conditional updates in {@link WalletRepository}.
+ *
+ * <p>The happy path is exactly one round trip per wallet. Only when an update is refused is the
+ * wallet read back, to tell the caller which rule it broke.
+ *
+ * <p>Transfer credits to wallets promoted by {@link HotWalletManager} go to one of the wallet's
+ * balance slots instead of its row. A debit that the row alone cannot cover folds the slots back
+ * into the row and is retried once.
+ *
+ * <p>With {@code app.ledger.entries.defer-credits=true} credits do not touch {@code wallets} at
+ * all: the wallet is only looked up and the caller's CREDIT ledger leg is left for {@code
+ * LedgerMaterializer} to fold in. Debits always update the row, since the overdraft check needs a
+ * balance that cannot be raced; one that fails for lack of funds materializes the tail and retries.
+ */
+@Component
+@Slf4j
+public class WalletBalanceOperations {
+
+  // Same effect as WalletRepository's creditById, bound per row of a JDBC batch
+  private static final String BATCH_CREDIT =
+      "UPDATE wallets SET balance = balance + ?, version = COALESCE(version, 0) + 1, "
+          + "updated_at = CURRENT_TIMESTAMP WHERE id = ? AND status = 'ACTIVE'";
+
+  private final WalletRepository walletRepository;
+  private final WalletBalanceSlotRepository walletBalanceSlotRepository;
+  private final LedgerEntryRepository ledgerEntryRepository;
+  private final HotWalletManager hotWalletManager;
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManager entityManager;
+  private final boolean deferCredits;
+
+  public WalletBalanceOperations(
+      WalletRepository walletRepository,
+      WalletBalanceSlotRepository walletBalanceSlotRepository,
+      LedgerEntryRepository ledgerEntryRepository,
+      HotWalletManager hotWalletManager,
+      JdbcTemplate jdbcTemplate,
+      EntityManager entityManager,
+      @Value("${app.ledger.entries.defer-credits:false}") boolean deferCredits) {
+    this.walletRepository = walletRepository;
+    this.walletBalanceSlotRepository = walletBalanceSlotRepository;
+    this.ledgerEntryRepository = ledgerEntryRepository;
+    this.hotWalletManager = hotWalletManager;
+    this.jdbcTemplate = jdbcTemplate;
+    this.entityManager = entityManager;
+    this.deferCredits = deferCredits;
+  }
+
+  /** Whether part of a wallet's balance may sit in the ledger tail rather than its row. */
+  public boolean defersCredits() {
+    return deferCredits;
+  }
+
+  public WalletUpdateResult debitById(Long walletId, BigDecimal amount) {
+    return debit(
+        walletRepository.debitById(walletId, amount),
+        () -> walletRepository.findById(walletId),
+        amount,
+        amount,
+        id -> walletRepository.debitById(id, amount));
+  }
+
+  public WalletUpdateResult debitByUserId(Long userId, BigDecimal amount) {
+    return debit(
+        walletRepository.debitByUserId(userId, amount),
+        () -> walletRepository.findByUserId(userId),
+        amount,
+        amount,
+        id -> walletRepository.debitById(id, amount));
+  }
+
+  /** Debits a batch payout total; the per-transaction limit applies to its largest line. */
+  public WalletUpdateResult debitBatchByUserId(
+      Long userId, BigDecimal total, BigDecimal largestLine) {
+    return debit(
+        walletRepository.debitBatchByUserId(userId, total, largestLine),
+        () -> walletRepository.findByUserId(userId),
+        total,
+        largestLine,
+        id -> walletRepository.debitBatchById(id, total, largestLine));
+  }
+
+  /**
+   * Credits many wallets with one JDBC batch of updates, applied in wallet id order.
+   *
+   * @return false if the credits were deferred to the ledger instead of applied
+   */
+  public boolean creditAllById(SortedMap<Long, BigDecimal> amountsByWalletId) {
+    if (deferCredits || amountsByWalletId.isEmpty()) {
+      return !deferCredits;
+    }
+    List<Object[]> rows = new ArrayList<>(amountsByWalletId.size());
+    amountsByWalletId.forEach((walletId, amount) -> rows.add(new Object[] {amount, walletId}));
+    int[][] counts = jdbcTemplate.batchUpdate(BATCH_CREDIT, rows, rows.size(), this::bindCredit);
+    for (int[] chunk : counts) {
+      for (int count : chunk) {
+        if (count == 0) {
+          throw new IllegalStateException(
+              "Batch credit target wallet no longer exists or is no longer active");
+        }
+      }
+    }
+    return true;
+  }
+
+  private void bindCredit(PreparedStatement statement, Object[] row) throws SQLException {
+    statement.setBigDecimal(1, (BigDecimal) row[0]);
+    statement.setLong(2, (Long) row[1]);
+  }
+
+  public WalletUpdateResult creditById(Long walletId, BigDecimal amount) {
+    if (deferCredits) {
+      return deferredCredit(
+          walletRepository.findDeferredCreditById(walletId, amount),
+          () -> walletRepository.findById(walletId),
+          amount);
+    }
+    hotWalletManager.recordCredit(walletId);
+    Optional<WalletBalanceView> credited = creditBalanceSlot(walletId, amount);
+    return credit(
+        credited.isPresent() ? credited : walletRepository.creditById(walletId, amount),
+        () -> walletRepository.findById(walletId),
+        amount);
+  }
+
+  public WalletUpdateResult creditByUserId(Long userId, BigDecimal amount) {
+    if (deferCredits) {
+      return deferredCredit(
+          walletRepository.findDeferredCreditByUserId(userId, amount),
+          () -> walletRepository.findByUserId(userId),
+          amount);
+    }
+    return credit(
+        walletRepository.creditByUserId(userId, amount),
+        () -> walletRepository.findByUserId(userId),
+        amount);
+  }
+
+  public WalletUpdateResult creditByWalletNumber(String walletNumber, BigDecimal amount) {
+    if (deferCredits) {
+      return deferredCredit(
+          walletRepository.findDeferredCreditByWalletNumber(walletNumber, amount),
+          () -> walletRepository.findByWalletNumber(walletNumber),
+          amount);
+    }
+    Optional<WalletBalanceView> credited =
+        hotWalletManager
+            .hotWalletIdFor(walletNumber)
+            .flatMap(walletId -> creditBalanceSlot(walletId, amount));
+    if (credited.isEmpty()) {
+      credited = walletRepository.creditByWalletNumber(walletNumber, amount);
+    }
+    credited.ifPresent(wallet -> hotWalletManager.recordCredit(wallet.getId()));
+    return credit(credited, () -> walletRepository.findByWalletNumber(walletNumber), amount);
+  }
+
+  // Empty when the wallet is not sharded or its slots were just folded back into the row
+  private Optional<WalletBalanceView> creditBalanceSlot(Long walletId, BigDecimal amount) {
+    OptionalInt slot = hotWalletManager.slotFor(walletId);
+    if (slot.isEmpty()) {
+      return Optional.empty();
+    }
+    return walletBalanceSlotRepository.creditSlot(walletId, slot.getAsInt(), amount);
+  }
+
+  private WalletUpdateResult debit(
+      Optional<WalletBalanceView> updated,
+      Supplier<Optional<Wallet>> currentState,
+      BigDecimal amount,
+      BigDecimal limitAmount,
+      Function<Long, Optional<WalletBalanceView>> retryById) {
+    if (updated.isPresent()) {
+      return WalletUpdateResult.applied(updated.get(), amount);
+    }
+    Optional<Wallet> current = currentState.get();
+    if (current.isEmpty()) {
+      return WalletUpdateResult.rejected(Rejection.WALLET_NOT_FOUND, null, amount);
+    }
+    Wallet wallet = current.get();
+    // The caller may have loaded the wallet earlier in the transaction, before other updates of
+    // the same batch moved its balance; the refused update is judged against the row as it is now
+    entityManager.refresh(wallet);
+    Rejection rejection = diagnoseDebit(wallet, wallet.getBalance(), amount, limitAmount);
+
+    if (rejection == Rejection.INSUFFICIENT_BALANCE && wallet.hasBalanceSlots()) {
+      // Part of the balance sits in slots: fold it into the row and try once more
+      BigDecimal consolidated = walletBalanceSlotRepository.consolidateIntoWallet(wallet.getId());
+      Optional<WalletBalanceView> retried = retryById.apply(wallet.getId());
+      if (retried.isPresent()) {
+        return WalletUpdateResult.applied(retried.get(), amount);
+      }
+      rejection = diagnoseDebit(wallet, consolidated, amount, limitAmount);
+    }
+
+    if (rejection == Rejection.INSUFFICIENT_BALANCE && deferCredits) {
+      // Credits may still be in the ledger tail: materialize them and try once more
+      BigDecimal materialized = ledgerEntryRepository.materializeWallet(wallet.getId());
+      Optional<WalletBalanceView> retried = retryById.apply(wallet.getId());
+      if (retried.isPresent()) {
+        return WalletUpdateResult.applied(retried.get(), amount);
+      }
+      rejection = diagnoseDebit(wallet, materialized, amount, limitAmount);
+    }
+    log.debug("Debit of {} rejected for wallet {}: {}", amount, wallet.getId(), rejection);
+    return WalletUpdateResult.rejected(rejection, wallet, amount);
+  }
+
+  // limitAmount is what the per-transaction limit is checked against: the amount itself, or the
+  // largest line of a batch
+  private Rejection diagnoseDebit(
+      Wallet wallet, BigDecimal balance, BigDecimal amount, BigDecimal limitAmount) {
+    Rejection rejection = Rejection.CONCURRENT_UPDATE;
+    BigDecimal dailySpent =
+        wallet.getTotalDailySpent() != null ? wallet.getTotalDailySpent() : BigDecimal.ZERO;
+
+    if (wallet.getStatus() != WalletStatus.ACTIVE) {
+      rejection = Rejection.WALLET_INACTIVE;
+    } else if (balance == null || balance.compareTo(amount) < 0) {
+      rejection = Rejection.INSUFFICIENT_BALANCE;
+    } else if (wallet.getTransactionLimit() != null
+        && limitAmount.compareTo(wallet.getTransactionLimit()) > 0) {
+      rejection = Rejection.TRANSACTION_LIMIT_EXCEEDED;
+    } else if (wallet.getDailyLimit() != null
+        && dailySpent.add(amount).compareTo(wallet.getDailyLimit()) > 0) {
+      rejection = Rejection.DAILY_LIMIT_EXCEEDED;
+    }
+    return rejection;
+  }
+
+  private WalletUpdateResult deferredCredit(
+      Optional<WalletBalanceView> target,
+      Supplier<Optional<Wallet>> currentState,
+      BigDecimal amount) {
+    if (target.isPresent()) {
+      return WalletUpdateResult.deferred(target.get(), amount);
+    }
+    return credit(target, currentState, amount);
+  }
+
+  private WalletUpdateResult credit(
+      Optional<WalletBalanceView> updated,
+      Supplier<Optional<Wallet>> currentState,
+      BigDecimal amount) {
+    if (updated.isPresent()) {
+      return WalletUpdateResult.applied(updated.get(), amount);
+    }
+    Optional<Wallet> current = currentState.get();
+    if (current.isEmpty()) {
+      return WalletUpdateResult.rejected(Rejection.WALLET_NOT_FOUND, null, amount);
+    }
+    Rejection rejection =
+        current.get().getStatus() != WalletStatus.ACTIVE
+            ? Rejection.WALLET_INACTIVE
+            : Rejection.CONCURRENT_UPDATE;
+    log.debug("Credit of {} rejected for wallet {}: {}", amount, current.get().getId(), rejection);
+    return WalletUpdateResult.rejected(rejection, current.get(), amount);
+  }
+}
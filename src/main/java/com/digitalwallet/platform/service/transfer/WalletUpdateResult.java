@@ -0,0 +1,70 @@
+package com.digitalwallet.platform.service.transfer;
+
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.WalletBalanceView;
+import java.math.BigDecimal;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Outcome of a single-statement debit or credit: the updated balance, or why it was refused. */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class WalletUpdateResult {
+
+  public enum Rejection {
+    WALLET_NOT_FOUND,
+    WALLET_INACTIVE,
+    INSUFFICIENT_BALANCE,
+    TRANSACTION_LIMIT_EXCEEDED,
+    DAILY_LIMIT_EXCEEDED,
+    // The wallet passed every check when re-read, so it changed between the update and the read
+    CONCURRENT_UPDATE
+  }
+
+  private final WalletBalanceView wallet;
+  private final Rejection rejection;
+  private final Wallet currentState;
+  private final BigDecimal amount;
+  // Credit accepted but left in the unmaterialized ledger tail instead of wallets.balance
+  private final boolean deferred;
+
+  public static WalletUpdateResult applied(WalletBalanceView wallet, BigDecimal amount) {
+    return new WalletUpdateResult(wallet, null, null, amount, false);
+  }
+
+  public static WalletUpdateResult deferred(WalletBalanceView wallet, BigDecimal amount) {
+    return new WalletUpdateResult(wallet, null, null, amount, true);
+  }
+
+  public static WalletUpdateResult rejected(
+      Rejection rejection, Wallet currentState, BigDecimal amount) {
+    return new WalletUpdateResult(null, rejection, currentState, amount, false);
+  }
+
+  public boolean isApplied() {
+    return rejection == null;
+  }
+
+  /** Human readable reason, worded like the checks that used to run in the services. */
+  public String getRejectionMessage() {
+    if (rejection == null) {
+      return null;
+    }
+    return switch (rejection) {
+      case WALLET_NOT_FOUND -> "Wallet not found";
+      case WALLET_INACTIVE -> "Wallet is not active. Current status: " + currentState.getStatus();
+      case INSUFFICIENT_BALANCE -> "Insufficient balance. Available: "
+          + currentState.getBalance()
+          + ", Required: "
+          + amount;
+      case TRANSACTION_LIMIT_EXCEEDED -> "Amount exceeds transaction limit. Limit: "
+          + currentState.getTransactionLimit();
+      case DAILY_LIMIT_EXCEEDED -> "Amount exceeds daily spending limit. Daily limit: "
+          + currentState.getDailyLimit()
+          + ", Already spent: "
+          + currentState.getTotalDailySpent();
+      case CONCURRENT_UPDATE -> "Wallet was updated concurrently, please retry";
+    };
+  }
+}
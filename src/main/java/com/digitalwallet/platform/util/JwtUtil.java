@@ -1,11 +1,22 @@
 package com.digitalwallet.platform.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -16,50 +27,100 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+/**
+ * Issues and verifies the HS256 bearer tokens.
+ *
+ * <p>The signing key and parser are built once. Each token is parsed and its signature checked
+ * once into a {@link VerifiedToken}, which is then cached under the token's SHA-256 hash until the
+ * token expires, so the requests that reuse a token skip the HMAC check and claims decoding.
+ * Tokens that fail verification are not cached.
+ */
 @Component
 public class JwtUtil {
 
   private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
-  // Use a proper 256-bit (32 character) secret key
-  @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
-  private String secretKey;
-
-  @Value("${jwt.expiration:86400000}")
-  private Long expiration;
+  private final Long expiration;
+  private final Key signInKey;
+  private final JwtParser parser;
+  private final Cache<String, VerifiedToken> verifiedTokens;
+
+  // jwt.secret is Base64; use a proper 256-bit (32 character) secret key
+  public JwtUtil(
+      @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
+          String secretKey,
+      @Value("${jwt.expiration:86400000}") Long expiration,
+      @Value("${app.security.token-cache.maximum-size:10000}") long tokenCacheSize) {
+    this.expiration = expiration;
+    this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+    this.parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+    this.verifiedTokens =
+        Caffeine.newBuilder()
+            .maximumSize(tokenCacheSize)
+            .expireAfter(
+                new Expiry<String, VerifiedToken>() {
+                  @Override
+                  public long expireAfterCreate(
+                      String key, VerifiedToken token, long currentTime) {
+                    if (token.expiresAt() == null) {
+                      return Long.MAX_VALUE;
+                    }
+                    return Math.max(
+                        0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+                  }
+
+                  @Override
+                  public long expireAfterUpdate(
+                      String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                  }
+
+                  @Override
+                  public long expireAfterRead(
+                      String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                  }
+                })
+            .build();
+  }
 
-  // FIXED: Proper key generation
-  private Key getSignInKey() {
-    byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-    return Keys.hmacShaKeyFor(keyBytes);
+  /**
+   * Checks the token's signature and expiry.
+   *
+   * @return the token's claims, or null if the token is invalid or expired
+   */
+  public VerifiedToken verify(String token) {
+    if (token == null || token.isEmpty()) {
+      return null;
+    }
+    VerifiedToken verified = verifiedTokens.get(tokenHash(token), key -> parse(token));
+    if (verified == null || verified.isExpired(Instant.now())) {
+      return null;
+    }
+    return verified;
   }
 
   // Extract username (email) from token
   public String extractUsername(String token) {
-    try {
-      String username = extractClaim(token, Claims::getSubject);
-      logger.debug("Extracted username from token: {}", username);
-      return username;
-    } catch (Exception e) {
-      logger.error("Error extracting username from token: {}", e.getMessage());
-      return null;
-    }
+    VerifiedToken verified = verify(token);
+    String username = verified == null ? null : verified.subject();
+    logger.debug("Extracted username from token: {}", username);
+    return username;
   }
 
   // Extract expiration date from token
   public Date extractExpiration(String token) {
-    try {
-      return extractClaim(token, Claims::getExpiration);
-    } catch (Exception e) {
-      logger.error("Error extracting expiration from token: {}", e.getMessage());
+    VerifiedToken verified = verify(token);
+    if (verified == null || verified.expiresAt() == null) {
       return new Date(0); // Return past date if error
     }
+    return Date.from(verified.expiresAt());
   }
 
   // Extract specific claim from token
   public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
     try {
-      final Claims claims = extractAllClaims(token);
+      final Claims claims = parser.parseClaimsJws(token).getBody();
       return claimsResolver.apply(claims);
     } catch (Exception e) {
       logger.error("Error extracting claim from token: {}", e.getMessage());
@@ -67,67 +128,34 @@ public class JwtUtil {
     }
   }
 
-  // Extract all claims from token - FIXED THIS METHOD
-  private Claims extractAllClaims(String token) {
-    try {
-      logger.debug("Parsing token with key...");
-      return Jwts.parserBuilder()
-          .setSigningKey(getSignInKey())
-          .build()
-          .parseClaimsJws(token)
-          .getBody();
-    } catch (Exception e) {
-      logger.error("Error parsing JWT token: {}", e.getMessage());
-      throw new RuntimeException("Invalid JWT token: " + e.getMessage());
-    }
+  // Validate token
+  public Boolean validateToken(String token, UserDetails userDetails) {
+    return validateToken(verify(token), userDetails);
   }
 
-  // Check if token is expired
-  private Boolean isTokenExpired(String token) {
-    try {
-      Date expiration = extractExpiration(token);
-      Date now = new Date();
-      boolean expired = expiration.before(now);
-      logger.debug(
-          "Token expiration: {}, Current time: {}, Is expired: {}", expiration, now, expired);
-      return expired;
-    } catch (Exception e) {
-      logger.error("Error checking token expiration: {}", e.getMessage());
-      return true;
+  // Validate an already verified token against the user it names
+  public Boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+    if (token == null || token.subject() == null) {
+      logger.error("Cannot extract username from token");
+      return false;
     }
-  }
 
-  // Validate token
-  public Boolean validateToken(String token, UserDetails userDetails) {
-    try {
-      final String username = extractUsername(token);
-      logger.info("Validating token for user: {}", username);
-
-      if (username == null) {
-        logger.error("Cannot extract username from token");
-        return false;
-      }
-
-      if (userDetails == null) {
-        logger.error("UserDetails is null");
-        return false;
-      }
-
-      boolean usernameMatches = username.equals(userDetails.getUsername());
-      boolean notExpired = !isTokenExpired(token);
-
-      logger.info(
-          "Token validation - Username match: {}, Not expired: {}, Expected: {}, Actual: {}",
-          usernameMatches,
-          notExpired,
-          userDetails.getUsername(),
-          username);
-
-      return usernameMatches && notExpired;
-    } catch (Exception e) {
-      logger.error("Error validating token: {}", e.getMessage(), e);
+    if (userDetails == null) {
+      logger.error("UserDetails is null");
       return false;
     }
+
+    boolean usernameMatches = token.subject().equals(userDetails.getUsername());
+    boolean notExpired = !token.isExpired(Instant.now());
+
+    logger.debug(
+        "Token validation - Username match: {}, Not expired: {}, Expected: {}, Actual: {}",
+        usernameMatches,
+        notExpired,
+        userDetails.getUsername(),
+        token.subject());
+
+    return usernameMatches && notExpired;
   }
 
   // Generate token for user
@@ -154,7 +182,32 @@ public class JwtUtil {
         .setSubject(subject)
         .setIssuedAt(now)
         .setExpiration(expirationDate)
-        .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+        .signWith(signInKey, SignatureAlgorithm.HS256)
         .compact();
   }
+
+  private VerifiedToken parse(String token) {
+    try {
+      logger.debug("Parsing token with key...");
+      Claims claims = parser.parseClaimsJws(token).getBody();
+      return new VerifiedToken(
+          claims.getSubject(),
+          claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+          claims.getExpiration() == null ? null : claims.getExpiration().toInstant());
+    } catch (JwtException | IllegalArgumentException e) {
+      logger.error("Error parsing JWT token: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  // The cache holds hashes, not bearer tokens
+  private static String tokenHash(String token) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
 }
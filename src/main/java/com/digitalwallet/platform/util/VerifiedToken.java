@@ -0,0 +1,11 @@
+package com.digitalwallet.platform.util;
+
+import java.time.Instant;
+
+/** Claims of a JWT whose signature {@link JwtUtil#verify(String)} has checked. */
+public record VerifiedToken(String subject, Instant issuedAt, Instant expiresAt) {
+
+  public boolean isExpired(Instant now) {
+    return expiresAt != null && expiresAt.isBefore(now);
+  }
+}
@@ -0,0 +1,74 @@
+-- V10__create_ledger_entries.sql
+-- Append-only double-entry ledger: every completed transaction has one DEBIT and one CREDIT
+-- leg. Legs are never updated except to stamp materialized_at once folded into wallets.balance.
+
+CREATE SEQUENCE IF NOT EXISTS ledger_entries_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id BIGINT PRIMARY KEY DEFAULT nextval('ledger_entries_seq'),
+    transaction_id BIGINT NOT NULL,
+    wallet_id BIGINT,
+    account VARCHAR(20) NOT NULL,
+    direction VARCHAR(6) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    materialized_at TIMESTAMP
+);
+
+ALTER SEQUENCE ledger_entries_seq OWNED BY ledger_entries.id;
+
+ALTER TABLE ledger_entries
+ADD CONSTRAINT fk_ledger_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(id);
+
+ALTER TABLE ledger_entries
+ADD CONSTRAINT fk_ledger_wallet FOREIGN KEY (wallet_id) REFERENCES wallets(id);
+
+ALTER TABLE ledger_entries
+ADD CONSTRAINT chk_ledger_amount_positive CHECK (amount > 0);
+
+ALTER TABLE ledger_entries
+ADD CONSTRAINT chk_ledger_direction CHECK (direction IN ('DEBIT', 'CREDIT'));
+
+-- EXTERNAL is the outside world (card, bank) on the other side of deposits and withdrawals
+ALTER TABLE ledger_entries
+ADD CONSTRAINT chk_ledger_account CHECK (
+        (account = 'WALLET' AND wallet_id IS NOT NULL)
+        OR (account = 'EXTERNAL' AND wallet_id IS NULL)
+    );
+
+ALTER TABLE ledger_entries
+ADD CONSTRAINT uq_ledger_transaction_leg UNIQUE (transaction_id, direction);
+
+CREATE INDEX idx_ledger_wallet ON ledger_entries(wallet_id, id);
+
+-- Keeps the unmaterialized tail cheap to find and to sum
+CREATE INDEX idx_ledger_unmaterialized ON ledger_entries(wallet_id)
+WHERE materialized_at IS NULL;
+
+-- Backfill: completed transactions are already reflected in wallets.balance
+INSERT INTO ledger_entries (transaction_id, wallet_id, account, direction, amount, created_at, materialized_at)
+SELECT t.id,
+       t.from_wallet_id,
+       CASE WHEN t.from_wallet_id IS NULL THEN 'EXTERNAL' ELSE 'WALLET' END,
+       'DEBIT',
+       t.amount,
+       COALESCE(t.completed_at, t.created_at),
+       COALESCE(t.completed_at, t.created_at)
+FROM transactions t
+WHERE t.status = 'COMPLETED'
+ORDER BY t.id;
+
+INSERT INTO ledger_entries (transaction_id, wallet_id, account, direction, amount, created_at, materialized_at)
+SELECT t.id,
+       t.to_wallet_id,
+       CASE WHEN t.to_wallet_id IS NULL THEN 'EXTERNAL' ELSE 'WALLET' END,
+       'CREDIT',
+       t.amount,
+       COALESCE(t.completed_at, t.created_at),
+       COALESCE(t.completed_at, t.created_at)
+FROM transactions t
+WHERE t.status = 'COMPLETED'
+ORDER BY t.id;
+
+COMMENT ON TABLE ledger_entries IS 'Append-only double-entry legs of completed transactions';
+COMMENT ON COLUMN ledger_entries.materialized_at IS 'When the leg was folded into wallets.balance (NULL = still in the tail)';
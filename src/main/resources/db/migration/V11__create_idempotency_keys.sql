@@ -0,0 +1,26 @@
+-- V11__create_idempotency_keys.sql
+-- Idempotency-Key replay store for money-movement endpoints. A key is claimed (IN_PROGRESS)
+-- before the movement runs and holds the serialized response once it has COMPLETED.
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    fingerprint VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    response_status INTEGER,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+ALTER TABLE idempotency_keys
+ADD CONSTRAINT uq_idempotency_user_key UNIQUE (user_id, idempotency_key);
+
+ALTER TABLE idempotency_keys
+ADD CONSTRAINT chk_idempotency_status CHECK (status IN ('IN_PROGRESS', 'COMPLETED'));
+
+CREATE INDEX idx_idempotency_expires_at ON idempotency_keys(expires_at);
+
+COMMENT ON TABLE idempotency_keys IS 'Client Idempotency-Key claims and the responses they replay';
+COMMENT ON COLUMN idempotency_keys.fingerprint IS 'SHA-256 of operation and request body; a reused key must match it';
@@ -0,0 +1,5 @@
+-- V12__create_id_generator_node_seq.sql
+-- Each application instance leases a node number for its id generator from this sequence on
+-- startup (modulo 1024), so concurrently running instances generate from disjoint id blocks.
+
+CREATE SEQUENCE IF NOT EXISTS id_generator_node_seq START WITH 0 MINVALUE 0;
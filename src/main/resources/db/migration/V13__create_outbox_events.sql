@@ -0,0 +1,23 @@
+-- V13__create_outbox_events.sql
+-- Transactional outbox: messages are written in the same transaction as the rows they describe
+-- and published to SQS afterwards by the outbox relay.
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- The relay only ever scans unsent rows, oldest first
+CREATE INDEX idx_outbox_unsent ON outbox_events(id) WHERE sent_at IS NULL;
+CREATE INDEX idx_outbox_aggregate ON outbox_events(aggregate_id);
+CREATE INDEX idx_outbox_sent_at ON outbox_events(sent_at) WHERE sent_at IS NOT NULL;
+
+COMMENT ON TABLE outbox_events IS 'Messages awaiting publication, written atomically with their business rows';
+COMMENT ON COLUMN outbox_events.available_at IS 'Earliest time the relay may (re)try publishing the row';
@@ -0,0 +1,12 @@
+-- V14__add_transaction_recovery_columns.sql
+-- Recovery of stuck PENDING transfers claims rows in chunks and backs off between re-queues.
+-- Both columns are maintained by native queries only and are not mapped on the entity.
+
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS recovery_attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
+
+-- The recovery scan walks PENDING rows by id, so it stays small however large the table grows
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON transactions(id) WHERE status = 'PENDING';
+
+COMMENT ON COLUMN transactions.recovery_attempts IS 'Times a stuck PENDING transfer was re-queued by recovery';
+COMMENT ON COLUMN transactions.next_attempt_at IS 'Earliest time recovery may re-queue the transfer again';
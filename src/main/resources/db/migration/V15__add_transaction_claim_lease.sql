@@ -0,0 +1,13 @@
+-- V15__add_transaction_claim_lease.sql
+-- Consumers claim a transfer (PENDING -> PROCESSING) before applying it. The claim expires at
+-- claimed_until, after which another consumer or recovery may take the transfer over.
+-- Maintained by native queries only and not mapped on the entity.
+
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP;
+
+-- Recovery now also scans PROCESSING rows for expired claims
+DROP INDEX IF EXISTS idx_transactions_pending;
+CREATE INDEX IF NOT EXISTS idx_transactions_unfinished ON transactions(id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+COMMENT ON COLUMN transactions.claimed_until IS 'End of the consumer claim lease on a PROCESSING transfer';
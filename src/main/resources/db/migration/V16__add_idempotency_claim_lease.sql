@@ -0,0 +1,13 @@
+-- V16__add_idempotency_claim_lease.sql
+-- An IN_PROGRESS claim is leased until lease_until, so a key whose instance died mid-request is
+-- free again after the lease rather than after the 24h replay window in expires_at. A claim whose
+-- outcome is unknown is held: its lease is set to expires_at.
+
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP;
+
+-- Existing claims are treated as held
+UPDATE idempotency_keys SET lease_until = expires_at WHERE lease_until IS NULL;
+
+ALTER TABLE idempotency_keys ALTER COLUMN lease_until SET NOT NULL;
+
+COMMENT ON COLUMN idempotency_keys.lease_until IS 'End of the lease on an IN_PROGRESS claim';
@@ -0,0 +1,26 @@
+-- V8__add_wallet_balance_slots.sql
+-- Hot receiver wallets keep part of their balance in N slot rows so concurrent credits
+-- do not all queue on the same wallets row. Wallet total = wallets.balance + SUM(slots).
+
+ALTER TABLE wallets
+ADD COLUMN IF NOT EXISTS balance_slots INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS wallet_balance_slots (
+    id BIGSERIAL PRIMARY KEY,
+    wallet_id BIGINT NOT NULL,
+    slot INTEGER NOT NULL,
+    balance NUMERIC(19, 2) NOT NULL DEFAULT 0.00,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE wallet_balance_slots
+ADD CONSTRAINT fk_balance_slot_wallet FOREIGN KEY (wallet_id) REFERENCES wallets(id) ON DELETE CASCADE;
+
+ALTER TABLE wallet_balance_slots
+ADD CONSTRAINT uq_balance_slot UNIQUE (wallet_id, slot);
+
+ALTER TABLE wallet_balance_slots
+ADD CONSTRAINT chk_slot_balance_positive CHECK (balance >= 0);
+
+COMMENT ON COLUMN wallets.balance_slots IS 'Number of wallet_balance_slots rows holding part of the balance (0 = not sharded)';
+COMMENT ON TABLE wallet_balance_slots IS 'Balance shards of hot receiver wallets';
@@ -0,0 +1,13 @@
+-- V9__add_transactions_sequence.sql
+-- Pooled sequence for transaction ids: Hibernate reserves 50 ids per nextval, so new
+-- Transaction rows can be inserted in JDBC batches instead of one IDENTITY round trip each.
+
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
+
+-- Start past the existing ids; the pooled optimizer hands out (value - 49 .. value]
+SELECT setval('transactions_seq', (SELECT COALESCE(MAX(id), 0) FROM transactions) + 50);
+
+-- Raw inserts take the top id of an unused block, so they never collide with Hibernate's ids
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT nextval('transactions_seq');
+ALTER SEQUENCE transactions_seq OWNED BY transactions.id;
+DROP SEQUENCE IF EXISTS transactions_id_seq;
@@ -0,0 +1,133 @@
+package com.digitalwallet.platform.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.TransactionType;
+import com.digitalwallet.platform.model.User;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.UserRepository;
+import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.transfer.GroupCommitWriter;
+import com.digitalwallet.platform.service.transfer.WalletBalanceOperations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Deposits per second with one commit per request versus group commit.
+ *
+ * <p>Opt-in, since it writes thousands of rows: {@code mvn test -Dbenchmark=true
+ * -Dtest=GroupCommitBenchmarkTest}. Each caller deposits into its own wallet, so the numbers
+ * reflect commit and insert overhead rather than row lock contention.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class GroupCommitBenchmarkTest extends AbstractIntegrationTest {
+
+  private static final int CALLERS = 16;
+  private static final int DEPOSITS_PER_CALLER = 500;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+  @Autowired private EntityManager entityManager;
+  @Autowired private WalletBalanceOperations walletBalanceOperations;
+  @Autowired private WalletRepository walletRepository;
+  @Autowired private UserRepository userRepository;
+  @Autowired private TransactionRepository transactionRepository;
+
+  @Test
+  void groupCommitOutperformsPerRequestCommits() throws Exception {
+    List<Long> userIds = createWallets();
+
+    double perRequest = depositsPerSecond(writer(false), userIds);
+    GroupCommitWriter groupWriter = writer(true);
+    double grouped = depositsPerSecond(groupWriter, userIds);
+    groupWriter.stop();
+
+    System.out.printf(
+        "Deposits/sec with %d callers: per-request commit %.0f, group commit %.0f (x%.2f)%n",
+        CALLERS, perRequest, grouped, grouped / perRequest);
+    assertThat(grouped).isGreaterThan(perRequest);
+  }
+
+  private GroupCommitWriter writer(boolean enabled) {
+    GroupCommitWriter writer =
+        new GroupCommitWriter(
+            transactionManager, entityManager, new SimpleMeterRegistry(), enabled, 2, 128, 2);
+    writer.start();
+    return writer;
+  }
+
+  private double depositsPerSecond(GroupCommitWriter writer, List<Long> userIds)
+      throws Exception {
+    ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    long start = System.nanoTime();
+    List<Future<?>> done = new ArrayList<>();
+    for (Long userId : userIds) {
+      done.add(
+          callers.submit(
+              () -> {
+                for (int i = 0; i < DEPOSITS_PER_CALLER; i++) {
+                  writer.execute(() -> deposit(userId));
+                }
+              }));
+    }
+    for (Future<?> future : done) {
+      future.get();
+    }
+    double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    callers.shutdown();
+    return CALLERS * DEPOSITS_PER_CALLER / seconds;
+  }
+
+  private Transaction deposit(Long userId) {
+    Long walletId =
+        walletBalanceOperations.creditByUserId(userId, BigDecimal.ONE).getWallet().getId();
+    return transactionRepository.save(
+        Transaction.builder()
+            .referenceId("BENCH" + UUID.randomUUID().toString().substring(0, 20))
+            .amount(BigDecimal.ONE)
+            .currency("USD")
+            .type(TransactionType.DEPOSIT)
+            .status(TransactionStatus.COMPLETED)
+            .toWallet(walletRepository.getReferenceById(walletId))
+            .completedAt(LocalDateTime.now())
+            .build());
+  }
+
+  private List<Long> createWallets() {
+    List<Long> userIds = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      String suffix = UUID.randomUUID().toString().substring(0, 8);
+      User user =
+          userRepository.save(
+              User.builder()
+                  .email("bench-" + suffix + "@example.com")
+                  .passwordHash("x")
+                  .firstName("Bench")
+                  .lastName("Caller")
+                  .build());
+      Wallet wallet = new Wallet();
+      wallet.setUser(user);
+      wallet.setWalletNumber("WALB" + suffix);
+      wallet.setBalance(BigDecimal.ZERO);
+      wallet.setStatus(WalletStatus.ACTIVE);
+      walletRepository.save(wallet);
+      userIds.add(user.getId());
+    }
+    return userIds;
+  }
+}
@@ -0,0 +1,140 @@
+package com.digitalwallet.platform.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.TransactionType;
+import com.digitalwallet.platform.model.User;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.UserRepository;
+import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.WalletService;
+import com.digitalwallet.platform.service.messaging.PartitionedDispatcher;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+
+/**
+ * A burst of queued transfers from one sender, delivered to many consumer threads at once.
+ *
+ * <p>Opt-in, since it writes hundreds of rows: {@code mvn test -Dbenchmark=true
+ * -Dtest=SameSenderBurstStressTest}. Every listener thread goes through the {@link
+ * PartitionedDispatcher}, as the consumers do, so the sender's transfers must all complete without
+ * a single lock failure or FAILED transaction.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SameSenderBurstStressTest extends AbstractIntegrationTest {
+
+  private static final int LISTENER_THREADS = 16;
+  private static final int TRANSFERS = 400;
+  private static final int RECEIVERS = 8;
+
+  @Autowired private WalletService walletService;
+  @Autowired private PartitionedDispatcher partitionedDispatcher;
+  @Autowired private WalletRepository walletRepository;
+  @Autowired private UserRepository userRepository;
+  @Autowired private TransactionRepository transactionRepository;
+
+  @Test
+  void sameSenderBurstCompletesWithoutLockFailures() throws Exception {
+    Wallet sender = createWallet(BigDecimal.valueOf(TRANSFERS));
+    List<Wallet> receivers = new ArrayList<>();
+    for (int i = 0; i < RECEIVERS; i++) {
+      receivers.add(createWallet(BigDecimal.ZERO));
+    }
+    List<TransactionEvent> events = new ArrayList<>();
+    for (int i = 0; i < TRANSFERS; i++) {
+      events.add(pendingTransfer(sender, receivers.get(i % RECEIVERS)));
+    }
+
+    AtomicInteger lockFailures = new AtomicInteger();
+    ExecutorService listeners = Executors.newFixedThreadPool(LISTENER_THREADS);
+    List<Future<?>> done = new ArrayList<>();
+    for (TransactionEvent event : events) {
+      done.add(
+          listeners.submit(
+              () -> {
+                try {
+                  partitionedDispatcher.execute(
+                      event.partitionKey(),
+                      () -> walletService.executeAsyncTransfers(List.of(event)));
+                } catch (ConcurrencyFailureException e) {
+                  lockFailures.incrementAndGet();
+                }
+              }));
+    }
+    for (Future<?> future : done) {
+      future.get();
+    }
+    listeners.shutdown();
+
+    List<Transaction> transactions =
+        transactionRepository.findAllById(
+            events.stream().map(TransactionEvent::getTransactionId).toList());
+    System.out.printf(
+        "%d same-sender transfers on %d threads: %d lock failures%n",
+        TRANSFERS, LISTENER_THREADS, lockFailures.get());
+    assertThat(lockFailures.get()).isZero();
+    assertThat(transactions)
+        .extracting(Transaction::getStatus)
+        .containsOnly(TransactionStatus.COMPLETED);
+    assertThat(walletRepository.findTotalBalanceById(sender.getId())).isEqualByComparingTo("0");
+  }
+
+  private TransactionEvent pendingTransfer(Wallet sender, Wallet receiver) {
+    String referenceId = "BURST" + UUID.randomUUID().toString().substring(0, 20);
+    Transaction transaction =
+        transactionRepository.save(
+            Transaction.builder()
+                .referenceId(referenceId)
+                .amount(BigDecimal.ONE)
+                .currency("USD")
+                .type(TransactionType.TRANSFER)
+                .status(TransactionStatus.PENDING)
+                .fromWallet(sender)
+                .toWallet(receiver)
+                .createdAt(LocalDateTime.now())
+                .build());
+    return TransactionEvent.builder()
+        .transactionReferenceId(referenceId)
+        .senderId(sender.getUser().getId())
+        .senderWalletId(sender.getId())
+        .transactionId(transaction.getId())
+        .receiverWalletNumber(receiver.getWalletNumber())
+        .amount(BigDecimal.ONE)
+        .currency("USD")
+        .build();
+  }
+
+  private Wallet createWallet(BigDecimal balance) {
+    String suffix = UUID.randomUUID().toString().substring(0, 8);
+    User user =
+        userRepository.save(
+            User.builder()
+                .email("burst-" + suffix + "@example.com")
+                .passwordHash("x")
+                .firstName("Burst")
+                .lastName("Caller")
+                .build());
+    Wallet wallet = new Wallet();
+    wallet.setUser(user);
+    wallet.setWalletNumber("WALS" + suffix);
+    wallet.setBalance(balance);
+    wallet.setStatus(WalletStatus.ACTIVE);
+    return walletRepository.save(wallet);
+  }
+}
@@ -7,6 +7,7 @@ import com.digitalwallet.platform.dto.RegisterRequest;
 import com.digitalwallet.platform.dto.TransactionRequest;
 import com.digitalwallet.platform.dto.TransferRequest;
 import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.LedgerEntryRepository;
 import com.digitalwallet.platform.repository.UserRepository;
 import com.digitalwallet.platform.repository.WalletRepository;
 import io.restassured.http.ContentType;
@@ -21,6 +22,8 @@ class TransactionControllerIntegrationTest extends AbstractIntegrationTest {
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired private LedgerEntryRepository ledgerEntryRepository;
+
   @Autowired private WalletRepository walletRepository;
 
   @Autowired
@@ -32,6 +35,7 @@ class TransactionControllerIntegrationTest extends AbstractIntegrationTest {
   @BeforeEach
   void setUp() {
     super.setUp();
+    ledgerEntryRepository.deleteAll();
     transactionRepository.deleteAll();
     walletRepository.deleteAll();
     userRepository.deleteAll();
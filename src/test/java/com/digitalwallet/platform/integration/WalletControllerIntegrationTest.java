@@ -6,6 +6,7 @@ import static org.hamcrest.Matchers.*;
 import com.digitalwallet.platform.dto.RegisterRequest;
 import com.digitalwallet.platform.dto.TransactionRequest;
 import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.LedgerEntryRepository;
 import com.digitalwallet.platform.repository.UserRepository;
 import com.digitalwallet.platform.repository.WalletRepository;
 import io.restassured.http.ContentType;
@@ -20,6 +21,8 @@ class WalletControllerIntegrationTest extends AbstractIntegrationTest {
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired private LedgerEntryRepository ledgerEntryRepository;
+
   @Autowired private WalletRepository walletRepository;
 
   @Autowired private TransactionRepository transactionRepository;
@@ -28,6 +31,7 @@ class WalletControllerIntegrationTest extends AbstractIntegrationTest {
 
   @BeforeEach
   void cleanUp() {
+    ledgerEntryRepository.deleteAll();
     transactionRepository.deleteAll();
     walletRepository.deleteAll();
     userRepository.deleteAll();
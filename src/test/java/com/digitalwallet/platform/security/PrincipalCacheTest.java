@@ -0,0 +1,62 @@
+package com.digitalwallet.platform.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.digitalwallet.platform.model.User;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+@DisplayName("PrincipalCache Unit Tests")
+class PrincipalCacheTest {
+
+  private final PrincipalCache principalCache = new PrincipalCache(100, 30);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private final Function<String, UserDetails> loader =
+      email -> {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setEmail(email);
+        return new CustomUserDetails(user);
+      };
+
+  @Test
+  @DisplayName("Should load a principal once until it is evicted")
+  void shouldReuseLoadedPrincipalUntilEvicted() {
+    // Given
+    UserDetails first = principalCache.get("test@example.com", loader);
+
+    // When
+    UserDetails second = principalCache.get("test@example.com", loader);
+    principalCache.evict("test@example.com");
+    UserDetails reloaded = principalCache.get("test@example.com", loader);
+
+    // Then
+    assertThat(second).isSameAs(first);
+    assertThat(reloaded).isNotSameAs(first);
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  @DisplayName("Should not cache unknown users")
+  void shouldNotCacheFailedLookups() {
+    // Given
+    Function<String, UserDetails> missing =
+        email -> {
+          loads.incrementAndGet();
+          throw new UsernameNotFoundException("User not found with email: " + email);
+        };
+
+    // When & Then
+    assertThatThrownBy(() -> principalCache.get("ghost@example.com", missing))
+        .isInstanceOf(UsernameNotFoundException.class);
+    assertThat(principalCache.get("ghost@example.com", loader).getUsername())
+        .isEqualTo("ghost@example.com");
+    assertThat(loads).hasValue(2);
+  }
+}
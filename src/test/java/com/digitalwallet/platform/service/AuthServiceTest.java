@@ -13,6 +13,7 @@ import com.digitalwallet.platform.model.UserStatus;
 import com.digitalwallet.platform.model.Wallet;
 import com.digitalwallet.platform.repository.UserRepository;
 import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.id.IdGenerator;
 import com.digitalwallet.platform.util.JwtUtil;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,6 +37,8 @@ class AuthServiceTest {
 
   @Mock private JwtUtil jwtUtil;
 
+  @Mock private IdGenerator idGenerator;
+
   @InjectMocks private AuthService authService;
 
   private RegisterRequest registerRequest;
@@ -0,0 +1,244 @@
+package com.digitalwallet.platform.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.dto.BatchTransferLine;
+import com.digitalwallet.platform.dto.BatchTransferRequest;
+import com.digitalwallet.platform.dto.BatchTransferResponse;
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.User;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.WalletBalanceView;
+import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.cache.WalletCacheWriter;
+import com.digitalwallet.platform.service.id.IdGenerator;
+import com.digitalwallet.platform.service.ledger.LedgerEntryWriter;
+import com.digitalwallet.platform.service.transfer.WalletBalanceOperations;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult.Rejection;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BatchTransferService Unit Tests")
+class BatchTransferServiceTest {
+
+  @Mock private WalletRepository walletRepository;
+
+  @Mock private TransactionRepository transactionRepository;
+
+  @Mock private WalletBalanceOperations walletBalanceOperations;
+
+  @Mock private LedgerEntryWriter ledgerEntryWriter;
+
+  @Mock private IdGenerator idGenerator;
+
+  @Mock private WalletBalanceView balanceView;
+
+  @Mock private WalletCacheWriter walletCacheWriter;
+
+  private BatchTransferService batchTransferService;
+
+  private Wallet sender;
+
+  @BeforeEach
+  void setUp() {
+    batchTransferService =
+        new BatchTransferService(
+            walletRepository,
+            transactionRepository,
+            walletBalanceOperations,
+            ledgerEntryWriter,
+            idGenerator,
+            walletCacheWriter,
+            3);
+
+    sender = wallet(1L, 10L, "WAL1");
+    sender.setBalance(BigDecimal.valueOf(1000));
+    sender.setTransactionLimit(BigDecimal.valueOf(500));
+  }
+
+  @Test
+  @DisplayName("Should debit once, credit in one batch and report invalid lines individually")
+  void shouldPayValidLinesAndReportInvalidOnes() {
+    // Given
+    BatchTransferRequest request =
+        request(
+            new BatchTransferLine("WAL2", BigDecimal.valueOf(100)),
+            new BatchTransferLine("WAL9", BigDecimal.valueOf(50)),
+            new BatchTransferLine("WAL2", BigDecimal.valueOf(25)));
+    when(walletRepository.findByUserId(10L)).thenReturn(Optional.of(sender));
+    when(walletRepository.findByWalletNumberIn(anyCollection()))
+        .thenReturn(List.of(wallet(2L, 20L, "WAL2")));
+    when(idGenerator.nextBatchId()).thenReturn("BT1");
+    when(idGenerator.nextReferenceId()).thenReturn("TX1", "TX2");
+    when(walletBalanceOperations.debitBatchByUserId(
+            10L, BigDecimal.valueOf(125), BigDecimal.valueOf(100)))
+        .thenReturn(WalletUpdateResult.applied(balanceView, BigDecimal.valueOf(125)));
+    when(balanceView.getBalance()).thenReturn(BigDecimal.valueOf(875));
+    when(walletBalanceOperations.creditAllById(any())).thenReturn(true);
+    when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+    // When
+    BatchTransferResponse response = batchTransferService.transfer(10L, request);
+
+    // Then
+    assertThat(response.getBatchId()).isEqualTo("BT1");
+    assertThat(response.getCompleted()).isEqualTo(2);
+    assertThat(response.getFailed()).isEqualTo(1);
+    assertThat(response.getTotalAmount()).isEqualByComparingTo("125");
+    assertThat(response.getNewBalance()).isEqualByComparingTo("875");
+    assertThat(response.getResults().get(1).getStatus()).isEqualTo(TransactionStatus.FAILED);
+    assertThat(response.getResults().get(1).getError()).isEqualTo("Receiver wallet not found");
+    assertThat(response.getResults().get(2).getReferenceId()).isEqualTo("TX2");
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<SortedMap<Long, BigDecimal>> credits = ArgumentCaptor.forClass(SortedMap.class);
+    verify(walletBalanceOperations).creditAllById(credits.capture());
+    assertThat(credits.getValue()).containsExactly(Map.entry(2L, BigDecimal.valueOf(125)));
+    verify(walletRepository, times(1)).findByWalletNumberIn(anyCollection());
+    verify(ledgerEntryWriter, times(2)).record(any(Transaction.class), eq(false));
+  }
+
+  @Test
+  @DisplayName("Should fail the whole batch when the sender cannot cover the total")
+  void shouldFailBatchWhenDebitRefused() {
+    // Given
+    BatchTransferRequest request = request(new BatchTransferLine("WAL2", BigDecimal.valueOf(300)));
+    when(walletRepository.findByUserId(10L)).thenReturn(Optional.of(sender));
+    when(walletRepository.findByWalletNumberIn(anyCollection()))
+        .thenReturn(List.of(wallet(2L, 20L, "WAL2")));
+    when(walletBalanceOperations.debitBatchByUserId(eq(10L), any(), any()))
+        .thenReturn(
+            WalletUpdateResult.rejected(
+                Rejection.INSUFFICIENT_BALANCE, sender, BigDecimal.valueOf(300)));
+
+    // When / Then
+    assertThatThrownBy(() -> batchTransferService.transfer(10L, request))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("Insufficient balance");
+    verify(walletBalanceOperations, never()).creditAllById(any());
+    verifyNoInteractions(transactionRepository);
+  }
+
+  @Test
+  @DisplayName("Should reject lines over the limit or to inactive wallets without debiting")
+  void shouldRejectLinesOverLimit() {
+    // Given
+    BatchTransferRequest request =
+        request(
+            new BatchTransferLine("WAL2", BigDecimal.valueOf(600)),
+            new BatchTransferLine("WAL1", BigDecimal.valueOf(10)),
+            new BatchTransferLine("WAL3", BigDecimal.valueOf(10)));
+    Wallet frozen = wallet(3L, 30L, "WAL3");
+    frozen.setStatus(WalletStatus.FROZEN);
+    when(walletRepository.findByUserId(10L)).thenReturn(Optional.of(sender));
+    when(walletRepository.findByWalletNumberIn(anyCollection()))
+        .thenReturn(List.of(wallet(2L, 20L, "WAL2"), sender, frozen));
+
+    // When
+    BatchTransferResponse response = batchTransferService.transfer(10L, request);
+
+    // Then
+    assertThat(response.getCompleted()).isZero();
+    assertThat(response.getResults().get(0).getError())
+        .isEqualTo("Amount exceeds transaction limit. Limit: 500");
+    assertThat(response.getResults().get(1).getError())
+        .isEqualTo("Cannot transfer to your own wallet");
+    assertThat(response.getResults().get(2).getError())
+        .isEqualTo("Receiver wallet is not active. Current status: FROZEN");
+    // Only asked how to total the balance it reports
+    verify(walletBalanceOperations).defersCredits();
+    verifyNoMoreInteractions(walletBalanceOperations);
+  }
+
+  @Test
+  @DisplayName("Should report a hot sender's new balance including its balance slots")
+  void shouldReportTotalBalanceOfHotSender() {
+    // Given
+    sender.setBalanceSlots(4);
+    BatchTransferRequest request = request(new BatchTransferLine("WAL2", BigDecimal.valueOf(100)));
+    when(walletRepository.findByUserId(10L)).thenReturn(Optional.of(sender));
+    when(walletRepository.findByWalletNumberIn(anyCollection()))
+        .thenReturn(List.of(wallet(2L, 20L, "WAL2")));
+    when(walletBalanceOperations.debitBatchByUserId(eq(10L), any(), any()))
+        .thenReturn(WalletUpdateResult.applied(balanceView, BigDecimal.valueOf(100)));
+    when(walletBalanceOperations.creditAllById(any())).thenReturn(true);
+    when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    when(walletRepository.findTotalBalanceById(1L)).thenReturn(BigDecimal.valueOf(1400));
+
+    // When
+    BatchTransferResponse response = batchTransferService.transfer(10L, request);
+
+    // Then
+    assertThat(response.getNewBalance()).isEqualByComparingTo("1400");
+  }
+
+  @Test
+  @DisplayName("Should write the sender and paid receivers through to the cache after commit")
+  void shouldRefreshCachedWalletsAfterCommit() {
+    // Given
+    BatchTransferRequest request =
+        request(
+            new BatchTransferLine("WAL2", BigDecimal.valueOf(100)),
+            new BatchTransferLine("WAL3", BigDecimal.valueOf(900)));
+    when(walletRepository.findByUserId(10L)).thenReturn(Optional.of(sender));
+    when(walletRepository.findByWalletNumberIn(anyCollection()))
+        .thenReturn(List.of(wallet(2L, 20L, "WAL2"), wallet(3L, 30L, "WAL3")));
+    when(walletBalanceOperations.debitBatchByUserId(eq(10L), any(), any()))
+        .thenReturn(WalletUpdateResult.applied(balanceView, BigDecimal.valueOf(100)));
+    when(walletBalanceOperations.creditAllById(any())).thenReturn(true);
+    when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+    // When
+    batchTransferService.transfer(10L, request);
+
+    // Then
+    verify(walletCacheWriter).refreshAfterCommit(Set.of(1L, 2L));
+  }
+
+  @Test
+  @DisplayName("Should refuse batches over the configured line limit")
+  void shouldRefuseOversizedBatch() {
+    // Given
+    BatchTransferLine line = new BatchTransferLine("WAL2", BigDecimal.ONE);
+    BatchTransferRequest request = request(line, line, line, line);
+
+    // When / Then
+    assertThatThrownBy(() -> batchTransferService.transfer(10L, request))
+        .hasMessage("A batch can contain at most 3 lines");
+    verifyNoInteractions(walletRepository);
+  }
+
+  private BatchTransferRequest request(BatchTransferLine... lines) {
+    BatchTransferRequest request = new BatchTransferRequest();
+    request.setLines(List.of(lines));
+    return request;
+  }
+
+  private Wallet wallet(Long id, Long userId, String number) {
+    return Wallet.builder()
+        .id(id)
+        .user(User.builder().id(userId).build())
+        .walletNumber(number)
+        .balance(BigDecimal.ZERO)
+        .status(WalletStatus.ACTIVE)
+        .build();
+  }
+}
@@ -3,15 +3,23 @@ package com.digitalwallet.platform.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import com.digitalwallet.platform.dto.TransferRequest;
 import com.digitalwallet.platform.dto.TransferResponse;
 import com.digitalwallet.platform.model.*;
 import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.WalletBalanceView;
 import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.id.IdGenerator;
+import com.digitalwallet.platform.service.ledger.LedgerEntryWriter;
+import com.digitalwallet.platform.service.transfer.GroupCommitWriter;
+import com.digitalwallet.platform.service.transfer.WalletBalanceOperations;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult.Rejection;
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -28,6 +36,14 @@ class TransactionServiceTest {
 
   @Mock private WalletRepository walletRepository;
 
+  @Mock private WalletBalanceOperations walletBalanceOperations;
+
+  @Mock private GroupCommitWriter groupCommitWriter;
+
+  @Mock private LedgerEntryWriter ledgerEntryWriter;
+
+  @Mock private IdGenerator idGenerator;
+
   @InjectMocks private TransactionService transactionService;
 
   private Wallet senderWallet;
@@ -36,6 +52,11 @@ class TransactionServiceTest {
 
   @BeforeEach
   void setUp() {
+    // Run units of work inline, as with group commit disabled
+    lenient()
+        .when(groupCommitWriter.execute(any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
     senderWallet = new Wallet();
     senderWallet.setId(1L);
     senderWallet.setWalletNumber("WAL111");
@@ -62,8 +83,15 @@ class TransactionServiceTest {
   @DisplayName("Should transfer money successfully")
   void shouldTransferMoneySuccessfully() {
     // Given
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(senderWallet));
-    when(walletRepository.findByWalletNumber("WAL222")).thenReturn(Optional.of(receiverWallet));
+    BigDecimal amount = BigDecimal.valueOf(200);
+    when(walletBalanceOperations.debitByUserId(1L, amount))
+        .thenReturn(
+            WalletUpdateResult.applied(balanceView(1L, "WAL111", BigDecimal.valueOf(800)), amount));
+    when(walletBalanceOperations.creditByWalletNumber("WAL222", amount))
+        .thenReturn(
+            WalletUpdateResult.applied(balanceView(2L, "WAL222", BigDecimal.valueOf(700)), amount));
+    when(walletRepository.getReferenceById(1L)).thenReturn(senderWallet);
+    when(walletRepository.getReferenceById(2L)).thenReturn(receiverWallet);
     when(transactionRepository.save(any(Transaction.class)))
         .thenAnswer(
             invocation -> {
@@ -78,10 +106,9 @@ class TransactionServiceTest {
     // Then
     assertThat(response).isNotNull();
     assertThat(response.getStatus()).isEqualTo(TransactionStatus.COMPLETED);
-    assertThat(senderWallet.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(800));
-    assertThat(receiverWallet.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(700));
-    verify(walletRepository).save(senderWallet);
-    verify(walletRepository).save(receiverWallet);
+    assertThat(response.getSenderWallet()).isEqualTo("WAL111");
+    assertThat(response.getReceiverWallet()).isEqualTo("WAL222");
+    verify(walletRepository, never()).save(any(Wallet.class));
     verify(transactionRepository).save(any(Transaction.class));
   }
 
@@ -89,7 +116,8 @@ class TransactionServiceTest {
   @DisplayName("Should throw exception when sender wallet not found")
   void shouldThrowExceptionWhenSenderWalletNotFound() {
     // Given
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.empty());
+    when(walletBalanceOperations.debitByUserId(eq(1L), any()))
+        .thenReturn(WalletUpdateResult.rejected(Rejection.WALLET_NOT_FOUND, null, null));
 
     // When & Then
     assertThatThrownBy(() -> transactionService.transfer(transferRequest, 1L))
@@ -101,13 +129,17 @@ class TransactionServiceTest {
   @DisplayName("Should throw exception when receiver wallet not found")
   void shouldThrowExceptionWhenReceiverWalletNotFound() {
     // Given
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(senderWallet));
-    when(walletRepository.findByWalletNumber("WAL222")).thenReturn(Optional.empty());
+    when(walletBalanceOperations.debitByUserId(eq(1L), any()))
+        .thenReturn(
+            WalletUpdateResult.applied(balanceView(1L, "WAL111", BigDecimal.valueOf(800)), null));
+    when(walletBalanceOperations.creditByWalletNumber(eq("WAL222"), any()))
+        .thenReturn(WalletUpdateResult.rejected(Rejection.WALLET_NOT_FOUND, null, null));
 
     // When & Then
     assertThatThrownBy(() -> transactionService.transfer(transferRequest, 1L))
         .isInstanceOf(RuntimeException.class)
         .hasMessageContaining("Receiver wallet not found");
+    verify(transactionRepository, never()).save(any(Transaction.class));
   }
 
   @Test
@@ -115,12 +147,15 @@ class TransactionServiceTest {
   void shouldThrowExceptionWhenInsufficientBalance() {
     // Given
     transferRequest.setAmount(BigDecimal.valueOf(2000));
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(senderWallet));
+    when(walletBalanceOperations.debitByUserId(eq(1L), any()))
+        .thenReturn(
+            WalletUpdateResult.rejected(Rejection.INSUFFICIENT_BALANCE, senderWallet, null));
 
     // When & Then
     assertThatThrownBy(() -> transactionService.transfer(transferRequest, 1L))
         .isInstanceOf(RuntimeException.class)
         .hasMessageContaining("Insufficient balance");
+    verify(walletBalanceOperations, never()).creditByWalletNumber(any(), any());
   }
 
   @Test
@@ -129,12 +164,33 @@ class TransactionServiceTest {
     // Given
     senderWallet.setBalance(BigDecimal.valueOf(5000));
     transferRequest.setAmount(BigDecimal.valueOf(1500));
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(senderWallet));
-    when(walletRepository.findByWalletNumber("WAL222")).thenReturn(Optional.of(receiverWallet));
+    when(walletBalanceOperations.debitByUserId(eq(1L), any()))
+        .thenReturn(
+            WalletUpdateResult.rejected(
+                Rejection.TRANSACTION_LIMIT_EXCEEDED, senderWallet, BigDecimal.valueOf(1500)));
 
     // When & Then
     assertThatThrownBy(() -> transactionService.transfer(transferRequest, 1L))
         .isInstanceOf(RuntimeException.class)
         .hasMessageContaining("Exceeds per-transaction limit");
   }
+
+  private static WalletBalanceView balanceView(Long id, String walletNumber, BigDecimal balance) {
+    return new WalletBalanceView() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public String getWalletNumber() {
+        return walletNumber;
+      }
+
+      @Override
+      public BigDecimal getBalance() {
+        return balance;
+      }
+    };
+  }
 }
@@ -6,6 +6,7 @@ import static org.mockito.Mockito.*;
 
 import com.digitalwallet.platform.model.User;
 import com.digitalwallet.platform.repository.UserRepository;
+import com.digitalwallet.platform.security.PrincipalCache;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,6 +21,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 class UserServiceTest {
 
   @Mock private UserRepository userRepository;
+  @Mock private PrincipalCache principalCache;
 
   @InjectMocks private UserService userService;
 
@@ -46,6 +48,7 @@ class UserServiceTest {
     // Then
     assertThat(testUser.getProfilePicKey()).isEqualTo("new-pic-key");
     verify(userRepository).save(testUser);
+    verify(principalCache).evict("test@example.com");
   }
 
   @Test
@@ -8,16 +8,38 @@ import com.digitalwallet.platform.dto.*;
 import com.digitalwallet.platform.model.*;
 import com.digitalwallet.platform.repository.TransactionRepository;
 import com.digitalwallet.platform.repository.UserRepository;
+import com.digitalwallet.platform.repository.WalletBalanceView;
 import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.cache.WalletCacheWriter;
+import com.digitalwallet.platform.service.id.IdGenerator;
+import com.digitalwallet.platform.service.ledger.LedgerEngine;
+import com.digitalwallet.platform.service.ledger.LedgerEntryWriter;
+import com.digitalwallet.platform.service.outbox.OutboxWriter;
+import com.digitalwallet.platform.service.transfer.GroupCommitWriter;
+import com.digitalwallet.platform.service.transfer.TransferRouter;
+import com.digitalwallet.platform.service.transfer.WalletBalanceOperations;
+import com.digitalwallet.platform.service.transfer.WalletLockManager;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("WalletService Unit Tests")
@@ -29,6 +51,26 @@ class WalletServiceTest {
 
   @Mock private TransactionRepository transactionRepository;
 
+  @Mock private WalletBalanceOperations walletBalanceOperations;
+
+  @Mock private GroupCommitWriter groupCommitWriter;
+
+  @Mock private LedgerEntryWriter ledgerEntryWriter;
+
+  @Mock private IdGenerator idGenerator;
+
+  @Mock private WalletLockManager walletLockManager;
+
+  @Mock private TransferRouter transferRouter;
+
+  @Mock private CacheManager cacheManager;
+
+  @Mock private OutboxWriter outboxWriter;
+
+  @Mock private WalletCacheWriter walletCacheWriter;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
   @InjectMocks private WalletService walletService;
 
   private User testUser;
@@ -36,6 +78,15 @@ class WalletServiceTest {
 
   @BeforeEach
   void setUp() {
+    // Run units of work inline, as with group commit disabled
+    lenient()
+        .when(groupCommitWriter.execute(any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    lenient()
+        .when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
     testUser = new User();
     testUser.setId(1L);
     testUser.setEmail("test@example.com");
@@ -59,6 +110,13 @@ class WalletServiceTest {
   void shouldGetWalletInfo() {
     // Given
     when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletCacheWriter.snapshot(testWallet))
+        .thenReturn(
+            WalletResponse.builder()
+                .walletNumber("WAL123456")
+                .balance(BigDecimal.valueOf(1000))
+                .currency("USD")
+                .build());
 
     // When
     WalletResponse response = walletService.getWalletInfo(1L);
@@ -82,12 +140,41 @@ class WalletServiceTest {
         .isInstanceOf(RuntimeException.class);
   }
 
+  @Test
+  @DisplayName("Should serve cached wallet info and fill a miss only through the version check")
+  void shouldReadWalletInfoThroughVersionedCache() {
+    // Given
+    testWallet.setVersion(7L);
+    WalletResponse cached = WalletResponse.builder().walletNumber("WAL123456").version(6L).build();
+    ConcurrentMapCache cache = new ConcurrentMapCache("wallets");
+    cache.put(2L, cached);
+    when(cacheManager.getCache("wallets")).thenReturn(cache);
+    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    WalletResponse loaded = WalletResponse.builder().walletNumber("WAL123456").version(11L).build();
+    when(walletCacheWriter.snapshot(testWallet)).thenReturn(loaded);
+
+    // When
+    WalletResponse hit = walletService.getWalletInfo(2L);
+    WalletResponse miss = walletService.getWalletInfo(1L);
+
+    // Then
+    assertThat(hit).isSameAs(cached);
+    assertThat(miss).isSameAs(loaded);
+    verify(walletRepository, never()).findByUserId(2L);
+    verify(walletCacheWriter).putIfNewer(1L, loaded);
+    assertThat(cache.get(1L)).isNull();
+  }
+
   @Test
   @DisplayName("Should deposit successfully")
   void shouldDepositSuccessfully() {
     // Given
     BigDecimal depositAmount = BigDecimal.valueOf(500);
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletBalanceOperations.creditByUserId(1L, depositAmount))
+        .thenReturn(
+            WalletUpdateResult.applied(
+                balanceView(1L, "WAL123456", BigDecimal.valueOf(1500)), depositAmount));
+    when(walletRepository.getReferenceById(1L)).thenReturn(testWallet);
     when(transactionRepository.save(any(Transaction.class)))
         .thenAnswer(
             invocation -> {
@@ -103,7 +190,8 @@ class WalletServiceTest {
     assertThat(response).isNotNull();
     assertThat(response.getAmount()).isEqualByComparingTo(depositAmount);
     assertThat(response.getType()).isEqualTo(TransactionType.DEPOSIT);
-    verify(walletRepository).save(testWallet);
+    assertThat(response.getReceiverWallet()).isEqualTo("WAL123456");
+    verify(walletRepository, never()).save(any(Wallet.class));
     verify(transactionRepository).save(any(Transaction.class));
   }
 
@@ -112,7 +200,11 @@ class WalletServiceTest {
   void shouldWithdrawSuccessfully() {
     // Given
     BigDecimal withdrawAmount = BigDecimal.valueOf(300);
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletBalanceOperations.debitByUserId(1L, withdrawAmount))
+        .thenReturn(
+            WalletUpdateResult.applied(
+                balanceView(1L, "WAL123456", BigDecimal.valueOf(700)), withdrawAmount));
+    when(walletRepository.getReferenceById(1L)).thenReturn(testWallet);
     when(transactionRepository.save(any(Transaction.class)))
         .thenAnswer(
             invocation -> {
@@ -128,7 +220,8 @@ class WalletServiceTest {
     assertThat(response).isNotNull();
     assertThat(response.getAmount()).isEqualByComparingTo(withdrawAmount);
     assertThat(response.getType()).isEqualTo(TransactionType.WITHDRAWAL);
-    verify(walletRepository).save(testWallet);
+    assertThat(response.getSenderWallet()).isEqualTo("WAL123456");
+    verify(walletRepository, never()).save(any(Wallet.class));
   }
 
   @Test
@@ -136,11 +229,16 @@ class WalletServiceTest {
   void shouldThrowExceptionWhenInsufficientBalance() {
     // Given
     BigDecimal withdrawAmount = BigDecimal.valueOf(2000);
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletBalanceOperations.debitByUserId(1L, withdrawAmount))
+        .thenReturn(
+            WalletUpdateResult.rejected(
+                WalletUpdateResult.Rejection.INSUFFICIENT_BALANCE, testWallet, withdrawAmount));
 
     // When & Then
     assertThatThrownBy(() -> walletService.withdraw(1L, withdrawAmount, "USD"))
-        .isInstanceOf(RuntimeException.class);
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("Insufficient balance");
+    verify(transactionRepository, never()).save(any(Transaction.class));
   }
 
   @Test
@@ -148,11 +246,17 @@ class WalletServiceTest {
   void shouldThrowExceptionWhenTransactionLimitExceeded() {
     // Given
     BigDecimal withdrawAmount = BigDecimal.valueOf(1500);
-    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletBalanceOperations.debitByUserId(1L, withdrawAmount))
+        .thenReturn(
+            WalletUpdateResult.rejected(
+                WalletUpdateResult.Rejection.TRANSACTION_LIMIT_EXCEEDED,
+                testWallet,
+                withdrawAmount));
 
     // When & Then
     assertThatThrownBy(() -> walletService.withdraw(1L, withdrawAmount, "USD"))
-        .isInstanceOf(RuntimeException.class);
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("transaction limit");
   }
 
   @Test
@@ -176,6 +280,32 @@ class WalletServiceTest {
     verify(walletRepository).save(testWallet);
   }
 
+  @Test
+  @DisplayName("Should hand new limits to the ledger engine only after the update commits")
+  void shouldRefreshEngineLimitsAfterCommit() {
+    // Given
+    LedgerEngine ledgerEngine = mock(LedgerEngine.class);
+    ReflectionTestUtils.setField(walletService, "ledgerEngine", ledgerEngine);
+    UpdateLimitsRequest request = new UpdateLimitsRequest();
+    request.setDailyLimit(BigDecimal.valueOf(10000));
+    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletRepository.save(any(Wallet.class))).thenReturn(testWallet);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      // When
+      walletService.updateWalletLimits(1L, request);
+
+      // Then
+      verifyNoInteractions(ledgerEngine);
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      verify(ledgerEngine).refreshLimits(testWallet);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
   @Test
   @DisplayName("Should get balance by user ID")
   void shouldGetBalanceByUserId() {
@@ -190,4 +320,228 @@ class WalletServiceTest {
     assertThat(response.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(1000));
     assertThat(response.getCurrency()).isEqualTo("USD");
   }
+
+  @Test
+  @DisplayName("Should complete an idle transfer inline instead of queueing it")
+  void shouldCompleteIdleTransferInline() {
+    // Given
+    BigDecimal amount = BigDecimal.valueOf(200);
+    Wallet receiver = receiverWallet();
+    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletRepository.findByWalletNumber("WAL654321")).thenReturn(Optional.of(receiver));
+    when(idGenerator.nextReferenceId()).thenReturn("TX1");
+    when(transferRouter.route(testWallet, receiver, amount))
+        .thenReturn(TransferRouter.Reason.IDLE);
+    when(walletBalanceOperations.debitById(1L, amount))
+        .thenReturn(
+            WalletUpdateResult.applied(
+                balanceView(1L, "WAL123456", BigDecimal.valueOf(800)), amount));
+    when(walletBalanceOperations.creditById(2L, amount))
+        .thenReturn(
+            WalletUpdateResult.applied(
+                balanceView(2L, "WAL654321", BigDecimal.valueOf(200)), amount));
+
+    // When
+    TransferResponse response =
+        walletService.initiateTransfer(1L, "WAL654321", amount, "USD", "Rent");
+
+    // Then
+    assertThat(response.getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+    assertThat(response.getReferenceId()).isEqualTo("TX1");
+    verifyNoInteractions(outboxWriter);
+    verify(transactionRepository)
+        .save(argThat((Transaction tx) -> tx.getStatus() == TransactionStatus.COMPLETED));
+    verify(transferRouter).recordInline(anyLong(), eq(1L), eq(2L));
+    verify(walletCacheWriter).refreshAfterCommit(List.of(1L, 2L));
+  }
+
+  @Test
+  @DisplayName("Should queue a transfer as PENDING when the router picks the queue")
+  void shouldQueueContendedTransfer() {
+    // Given
+    BigDecimal amount = BigDecimal.valueOf(200);
+    Wallet receiver = receiverWallet();
+    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletRepository.findByWalletNumber("WAL654321")).thenReturn(Optional.of(receiver));
+    when(idGenerator.nextReferenceId()).thenReturn("TX2");
+    when(transferRouter.route(testWallet, receiver, amount))
+        .thenReturn(TransferRouter.Reason.RECENT_CONTENTION);
+
+    // When
+    TransferResponse response =
+        walletService.initiateTransfer(1L, "WAL654321", amount, "USD", "Rent");
+
+    // Then
+    assertThat(response.getStatus()).isEqualTo(TransactionStatus.PENDING);
+    verify(walletBalanceOperations, never()).debitById(any(), any());
+    verify(transactionRepository)
+        .save(argThat((Transaction tx) -> tx.getStatus() == TransactionStatus.PENDING));
+    verify(outboxWriter)
+        .enqueue(
+            eq(OutboxEventType.TRANSFER_INITIATED),
+            any(),
+            argThat((TransactionEvent event) -> "TX2".equals(event.getTransactionReferenceId())));
+  }
+
+  @Test
+  @DisplayName("Should queue an inline transfer whose debit lost a race")
+  void shouldQueueTransferWhenInlineDebitLosesRace() {
+    // Given
+    BigDecimal amount = BigDecimal.valueOf(200);
+    Wallet receiver = receiverWallet();
+    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(testWallet));
+    when(walletRepository.findByWalletNumber("WAL654321")).thenReturn(Optional.of(receiver));
+    when(idGenerator.nextReferenceId()).thenReturn("TX3");
+    when(transferRouter.route(testWallet, receiver, amount))
+        .thenReturn(TransferRouter.Reason.IDLE);
+    when(walletBalanceOperations.debitById(1L, amount))
+        .thenReturn(
+            WalletUpdateResult.rejected(
+                WalletUpdateResult.Rejection.CONCURRENT_UPDATE, testWallet, amount));
+
+    // When
+    TransferResponse response =
+        walletService.initiateTransfer(1L, "WAL654321", amount, "USD", "Rent");
+
+    // Then
+    assertThat(response.getStatus()).isEqualTo(TransactionStatus.PENDING);
+    verify(transferRouter).recordContention(1L);
+    verify(transferRouter).fellBack(TransferRouter.Reason.LOST_RACE);
+    verify(walletBalanceOperations, never()).creditById(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should apply a batch of queued transfers grouped by sender")
+  void shouldExecuteBatchGroupedBySender() {
+    // Given
+    Wallet otherSender = receiverWallet();
+    otherSender.setId(7L);
+    Transaction late = pendingTransfer(11L, otherSender, testWallet);
+    Transaction early = pendingTransfer(12L, testWallet, otherSender);
+    when(transactionRepository.findAllByIdForUpdate(List.of(11L, 12L)))
+        .thenReturn(List.of(late, early));
+    when(walletBalanceOperations.debitById(anyLong(), any()))
+        .thenReturn(
+            WalletUpdateResult.applied(
+                balanceView(1L, "WAL123456", BigDecimal.ONE), BigDecimal.TEN));
+    when(walletBalanceOperations.creditById(anyLong(), any()))
+        .thenReturn(
+            WalletUpdateResult.applied(
+                balanceView(7L, "WAL654321", BigDecimal.ONE), BigDecimal.TEN));
+
+    // When
+    List<Transaction> result =
+        walletService.executeAsyncTransfers(List.of(event(late), event(early)));
+
+    // Then: one IN query each for transactions and wallets, sender 1 debited before sender 7
+    assertThat(result).containsExactly(late, early);
+    assertThat(result).allMatch(tx -> tx.getStatus() == TransactionStatus.COMPLETED);
+    verify(walletRepository).findWithUserByIdIn(Set.of(1L, 7L));
+    InOrder debits = inOrder(walletBalanceOperations);
+    debits.verify(walletBalanceOperations).debitById(1L, BigDecimal.TEN);
+    debits.verify(walletBalanceOperations).debitById(7L, BigDecimal.TEN);
+  }
+
+  @Test
+  @DisplayName("Should skip a transfer found completed under its row lock")
+  void shouldSkipTransferCompletedByAnotherConsumer() {
+    // Given: another consumer took the transfer over after this claim expired and committed it
+    Transaction taken = pendingTransfer(11L, testWallet, receiverWallet());
+    taken.setStatus(TransactionStatus.COMPLETED);
+    when(transactionRepository.findAllByIdForUpdate(List.of(11L))).thenReturn(List.of(taken));
+
+    // When
+    List<Transaction> result = walletService.executeAsyncTransfers(List.of(event(taken)));
+
+    // Then
+    assertThat(result).containsExactly(taken);
+    verify(walletBalanceOperations, never()).debitById(anyLong(), any());
+    verify(transactionRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("Should keep only the queued transfers this consumer claimed")
+  void shouldReturnClaimedTransfersOnly() {
+    // Given: transfer 12 is claimed by another consumer or already processed
+    Transaction first = pendingTransfer(11L, testWallet, receiverWallet());
+    Transaction duplicate = pendingTransfer(12L, testWallet, receiverWallet());
+    when(transactionRepository.claimForProcessing(eq(List.of(11L, 12L)), anyLong()))
+        .thenReturn(List.of(11L));
+
+    // When
+    List<TransactionEvent> claimed =
+        walletService.claimAsyncTransfers(List.of(event(first), event(duplicate)));
+
+    // Then
+    assertThat(claimed).containsExactly(event(first));
+  }
+
+  @Test
+  @DisplayName("Should write the wallets of completed transfers through to the cache")
+  void shouldRefreshCachedWalletsOfCompletedTransfers() {
+    // Given
+    Wallet receiver = receiverWallet();
+    Transaction completed = pendingTransfer(11L, testWallet, receiver);
+    completed.setStatus(TransactionStatus.COMPLETED);
+    Wallet other = receiverWallet();
+    other.setId(9L);
+    Transaction failed = pendingTransfer(12L, other, other);
+    failed.setStatus(TransactionStatus.FAILED);
+
+    // When
+    walletService.refreshCachedWallets(List.of(completed, failed));
+
+    // Then
+    verify(walletCacheWriter).refresh(Set.of(1L, 2L));
+  }
+
+  private Transaction pendingTransfer(Long id, Wallet from, Wallet to) {
+    Transaction transaction = new Transaction();
+    transaction.setId(id);
+    transaction.setReferenceId("TX" + id);
+    transaction.setAmount(BigDecimal.TEN);
+    transaction.setStatus(TransactionStatus.PENDING);
+    transaction.setFromWallet(from);
+    transaction.setToWallet(to);
+    return transaction;
+  }
+
+  private TransactionEvent event(Transaction transaction) {
+    return TransactionEvent.builder()
+        .transactionId(transaction.getId())
+        .transactionReferenceId(transaction.getReferenceId())
+        .amount(transaction.getAmount())
+        .build();
+  }
+
+  private Wallet receiverWallet() {
+    User receiverUser = new User();
+    receiverUser.setId(2L);
+    Wallet receiver = new Wallet();
+    receiver.setId(2L);
+    receiver.setUser(receiverUser);
+    receiver.setWalletNumber("WAL654321");
+    receiver.setBalance(BigDecimal.ZERO);
+    receiver.setStatus(WalletStatus.ACTIVE);
+    return receiver;
+  }
+
+  private static WalletBalanceView balanceView(Long id, String walletNumber, BigDecimal balance) {
+    return new WalletBalanceView() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public String getWalletNumber() {
+        return walletNumber;
+      }
+
+      @Override
+      public BigDecimal getBalance() {
+        return balance;
+      }
+    };
+  }
 }
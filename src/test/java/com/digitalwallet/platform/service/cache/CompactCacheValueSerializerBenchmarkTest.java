@@ -0,0 +1,52 @@
+package com.digitalwallet.platform.service.cache;
+
+import com.digitalwallet.platform.dto.WalletResponse;
+import java.util.function.IntSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Bytes per cached {@link WalletResponse} and encode and decode cost of the JSON value serializer
+ * versus {@link CompactCacheValueSerializer}.
+ *
+ * <p>Opt-in: {@code mvn test -Dbenchmark=true -Dtest=CompactCacheValueSerializerBenchmarkTest}. A
+ * warm-up round runs before each measured one; results are printed, not asserted.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CompactCacheValueSerializerBenchmarkTest {
+
+  private static final int ENTRIES = 1_000_000;
+
+  // Results are summed here so the JIT cannot drop the measured work
+  private long sink;
+
+  @Test
+  void compareCacheValueSerializers() {
+    WalletResponse wallet = CompactCacheValueSerializerTest.wallet();
+    RedisSerializer<Object> json = CompactCacheValueSerializerTest.jsonSerializer();
+
+    report("JSON", wallet, json);
+    report("compact", wallet, new CompactCacheValueSerializer(json, true));
+  }
+
+  private void report(String name, WalletResponse wallet, RedisSerializer<Object> serializer) {
+    byte[] bytes = serializer.serialize(wallet);
+    nanosPerOp(() -> serializer.serialize(wallet).length);
+    double encodeNanos = nanosPerOp(() -> serializer.serialize(wallet).length);
+    nanosPerOp(() -> ((WalletResponse) serializer.deserialize(bytes)).getWalletId().intValue());
+    double decodeNanos =
+        nanosPerOp(() -> ((WalletResponse) serializer.deserialize(bytes)).getWalletId().intValue());
+    System.out.printf(
+        "%-7s: %3d bytes/entry, encode %.0f ns, decode %.0f ns%n",
+        name, bytes.length, encodeNanos, decodeNanos);
+  }
+
+  private double nanosPerOp(IntSupplier operation) {
+    long start = System.nanoTime();
+    for (int i = 0; i < ENTRIES; i++) {
+      sink += operation.getAsInt();
+    }
+    return (double) (System.nanoTime() - start) / ENTRIES;
+  }
+}
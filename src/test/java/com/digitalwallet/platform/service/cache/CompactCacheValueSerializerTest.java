@@ -0,0 +1,127 @@
+package com.digitalwallet.platform.service.cache;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.digitalwallet.platform.dto.TransactionResponse;
+import com.digitalwallet.platform.dto.WalletResponse;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.TransactionType;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+@DisplayName("CompactCacheValueSerializer Unit Tests")
+class CompactCacheValueSerializerTest {
+
+  private final GenericJackson2JsonRedisSerializer json = jsonSerializer();
+  private final CompactCacheValueSerializer serializer =
+      new CompactCacheValueSerializer(json, true);
+
+  @Test
+  @DisplayName("Should round-trip a wallet in a fraction of its JSON size")
+  void shouldRoundTripWallet() {
+    // Given
+    WalletResponse wallet = wallet();
+
+    // When
+    byte[] encoded = serializer.serialize(wallet);
+
+    // Then
+    assertThat(encoded[0]).isEqualTo(CompactCacheValueSerializer.VERSION);
+    assertThat(serializer.deserialize(encoded)).isEqualTo(wallet);
+    assertThat(encoded.length).isLessThan(json.serialize(wallet).length / 3);
+  }
+
+  @Test
+  @DisplayName("Should keep absent fields null and enums by name")
+  void shouldRoundTripSparseTransaction() {
+    // Given
+    TransactionResponse transaction =
+        TransactionResponse.builder()
+            .transactionId(42L)
+            .amount(new BigDecimal("-0.005"))
+            .type(TransactionType.TRANSFER)
+            .status(TransactionStatus.COMPLETED)
+            .createdAt(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000))
+            .build();
+
+    // When
+    Object decoded = serializer.deserialize(serializer.serialize(transaction));
+
+    // Then
+    assertThat(decoded).isEqualTo(transaction);
+    assertThat(((TransactionResponse) decoded).getDescription()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should read JSON entries and write other types and oversized amounts as JSON")
+  void shouldFallBackToJson() {
+    // Given
+    WalletResponse wallet = wallet();
+    WalletResponse huge = wallet();
+    huge.setBalance(new BigDecimal("123456789012345678901.00"));
+    String other = "not a cached DTO";
+
+    // When
+    byte[] hugeBytes = serializer.serialize(huge);
+
+    // Then
+    assertThat(serializer.deserialize(json.serialize(wallet))).isEqualTo(wallet);
+    assertThat(hugeBytes[0]).isEqualTo((byte) '{');
+    assertThat(serializer.deserialize(hugeBytes)).isEqualTo(huge);
+    assertThat(serializer.deserialize(serializer.serialize(other))).isEqualTo(other);
+    assertThat(new CompactCacheValueSerializer(json, false).serialize(wallet))
+        .isEqualTo(json.serialize(wallet));
+  }
+
+  @Test
+  @DisplayName("Should read unknown versions and corrupt entries as a miss")
+  void shouldTreatUnreadableEntriesAsMiss() {
+    byte[] encoded = serializer.serialize(wallet());
+    byte[] nextVersion = encoded.clone();
+    nextVersion[0] = 2;
+
+    assertThat(serializer.deserialize(nextVersion)).isNull();
+    assertThat(serializer.deserialize(Arrays.copyOf(encoded, encoded.length - 3))).isNull();
+  }
+
+  static WalletResponse wallet() {
+    return WalletResponse.builder()
+        .walletId(2051L)
+        .walletNumber("WAL7204118400000067890")
+        .balance(new BigDecimal("15250.75"))
+        .currency("USD")
+        .status(WalletStatus.ACTIVE)
+        .dailyLimit(new BigDecimal("50000.00"))
+        .transactionLimit(new BigDecimal("10000.00"))
+        .totalDailySpent(new BigDecimal("1250.00"))
+        .totalMonthlySpent(new BigDecimal("8400.50"))
+        .createdAt(LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123_456_000))
+        .updatedAt(LocalDateTime.of(2026, 10, 17, 14, 5, 0, 987_654_000))
+        .version(318L)
+        .build();
+  }
+
+  // Configured like RedisConfig's value serializer
+  static GenericJackson2JsonRedisSerializer jsonSerializer() {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.registerModule(new JavaTimeModule());
+    mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    mapper.activateDefaultTyping(
+        BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+        ObjectMapper.DefaultTyping.NON_FINAL,
+        JsonTypeInfo.As.PROPERTY);
+    return new GenericJackson2JsonRedisSerializer(mapper);
+  }
+}
@@ -0,0 +1,134 @@
+package com.digitalwallet.platform.service.cache;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TwoTierCacheManager Unit Tests")
+class TwoTierCacheManagerTest {
+
+  private static final String CHANNEL = "wallet:cache:invalidation";
+
+  @Mock private StringRedisTemplate redisTemplate;
+
+  private ConcurrentMapCacheManager remote;
+  private MeterRegistry meterRegistry;
+  private TwoTierCacheManager cacheManager;
+
+  @BeforeEach
+  void setUp() {
+    remote = new ConcurrentMapCacheManager("wallets");
+    meterRegistry = new SimpleMeterRegistry();
+    cacheManager =
+        new TwoTierCacheManager(
+            remote, redisTemplate, meterRegistry, CHANNEL, 100, Duration.ofMinutes(1));
+  }
+
+  @Test
+  @DisplayName("Should serve repeated reads from the local tier")
+  void shouldServeRepeatedReadsLocally() {
+    // Given
+    remote.getCache("wallets").put(1L, "wallet-1");
+    Cache cache = cacheManager.getCache("wallets");
+
+    // When
+    cache.get(1L);
+    remote.getCache("wallets").put(1L, "changed behind the local tier");
+    Cache.ValueWrapper second = cache.get(1L);
+
+    // Then
+    assertThat(second.get()).isEqualTo("wallet-1");
+    assertThat(count("l1", "hit")).isEqualTo(1);
+    assertThat(count("l2", "hit")).isEqualTo(1);
+    assertThat(meterRegistry.get("wallet.cache.hit.ratio").tag("tier", "l1").gauge().value())
+        .isEqualTo(0.5);
+  }
+
+  @Test
+  @DisplayName("Should evict both tiers and announce the key to other replicas")
+  void shouldEvictAndPublish() {
+    // Given
+    Cache cache = cacheManager.getCache("wallets");
+    cache.put(1L, "wallet-1");
+
+    // When
+    cache.evict(1L);
+
+    // Then
+    assertThat(cache.get(1L)).isNull();
+    assertThat(remote.getCache("wallets").get(1L)).isNull();
+    ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+    verify(redisTemplate, times(2)).convertAndSend(eq(CHANNEL), body.capture());
+    assertThat(body.getValue()).endsWith("|wallets|1");
+  }
+
+  @Test
+  @DisplayName("Should drop local entries on another replica's invalidation but not its own")
+  void shouldApplyRemoteInvalidations() {
+    // Given
+    remote.getCache("wallets").put(1L, "wallet-1");
+    Cache cache = cacheManager.getCache("wallets");
+    cache.get(1L);
+    cache.put(2L, "wallet-2");
+    ArgumentCaptor<String> own = ArgumentCaptor.forClass(String.class);
+    verify(redisTemplate).convertAndSend(eq(CHANNEL), own.capture());
+    remote.getCache("wallets").put(1L, "wallet-1 updated");
+    remote.getCache("wallets").put(2L, "wallet-2 updated");
+
+    // When
+    cacheManager.onMessage(message(own.getValue()), null);
+    cacheManager.onMessage(message("other-instance|wallets|1"), null);
+
+    // Then
+    assertThat(cache.get(1L).get()).isEqualTo("wallet-1 updated");
+    assertThat(cache.get(2L).get()).isEqualTo("wallet-2");
+    assertThat(count("l2", "hit")).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should keep serving when the invalidation cannot be published")
+  void shouldTolerateFailedPublish() {
+    // Given
+    doThrow(new IllegalStateException("Redis down"))
+        .when(redisTemplate)
+        .convertAndSend(anyString(), anyString());
+    Cache cache = cacheManager.getCache("wallets");
+
+    // When
+    cache.put(1L, "wallet-1");
+
+    // Then
+    assertThat(cache.get(1L).get()).isEqualTo("wallet-1");
+  }
+
+  private double count(String tier, String result) {
+    return meterRegistry
+        .get("wallet.cache.requests")
+        .tag("tier", tier)
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  private static DefaultMessage message(String body) {
+    return new DefaultMessage(
+        CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,141 @@
+package com.digitalwallet.platform.service.cache;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.dto.WalletResponse;
+import com.digitalwallet.platform.model.User;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.WalletBalanceStamp;
+import com.digitalwallet.platform.repository.WalletRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WalletCacheWriter Unit Tests")
+class WalletCacheWriterTest {
+
+  @Mock private WalletRepository walletRepository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private Cache cache;
+  private WalletCacheWriter walletCacheWriter;
+
+  @BeforeEach
+  void setUp() {
+    ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("wallets");
+    cache = cacheManager.getCache("wallets");
+    walletCacheWriter =
+        new WalletCacheWriter(
+            walletRepository, new VersionedCacheWriter(cacheManager, 10), transactionManager);
+  }
+
+  @Test
+  @DisplayName("Should replace a cached wallet after a slot credit that left the version alone")
+  void shouldRefreshAfterCreditThatKeptVersion() {
+    // Given: cached at version 5 with 3 legs; a slot credit since then added a fourth leg
+    cache.put(10L, WalletResponse.builder().balance(BigDecimal.valueOf(100)).version(8L).build());
+    when(walletRepository.findWithUserByIdIn(List.of(1L))).thenReturn(List.of(wallet(1L, 10L)));
+    when(walletRepository.findBalanceStampsByIdIn(List.of(1L)))
+        .thenReturn(List.of(balanceStamp(1L, BigDecimal.valueOf(150), 4L)));
+
+    // When
+    walletCacheWriter.refresh(List.of(1L));
+
+    // Then
+    WalletResponse cached = (WalletResponse) cache.get(10L).get();
+    assertThat(cached.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(150));
+    assertThat(cached.getVersion()).isEqualTo(9L);
+  }
+
+  @Test
+  @DisplayName("Should keep a cached wallet with a newer stamp than the one read")
+  void shouldKeepNewerCachedWallet() {
+    // Given
+    WalletResponse newer = WalletResponse.builder().version(12L).build();
+    cache.put(10L, newer);
+    when(walletRepository.findWithUserByIdIn(List.of(1L))).thenReturn(List.of(wallet(1L, 10L)));
+    when(walletRepository.findBalanceStampsByIdIn(List.of(1L)))
+        .thenReturn(List.of(balanceStamp(1L, BigDecimal.TEN, 4L)));
+
+    // When
+    walletCacheWriter.refresh(List.of(1L));
+
+    // Then
+    assertThat(cache.get(10L).get()).isSameAs(newer);
+  }
+
+  @Test
+  @DisplayName("Should write wallets through only once the transaction commits")
+  void shouldRefreshAfterCommit() {
+    // Given
+    when(walletRepository.findWithUserByIdIn(anyCollection()))
+        .thenReturn(List.of(wallet(1L, 10L), wallet(2L, 20L)));
+    when(walletRepository.findBalanceStampsByIdIn(anyCollection()))
+        .thenReturn(
+            List.of(balanceStamp(1L, BigDecimal.ONE, 2L), balanceStamp(2L, BigDecimal.TEN, 2L)));
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      // When
+      walletCacheWriter.refreshAfterCommit(List.of(2L, 1L));
+
+      // Then
+      verifyNoInteractions(walletRepository);
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      assertThat(cache.get(10L)).isNotNull();
+      assertThat(cache.get(20L)).isNotNull();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  @DisplayName("Should log and move on when the wallets cannot be read")
+  void shouldNotThrowWhenRefreshFails() {
+    // Given
+    when(walletRepository.findWithUserByIdIn(List.of(1L)))
+        .thenThrow(new RuntimeException("Connection refused"));
+
+    // When & Then
+    assertThatCode(() -> walletCacheWriter.refresh(List.of(1L))).doesNotThrowAnyException();
+    assertThat(cache.get(10L)).isNull();
+  }
+
+  private static Wallet wallet(Long id, Long userId) {
+    return Wallet.builder().id(id).user(User.builder().id(userId).build()).version(5L).build();
+  }
+
+  private static WalletBalanceStamp balanceStamp(Long id, BigDecimal balance, long ledgerLegs) {
+    return new WalletBalanceStamp() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public BigDecimal getBalance() {
+        return balance;
+      }
+
+      @Override
+      public Long getLedgerLegs() {
+        return ledgerLegs;
+      }
+    };
+  }
+}
@@ -0,0 +1,66 @@
+package com.digitalwallet.platform.service.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Reference ids per second from the old millis + UUID scheme versus {@link SnowflakeIdGenerator}.
+ *
+ * <p>Opt-in: {@code mvn test -Dbenchmark=true -Dtest=IdGeneratorBenchmarkTest}. A warm-up round
+ * runs before each measured one; results are printed, not asserted.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IdGeneratorBenchmarkTest {
+
+  private static final int THREADS = 8;
+  private static final int IDS_PER_THREAD = 500_000;
+
+  @Test
+  void compareReferenceIdGenerators() throws Exception {
+    SnowflakeIdGenerator snowflake = new SnowflakeIdGenerator(1, System::currentTimeMillis);
+    Supplier<String> legacy =
+        () ->
+            "TX"
+                + System.currentTimeMillis()
+                + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+
+    idsPerSecond(legacy);
+    double legacyRate = idsPerSecond(legacy);
+    idsPerSecond(snowflake::nextReferenceId);
+    double snowflakeRate = idsPerSecond(snowflake::nextReferenceId);
+
+    System.out.printf(
+        "Reference ids/s with %d threads: millis+UUID %.0f, snowflake %.0f (%.1fx)%n",
+        THREADS, legacyRate, snowflakeRate, snowflakeRate / legacyRate);
+  }
+
+  private double idsPerSecond(Supplier<String> generator) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<Integer>> workers = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int t = 0; t < THREADS; t++) {
+      workers.add(
+          pool.submit(
+              () -> {
+                int sink = 0;
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                  sink += generator.get().length();
+                }
+                return sink;
+              }));
+    }
+    for (Future<Integer> worker : workers) {
+      worker.get();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    pool.shutdown();
+    return THREADS * (double) IDS_PER_THREAD / seconds;
+  }
+}
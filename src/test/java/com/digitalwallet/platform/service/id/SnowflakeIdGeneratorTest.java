@@ -0,0 +1,100 @@
+package com.digitalwallet.platform.service.id;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SnowflakeIdGenerator Unit Tests")
+class SnowflakeIdGeneratorTest {
+
+  @Test
+  @DisplayName("Should hand out unique ids across threads")
+  void shouldBeUniqueUnderConcurrency() throws Exception {
+    // Given
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, System::currentTimeMillis);
+    Set<Long> ids = ConcurrentHashMap.newKeySet();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    // When
+    List<Future<?>> workers = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      workers.add(
+          pool.submit(
+              () -> {
+                for (int i = 0; i < 20_000; i++) {
+                  ids.add(generator.nextId());
+                }
+              }));
+    }
+    for (Future<?> worker : workers) {
+      worker.get();
+    }
+    pool.shutdown();
+
+    // Then
+    assertThat(ids).hasSize(160_000);
+  }
+
+  @Test
+  @DisplayName("Should keep ids increasing when the clock stalls or steps back")
+  void shouldStayMonotonicWhenClockMisbehaves() {
+    // Given
+    AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH_MS + 1_000);
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+    // When
+    long first = generator.nextId();
+    for (int i = 0; i < 5_000; i++) {
+      generator.nextId(); // more than one millisecond's worth of sequence numbers
+    }
+    clock.addAndGet(-500);
+    long afterStepBack = generator.nextId();
+
+    // Then
+    assertThat(afterStepBack).isGreaterThan(first);
+  }
+
+  @Test
+  @DisplayName("Should render fixed-width strings that sort like the ids")
+  void shouldEncodeInIdOrder() {
+    // Given
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, System::currentTimeMillis);
+
+    // When
+    String first = generator.nextReferenceId();
+    String second = generator.nextReferenceId();
+    String walletNumber = generator.nextWalletNumber();
+
+    // Then
+    assertThat(first).startsWith("TX").hasSize(15);
+    assertThat(second).isGreaterThan(first);
+    assertThat(walletNumber).startsWith("WAL").hasSizeLessThanOrEqualTo(20);
+    assertThat(SnowflakeIdGenerator.encode("", 0)).isEqualTo("0000000000000");
+  }
+
+  @Test
+  @DisplayName("Should place the node number between timestamp and sequence")
+  void shouldEmbedNodeNumber() {
+    // Given
+    SnowflakeIdGenerator generator =
+        new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE, System::currentTimeMillis);
+
+    // When
+    long id = generator.nextId();
+
+    // Then
+    assertThat((id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE)
+        .isEqualTo(SnowflakeIdGenerator.MAX_NODE);
+    assertThatThrownBy(() -> new SnowflakeIdGenerator(1024, System::currentTimeMillis))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
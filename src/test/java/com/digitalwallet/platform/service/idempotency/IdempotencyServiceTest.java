@@ -0,0 +1,233 @@
+package com.digitalwallet.platform.service.idempotency;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.model.IdempotencyRecord;
+import com.digitalwallet.platform.model.IdempotencyStatus;
+import com.digitalwallet.platform.repository.IdempotencyRecordRepository;
+import com.digitalwallet.platform.service.OutcomeUnknownException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyService Unit Tests")
+class IdempotencyServiceTest {
+
+  @Mock private IdempotencyRecordRepository idempotencyRecordRepository;
+
+  private IdempotencyService idempotencyService;
+
+  private final AtomicInteger executions = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() {
+    idempotencyService =
+        new IdempotencyService(
+            idempotencyRecordRepository,
+            new ObjectMapper(),
+            new SimpleMeterRegistry(),
+            24,
+            100,
+            200,
+            60);
+  }
+
+  @Test
+  @DisplayName("Should run the action only once and replay the stored response")
+  void shouldReplayWithoutRunningAgain() {
+    // Given
+    when(idempotencyRecordRepository.claim(eq(1L), eq("key-1"), anyString(), any(), any()))
+        .thenReturn(1);
+
+    // When
+    ResponseEntity<?> first = execute("key-1", Map.of("amount", 100));
+    ResponseEntity<?> retry = execute("key-1", Map.of("amount", 100));
+
+    // Then
+    assertThat(executions).hasValue(1);
+    assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+    assertThat(retry.getBody()).isEqualTo("{\"result\":\"moved\"}");
+    verify(idempotencyRecordRepository).complete(1L, "key-1", 200, "{\"result\":\"moved\"}");
+  }
+
+  @Test
+  @DisplayName("Should reject a reused key with a different request body")
+  void shouldRejectFingerprintMismatch() {
+    // Given
+    when(idempotencyRecordRepository.claim(eq(1L), eq("key-2"), anyString(), any(), any()))
+        .thenReturn(1);
+    execute("key-2", Map.of("amount", 100));
+
+    // When
+    ResponseEntity<?> reused = execute("key-2", Map.of("amount", 999));
+
+    // Then
+    assertThat(reused.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    assertThat(executions).hasValue(1);
+  }
+
+  @Test
+  @DisplayName("Should replay a response completed by another instance")
+  void shouldReplayResponseStoredElsewhere() {
+    // Given
+    IdempotencyRecord stored =
+        IdempotencyRecord.builder()
+            .status(IdempotencyStatus.COMPLETED)
+            .fingerprint(idempotencyService.fingerprint("wallet.deposit", Map.of("amount", 100)))
+            .responseStatus(200)
+            .responseBody("{\"result\":\"moved\"}")
+            .expiresAt(LocalDateTime.now().plusHours(1))
+            .build();
+    when(idempotencyRecordRepository.claim(eq(1L), eq("key-3"), anyString(), any(), any()))
+        .thenReturn(0);
+    when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(1L, "key-3"))
+        .thenReturn(Optional.of(stored));
+
+    // When
+    ResponseEntity<?> retry = execute("key-3", Map.of("amount", 100));
+
+    // Then
+    assertThat(retry.getBody()).isEqualTo("{\"result\":\"moved\"}");
+    assertThat(executions).hasValue(0);
+  }
+
+  @Test
+  @DisplayName("Should release the key when the action fails so a retry can run it")
+  void shouldReleaseKeyOnFailure() {
+    // Given
+    when(idempotencyRecordRepository.claim(eq(1L), eq("key-4"), anyString(), any(), any()))
+        .thenReturn(1);
+
+    // When
+    assertThatThrownBy(
+            () ->
+                idempotencyService.execute(
+                    1L,
+                    "key-4",
+                    "wallet.withdraw",
+                    Map.of("amount", 100),
+                    () -> {
+                      throw new RuntimeException("Insufficient balance");
+                    }))
+        .hasMessage("Insufficient balance");
+
+    // Then
+    verify(idempotencyRecordRepository).release(1L, "key-4");
+    verify(idempotencyRecordRepository, never()).complete(any(), any(), anyInt(), any());
+  }
+
+  @Test
+  @DisplayName("Should hold the key and answer 409 when the outcome of a failure is unknown")
+  void shouldHoldKeyWhenOutcomeUnknown() {
+    // Given
+    when(idempotencyRecordRepository.claim(eq(1L), eq("key-5"), anyString(), any(), any()))
+        .thenReturn(1);
+
+    // When
+    ResponseEntity<?> response =
+        idempotencyService.execute(
+            1L,
+            "key-5",
+            "wallet.transfer",
+            Map.of("amount", 100),
+            () -> {
+              throw new OutcomeUnknownException("TXN-1 is still being recorded");
+            });
+
+    // Then
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    verify(idempotencyRecordRepository).hold(1L, "key-5");
+    verify(idempotencyRecordRepository, never()).release(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should hold the key when the response cannot be stored after the action ran")
+  void shouldHoldKeyWhenCompletionFails() {
+    // Given
+    when(idempotencyRecordRepository.claim(eq(1L), eq("key-8"), anyString(), any(), any()))
+        .thenReturn(1);
+    when(idempotencyRecordRepository.complete(eq(1L), eq("key-8"), anyInt(), anyString()))
+        .thenThrow(new RuntimeException("Connection reset"));
+
+    // When
+    ResponseEntity<?> response = execute("key-8", Map.of("amount", 100));
+
+    // Then
+    assertThat(executions).hasValue(1);
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    verify(idempotencyRecordRepository).hold(1L, "key-8");
+    verify(idempotencyRecordRepository, never()).release(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should answer a retry of a held key with 409 without running it")
+  void shouldNotRunHeldKeyAgain() {
+    // Given
+    LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+    IdempotencyRecord held =
+        IdempotencyRecord.builder()
+            .status(IdempotencyStatus.IN_PROGRESS)
+            .fingerprint(idempotencyService.fingerprint("wallet.deposit", Map.of("amount", 100)))
+            .expiresAt(expiresAt)
+            .leaseUntil(expiresAt)
+            .build();
+    when(idempotencyRecordRepository.claim(eq(1L), eq("key-6"), anyString(), any(), any()))
+        .thenReturn(0);
+    when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(1L, "key-6"))
+        .thenReturn(Optional.of(held));
+
+    // When
+    ResponseEntity<?> retry = execute("key-6", Map.of("amount", 100));
+
+    // Then
+    assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    assertThat(executions).hasValue(0);
+  }
+
+  @Test
+  @DisplayName("Should lease an unfinished claim for much less than the replay window")
+  void shouldLeaseClaimSeparatelyFromExpiry() {
+    // Given
+    ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+    ArgumentCaptor<LocalDateTime> leaseUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+    when(idempotencyRecordRepository.claim(
+            eq(1L), eq("key-7"), anyString(), expiresAt.capture(), leaseUntil.capture()))
+        .thenReturn(1);
+
+    // When
+    execute("key-7", Map.of("amount", 100));
+
+    // Then
+    assertThat(leaseUntil.getValue()).isBefore(LocalDateTime.now().plusMinutes(2));
+    assertThat(expiresAt.getValue()).isAfter(LocalDateTime.now().plusHours(23));
+  }
+
+  private ResponseEntity<?> execute(String key, Object request) {
+    return idempotencyService.execute(
+        1L,
+        key,
+        "wallet.deposit",
+        request,
+        () -> {
+          executions.incrementAndGet();
+          return ResponseEntity.ok(Map.of("result", "moved"));
+        });
+  }
+}
@@ -0,0 +1,175 @@
+package com.digitalwallet.platform.service.ledger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.TransactionType;
+import com.digitalwallet.platform.model.User;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.repository.WalletBalanceSlotRepository;
+import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.cache.WalletCacheWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LedgerEngine Unit Tests")
+class LedgerEngineTest {
+
+  @Mock private WalletRepository walletRepository;
+
+  @Mock private TransactionRepository transactionRepository;
+
+  @Mock private WalletBalanceSlotRepository walletBalanceSlotRepository;
+
+  @Mock private WalletCacheWriter walletCacheWriter;
+
+  @Mock private LedgerEntryWriter ledgerEntryWriter;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private LedgerEngine engine;
+
+  @BeforeEach
+  void setUp() {
+    Wallet sender = wallet(1L, 10L, "WAL1", BigDecimal.valueOf(1000));
+    Wallet receiver = wallet(2L, 20L, "WAL2", BigDecimal.valueOf(50));
+    when(walletRepository.findAll(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(sender, receiver)));
+
+    engine = newEngine();
+    engine.start();
+    // Only the startup check has queried transactions so far
+    clearInvocations(transactionRepository);
+  }
+
+  @AfterEach
+  void tearDown() {
+    engine.stop();
+  }
+
+  @Test
+  @DisplayName("Should settle a transfer in memory and journal both wallets")
+  void shouldTransferAndJournal() {
+    // Given
+    when(walletRepository.applyLedgerDelta(anyLong(), any(), any())).thenReturn(1);
+
+    // When
+    LedgerReceipt receipt =
+        engine.transfer(10L, "WAL2", BigDecimal.valueOf(300), "USD", "Rent", "TXN1");
+
+    // Then
+    Transaction transaction = receipt.getTransaction();
+    assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+    assertThat(transaction.getType()).isEqualTo(TransactionType.TRANSFER);
+    assertThat(receipt.getSenderWalletNumber()).isEqualTo("WAL1");
+    verify(transactionRepository).save(transaction);
+    verify(ledgerEntryWriter).record(transaction, false);
+    verify(walletRepository)
+        .applyLedgerDelta(1L, BigDecimal.valueOf(-300), BigDecimal.valueOf(300));
+    verify(walletRepository).applyLedgerDelta(2L, BigDecimal.valueOf(300), BigDecimal.ZERO);
+    verify(walletCacheWriter).refresh(Set.of(1L, 2L));
+  }
+
+  @Test
+  @DisplayName("Should reject a withdrawal over the balance without touching the database")
+  void shouldRejectOverdraftInMemory() {
+    // When / Then
+    assertThatThrownBy(() -> engine.withdraw(20L, BigDecimal.valueOf(51), "USD", "TXN2"))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("Insufficient balance");
+    verifyNoInteractions(transactionRepository);
+  }
+
+  @Test
+  @DisplayName("Should undo the in-memory debit when the journal cannot write it")
+  void shouldUndoWhenJournalFails() {
+    // Given
+    when(walletRepository.applyLedgerDelta(anyLong(), any(), any()))
+        .thenThrow(new IllegalStateException("database down"))
+        .thenReturn(1);
+
+    // When
+    assertThatThrownBy(() -> engine.withdraw(20L, BigDecimal.valueOf(50), "USD", "TXN3"))
+        .hasMessageContaining("Failed to record transaction");
+
+    // Then: the full balance is available again
+    LedgerReceipt receipt = engine.withdraw(20L, BigDecimal.valueOf(50), "USD", "TXN4");
+    assertThat(receipt.getTransaction().getReferenceId()).isEqualTo("TXN4");
+  }
+
+  @Test
+  @DisplayName("Should keep the in-memory daily spend when limits are refreshed")
+  void shouldKeepDailySpentOnLimitRefresh() {
+    // Given: the journal has not reached the database, whose spent counter still reads zero
+    when(walletRepository.applyLedgerDelta(anyLong(), any(), any())).thenReturn(1);
+    engine.withdraw(10L, BigDecimal.valueOf(300), "USD", "TXN5");
+    Wallet updated = wallet(1L, 10L, "WAL1", BigDecimal.valueOf(1000));
+    updated.setDailyLimit(BigDecimal.valueOf(400));
+    updated.setTotalDailySpent(BigDecimal.ZERO);
+
+    // When
+    engine.refreshLimits(updated);
+
+    // Then
+    assertThatThrownBy(() -> engine.withdraw(10L, BigDecimal.valueOf(200), "USD", "TXN6"))
+        .hasMessageContaining("daily");
+  }
+
+  @Test
+  @DisplayName("Should refuse to start while queued transfers are unfinished")
+  void shouldRefuseToStartWithQueuedTransfers() {
+    // Given
+    when(transactionRepository.countByStatusIn(anyCollection())).thenReturn(2L);
+    LedgerEngine second = newEngine();
+
+    // When / Then
+    assertThatThrownBy(second::start)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("2 queued transfers are unfinished");
+  }
+
+  private LedgerEngine newEngine() {
+    return new LedgerEngine(
+        walletRepository,
+        transactionRepository,
+        walletBalanceSlotRepository,
+        ledgerEntryWriter,
+        transactionManager,
+        walletCacheWriter,
+        new SimpleMeterRegistry(),
+        4,
+        64,
+        16,
+        2000);
+  }
+
+  private Wallet wallet(Long id, Long userId, String number, BigDecimal balance) {
+    return Wallet.builder()
+        .id(id)
+        .user(User.builder().id(userId).build())
+        .walletNumber(number)
+        .balance(balance)
+        .status(WalletStatus.ACTIVE)
+        .dailyLimit(BigDecimal.valueOf(10000))
+        .transactionLimit(BigDecimal.valueOf(5000))
+        .build();
+  }
+}
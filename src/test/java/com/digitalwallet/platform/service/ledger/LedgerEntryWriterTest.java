@@ -0,0 +1,91 @@
+package com.digitalwallet.platform.service.ledger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.model.LedgerAccount;
+import com.digitalwallet.platform.model.LedgerDirection;
+import com.digitalwallet.platform.model.LedgerEntry;
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionType;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.LedgerEntryRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LedgerEntryWriter Unit Tests")
+class LedgerEntryWriterTest {
+
+  @Mock private LedgerEntryRepository ledgerEntryRepository;
+
+  @InjectMocks private LedgerEntryWriter ledgerEntryWriter;
+
+  @BeforeEach
+  void setUp() {
+    when(ledgerEntryRepository.saveAll(anyList()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  @DisplayName("Should write a balanced debit and credit pair for a transfer")
+  void shouldWriteBothLegsOfTransfer() {
+    // Given
+    Transaction transfer = transaction(TransactionType.TRANSFER, wallet(1L), wallet(2L));
+
+    // When
+    List<LedgerEntry> legs = ledgerEntryWriter.record(transfer, false);
+
+    // Then
+    assertThat(legs)
+        .extracting(LedgerEntry::getDirection, LedgerEntry::getWalletId, LedgerEntry::getAmount)
+        .containsExactly(
+            tuple(LedgerDirection.DEBIT, 1L, BigDecimal.valueOf(250)),
+            tuple(LedgerDirection.CREDIT, 2L, BigDecimal.valueOf(250)));
+    assertThat(legs).allSatisfy(leg -> assertThat(leg.getMaterializedAt()).isNotNull());
+  }
+
+  @Test
+  @DisplayName("Should post deposits against the external account and defer the wallet credit")
+  void shouldDeferCreditLegOfDeposit() {
+    // Given
+    Transaction deposit = transaction(TransactionType.DEPOSIT, null, wallet(2L));
+
+    // When
+    List<LedgerEntry> legs = ledgerEntryWriter.record(deposit, true);
+
+    // Then
+    LedgerEntry debit = legs.get(0);
+    LedgerEntry credit = legs.get(1);
+    assertThat(debit.getAccount()).isEqualTo(LedgerAccount.EXTERNAL);
+    assertThat(debit.getWalletId()).isNull();
+    assertThat(debit.getMaterializedAt()).isNotNull();
+    assertThat(credit.getAccount()).isEqualTo(LedgerAccount.WALLET);
+    assertThat(credit.getMaterializedAt()).isNull();
+  }
+
+  private Transaction transaction(TransactionType type, Wallet from, Wallet to) {
+    return Transaction.builder()
+        .id(7L)
+        .type(type)
+        .fromWallet(from)
+        .toWallet(to)
+        .amount(BigDecimal.valueOf(250))
+        .referenceId("TX7")
+        .build();
+  }
+
+  private Wallet wallet(Long id) {
+    Wallet wallet = new Wallet();
+    wallet.setId(id);
+    return wallet;
+  }
+}
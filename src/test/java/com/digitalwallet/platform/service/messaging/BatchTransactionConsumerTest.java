@@ -0,0 +1,153 @@
+package com.digitalwallet.platform.service.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.service.WalletService;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BatchTransactionConsumer Unit Tests")
+class BatchTransactionConsumerTest {
+
+  @Mock private WalletService walletService;
+
+  @Mock private TransactionReceiptSender transactionReceiptSender;
+
+  @Mock private BatchAcknowledgement<TransactionEvent> acknowledgement;
+
+  private BatchTransactionConsumer consumer;
+
+  private final Message<TransactionEvent> first = message(1L, 1L);
+  private final Message<TransactionEvent> poison = message(2L, 1L);
+  private final Message<TransactionEvent> third = message(3L, 1L);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @BeforeEach
+  void setUp() {
+    consumer =
+        new BatchTransactionConsumer(
+            walletService,
+            transactionReceiptSender,
+            new PartitionedDispatcher(meterRegistry, 8),
+            new ConsumerConcurrencyGovernor(
+                () -> null, meterRegistry, true, 4, 1, 8, 0.05, 2.0, 0.8),
+            meterRegistry);
+    lenient()
+        .when(walletService.claimAsyncTransfers(anyList()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  @DisplayName("Should apply the batch in one call and acknowledge every message")
+  void shouldApplyBatchAndAcknowledgeAll() {
+    // Given
+    List<Message<TransactionEvent>> messages = List.of(first, poison, third);
+    Transaction transaction = new Transaction();
+    when(walletService.executeAsyncTransfers(anyList())).thenReturn(List.of(transaction));
+
+    // When
+    consumer.receiveTransactionEvents(messages, acknowledgement);
+
+    // Then
+    verify(walletService, times(1)).executeAsyncTransfers(anyList());
+    verify(acknowledgement).acknowledge(messages);
+    verify(walletService).refreshCachedWallets(List.of(transaction));
+    verify(transactionReceiptSender).send(transaction);
+    assertThat(meterRegistry.get("wallet.consumer.concurrency.in-flight").gauge().value())
+        .isZero();
+  }
+
+  @Test
+  @DisplayName("Should retry a failed batch one by one and leave only the poison message")
+  void shouldIsolatePoisonMessage() {
+    // Given
+    when(walletService.executeAsyncTransfers(argThat(events -> events.size() > 1)))
+        .thenThrow(new IllegalStateException("Receiver wallet 9 not credited"));
+    when(walletService.executeAsyncTransfers(List.of(poison.getPayload())))
+        .thenThrow(new IllegalStateException("Receiver wallet 9 not credited"));
+    when(walletService.executeAsyncTransfers(List.of(first.getPayload())))
+        .thenReturn(List.of(new Transaction()));
+    when(walletService.executeAsyncTransfers(List.of(third.getPayload())))
+        .thenReturn(List.of(new Transaction()));
+
+    // When
+    consumer.receiveTransactionEvents(List.of(first, poison, third), acknowledgement);
+
+    // Then
+    verify(acknowledgement).acknowledge(List.of(first));
+    verify(acknowledgement).acknowledge(List.of(third));
+    verify(acknowledgement, never()).acknowledge(List.of(poison));
+    verify(transactionReceiptSender, times(2)).send(any());
+  }
+
+  @Test
+  @DisplayName("Should split a poll by sender lane and apply each part separately")
+  void shouldSplitBatchBySender() {
+    // Given: wallets 1 and 2 map to different lanes of an 8-lane dispatcher
+    Message<TransactionEvent> otherSender = message(4L, 2L);
+    when(walletService.executeAsyncTransfers(anyList())).thenReturn(List.of());
+
+    // When
+    consumer.receiveTransactionEvents(List.of(first, otherSender, third), acknowledgement);
+
+    // Then
+    verify(walletService).executeAsyncTransfers(List.of(first.getPayload(), third.getPayload()));
+    verify(walletService).executeAsyncTransfers(List.of(otherSender.getPayload()));
+    verify(acknowledgement).acknowledge(List.of(first, third));
+    verify(acknowledgement).acknowledge(List.of(otherSender));
+  }
+
+  @Test
+  @DisplayName("Should acknowledge duplicates without applying them and release failed claims")
+  void shouldSkipUnclaimedEvents() {
+    // Given: the first event's transfer is held by another consumer
+    when(walletService.claimAsyncTransfers(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<TransactionEvent> events = invocation.getArgument(0);
+              return events.stream().filter(event -> event.getTransactionId() != 1L).toList();
+            });
+    when(walletService.executeAsyncTransfers(List.of(poison.getPayload(), third.getPayload())))
+        .thenThrow(new IllegalStateException("Receiver wallet 9 not credited"));
+    when(walletService.executeAsyncTransfers(List.of(poison.getPayload())))
+        .thenThrow(new IllegalStateException("Receiver wallet 9 not credited"));
+    when(walletService.executeAsyncTransfers(List.of(third.getPayload())))
+        .thenReturn(List.of(new Transaction()));
+
+    // When
+    consumer.receiveTransactionEvents(List.of(first, poison, third), acknowledgement);
+
+    // Then
+    verify(walletService, never()).executeAsyncTransfers(List.of(first.getPayload()));
+    verify(walletService).releaseAsyncTransfers(List.of(poison.getPayload(), third.getPayload()));
+    verify(walletService).releaseAsyncTransfers(List.of(poison.getPayload()));
+    verify(acknowledgement).acknowledge(List.of(first));
+    verify(acknowledgement).acknowledge(List.of(third));
+    verify(acknowledgement, never()).acknowledge(List.of(poison));
+  }
+
+  private static Message<TransactionEvent> message(Long transactionId, Long senderWalletId) {
+    return MessageBuilder.withPayload(
+            TransactionEvent.builder()
+                .senderWalletId(senderWalletId)
+                .transactionId(transactionId)
+                .transactionReferenceId("TX" + transactionId)
+                .build())
+        .build();
+  }
+}
@@ -0,0 +1,156 @@
+package com.digitalwallet.platform.service.messaging;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.digitalwallet.platform.service.messaging.ConsumerConcurrencyGovernor.PoolUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+@DisplayName("ConsumerConcurrencyGovernor Unit Tests")
+class ConsumerConcurrencyGovernorTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final AtomicReference<PoolUsage> pool = new AtomicReference<>(new PoolUsage(0, 10, 0));
+
+  private ConsumerConcurrencyGovernor governor(int initialLimit) {
+    return new ConsumerConcurrencyGovernor(
+        pool::get, meterRegistry, true, initialLimit, 1, 8, 0.05, 2.0, 0.8);
+  }
+
+  @Test
+  @DisplayName("Should hold applies beyond the limit until a slot frees up")
+  void shouldWaitForSlot() throws Exception {
+    // Given
+    ConsumerConcurrencyGovernor governor = governor(1);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    CompletableFuture<Integer> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                governor.call(
+                    () -> {
+                      running.countDown();
+                      await(finish);
+                      return 1;
+                    }));
+    assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // When
+    CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> governor.call(() -> 2));
+
+    // Then
+    assertThat(second).isNotDone();
+    Thread.sleep(100);
+    assertThat(second).isNotDone();
+    finish.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should free a slot taken on one thread when another thread releases it")
+  void shouldReleaseSlotFromAnotherThread() throws Exception {
+    // Given
+    ConsumerConcurrencyGovernor governor = governor(1);
+    ConsumerConcurrencyGovernor.Slot slot = governor.acquire();
+    CompletableFuture<ConsumerConcurrencyGovernor.Slot> waiting =
+        CompletableFuture.supplyAsync(governor::acquire);
+
+    // When
+    CompletableFuture.runAsync(
+            () -> {
+              assertThat(slot.call(() -> 1)).isEqualTo(1);
+              slot.release();
+              slot.release();
+            })
+        .get(5, TimeUnit.SECONDS);
+
+    // Then
+    waiting.get(5, TimeUnit.SECONDS).release();
+    assertThat(meterRegistry.get("wallet.consumer.concurrency.in-flight").gauge().value())
+        .isZero();
+  }
+
+  @Test
+  @DisplayName("Should raise the limit when it was reached and the pool has headroom")
+  void shouldIncreaseWithHeadroom() {
+    // Given
+    ConsumerConcurrencyGovernor governor = governor(1);
+    governor.call(() -> 1);
+
+    // When
+    governor.adjust();
+    governor.adjust();
+
+    // Then: the second window saw no demand
+    assertThat(governor.limit()).isEqualTo(2);
+    assertThat(decisions("increase", "headroom")).isEqualTo(1.0);
+    assertThat(meterRegistry.get("wallet.consumer.concurrency.limit").gauge().value())
+        .isEqualTo(2.0);
+  }
+
+  @Test
+  @DisplayName("Should not grow past the pool high-water mark")
+  void shouldHoldNearPoolHighWater() {
+    // Given
+    ConsumerConcurrencyGovernor governor = governor(1);
+    pool.set(new PoolUsage(8, 10, 0));
+    governor.call(() -> 1);
+
+    // When
+    governor.adjust();
+
+    // Then
+    assertThat(governor.limit()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should back off when threads wait for connections or applies conflict")
+  void shouldDecreaseUnderPressure() {
+    // Given
+    ConsumerConcurrencyGovernor governor = governor(8);
+    pool.set(new PoolUsage(10, 10, 3));
+
+    // When
+    governor.adjust();
+    pool.set(new PoolUsage(2, 10, 0));
+    governor.call(() -> 1);
+    assertThatThrownBy(
+            () ->
+                governor.call(
+                    () -> {
+                      throw new OptimisticLockingFailureException("Wallet 9 was updated");
+                    }))
+        .isInstanceOf(OptimisticLockingFailureException.class);
+    governor.adjust();
+
+    // Then
+    assertThat(governor.limit()).isEqualTo(4);
+    assertThat(decisions("decrease", "pool")).isEqualTo(1.0);
+    assertThat(decisions("decrease", "conflicts")).isEqualTo(1.0);
+  }
+
+  private double decisions(String decision, String reason) {
+    return meterRegistry
+        .get("wallet.consumer.concurrency.decisions")
+        .tag("decision", decision)
+        .tag("reason", reason)
+        .counter()
+        .count();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
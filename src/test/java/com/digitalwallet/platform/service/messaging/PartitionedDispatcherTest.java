@@ -0,0 +1,103 @@
+package com.digitalwallet.platform.service.messaging;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PartitionedDispatcher Unit Tests")
+class PartitionedDispatcherTest {
+
+  private final PartitionedDispatcher dispatcher =
+      new PartitionedDispatcher(new SimpleMeterRegistry(), 8);
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.stop();
+  }
+
+  @Test
+  @DisplayName("Should never run two tasks of one key at the same time")
+  void shouldSerializeTasksOfOneKey() throws Exception {
+    // Given
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    ExecutorService callers = Executors.newFixedThreadPool(16);
+    List<CompletableFuture<Void>> done = new ArrayList<>();
+
+    // When: a burst for wallet 1 arrives on 16 threads
+    for (int i = 0; i < 2000; i++) {
+      done.add(
+          CompletableFuture.runAsync(
+              () ->
+                  dispatcher.execute(
+                      1L,
+                      () -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        Thread.onSpinWait();
+                        return running.decrementAndGet();
+                      }),
+              callers));
+    }
+    CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+    callers.shutdown();
+
+    // Then
+    assertThat(maxRunning.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should run tasks of keys on different lanes in parallel")
+  void shouldRunOtherLanesInParallel() throws Exception {
+    // Given: wallets 1 and 2 map to different lanes
+    assertThat(dispatcher.laneOf(1L)).isNotEqualTo(dispatcher.laneOf(2L));
+    CountDownLatch otherStarted = new CountDownLatch(1);
+
+    // When: wallet 1's task can only finish once wallet 2's task has started
+    CompletableFuture<Boolean> first = dispatcher.submit(1L, () -> awaitQuietly(otherStarted));
+    CompletableFuture<Boolean> second =
+        dispatcher.submit(
+            2L,
+            () -> {
+              otherStarted.countDown();
+              return true;
+            });
+
+    // Then
+    assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should rethrow the task's own exception")
+  void shouldRethrowTaskException() {
+    assertThatThrownBy(
+            () ->
+                dispatcher.execute(
+                    1L,
+                    () -> {
+                      throw new IllegalStateException("Receiver wallet 9 not credited");
+                    }))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Receiver wallet 9 not credited");
+  }
+
+  private static boolean awaitQuietly(CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.digitalwallet.platform.service.messaging;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Encode and decode cost and bytes per event of Jackson JSON versus {@link TransactionEventCodec},
+ * as sent over SQS (the binary form Base64-encoded).
+ *
+ * <p>Opt-in: {@code mvn test -Dbenchmark=true -Dtest=TransactionEventCodecBenchmarkTest}. A
+ * warm-up round runs before each measured one; results are printed, not asserted.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionEventCodecBenchmarkTest {
+
+  private static final int EVENTS = 2_000_000;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  // Results are summed here so the JIT cannot drop the measured work
+  private long sink;
+
+  @Test
+  void compareEventCodecs() {
+    TransactionEvent event =
+        TransactionEvent.builder()
+            .transactionReferenceId("TX7204118400000012345")
+            .senderId(1042L)
+            .senderWalletId(2051L)
+            .transactionId(900_123_456L)
+            .receiverWalletNumber("WAL7204118400000067890")
+            .amount(new BigDecimal("1250.75"))
+            .currency("USD")
+            .description("Rent for March")
+            .build();
+    Function<TransactionEvent, String> jsonEncode =
+        e -> {
+          try {
+            return objectMapper.writeValueAsString(e);
+          } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+          }
+        };
+    Function<String, TransactionEvent> jsonDecode =
+        body -> {
+          try {
+            return objectMapper.readValue(body, TransactionEvent.class);
+          } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+          }
+        };
+    Function<TransactionEvent, String> binaryEncode =
+        e -> Base64.getEncoder().encodeToString(TransactionEventCodec.encode(e));
+    Function<String, TransactionEvent> binaryDecode =
+        body -> TransactionEventCodec.decode(Base64.getDecoder().decode(body));
+
+    report("JSON", event, jsonEncode, jsonDecode);
+    report("binary", event, binaryEncode, binaryDecode);
+    System.out.printf("Raw binary event: %d bytes%n", TransactionEventCodec.encode(event).length);
+  }
+
+  private void report(
+      String name,
+      TransactionEvent event,
+      Function<TransactionEvent, String> encode,
+      Function<String, TransactionEvent> decode) {
+    String body = encode.apply(event);
+    nanosPerOp(() -> encode.apply(event).length());
+    double encodeNanos = nanosPerOp(() -> encode.apply(event).length());
+    nanosPerOp(() -> decode.apply(body).getTransactionId().intValue());
+    double decodeNanos = nanosPerOp(() -> decode.apply(body).getTransactionId().intValue());
+    System.out.printf(
+        "%-6s: %3d bytes/event, encode %.0f ns, decode %.0f ns%n",
+        name, body.length(), encodeNanos, decodeNanos);
+  }
+
+  private double nanosPerOp(IntSupplier operation) {
+    long start = System.nanoTime();
+    for (int i = 0; i < EVENTS; i++) {
+      sink += operation.getAsInt();
+    }
+    return (double) (System.nanoTime() - start) / EVENTS;
+  }
+}
@@ -0,0 +1,117 @@
+package com.digitalwallet.platform.service.messaging;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+@DisplayName("TransactionEventCodec Unit Tests")
+class TransactionEventCodecTest {
+
+  @Test
+  @DisplayName("Should round-trip every field in a fraction of the JSON size")
+  void shouldRoundTripEvent() throws Exception {
+    // Given
+    TransactionEvent event = event();
+
+    // When
+    byte[] encoded = TransactionEventCodec.encode(event);
+
+    // Then
+    assertThat(TransactionEventCodec.decode(encoded)).isEqualTo(event);
+    assertThat(encoded.length).isLessThan(new ObjectMapper().writeValueAsBytes(event).length / 2);
+  }
+
+  @Test
+  @DisplayName("Should keep absent fields null and write unknown currencies inline")
+  void shouldRoundTripSparseEvent() {
+    // Given
+    TransactionEvent event =
+        TransactionEvent.builder()
+            .transactionId(7L)
+            .amount(new BigDecimal("-0.005"))
+            .currency("XAU")
+            .build();
+
+    // When
+    TransactionEvent decoded = TransactionEventCodec.decode(TransactionEventCodec.encode(event));
+
+    // Then
+    assertThat(decoded).isEqualTo(event);
+    assertThat(decoded.getAmount().scale()).isEqualTo(3);
+    assertThat(decoded.getSenderWalletId()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should reject JSON, unknown versions and truncated input")
+  void shouldRejectForeignInput() throws Exception {
+    byte[] json = new ObjectMapper().writeValueAsBytes(event());
+    byte[] encoded = TransactionEventCodec.encode(event());
+    byte[] nextVersion = encoded.clone();
+    nextVersion[0] = 2;
+
+    assertThat(TransactionEventCodec.isBinary(json)).isFalse();
+    assertThatThrownBy(() -> TransactionEventCodec.decode(json))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> TransactionEventCodec.decode(nextVersion))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+            () -> TransactionEventCodec.decode(Arrays.copyOf(encoded, encoded.length - 3)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("Should reject amounts that do not fit a scaled long")
+  void shouldRejectOversizedAmount() {
+    TransactionEvent event =
+        TransactionEvent.builder().amount(new BigDecimal("123456789012345678901.00")).build();
+
+    assertThatThrownBy(() -> TransactionEventCodec.encode(event))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("Should convert only messages marked with the binary content type")
+  void shouldNegotiateByContentType() {
+    // Given
+    TransactionEventMessageConverter converter = new TransactionEventMessageConverter();
+    MessageHeaders binary =
+        new MessageHeaders(Map.of(MessageHeaders.CONTENT_TYPE, TransactionEventCodec.MIME_TYPE));
+
+    // When
+    Message<?> sent = converter.toMessage(event(), binary);
+    Message<?> unmarked = converter.toMessage(event(), new MessageHeaders(Map.of()));
+
+    // Then
+    assertThat(sent.getPayload()).isInstanceOf(String.class);
+    assertThat(unmarked).isNull();
+    Message<?> received =
+        MessageBuilder.withPayload(sent.getPayload()).copyHeaders(sent.getHeaders()).build();
+    assertThat(converter.fromMessage(received, TransactionEvent.class)).isEqualTo(event());
+    assertThat(
+            converter.fromMessage(
+                MessageBuilder.withPayload("{}").build(), TransactionEvent.class))
+        .isNull();
+  }
+
+  private static TransactionEvent event() {
+    return TransactionEvent.builder()
+        .transactionReferenceId("TX7204118400000012345")
+        .senderId(1042L)
+        .senderWalletId(2051L)
+        .transactionId(900_123_456L)
+        .receiverWalletNumber("WAL7204118400000067890")
+        .amount(new BigDecimal("1250.75"))
+        .currency("USD")
+        .description("Rent for March")
+        .build();
+  }
+}
@@ -0,0 +1,191 @@
+package com.digitalwallet.platform.service.messaging;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.service.messaging.TransactionProducer.OverflowPolicy;
+import com.digitalwallet.platform.service.messaging.TransactionProducer.Pending;
+import io.awspring.cloud.sqs.listener.SqsHeaders.MessageSystemAttributes;
+import io.awspring.cloud.sqs.operations.SendResult;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TransactionProducer Unit Tests")
+class TransactionProducerTest {
+
+  @Mock private SqsTemplate sqsTemplate;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  // Sender threads are not started, so events stay in the buffer until send() is called
+  private TransactionProducer producer(int capacity, OverflowPolicy policy) {
+    return producer("transaction-queue", capacity, policy);
+  }
+
+  private TransactionProducer producer(String queue, int capacity, OverflowPolicy policy) {
+    return producer(queue, capacity, policy, false);
+  }
+
+  private TransactionProducer producer(
+      String queue, int capacity, OverflowPolicy policy, boolean binaryCodec) {
+    return new TransactionProducer(
+        sqsTemplate,
+        queue,
+        meterRegistry,
+        capacity,
+        5,
+        1,
+        policy,
+        10,
+        binaryCodec);
+  }
+
+  @Test
+  @DisplayName("Should complete each future with its own outcome from one batch send")
+  void shouldCompleteFuturesFromBatchResult() {
+    // Given
+    TransactionProducer producer = producer(10, OverflowPolicy.BLOCK);
+    Pending accepted = pending(1L);
+    Pending rejected = pending(2L);
+    Message<TransactionEvent> rejectedMessage =
+        MessageBuilder.withPayload(rejected.event()).build();
+    when(sqsTemplate.<TransactionEvent>sendMany(eq("transaction-queue"), anyList()))
+        .thenReturn(
+            new SendResult.Batch<>(
+                List.of(),
+                List.of(
+                    new SendResult.Failed<>(
+                        "Throttled", "transaction-queue", rejectedMessage, Map.of()))));
+
+    // When
+    producer.send(List.of(accepted, rejected));
+
+    // Then
+    assertThat(accepted.result()).isCompleted();
+    assertThat(rejected.result()).isCompletedExceptionally();
+    assertThatThrownBy(() -> rejected.result().join()).hasRootCauseMessage("Throttled");
+    assertThat(meterRegistry.get("wallet.producer.batch.fill").summary().mean()).isEqualTo(0.2);
+    assertThat(meterRegistry.get("wallet.producer.send.latency").timer().count()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should fail the whole batch when the send request throws")
+  void shouldFailBatchWhenSendThrows() {
+    // Given
+    TransactionProducer producer = producer(10, OverflowPolicy.BLOCK);
+    Pending pending = pending(1L);
+    when(sqsTemplate.<TransactionEvent>sendMany(eq("transaction-queue"), anyList()))
+        .thenThrow(new IllegalStateException("SQS unavailable"));
+
+    // When
+    producer.send(List.of(pending));
+
+    // Then
+    assertThatThrownBy(() -> pending.result().join()).hasRootCauseMessage("SQS unavailable");
+  }
+
+  @Test
+  @DisplayName("Should shed events when the buffer is full")
+  void shouldShedWhenBufferFull() {
+    // Given
+    TransactionProducer producer = producer(1, OverflowPolicy.SHED);
+    CompletableFuture<Void> buffered = producer.sendTransactionEventAsync(event(1L));
+
+    // When
+    CompletableFuture<Void> shed = producer.sendTransactionEventAsync(event(2L));
+
+    // Then
+    assertThat(buffered).isNotDone();
+    assertThatThrownBy(shed::join).hasCauseInstanceOf(RejectedExecutionException.class);
+    assertThat(
+            meterRegistry.get("wallet.producer.overflow").tag("policy", "SHED").counter().count())
+        .isEqualTo(1.0);
+    verifyNoInteractions(sqsTemplate);
+  }
+
+  @Test
+  @DisplayName("Should fail the event when the buffer stays full for the block timeout")
+  void shouldFailBlockedEventAfterTimeout() {
+    // Given
+    TransactionProducer producer = producer(1, OverflowPolicy.BLOCK);
+    producer.sendTransactionEventAsync(event(1L));
+
+    // When
+    CompletableFuture<Void> blocked = producer.sendTransactionEventAsync(event(2L));
+
+    // Then
+    assertThatThrownBy(blocked::join).hasCauseInstanceOf(RejectedExecutionException.class);
+    verifyNoInteractions(sqsTemplate);
+  }
+
+  @Test
+  @DisplayName("Should group FIFO messages by sender wallet")
+  void shouldSetMessageGroupForFifoQueue() {
+    // Given
+    TransactionProducer producer = producer("transaction-queue.fifo", 10, OverflowPolicy.BLOCK);
+    Pending pending = pending(1L);
+    pending.event().setSenderWalletId(42L);
+    when(sqsTemplate.<TransactionEvent>sendMany(eq("transaction-queue.fifo"), anyList()))
+        .thenReturn(new SendResult.Batch<>(List.of(), List.of()));
+
+    // When
+    producer.send(List.of(pending));
+
+    // Then
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<Message<TransactionEvent>>> sent = ArgumentCaptor.forClass(List.class);
+    verify(sqsTemplate).sendMany(eq("transaction-queue.fifo"), sent.capture());
+    MessageHeaders headers = sent.getValue().get(0).getHeaders();
+    assertThat(headers.get(MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER)).isEqualTo("42");
+    assertThat(headers.get(MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER))
+        .isEqualTo("TX1");
+    assertThat(headers.get(MessageHeaders.CONTENT_TYPE)).isNull();
+    assertThat(pending.result()).isCompleted();
+  }
+
+  @Test
+  @DisplayName("Should mark events for the binary codec when it is enabled")
+  void shouldMarkBinaryEvents() {
+    // Given
+    TransactionProducer producer = producer("transaction-queue", 10, OverflowPolicy.BLOCK, true);
+    when(sqsTemplate.<TransactionEvent>sendMany(eq("transaction-queue"), anyList()))
+        .thenReturn(new SendResult.Batch<>(List.of(), List.of()));
+
+    // When
+    producer.send(List.of(pending(1L)));
+
+    // Then
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<Message<TransactionEvent>>> sent = ArgumentCaptor.forClass(List.class);
+    verify(sqsTemplate).sendMany(eq("transaction-queue"), sent.capture());
+    assertThat(sent.getValue().get(0).getHeaders().get(MessageHeaders.CONTENT_TYPE))
+        .isEqualTo(TransactionEventCodec.MIME_TYPE);
+  }
+
+  private Pending pending(Long transactionId) {
+    return new Pending(event(transactionId), new CompletableFuture<>(), System.nanoTime());
+  }
+
+  private TransactionEvent event(Long transactionId) {
+    return TransactionEvent.builder()
+        .transactionId(transactionId)
+        .transactionReferenceId("TX" + transactionId)
+        .build();
+  }
+}
@@ -0,0 +1,119 @@
+package com.digitalwallet.platform.service.messaging;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.model.Transaction;
+import com.digitalwallet.platform.model.TransactionStatus;
+import com.digitalwallet.platform.model.User;
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.service.EmailService;
+import com.digitalwallet.platform.service.PdfReceiptService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TransactionReceiptSender Unit Tests")
+class TransactionReceiptSenderTest {
+
+  @Mock private PdfReceiptService pdfReceiptService;
+
+  @Mock private EmailService emailService;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  @DisplayName("Should email the receipt on a sender thread, not the caller's")
+  void shouldSendOffTheCallerThread() throws Exception {
+    // Given
+    TransactionReceiptSender sender = sender(true, 1);
+    CountDownLatch emailed = new CountDownLatch(1);
+    Thread[] senderThread = new Thread[1];
+    when(pdfReceiptService.generateTransactionReceipt(any())).thenReturn(new byte[] {1});
+    doAnswer(
+            invocation -> {
+              senderThread[0] = Thread.currentThread();
+              emailed.countDown();
+              return null;
+            })
+        .when(emailService)
+        .sendTransactionEmail(eq("sender@example.com"), anyString(), anyString(), any(), any());
+
+    // When
+    sender.send(transaction(TransactionStatus.COMPLETED));
+
+    // Then
+    assertThat(emailed.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(senderThread[0]).isNotSameAs(Thread.currentThread());
+    sender.stop();
+    assertThat(outcome("sent")).isEqualTo(1.0);
+  }
+
+  @Test
+  @DisplayName("Should retry a failed receipt and skip transfers that did not complete")
+  void shouldRetryFailedReceipt() throws Exception {
+    // Given
+    TransactionReceiptSender sender = sender(false, 3);
+    when(pdfReceiptService.generateTransactionReceipt(any()))
+        .thenThrow(new RuntimeException("Error generating transaction receipt"))
+        .thenReturn(new byte[] {1});
+
+    // When
+    sender.send(transaction(TransactionStatus.FAILED));
+    sender.send(transaction(TransactionStatus.COMPLETED));
+
+    // Then
+    verify(pdfReceiptService, times(2)).generateTransactionReceipt(any());
+    verify(emailService).sendTransactionEmail(any(), any(), any(), any(), any());
+    assertThat(outcome("sent")).isEqualTo(1.0);
+    assertThat(outcome("failed")).isZero();
+    sender.stop();
+  }
+
+  @Test
+  @DisplayName("Should count a receipt as failed once its attempts are used up")
+  void shouldGiveUpAfterMaxAttempts() throws Exception {
+    // Given
+    TransactionReceiptSender sender = sender(false, 2);
+    when(pdfReceiptService.generateTransactionReceipt(any()))
+        .thenThrow(new RuntimeException("Error generating transaction receipt"));
+
+    // When
+    sender.send(transaction(TransactionStatus.COMPLETED));
+
+    // Then
+    verify(pdfReceiptService, times(2)).generateTransactionReceipt(any());
+    verifyNoInteractions(emailService);
+    assertThat(outcome("failed")).isEqualTo(1.0);
+    sender.stop();
+  }
+
+  private TransactionReceiptSender sender(boolean async, int maxAttempts) {
+    return new TransactionReceiptSender(
+        pdfReceiptService, emailService, meterRegistry, async, 1, 10, maxAttempts, 1);
+  }
+
+  private double outcome(String outcome) {
+    return meterRegistry
+        .get("wallet.notification.receipts")
+        .tag("outcome", outcome)
+        .counter()
+        .count();
+  }
+
+  private static Transaction transaction(TransactionStatus status) {
+    User user = User.builder().id(1L).email("sender@example.com").build();
+    return Transaction.builder()
+        .referenceId("TX1")
+        .status(status)
+        .fromWallet(Wallet.builder().id(1L).user(user).build())
+        .build();
+  }
+}
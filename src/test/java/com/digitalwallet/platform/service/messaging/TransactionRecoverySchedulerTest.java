@@ -0,0 +1,162 @@
+package com.digitalwallet.platform.service.messaging;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.model.OutboxEventType;
+import com.digitalwallet.platform.repository.OutboxEventRepository;
+import com.digitalwallet.platform.repository.StuckTransferView;
+import com.digitalwallet.platform.repository.TransactionRepository;
+import com.digitalwallet.platform.service.outbox.OutboxWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TransactionRecoveryScheduler Unit Tests")
+class TransactionRecoverySchedulerTest {
+
+  @Mock private TransactionRepository transactionRepository;
+
+  @Mock private OutboxEventRepository outboxEventRepository;
+
+  @Mock private OutboxWriter outboxWriter;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private TransactionRecoveryScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    scheduler =
+        new TransactionRecoveryScheduler(
+            transactionRepository,
+            outboxEventRepository,
+            outboxWriter,
+            transactionManager,
+            meterRegistry,
+            5,
+            2,
+            3,
+            60);
+  }
+
+  @Test
+  @DisplayName("Should re-queue, skip and abandon claimed transfers by their state")
+  void shouldHandleClaimedChunk() {
+    // Given
+    LocalDateTime cutoff = LocalDateTime.now();
+    when(transactionRepository.claimStuckTransfers(0L, cutoff, 2))
+        .thenReturn(
+            List.of(
+                transfer(1L, "WAL-1", 0),
+                transfer(2L, "WAL-2", 0),
+                transfer(3L, "WAL-3", 3),
+                transfer(4L, null, 0)));
+    when(outboxEventRepository.findUnsentAggregateIds(List.of(1L, 2L, 3L, 4L)))
+        .thenReturn(List.of(2L));
+
+    // When
+    Long lastId = scheduler.recoverChunk(0L, cutoff);
+
+    // Then
+    assertThat(lastId).isEqualTo(4L);
+    ArgumentCaptor<TransactionEvent> event = ArgumentCaptor.forClass(TransactionEvent.class);
+    verify(outboxWriter).enqueue(eq(OutboxEventType.TRANSFER_INITIATED), eq(1L), event.capture());
+    assertThat(event.getValue().getSenderWalletId()).isEqualTo(101L);
+    assertThat(event.getValue().getReceiverWalletNumber()).isEqualTo("WAL-1");
+    verify(transactionRepository).markRecoveryAttempted(List.of(1L), 60L);
+    verify(transactionRepository).abandon(List.of(3L), "Not processed after 3 recovery attempts");
+    verify(transactionRepository).abandon(List.of(4L), "Receiver wallet missing");
+    assertThat(outcome("recovered")).isEqualTo(1.0);
+    assertThat(outcome("skipped")).isEqualTo(1.0);
+    assertThat(outcome("abandoned")).isEqualTo(2.0);
+  }
+
+  @Test
+  @DisplayName("Should page through chunks by id until no stuck transfers are left")
+  void shouldPageThroughChunks() {
+    // Given
+    when(transactionRepository.claimStuckTransfers(eq(0L), any(), eq(2)))
+        .thenReturn(List.of(transfer(5L, "WAL-5", 0), transfer(9L, "WAL-9", 0)));
+    when(transactionRepository.claimStuckTransfers(eq(9L), any(), eq(2)))
+        .thenReturn(List.of(transfer(12L, "WAL-12", 1)));
+    when(transactionRepository.claimStuckTransfers(eq(12L), any(), eq(2))).thenReturn(List.of());
+    when(outboxEventRepository.findUnsentAggregateIds(anyCollection())).thenReturn(List.of());
+
+    // When
+    scheduler.recoverStuckTransactions();
+
+    // Then
+    verify(transactionRepository).markRecoveryAttempted(List.of(5L, 9L), 60L);
+    verify(transactionRepository).markRecoveryAttempted(List.of(12L), 60L);
+    verify(transactionManager, times(3)).commit(any());
+    assertThat(outcome("recovered")).isEqualTo(3.0);
+  }
+
+  private double outcome(String outcome) {
+    return meterRegistry.get("wallet.recovery.transfers").tag("outcome", outcome).counter().count();
+  }
+
+  private static StuckTransferView transfer(Long id, String receiverWalletNumber, int attempts) {
+    return new StuckTransferView() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public String getReferenceId() {
+        return "TX" + id;
+      }
+
+      @Override
+      public Long getSenderId() {
+        return 1L;
+      }
+
+      @Override
+      public Long getSenderWalletId() {
+        return 100L + id;
+      }
+
+      @Override
+      public String getReceiverWalletNumber() {
+        return receiverWalletNumber;
+      }
+
+      @Override
+      public BigDecimal getAmount() {
+        return new BigDecimal("10.00");
+      }
+
+      @Override
+      public String getCurrency() {
+        return "USD";
+      }
+
+      @Override
+      public String getDescription() {
+        return null;
+      }
+
+      @Override
+      public Integer getRecoveryAttempts() {
+        return attempts;
+      }
+    };
+  }
+}
@@ -0,0 +1,131 @@
+package com.digitalwallet.platform.service.messaging.local;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.service.messaging.BatchTransactionConsumer;
+import com.digitalwallet.platform.service.messaging.TransactionConsumer;
+import com.digitalwallet.platform.service.messaging.TransactionEventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LocalTransactionQueue Unit Tests")
+class LocalTransactionQueueTest {
+
+  @Mock private BatchTransactionConsumer batchTransactionConsumer;
+
+  @Mock private TransactionConsumer transactionConsumer;
+
+  @TempDir Path directory;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private LocalTransactionQueue queue;
+
+  // The consumer thread is not started; tests read the log and call deliver() themselves
+  @BeforeEach
+  void setUp() {
+    queue =
+        new LocalTransactionQueue(
+            new ObjectMapper(), meterRegistry, directory.toString(), 4096, 10, 2, false);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    queue.stop();
+  }
+
+  @Test
+  @DisplayName("Should feed appended events to the batch consumer and count unacknowledged ones")
+  @SuppressWarnings("unchecked")
+  void shouldDeliverToBatchConsumer() {
+    // Given
+    ReflectionTestUtils.setField(queue, "batchTransactionConsumer", batchTransactionConsumer);
+    assertThat(queue.sendTransactionEventAsync(event(1L))).isCompleted();
+    assertThat(queue.sendTransactionEventAsync(event(2L))).isCompleted();
+    doAnswer(
+            invocation -> {
+              List<Message<TransactionEvent>> messages = invocation.getArgument(0);
+              BatchAcknowledgement<TransactionEvent> acknowledgement = invocation.getArgument(1);
+              acknowledgement.acknowledge(List.of(messages.get(0)));
+              return null;
+            })
+        .when(batchTransactionConsumer)
+        .receiveTransactionEvents(anyList(), any(BatchAcknowledgement.class));
+
+    // When
+    queue.deliver(log().read(0, 10));
+
+    // Then
+    verify(batchTransactionConsumer)
+        .receiveTransactionEvents(
+            argThat(
+                (List<Message<TransactionEvent>> messages) ->
+                    messages.size() == 2
+                        && messages.get(1).getPayload().getTransactionId().equals(2L)),
+            any(BatchAcknowledgement.class));
+    assertThat(meterRegistry.get("wallet.localqueue.unacknowledged").counter().count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  @DisplayName("Should hand each event to the single-message consumer without batching")
+  void shouldDeliverToSingleConsumer() {
+    // Given
+    ReflectionTestUtils.setField(queue, "transactionConsumer", transactionConsumer);
+    queue.sendTransactionEventAsync(event(1L));
+    queue.sendTransactionEventAsync(event(2L));
+
+    // When
+    queue.deliver(log().read(0, 10));
+
+    // Then
+    verify(transactionConsumer, times(2)).receiveTransactionEvent(any());
+    assertThat(meterRegistry.get("wallet.localqueue.unacknowledged").counter().count()).isZero();
+    assertThat(meterRegistry.get("wallet.localqueue.appended").counter().count()).isEqualTo(2.0);
+  }
+
+  @Test
+  @DisplayName("Should read binary and JSON records from the same log")
+  void shouldReadBothEncodings() {
+    // Given: a JSON record, then a binary one as written with the binary codec enabled
+    ReflectionTestUtils.setField(queue, "transactionConsumer", transactionConsumer);
+    queue.sendTransactionEventAsync(event(1L));
+    log().append(TransactionEventCodec.encode(event(2L)));
+
+    // When
+    queue.deliver(log().read(0, 10));
+
+    // Then
+    verify(transactionConsumer).receiveTransactionEvent(event(1L));
+    verify(transactionConsumer).receiveTransactionEvent(event(2L));
+  }
+
+  private MappedSegmentLog log() {
+    return (MappedSegmentLog) ReflectionTestUtils.getField(queue, "segmentLog");
+  }
+
+  private static TransactionEvent event(Long transactionId) {
+    return TransactionEvent.builder()
+        .senderWalletId(transactionId)
+        .transactionId(transactionId)
+        .transactionReferenceId("TX" + transactionId)
+        .build();
+  }
+}
@@ -0,0 +1,116 @@
+package com.digitalwallet.platform.service.messaging.local;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("MappedSegmentLog Unit Tests")
+class MappedSegmentLogTest {
+
+  @TempDir Path directory;
+
+  @Test
+  @DisplayName("Should read records back in order with contiguous offsets")
+  void shouldAppendAndRead() {
+    try (MappedSegmentLog log = new MappedSegmentLog(directory, 1024)) {
+      // Given
+      long afterFirst = log.append(bytes("first"));
+      long afterSecond = log.append(bytes("second"));
+
+      // When
+      List<MappedSegmentLog.Entry> entries = log.read(0, 10);
+
+      // Then
+      assertThat(entries)
+          .extracting(entry -> text(entry.payload()))
+          .containsExactly("first", "second");
+      assertThat(entries.get(0).nextOffset()).isEqualTo(afterFirst);
+      assertThat(entries.get(1).offset()).isEqualTo(afterFirst);
+      assertThat(log.endOffset()).isEqualTo(afterSecond);
+      assertThat(log.read(afterSecond, 10)).isEmpty();
+    }
+  }
+
+  @Test
+  @DisplayName("Should roll segments, read across them and delete consumed ones")
+  void shouldRollAndDeleteConsumedSegments() throws Exception {
+    try (MappedSegmentLog log = new MappedSegmentLog(directory, 64)) {
+      // Given: 40-byte records, so each 64-byte segment holds one
+      for (int i = 0; i < 3; i++) {
+        log.append(new byte[32]);
+      }
+      assertThat(log.segmentCount()).isEqualTo(3);
+
+      // When
+      List<MappedSegmentLog.Entry> entries = log.read(0, 10);
+      log.commit(entries.get(1).nextOffset());
+
+      // Then
+      assertThat(entries).hasSize(3);
+      assertThat(entries.get(2).offset()).isEqualTo(128);
+      assertThat(log.segmentCount()).isEqualTo(2);
+      assertThat(segmentFiles()).hasSize(2);
+      assertThat(log.read(log.committedOffset(), 10)).hasSize(1);
+    }
+  }
+
+  @Test
+  @DisplayName("Should resume after the last complete record and the committed offset")
+  void shouldRecoverAfterTornWrite() throws Exception {
+    // Given: two records, one consumed, then a crash in the middle of a third
+    long end;
+    long committed;
+    try (MappedSegmentLog log = new MappedSegmentLog(directory, 1024)) {
+      committed = log.append(bytes("first"));
+      end = log.append(bytes("second"));
+      log.commit(committed);
+    }
+    try (FileChannel segment = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+      segment.write(ByteBuffer.allocate(12).putInt(0, 40).putInt(4, 12345), end);
+    }
+
+    // When
+    try (MappedSegmentLog log = new MappedSegmentLog(directory, 1024)) {
+      // Then
+      assertThat(log.endOffset()).isEqualTo(end);
+      assertThat(log.committedOffset()).isEqualTo(committed);
+      log.append(bytes("third"));
+      assertThat(log.read(committed, 10))
+          .extracting(entry -> text(entry.payload()))
+          .containsExactly("second", "third");
+    }
+  }
+
+  @Test
+  @DisplayName("Should reject records larger than a segment")
+  void shouldRejectOversizedRecords() {
+    try (MappedSegmentLog log = new MappedSegmentLog(directory, 64)) {
+      assertThatThrownBy(() -> log.append(new byte[60]))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  private List<Path> segmentFiles() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.toString().endsWith(".log")).sorted().toList();
+    }
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String text(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,143 @@
+package com.digitalwallet.platform.service.outbox;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.dto.TransactionEvent;
+import com.digitalwallet.platform.model.OutboxEvent;
+import com.digitalwallet.platform.model.OutboxEventType;
+import com.digitalwallet.platform.repository.OutboxEventRepository;
+import com.digitalwallet.platform.service.messaging.TransactionEventPublisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxRelay Unit Tests")
+class OutboxRelayTest {
+
+  @Mock private OutboxEventRepository outboxEventRepository;
+
+  @Mock private TransactionEventPublisher transactionEventPublisher;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private OutboxRelay relay;
+
+  @BeforeEach
+  void setUp() {
+    relay =
+        new OutboxRelay(
+            outboxEventRepository,
+            transactionEventPublisher,
+            objectMapper,
+            transactionManager,
+            new SimpleMeterRegistry(),
+            100,
+            1000,
+            200,
+            24);
+  }
+
+  @Test
+  @DisplayName("Should hand claimed rows to the producer and mark them sent")
+  void shouldPublishAndMarkSent() throws Exception {
+    // Given
+    when(outboxEventRepository.claimBatch(100)).thenReturn(List.of(row(1L, 11L), row(2L, 12L)));
+    when(transactionEventPublisher.sendTransactionEventAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    // When
+    int claimed = relay.publishBatch();
+
+    // Then
+    assertThat(claimed).isEqualTo(2);
+    verify(transactionEventPublisher, times(2)).sendTransactionEventAsync(any());
+    verify(outboxEventRepository).markSent(List.of(1L, 2L));
+    verify(outboxEventRepository, never()).markFailed(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should back off rows SQS rejected and mark the rest sent")
+  void shouldBackOffRejectedRows() throws Exception {
+    // Given
+    when(outboxEventRepository.claimBatch(100)).thenReturn(List.of(row(1L, 11L), row(2L, 12L)));
+    when(transactionEventPublisher.sendTransactionEventAsync(any()))
+        .thenReturn(
+            CompletableFuture.completedFuture(null),
+            CompletableFuture.failedFuture(new RuntimeException("Rejected by SQS")));
+
+    // When
+    relay.publishBatch();
+
+    // Then
+    verify(outboxEventRepository).markSent(List.of(1L));
+    verify(outboxEventRepository)
+        .markFailed(
+            eq(List.of(2L)),
+            eq("Rejected by SQS"),
+            argThat(at -> at.isAfter(LocalDateTime.now().plusNanos(500_000_000))));
+  }
+
+  @Test
+  @DisplayName("Should back off rows the queue has not accepted within the send timeout")
+  void shouldBackOffRowsNotSentInTime() throws Exception {
+    // Given
+    when(outboxEventRepository.claimBatch(100)).thenReturn(List.of(row(1L, 11L), row(2L, 12L)));
+    when(transactionEventPublisher.sendTransactionEventAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(null), new CompletableFuture<>());
+
+    // When
+    long start = System.nanoTime();
+    relay.publishBatch();
+
+    // Then
+    assertThat(System.nanoTime() - start).isLessThan(5_000_000_000L);
+    verify(outboxEventRepository).markSent(List.of(1L));
+    verify(outboxEventRepository)
+        .markFailed(eq(List.of(2L)), eq("Not accepted by the queue within 200 ms"), any());
+  }
+
+  @Test
+  @DisplayName("Should not call the queue when there is nothing to publish")
+  void shouldDoNothingWhenDrained() {
+    // Given
+    when(outboxEventRepository.claimBatch(100)).thenReturn(List.of());
+
+    // When
+    int claimed = relay.publishBatch();
+
+    // Then
+    assertThat(claimed).isZero();
+    verifyNoInteractions(transactionEventPublisher);
+  }
+
+  private OutboxEvent row(Long id, Long transactionId) throws Exception {
+    TransactionEvent event =
+        TransactionEvent.builder()
+            .transactionId(transactionId)
+            .transactionReferenceId("TX" + transactionId)
+            .build();
+    return OutboxEvent.builder()
+        .id(id)
+        .eventType(OutboxEventType.TRANSFER_INITIATED)
+        .aggregateId(transactionId)
+        .payload(objectMapper.writeValueAsString(event))
+        .attempts(0)
+        .createdAt(LocalDateTime.now())
+        .availableAt(LocalDateTime.now())
+        .build();
+  }
+}
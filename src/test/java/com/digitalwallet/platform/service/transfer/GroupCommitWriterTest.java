@@ -0,0 +1,134 @@
+package com.digitalwallet.platform.service.transfer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GroupCommitWriter Unit Tests")
+class GroupCommitWriterTest {
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private EntityManager entityManager;
+
+  private GroupCommitWriter writer;
+
+  @AfterEach
+  void tearDown() {
+    writer.stop();
+  }
+
+  private GroupCommitWriter writer(boolean enabled, long windowMs) {
+    writer =
+        new GroupCommitWriter(
+            transactionManager, entityManager, new SimpleMeterRegistry(), enabled, windowMs, 64, 1);
+    writer.start();
+    return writer;
+  }
+
+  @Test
+  @DisplayName("Should commit concurrent units of work in one transaction")
+  void shouldGroupConcurrentWork() throws Exception {
+    // Given
+    GroupCommitWriter writer = writer(true, 200);
+    ExecutorService callers = Executors.newFixedThreadPool(5);
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+    // When
+    for (int i = 0; i < 5; i++) {
+      int value = i;
+      results.add(CompletableFuture.supplyAsync(() -> writer.execute(() -> value), callers));
+    }
+
+    // Then
+    for (int i = 0; i < 5; i++) {
+      assertThat(results.get(i).get()).isEqualTo(i);
+    }
+    callers.shutdown();
+    verify(transactionManager, atMost(2)).getTransaction(any());
+  }
+
+  @Test
+  @DisplayName("Should fail only the rejected caller and commit the rest")
+  void shouldIsolateRejectedWork() throws Exception {
+    // Given
+    GroupCommitWriter writer = writer(true, 100);
+
+    // When
+    CompletableFuture<String> rejected =
+        CompletableFuture.supplyAsync(
+            () ->
+                writer.execute(
+                    () -> {
+                      throw new GroupCommitWriter.Rejected("Insufficient balance");
+                    }));
+    CompletableFuture<String> accepted =
+        CompletableFuture.supplyAsync(() -> writer.execute(() -> "ok"));
+
+    // Then
+    assertThat(accepted.get()).isEqualTo("ok");
+    assertThatThrownBy(rejected::get).hasRootCauseMessage("Insufficient balance");
+  }
+
+  @Test
+  @DisplayName("Should rerun members one by one when the group transaction fails")
+  void shouldRetryIndividuallyOnFailure() throws Exception {
+    // Given
+    GroupCommitWriter writer = writer(true, 100);
+    AtomicInteger attempts = new AtomicInteger();
+
+    // When
+    CompletableFuture<String> faulty =
+        CompletableFuture.supplyAsync(
+            () ->
+                writer.execute(
+                    () -> {
+                      throw new IllegalStateException("constraint violated");
+                    }));
+    CompletableFuture<String> healthy =
+        CompletableFuture.supplyAsync(
+            () ->
+                writer.execute(
+                    () -> {
+                      attempts.incrementAndGet();
+                      return "ok";
+                    }));
+
+    // Then
+    assertThat(healthy.get()).isEqualTo("ok");
+    assertThatThrownBy(faulty::get).hasRootCauseMessage("constraint violated");
+    assertThat(attempts.get()).isBetween(1, 2);
+  }
+
+  @Test
+  @DisplayName("Should run inline in its own transaction when disabled")
+  void shouldRunInlineWhenDisabled() {
+    // Given
+    GroupCommitWriter writer = writer(false, 2);
+
+    // When
+    String result = writer.execute(() -> Thread.currentThread().getName());
+
+    // Then
+    assertThat(result).isEqualTo(Thread.currentThread().getName());
+    verify(transactionManager).getTransaction(any());
+    verifyNoInteractions(entityManager);
+  }
+}
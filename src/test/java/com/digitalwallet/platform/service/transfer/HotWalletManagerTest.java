@@ -0,0 +1,104 @@
+package com.digitalwallet.platform.service.transfer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.repository.WalletBalanceSlotRepository;
+import com.digitalwallet.platform.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("HotWalletManager Unit Tests")
+class HotWalletManagerTest {
+
+  @Mock private WalletRepository walletRepository;
+
+  @Mock private WalletBalanceSlotRepository walletBalanceSlotRepository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private HotWalletManager manager(boolean enabled) {
+    return new HotWalletManager(
+        walletRepository,
+        walletBalanceSlotRepository,
+        transactionManager,
+        new SimpleMeterRegistry(),
+        enabled,
+        4,
+        3,
+        1);
+  }
+
+  @Test
+  @DisplayName("Should promote a wallet whose credits reach the threshold within a window")
+  void shouldPromoteBusyWallet() {
+    // Given
+    HotWalletManager manager = manager(true);
+    Wallet promoted = Wallet.builder().id(7L).walletNumber("WAL7").balanceSlots(4).build();
+    when(walletRepository.findByBalanceSlotsGreaterThan(0))
+        .thenReturn(List.of())
+        .thenReturn(List.of(promoted));
+    manager.recordCredit(7L);
+    manager.recordCredit(7L);
+    manager.recordCredit(7L);
+
+    // When
+    manager.rebalance();
+
+    // Then
+    verify(walletBalanceSlotRepository).createSlots(7L, 4);
+    verify(walletRepository).updateBalanceSlots(7L, 4);
+    assertThat(manager.slotFor(7L)).isPresent();
+    assertThat(manager.slotFor(7L).getAsInt()).isBetween(0, 3);
+    assertThat(manager.hotWalletIdFor("WAL7")).contains(7L);
+  }
+
+  @Test
+  @DisplayName("Should fold slots back once a promoted wallet goes quiet")
+  void shouldDemoteQuietWallet() {
+    // Given
+    HotWalletManager manager = manager(true);
+    Wallet promoted = Wallet.builder().id(7L).walletNumber("WAL7").balanceSlots(4).build();
+    when(walletRepository.findByBalanceSlotsGreaterThan(0))
+        .thenReturn(List.of())
+        .thenReturn(List.of(promoted))
+        .thenReturn(List.of(promoted))
+        .thenReturn(List.of());
+    manager.recordCredit(7L);
+    manager.recordCredit(7L);
+    manager.recordCredit(7L);
+    manager.rebalance();
+
+    // When
+    manager.rebalance();
+
+    // Then
+    verify(walletBalanceSlotRepository).consolidateIntoWallet(7L);
+    verify(walletRepository).updateBalanceSlots(7L, 0);
+    verify(walletBalanceSlotRepository).deleteSlots(7L);
+    assertThat(manager.slotFor(7L)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should never shard credits when disabled")
+  void shouldIgnoreCreditsWhenDisabled() {
+    // Given
+    HotWalletManager manager = manager(false);
+    manager.recordCredit(7L);
+
+    // When
+    manager.rebalance();
+
+    // Then
+    assertThat(manager.slotFor(7L)).isEmpty();
+    verifyNoInteractions(walletRepository, walletBalanceSlotRepository);
+  }
+}
@@ -0,0 +1,90 @@
+package com.digitalwallet.platform.service.transfer;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.digitalwallet.platform.model.Wallet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TransferRouter Unit Tests")
+class TransferRouterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final Wallet sender = Wallet.builder().id(1L).walletNumber("WAL1").build();
+
+  private final Wallet receiver = Wallet.builder().id(2L).walletNumber("WAL2").build();
+
+  private TransferRouter router(boolean inlineEnabled) {
+    return new TransferRouter(meterRegistry, inlineEnabled, BigDecimal.valueOf(1000), 60000, 50);
+  }
+
+  @Test
+  @DisplayName("Should run transfers between idle wallets inline")
+  void shouldRouteIdleTransferInline() {
+    // When
+    TransferRouter.Reason reason = router(true).route(sender, receiver, BigDecimal.valueOf(10));
+
+    // Then
+    assertThat(reason).isEqualTo(TransferRouter.Reason.IDLE);
+    assertThat(reason.getRoute()).isEqualTo(TransferRouter.Route.INLINE);
+    assertThat(
+            meterRegistry
+                .get("wallet.transfer.route")
+                .tag("route", "INLINE")
+                .tag("reason", "IDLE")
+                .counter()
+                .count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  @DisplayName("Should queue large amounts and transfers touching hot wallets")
+  void shouldQueueLargeAndHotTransfers() {
+    // Given
+    TransferRouter router = router(true);
+    Wallet hot = Wallet.builder().id(3L).walletNumber("WAL3").balanceSlots(4).build();
+
+    // When / Then
+    assertThat(router.route(sender, receiver, BigDecimal.valueOf(1001)))
+        .isEqualTo(TransferRouter.Reason.LARGE_AMOUNT);
+    assertThat(router.route(sender, hot, BigDecimal.TEN))
+        .isEqualTo(TransferRouter.Reason.HOT_WALLET);
+    assertThat(router(false).route(sender, receiver, BigDecimal.TEN))
+        .isEqualTo(TransferRouter.Reason.DISABLED);
+  }
+
+  @Test
+  @DisplayName("Should queue transfers for wallets that recently saw contention")
+  void shouldQueueAfterContention() {
+    // Given
+    TransferRouter router = router(true);
+
+    // When: a slow inline update marks both wallets as contended
+    router.recordInline(TimeUnit.MILLISECONDS.toNanos(200), 1L, 2L);
+
+    // Then
+    Wallet other = Wallet.builder().id(4L).walletNumber("WAL4").build();
+    assertThat(router.route(other, receiver, BigDecimal.TEN))
+        .isEqualTo(TransferRouter.Reason.RECENT_CONTENTION);
+    assertThat(router.route(other, Wallet.builder().id(5L).build(), BigDecimal.TEN))
+        .isEqualTo(TransferRouter.Reason.IDLE);
+  }
+
+  @Test
+  @DisplayName("Should not mark wallets after a fast inline update")
+  void shouldIgnoreFastInlineUpdates() {
+    // Given
+    TransferRouter router = router(true);
+
+    // When
+    router.recordInline(TimeUnit.MILLISECONDS.toNanos(2), 1L, 2L);
+
+    // Then
+    assertThat(router.route(sender, receiver, BigDecimal.TEN))
+        .isEqualTo(TransferRouter.Reason.IDLE);
+  }
+}
@@ -0,0 +1,303 @@
+package com.digitalwallet.platform.service.transfer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.model.Wallet;
+import com.digitalwallet.platform.model.WalletStatus;
+import com.digitalwallet.platform.repository.LedgerEntryRepository;
+import com.digitalwallet.platform.repository.WalletBalanceSlotRepository;
+import com.digitalwallet.platform.repository.WalletBalanceView;
+import com.digitalwallet.platform.repository.WalletRepository;
+import com.digitalwallet.platform.service.transfer.WalletUpdateResult.Rejection;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.OptionalInt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WalletBalanceOperations Unit Tests")
+class WalletBalanceOperationsTest {
+
+  @Mock private WalletRepository walletRepository;
+
+  @Mock private WalletBalanceSlotRepository walletBalanceSlotRepository;
+
+  @Mock private LedgerEntryRepository ledgerEntryRepository;
+
+  @Mock private HotWalletManager hotWalletManager;
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private WalletBalanceView balanceView;
+
+  private WalletBalanceOperations walletBalanceOperations;
+
+  private Wallet wallet;
+
+  @BeforeEach
+  void setUp() {
+    walletBalanceOperations = operations(false);
+
+    wallet = new Wallet();
+    wallet.setId(1L);
+    wallet.setWalletNumber("WAL123456");
+    wallet.setBalance(BigDecimal.valueOf(1000));
+    wallet.setDailyLimit(BigDecimal.valueOf(5000));
+    wallet.setTransactionLimit(BigDecimal.valueOf(2000));
+    wallet.setTotalDailySpent(BigDecimal.valueOf(4500));
+    wallet.setStatus(WalletStatus.ACTIVE);
+  }
+
+  @Test
+  @DisplayName("Should not read the wallet when the conditional debit applies")
+  void shouldNotReadWalletWhenDebitApplies() {
+    // Given
+    BigDecimal amount = BigDecimal.valueOf(100);
+    when(walletRepository.debitByUserId(1L, amount)).thenReturn(Optional.of(balanceView));
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.debitByUserId(1L, amount);
+
+    // Then
+    assertThat(result.isApplied()).isTrue();
+    assertThat(result.getWallet()).isSameAs(balanceView);
+    verify(walletRepository, never()).findByUserId(any());
+  }
+
+  @Test
+  @DisplayName("Should report insufficient balance before limits")
+  void shouldReportInsufficientBalance() {
+    // Given
+    BigDecimal amount = BigDecimal.valueOf(1500);
+    when(walletRepository.debitByUserId(1L, amount)).thenReturn(Optional.empty());
+    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(wallet));
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.debitByUserId(1L, amount);
+
+    // Then
+    assertThat(result.isApplied()).isFalse();
+    assertThat(result.getRejection()).isEqualTo(Rejection.INSUFFICIENT_BALANCE);
+    assertThat(result.getRejectionMessage()).contains("Insufficient balance");
+  }
+
+  @Test
+  @DisplayName("Should report daily limit when balance and per-transaction limit allow the debit")
+  void shouldReportDailyLimit() {
+    // Given
+    BigDecimal amount = BigDecimal.valueOf(600);
+    when(walletRepository.debitById(1L, amount)).thenReturn(Optional.empty());
+    when(walletRepository.findById(1L)).thenReturn(Optional.of(wallet));
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.debitById(1L, amount);
+
+    // Then
+    assertThat(result.getRejection()).isEqualTo(Rejection.DAILY_LIMIT_EXCEEDED);
+  }
+
+  @Test
+  @DisplayName("Should report inactive receiver on credit")
+  void shouldReportInactiveWalletOnCredit() {
+    // Given
+    wallet.setStatus(WalletStatus.FROZEN);
+    BigDecimal amount = BigDecimal.TEN;
+    when(walletRepository.creditByUserId(1L, amount)).thenReturn(Optional.empty());
+    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(wallet));
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.creditByUserId(1L, amount);
+
+    // Then
+    assertThat(result.getRejection()).isEqualTo(Rejection.WALLET_INACTIVE);
+    assertThat(result.getRejectionMessage()).contains("FROZEN");
+  }
+
+  @Test
+  @DisplayName("Should report missing wallet")
+  void shouldReportMissingWallet() {
+    // Given
+    when(walletRepository.creditByWalletNumber("WAL999", BigDecimal.ONE))
+        .thenReturn(Optional.empty());
+    when(walletRepository.findByWalletNumber("WAL999")).thenReturn(Optional.empty());
+
+    // When
+    WalletUpdateResult result =
+        walletBalanceOperations.creditByWalletNumber("WAL999", BigDecimal.ONE);
+
+    // Then
+    assertThat(result.getRejection()).isEqualTo(Rejection.WALLET_NOT_FOUND);
+  }
+
+  @Test
+  @DisplayName("Should credit a balance slot instead of the wallet row for a hot wallet")
+  void shouldCreditBalanceSlotForHotWallet() {
+    // Given
+    BigDecimal amount = BigDecimal.TEN;
+    when(hotWalletManager.slotFor(1L)).thenReturn(OptionalInt.of(3));
+    when(walletBalanceSlotRepository.creditSlot(1L, 3, amount))
+        .thenReturn(Optional.of(balanceView));
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.creditById(1L, amount);
+
+    // Then
+    assertThat(result.isApplied()).isTrue();
+    verify(hotWalletManager).recordCredit(1L);
+    verify(walletRepository, never()).creditById(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should fall back to the wallet row when the slot is gone")
+  void shouldFallBackToWalletRowWhenSlotMissing() {
+    // Given
+    BigDecimal amount = BigDecimal.TEN;
+    when(hotWalletManager.slotFor(1L)).thenReturn(OptionalInt.of(0));
+    when(walletBalanceSlotRepository.creditSlot(1L, 0, amount)).thenReturn(Optional.empty());
+    when(walletRepository.creditById(1L, amount)).thenReturn(Optional.of(balanceView));
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.creditById(1L, amount);
+
+    // Then
+    assertThat(result.isApplied()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should diagnose a refused debit from the wallet as it is now, not as first loaded")
+  void shouldDiagnoseRefusedDebitFromRefreshedWallet() {
+    // Given: loaded at 1000 earlier in the transaction, then debited to 50 by another transfer
+    BigDecimal amount = BigDecimal.valueOf(100);
+    when(walletRepository.debitById(1L, amount)).thenReturn(Optional.empty());
+    when(walletRepository.findById(1L)).thenReturn(Optional.of(wallet));
+    doAnswer(
+            invocation -> {
+              invocation.<Wallet>getArgument(0).setBalance(BigDecimal.valueOf(50));
+              return null;
+            })
+        .when(entityManager)
+        .refresh(wallet);
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.debitById(1L, amount);
+
+    // Then
+    assertThat(result.getRejection()).isEqualTo(Rejection.INSUFFICIENT_BALANCE);
+  }
+
+  @Test
+  @DisplayName("Should fold balance slots into the wallet and retry a debit the row cannot cover")
+  void shouldConsolidateSlotsBeforeRejectingDebit() {
+    // Given
+    wallet.setBalanceSlots(4);
+    BigDecimal amount = BigDecimal.valueOf(1500);
+    when(walletRepository.debitById(1L, amount))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(balanceView));
+    when(walletRepository.findById(1L)).thenReturn(Optional.of(wallet));
+    when(walletBalanceSlotRepository.consolidateIntoWallet(1L))
+        .thenReturn(BigDecimal.valueOf(1800));
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.debitById(1L, amount);
+
+    // Then
+    assertThat(result.isApplied()).isTrue();
+    verify(walletBalanceSlotRepository).consolidateIntoWallet(1L);
+  }
+
+  @Test
+  @DisplayName("Should not consolidate when the wallet has no balance slots")
+  void shouldNotConsolidateWithoutSlots() {
+    // Given
+    BigDecimal amount = BigDecimal.valueOf(1500);
+    when(walletRepository.debitById(1L, amount)).thenReturn(Optional.empty());
+    when(walletRepository.findById(1L)).thenReturn(Optional.of(wallet));
+
+    // When
+    WalletUpdateResult result = walletBalanceOperations.debitById(1L, amount);
+
+    // Then
+    assertThat(result.getRejection()).isEqualTo(Rejection.INSUFFICIENT_BALANCE);
+    verify(walletBalanceSlotRepository, never()).consolidateIntoWallet(any());
+  }
+
+  @Test
+  @DisplayName("Should leave a deferred credit to the ledger without updating the wallet row")
+  void shouldDeferCreditWithoutUpdatingRow() {
+    // Given
+    WalletBalanceOperations deferring = operations(true);
+    BigDecimal amount = BigDecimal.TEN;
+    when(walletRepository.findDeferredCreditByWalletNumber("WAL123456", amount))
+        .thenReturn(Optional.of(balanceView));
+
+    // When
+    WalletUpdateResult result = deferring.creditByWalletNumber("WAL123456", amount);
+
+    // Then
+    assertThat(result.isApplied()).isTrue();
+    assertThat(result.isDeferred()).isTrue();
+    verify(walletRepository, never()).creditByWalletNumber(any(), any());
+    verifyNoInteractions(hotWalletManager);
+  }
+
+  @Test
+  @DisplayName("Should materialize deferred credits and retry a debit the row cannot cover")
+  void shouldMaterializeLedgerTailBeforeRejectingDebit() {
+    // Given
+    WalletBalanceOperations deferring = operations(true);
+    BigDecimal amount = BigDecimal.valueOf(1500);
+    when(walletRepository.debitById(1L, amount))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(balanceView));
+    when(walletRepository.findById(1L)).thenReturn(Optional.of(wallet));
+    when(ledgerEntryRepository.materializeWallet(1L)).thenReturn(BigDecimal.valueOf(1600));
+
+    // When
+    WalletUpdateResult result = deferring.debitById(1L, amount);
+
+    // Then
+    assertThat(result.isApplied()).isTrue();
+    assertThat(result.isDeferred()).isFalse();
+    verify(ledgerEntryRepository).materializeWallet(1L);
+  }
+
+  @Test
+  @DisplayName("Should check a batch debit's per-transaction limit against its largest line")
+  void shouldApplyTransactionLimitToLargestBatchLine() {
+    // Given: the total exceeds the 500 per-transaction limit, every line stays below it
+    BigDecimal total = BigDecimal.valueOf(600);
+    wallet.setTransactionLimit(BigDecimal.valueOf(500));
+    when(walletRepository.debitBatchByUserId(1L, total, BigDecimal.valueOf(300)))
+        .thenReturn(Optional.empty());
+    when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(wallet));
+
+    // When
+    WalletUpdateResult result =
+        walletBalanceOperations.debitBatchByUserId(1L, total, BigDecimal.valueOf(300));
+
+    // Then
+    assertThat(result.getRejection()).isEqualTo(Rejection.DAILY_LIMIT_EXCEEDED);
+  }
+
+  private WalletBalanceOperations operations(boolean deferCredits) {
+    return new WalletBalanceOperations(
+        walletRepository,
+        walletBalanceSlotRepository,
+        ledgerEntryRepository,
+        hotWalletManager,
+        jdbcTemplate,
+        entityManager,
+        deferCredits);
+  }
+}
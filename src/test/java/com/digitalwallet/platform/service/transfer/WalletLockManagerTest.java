@@ -0,0 +1,80 @@
+package com.digitalwallet.platform.service.transfer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.digitalwallet.platform.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WalletLockManager Unit Tests")
+class WalletLockManagerTest {
+
+  @Mock private WalletRepository walletRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+  private WalletLockManager lockManager;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    lockManager =
+        new WalletLockManager(
+            walletRepository, meterRegistry, WalletLockManager.LockingMode.PESSIMISTIC, 1500);
+  }
+
+  @Test
+  @DisplayName("Should lock wallets in ascending id order regardless of argument order")
+  void shouldLockWalletsInAscendingIdOrder() {
+    // Given
+    when(walletRepository.lockByIdsInOrder(anyCollection())).thenReturn(List.of(3L, 7L));
+
+    // When
+    List<Long> locked = lockManager.lockInOrder(List.of(7L, 3L));
+
+    // Then
+    assertThat(locked).containsExactly(3L, 7L);
+    InOrder inOrder = inOrder(walletRepository);
+    inOrder.verify(walletRepository).setLocalLockTimeout("1500ms");
+    inOrder
+        .verify(walletRepository)
+        .lockByIdsInOrder(argThat(ids -> List.copyOf(ids).equals(List.of(3L, 7L))));
+    assertThat(meterRegistry.get("wallet.transfer.lock.wait").timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should fail when a wallet to lock does not exist")
+  void shouldFailWhenWalletMissing() {
+    // Given
+    when(walletRepository.lockByIdsInOrder(anyCollection())).thenReturn(List.of(3L));
+
+    // When & Then
+    assertThatThrownBy(() -> lockManager.lockInOrder(List.of(3L, 7L)))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("Wallet not found");
+  }
+
+  @Test
+  @DisplayName("Should count and rethrow lock timeouts")
+  void shouldCountAndRethrowLockTimeouts() {
+    // Given
+    when(walletRepository.lockByIdsInOrder(anyCollection()))
+        .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+    // When & Then
+    assertThatThrownBy(() -> lockManager.lockInOrder(List.of(1L, 2L)))
+        .isInstanceOf(CannotAcquireLockException.class);
+    assertThat(meterRegistry.get("wallet.transfer.lock.timeouts").counter().count())
+        .isEqualTo(1.0);
+  }
+}
@@ -0,0 +1,85 @@
+package com.digitalwallet.platform.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import java.security.Key;
+import java.util.Date;
+import java.util.function.IntSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Per-request token verification cost of the previous JwtUtil path (key and parser rebuilt, token
+ * parsed three times) versus {@link JwtUtil#verify(String)} on a first use and on a cached token.
+ *
+ * <p>Opt-in: {@code mvn test -Dbenchmark=true -Dtest=JwtUtilBenchmarkTest}. A warm-up round runs
+ * before each measured one; results are printed, not asserted.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtUtilBenchmarkTest {
+
+  private static final int REQUESTS = 200_000;
+  private static final Key KEY = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtUtilTest.SECRET));
+
+  // Results are summed here so the JIT cannot drop the measured work
+  private long sink;
+
+  @Test
+  void compareTokenVerification() {
+    JwtUtil jwtUtil = new JwtUtil(JwtUtilTest.SECRET, 3_600_000L, 2 * REQUESTS);
+    String token = jwtUtil.generateToken("benchmark@example.com");
+    // Distinct tokens for the warm-up and measured rounds, so none of them is cached yet
+    String[] tokens = new String[2 * REQUESTS];
+    for (int i = 0; i < tokens.length; i++) {
+      tokens[i] = token("user" + i + "@example.com");
+    }
+
+    report("rebuilt parser, 3 parses", () -> previousPath(token));
+    int[] next = {0};
+    report("verify, first use", () -> jwtUtil.verify(tokens[next[0]++]).subject().length());
+    report("verify, cached", () -> jwtUtil.verify(token).subject().length());
+  }
+
+  // What the filter did per request before JwtUtil.verify
+  private static int previousPath(String token) {
+    String subject = parse(token).getSubject();
+    String again = parse(token).getSubject();
+    Date expiration = parse(token).getExpiration();
+    return subject.equals(again) && expiration.after(new Date()) ? 1 : 0;
+  }
+
+  // Signed like JwtUtil.generateToken, without its per-token INFO log
+  private static String token(String subject) {
+    Date now = new Date();
+    return Jwts.builder()
+        .setSubject(subject)
+        .setIssuedAt(now)
+        .setExpiration(new Date(now.getTime() + 3_600_000L))
+        .signWith(KEY, SignatureAlgorithm.HS256)
+        .compact();
+  }
+
+  private static Claims parse(String token) {
+    return Jwts.parserBuilder()
+        .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtUtilTest.SECRET)))
+        .build()
+        .parseClaimsJws(token)
+        .getBody();
+  }
+
+  private void report(String name, IntSupplier request) {
+    nanosPerOp(request);
+    System.out.printf("%-25s: %.0f ns/request%n", name, nanosPerOp(request));
+  }
+
+  private double nanosPerOp(IntSupplier operation) {
+    long start = System.nanoTime();
+    for (int i = 0; i < REQUESTS; i++) {
+      sink += operation.getAsInt();
+    }
+    return (double) (System.nanoTime() - start) / REQUESTS;
+  }
+}
@@ -0,0 +1,60 @@
+package com.digitalwallet.platform.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.digitalwallet.platform.model.User;
+import com.digitalwallet.platform.security.CustomUserDetails;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("JwtUtil Unit Tests")
+class JwtUtilTest {
+
+  static final String SECRET = "c2VjdXJpdHktandrLXNlY3JldC1rZXktZm9yLWhzMjU2LXNpZ25pbmc=";
+
+  private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000L, 100);
+
+  @Test
+  @DisplayName("Should verify a token once and return the same claims for repeated requests")
+  void shouldVerifyAndCacheToken() {
+    // Given
+    String token = jwtUtil.generateToken("test@example.com");
+
+    // When
+    VerifiedToken first = jwtUtil.verify(token);
+    VerifiedToken second = jwtUtil.verify(token);
+
+    // Then
+    assertThat(first.subject()).isEqualTo("test@example.com");
+    assertThat(first.expiresAt()).isAfter(first.issuedAt());
+    assertThat(second).isSameAs(first);
+    assertThat(jwtUtil.validateToken(token, userDetails("test@example.com"))).isTrue();
+    assertThat(jwtUtil.validateToken(first, userDetails("other@example.com"))).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should reject tampered, foreign and expired tokens")
+  void shouldRejectInvalidTokens() {
+    // Given
+    String token = jwtUtil.generateToken("test@example.com");
+    String[] other = jwtUtil.generateToken("other@example.com").split("\\.");
+    String tampered = other[0] + "." + other[1] + "." + token.split("\\.")[2];
+    String foreign =
+        new JwtUtil("Zm9yZWlnbi1zZWNyZXQta2V5LWZvci1oczI1Ni1zaWduaW5nLXRlc3Q=", 60_000L, 100)
+            .generateToken("test@example.com");
+    String expired = new JwtUtil(SECRET, -1_000L, 100).generateToken("test@example.com");
+
+    // When & Then
+    assertThat(jwtUtil.verify(tampered)).isNull();
+    assertThat(jwtUtil.verify(foreign)).isNull();
+    assertThat(jwtUtil.verify(expired)).isNull();
+    assertThat(jwtUtil.extractUsername(expired)).isNull();
+    assertThat(jwtUtil.verify(token)).isNotNull();
+  }
+
+  private static CustomUserDetails userDetails(String email) {
+    User user = new User();
+    user.setEmail(email);
+    return new CustomUserDetails(user);
+  }
+}